@@ -0,0 +1,119 @@
+package com.example.urlshorter.benchmark;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.core.FileAppender;
+import com.example.urlshorter.accesslog.AccessLogFilter;
+import com.example.urlshorter.accesslog.AsyncAccessLogAppender;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.filter.CommonsRequestLoggingFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the logging overhead a request pays in the servlet filter chain: no access log, the sampled async
+ * access log, the async access log for every request, and the previous CommonsRequestLoggingFilter with payload,
+ * headers and query string at DEBUG. Log output goes to a file under target/jmh rather than the console.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class AccessLogBenchmark {
+    private static final byte[] BODY = "{\"longLink\":\"https://www.example.com/some/long/path?with=query\"}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    @Param({"off", "sampled", "full", "legacy"})
+    String mode;
+
+    private Filter filter;
+
+    private AsyncAccessLogAppender asyncAccessLogAppender;
+
+    private HandlerMethod handlerMethod;
+
+    private FileAppender<?> fileAppender;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        redirectLogsToFile();
+        handlerMethod = new HandlerMethod(this, AccessLogBenchmark.class.getMethod("shorten"));
+        asyncAccessLogAppender = new AsyncAccessLogAppender(8192);
+        if ("legacy".equals(mode)) {
+            CommonsRequestLoggingFilter commonsRequestLoggingFilter = new CommonsRequestLoggingFilter();
+            commonsRequestLoggingFilter.setIncludeQueryString(true);
+            commonsRequestLoggingFilter.setIncludePayload(true);
+            commonsRequestLoggingFilter.setIncludeHeaders(true);
+            commonsRequestLoggingFilter.setMaxPayloadLength(10000);
+            ((Logger) LoggerFactory.getLogger(CommonsRequestLoggingFilter.class)).setLevel(ch.qos.logback.classic.Level.DEBUG);
+            filter = commonsRequestLoggingFilter;
+        } else {
+            double sampleRate = "full".equals(mode) ? 1.0 : 0.01;
+            filter = new AccessLogFilter(asyncAccessLogAppender, new MockEnvironment(), !"off".equals(mode), sampleRate, true);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        asyncAccessLogAppender.shutdown();
+        fileAppender.stop();
+        System.out.println("access log written=" + asyncAccessLogAppender.getWritten()
+                + " dropped=" + asyncAccessLogAppender.getDropped());
+    }
+
+    @Benchmark
+    public MockHttpServletResponse request() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/projects/shortener/v1/shorten");
+        request.setQueryString("source=benchmark");
+        request.addHeader("Content-Type", "application/json");
+        request.addHeader("User-Agent", "jmh");
+        request.setContent(BODY);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain());
+        return response;
+    }
+
+    public void shorten() {
+    }
+
+    private FilterChain chain() {
+        return (request, response) -> {
+            request.setAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE, handlerMethod);
+            // the controller reads the body, which is what makes the legacy filter cache it
+            request.getInputStream().readAllBytes();
+            response.getWriter().write("vat.sl/b");
+        };
+    }
+
+    private void redirectLogsToFile() {
+        LoggerContext loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(loggerContext);
+        encoder.setPattern("%d %-5level [%thread] %logger - %msg%n");
+        encoder.start();
+        FileAppender<ch.qos.logback.classic.spi.ILoggingEvent> appender = new FileAppender<>();
+        appender.setContext(loggerContext);
+        appender.setFile("target/jmh/access-log-benchmark-" + mode + ".log");
+        appender.setAppend(false);
+        appender.setEncoder(encoder);
+        appender.start();
+        Logger root = loggerContext.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.detachAndStopAllAppenders();
+        root.addAppender(appender);
+        root.setLevel(ch.qos.logback.classic.Level.INFO);
+        fileAppender = appender;
+    }
+}
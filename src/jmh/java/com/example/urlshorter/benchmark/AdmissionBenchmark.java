@@ -0,0 +1,88 @@
+package com.example.urlshorter.benchmark;
+
+import com.example.urlshorter.admission.AdmissionControl;
+import com.example.urlshorter.admission.AdmissionFilter;
+import com.example.urlshorter.metrics.ShortenerMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost admission control adds to a request: AdmissionControl.admit for one hot client, for clients
+ * spread over 100k IP addresses and for a client over its limit, and the whole AdmissionFilter around a no-op chain.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class AdmissionBenchmark {
+    private static final int CLIENTS = 100_000;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ShortenerMetrics shortenerMetrics = new ShortenerMetrics(meterRegistry);
+
+    // limits far above what one thread can reach, every request is admitted
+    private final AdmissionControl admissionControl = new AdmissionControl(meterRegistry, shortenerMetrics, true,
+            1_000_000_000, 1_000_000_000, 1_000_000_000, 1_000_000_000, 2L * CLIENTS, Duration.ofMinutes(10),
+            Duration.ofMillis(250), Duration.ofSeconds(1));
+
+    // a client which used up its bucket, every request is limited
+    private final AdmissionControl limitedAdmissionControl = new AdmissionControl(new SimpleMeterRegistry(), shortenerMetrics, true,
+            1, 1, 1, 1, 10, Duration.ofMinutes(10), Duration.ofMillis(250), Duration.ofSeconds(1));
+
+    private final AdmissionFilter admissionFilter = new AdmissionFilter(admissionControl, "X-API-Key");
+
+    private final String[] clients = new String[CLIENTS];
+
+    private final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/w7e");
+
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    private final FilterChain chain = (servletRequest, servletResponse) -> { };
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        for (int i = 0; i < CLIENTS; i++) {
+            clients[i] = "10." + (i >>> 16) + "." + ((i >>> 8) & 0xff) + "." + (i & 0xff);
+            admissionControl.admit(clients[i], false);
+        }
+        limitedAdmissionControl.admit(clients[0], false);
+        request.setRemoteAddr(clients[0]);
+    }
+
+    @Benchmark
+    public long admitOneClient() {
+        return admissionControl.admit(clients[0], false);
+    }
+
+    @Benchmark
+    public long admitManyClients() {
+        // a fixed stride walks all clients in a cache-unfriendly order
+        next = (next + 7919) % CLIENTS;
+        return admissionControl.admit(clients[next], false);
+    }
+
+    @Benchmark
+    public long admitLimited() {
+        return limitedAdmissionControl.admit(clients[0], false);
+    }
+
+    @Benchmark
+    public int filter() throws ServletException, IOException {
+        admissionFilter.doFilter(request, response, chain);
+        return response.getStatus();
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.urlshorter.benchmark;
+
+import com.example.urlshorter.dto.ResolveFormat;
+import com.example.urlshorter.service.BatchResolveService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures BatchResolveService for one request of batchSize short links on a single thread, i.e. per core:
+ * parsing the request, resolving and writing the results to a discarding stream.
+ * Short links are random ids of a table of a million links, 5% of them unknown; throughput is batchSize / time.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class BatchResolveBenchmark {
+    private static final int TABLE_SIZE = 1_000_000;
+
+    @Param({"100", "10000", "1000000"})
+    int batchSize;
+
+    private ConfigurableApplicationContext context;
+
+    private BatchResolveService batchResolveService;
+
+    private byte[] request;
+
+    private final OutputStream discard = OutputStream.nullOutputStream();
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        context = BenchmarkContext.start(WebApplicationType.NONE, TABLE_SIZE);
+        batchResolveService = context.getBean(BatchResolveService.class);
+        SplittableRandom random = new SplittableRandom(42);
+        List<Map<String, String>> links = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            long id = random.nextInt(20) == 0 ? TABLE_SIZE + 1 + random.nextInt(TABLE_SIZE) : 1 + random.nextInt(TABLE_SIZE);
+            links.add(Map.of("link", BenchmarkContext.BASE_URL + BenchmarkContext.shortCode(id)));
+        }
+        request = context.getBean(ObjectMapper.class).writeValueAsBytes(links);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long json() throws IOException {
+        return batchResolveService.resolve(ResolveFormat.JSON, new ByteArrayInputStream(request), discard);
+    }
+
+    @Benchmark
+    public long text() throws IOException {
+        return batchResolveService.resolve(ResolveFormat.TEXT, new ByteArrayInputStream(request), discard);
+    }
+
+    @Benchmark
+    public long binary() throws IOException {
+        return batchResolveService.resolve(ResolveFormat.BINARY, new ByteArrayInputStream(request), discard);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.urlshorter.benchmark;
+
+import com.example.urlshorter.dto.InputURLDTO;
+import com.example.urlshorter.dto.OutputDTO;
+import com.example.urlshorter.service.ShortenerService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures ShortenerService.shortenBatch for one request of batchSize long links.
+ * Each batch has 10% links which are already stored and 10% repeated within the batch.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class BatchShortenBenchmark {
+    private static final int TABLE_SIZE = 100_000;
+
+    @Param({"1000", "100000"})
+    int batchSize;
+
+    private ConfigurableApplicationContext context;
+
+    private ShortenerService shortenerService;
+
+    private final AtomicLong newLinks = new AtomicLong();
+
+    private List<InputURLDTO> batch;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkContext.start(WebApplicationType.NONE, TABLE_SIZE);
+        shortenerService = context.getBean(ShortenerService.class);
+    }
+
+    @Setup(Level.Invocation)
+    public void nextBatch() {
+        batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            String link;
+            if (i % 10 == 0) {
+                link = BenchmarkContext.longLink(i % TABLE_SIZE + 1);
+            } else if (i % 10 == 1 && i > 1) {
+                link = batch.get(i - 1).getLink();
+            } else {
+                link = "https://www.example.com/batch/" + newLinks.incrementAndGet();
+            }
+            InputURLDTO inputURLDTO = new InputURLDTO();
+            inputURLDTO.setLink(link);
+            batch.add(inputURLDTO);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<OutputDTO> shortenBatch() {
+        return shortenerService.shortenBatch(batch);
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.urlshorter.benchmark;
+
+import com.example.urlshorter.UrlShorterApplication;
+import com.example.urlshorter.codec.Base62Codec;
+import com.example.urlshorter.service.LinkDigest;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Starts the application against a fresh embedded H2 database which is pre-populated with a given number of links.
+ * Rows are inserted before the context starts, so startup work like loading the Bloom filter sees them.
+ */
+public final class BenchmarkContext {
+    public static final String BASE_URL = "vat.sl/";
+
+    private static final Base62Codec BASE62_CODEC = new Base62Codec("0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ".split(""));
+
+    private static final int INSERT_CHUNK = 10_000;
+
+    private BenchmarkContext() {
+    }
+
+    /**
+     * Creates and populates a database, then starts the application on it.
+     * @param webApplicationType WebApplicationType, SERVLET listens on a random port
+     * @param rows int
+     * @param properties String... extra properties as key=value
+     * @return ConfigurableApplicationContext
+     */
+    public static ConfigurableApplicationContext start(WebApplicationType webApplicationType, int rows, String... properties) {
+        String url = "jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;QUERY_CACHE_SIZE=64";
+        createDatabase(url, rows);
+        return startOn(webApplicationType, url, properties);
+    }
+
+    /**
+     * Creates the schema in the given database and populates it.
+     * @param url String, jdbc url of an empty H2 database
+     * @param rows int
+     */
+    public static void createDatabase(String url, int rows) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(url, "sa", "password"));
+        new ResourceDatabasePopulator(new ClassPathResource("data.sql")).execute(jdbcTemplate.getDataSource());
+        populate(jdbcTemplate, rows);
+    }
+
+    /**
+     * Starts the application on an existing database, e.g. to restart it on the same data.
+     * @param webApplicationType WebApplicationType, SERVLET listens on a random port
+     * @param url String, jdbc url of a database created with createDatabase
+     * @param properties String... extra properties as key=value
+     * @return ConfigurableApplicationContext
+     */
+    public static ConfigurableApplicationContext startOn(WebApplicationType webApplicationType, String url, String... properties) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=" + url,
+                "--spring.sql.init.mode=never",
+                "--spring.devtools.restart.enabled=false",
+                "--server.port=0",
+                "--logging.level.root=WARN"));
+        for (String property : properties) {
+            args.add("--" + property);
+        }
+        return new SpringApplicationBuilder(UrlShorterApplication.class)
+                .web(webApplicationType)
+                .run(args.toArray(new String[0]));
+    }
+
+    /**
+     * Inserts links with ids 1..rows and moves the id sequence past them.
+     * @param jdbcTemplate JdbcTemplate
+     * @param rows int
+     */
+    public static void populate(JdbcTemplate jdbcTemplate, int rows) {
+        for (int first = 1; first <= rows; first += INSERT_CHUNK) {
+            int from = first;
+            int count = Math.min(INSERT_CHUNK, rows - first + 1);
+            jdbcTemplate.batchUpdate("insert into shortener(id, long_link, long_link_hash) values(?, ?, ?)",
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            long id = from + i;
+                            String longLink = longLink(id);
+                            ps.setLong(1, id);
+                            ps.setString(2, longLink);
+                            ps.setBytes(3, LinkDigest.of(longLink));
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return count;
+                        }
+                    });
+        }
+        jdbcTemplate.update("update id_block set next_id = ? where name = 'shortener'", rows + 1L);
+    }
+
+    /**
+     * Returns the long link stored for the given id, about the length of a real campaign url.
+     * @param id long
+     * @return String
+     */
+    public static String longLink(long id) {
+        return "https://www.example.com/landing/spring-sale?utm_source=newsletter&utm_medium=email&utm_campaign=" + id;
+    }
+
+    /**
+     * Returns the base62 short code of the given id.
+     * @param id long
+     * @return String
+     */
+    public static String shortCode(long id) {
+        return BASE62_CODEC.encode(id);
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.urlshorter.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Runs the selected benchmarks once per thread count in -Djmh.threads and writes a JSON result file per run.
+ * Usage: BenchmarkRunner outputDir [jmh options and include regexps]
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        Path outputDir = Path.of(args[0]);
+        Files.createDirectories(outputDir);
+        CommandLineOptions commandLineOptions = new CommandLineOptions(Arrays.copyOfRange(args, 1, args.length));
+
+        for (String threads : System.getProperty("jmh.threads", "1").split(",")) {
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .parent(commandLineOptions)
+                    .threads(Integer.parseInt(threads.trim()))
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(outputDir.resolve("result-" + threads.trim() + "-threads.json").toString());
+            new Runner(options.build()).run();
+        }
+    }
+}
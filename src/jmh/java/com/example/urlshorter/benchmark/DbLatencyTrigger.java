@@ -0,0 +1,24 @@
+package com.example.urlshorter.benchmark;
+
+import org.h2.api.Trigger;
+
+import java.sql.Connection;
+
+/**
+ * An H2 before-select trigger sleeping for a fixed time, standing in for the network round trip to a real database.
+ * The connection stays checked out while sleeping, like it would while waiting for a remote reply.
+ */
+public class DbLatencyTrigger implements Trigger {
+    static final String LATENCY_PROPERTY = "load.db-latency-ms";
+
+    private final long latencyMillis = Long.getLong(LATENCY_PROPERTY, 0);
+
+    @Override
+    public void fire(Connection conn, Object[] oldRow, Object[] newRow) throws java.sql.SQLException {
+        try {
+            Thread.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
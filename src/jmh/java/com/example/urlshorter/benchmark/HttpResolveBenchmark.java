@@ -0,0 +1,74 @@
+package com.example.urlshorter.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares end to end latency percentiles of the GET /{code} redirect with the POST /v1/original JSON flow
+ * over real HTTP, for codes of a hot set which is served from the cache.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class HttpResolveBenchmark {
+    private static final int TABLE_SIZE = 10_000;
+    private static final int HOT_SET = 1_000;
+
+    private ConfigurableApplicationContext context;
+
+    private HttpClient httpClient;
+
+    private String baseUrl;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkContext.start(WebApplicationType.SERVLET, TABLE_SIZE);
+        int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port + "/projects/shortener";
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int redirect() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/" + BenchmarkContext.shortCode(randomId())))
+                .GET()
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @Benchmark
+    public String postOriginal() throws Exception {
+        String body = "{\"link\":\"" + BenchmarkContext.BASE_URL + BenchmarkContext.shortCode(randomId()) + "\"}";
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/v1/original"))
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString()).body();
+    }
+
+    private static long randomId() {
+        return ThreadLocalRandom.current().nextInt(HOT_SET) + 1L;
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.urlshorter.benchmark;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A closed-loop load test of GET /{code} with a fixed number of concurrent connections. Modes: platform and virtual
+ * serve the MVC controller on the Tomcat pool or on virtual threads, reactive and reactive-blocking the WebFlux router
+ * with ReactiveShortenerOperations or BlockingShortenerOperations. Each connection sends its next request as soon
+ * as the previous one completed.
+ * A share of the requests goes to a small hot set served from the cache, the rest to random codes which mostly
+ * miss it and query the db; an H2 trigger adds db-latency-ms to every query to stand in for a remote db.
+ * Usage: LoadTest [key=value ...], see DEFAULTS; results go to stdout and target/load/results.csv
+ */
+public class LoadTest {
+    private static final Map<String, String> DEFAULTS = Map.of(
+            "modes", "platform,virtual,reactive,reactive-blocking",
+            "connections", "1000,5000,10000",
+            "warmup", "5s",
+            "duration", "15s",
+            "rows", "100000",
+            "hot-set", "1000",
+            "hot-ratio", "0.8",
+            "db-latency-ms", "2",
+            "server-heap", "1g");
+
+    private static final int MAX_SAMPLES = 4_000_000;
+
+    private final Map<String, String> options;
+
+    private final long[] samples = new long[MAX_SAMPLES];
+
+    private final AtomicInteger sampleCount = new AtomicInteger();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    private volatile boolean running;
+
+    private volatile boolean measuring;
+
+    private LoadTest(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(DEFAULTS);
+        for (String arg : args) {
+            String[] keyValue = arg.split("=", 2);
+            options.put(keyValue[0].replaceFirst("^--", ""), keyValue[1]);
+        }
+        List<String> lines = new ArrayList<>();
+        lines.add("mode,connections,throughput_per_s,p50_ms,p99_ms,p999_ms,rejected_503,failed");
+        for (String mode : options.get("modes").split(",")) {
+            Process server = startServer(options, mode);
+            try {
+                int port = readPort(server, mode.startsWith("reactive") ? "REACTIVE_PORT=" : "PORT=");
+                for (String connections : options.get("connections").split(",")) {
+                    String line = new LoadTest(options).run(port, mode, Integer.parseInt(connections));
+                    System.out.println(line);
+                    lines.add(line);
+                }
+            } finally {
+                server.getOutputStream().close();
+                server.waitFor();
+            }
+        }
+        Path output = Path.of("target", "load", "results.csv");
+        Files.createDirectories(output.getParent());
+        Files.write(output, lines, StandardCharsets.UTF_8);
+        System.out.println(String.join(System.lineSeparator(), lines));
+    }
+
+    private String run(int port, String mode, int connections) throws InterruptedException {
+        String baseUrl = "http://localhost:" + port + "/projects/shortener/";
+        int rows = Integer.parseInt(options.get("rows"));
+        int hotSet = Integer.parseInt(options.get("hot-set"));
+        double hotRatio = Double.parseDouble(options.get("hot-ratio"));
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+
+        running = true;
+        for (int i = 0; i < connections; i++) {
+            send(httpClient, baseUrl, rows, hotSet, hotRatio);
+        }
+        Thread.sleep(Duration.parse("PT" + options.get("warmup")).toMillis());
+        measuring = true;
+        long start = System.nanoTime();
+        Thread.sleep(Duration.parse("PT" + options.get("duration")).toMillis());
+        measuring = false;
+        double seconds = (System.nanoTime() - start) / 1e9;
+        running = false;
+        // let in-flight requests drain before the next level opens its connections
+        Thread.sleep(2_000);
+
+        int count = Math.min(sampleCount.get(), MAX_SAMPLES);
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        return String.format("%s,%d,%.0f,%.2f,%.2f,%.2f,%d,%d", mode, connections, count / seconds,
+                percentile(sorted, 0.5), percentile(sorted, 0.99), percentile(sorted, 0.999), rejected.sum(), failed.sum());
+    }
+
+    private void send(HttpClient httpClient, String baseUrl, int rows, int hotSet, double hotRatio) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long id = random.nextDouble() < hotRatio ? random.nextInt(hotSet) + 1L : random.nextInt(rows) + 1L;
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + BenchmarkContext.shortCode(id)))
+                .timeout(Duration.ofSeconds(60))
+                .GET()
+                .build();
+        long start = System.nanoTime();
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+            if (measuring) {
+                if (error != null) {
+                    failed.increment();
+                } else if (response.statusCode() == 503) {
+                    rejected.increment();
+                } else {
+                    int index = sampleCount.getAndIncrement();
+                    if (index < MAX_SAMPLES) {
+                        samples[index] = System.nanoTime() - start;
+                    }
+                }
+            }
+            if (running) {
+                send(httpClient, baseUrl, rows, hotSet, hotRatio);
+            }
+        });
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        return sorted.length == 0 ? Double.NaN : sorted[(int) Math.min(sorted.length - 1, sorted.length * percentile)] / 1e6;
+    }
+
+    private static Process startServer(Map<String, String> options, String mode) throws Exception {
+        List<String> command = new ArrayList<>(List.of(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-Xmx" + options.get("server-heap"),
+                "-D" + DbLatencyTrigger.LATENCY_PROPERTY + "=" + options.get("db-latency-ms"),
+                "-cp", System.getProperty("java.class.path"),
+                LoadTestServer.class.getName(),
+                options.get("rows"),
+                "spring.threads.virtual.enabled=" + mode.equals("virtual"),
+                "app.reactive.enabled=" + mode.startsWith("reactive"),
+                "app.reactive.port=0",
+                "app.reactive.operations=" + (mode.equals("reactive-blocking") ? "blocking" : "reactive"),
+                "app.cache.max-size=" + options.get("hot-set"),
+                "app.analytics.enabled=false"));
+        return new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+    }
+
+    private static int readPort(Process server, String prefix) throws Exception {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(server.getInputStream(), StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.startsWith(prefix)) {
+                int port = Integer.parseInt(line.substring(prefix.length()));
+                Thread drain = new Thread(() -> reader.lines().forEach(l -> { }), "server-stdout");
+                drain.setDaemon(true);
+                drain.start();
+                return port;
+            }
+        }
+        throw new IllegalStateException("Server exited before listening");
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.urlshorter.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import reactor.netty.DisposableServer;
+
+import java.util.Arrays;
+
+/**
+ * Starts the application for LoadTest in its own JVM, so client and server don't share file descriptors or heap.
+ * Prints PORT=n, and REACTIVE_PORT=n with app.reactive.enabled, once it accepts requests and exits when stdin is closed.
+ * Usage: LoadTestServer rows [key=value properties]
+ */
+public class LoadTestServer {
+
+    public static void main(String[] args) throws Exception {
+        // devtools would restart main in a new class loader, passing it the application arguments
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        int rows = Integer.parseInt(args[0]);
+        ConfigurableApplicationContext context = BenchmarkContext.start(WebApplicationType.SERVLET, rows,
+                Arrays.copyOfRange(args, 1, args.length));
+        if (Long.getLong(DbLatencyTrigger.LATENCY_PROPERTY, 0) > 0) {
+            context.getBean(JdbcTemplate.class).execute(
+                    "create trigger shortener_latency before select on shortener call \"" + DbLatencyTrigger.class.getName() + "\"");
+        }
+        System.out.println("PORT=" + ((ServletWebServerApplicationContext) context).getWebServer().getPort());
+        context.getBeanProvider(DisposableServer.class).ifAvailable(server -> System.out.println("REACTIVE_PORT=" + server.port()));
+        System.out.flush();
+        while (System.in.read() != -1) {
+            // wait for the parent to go away
+        }
+        context.close();
+        System.exit(0);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.urlshorter.benchmark;
+
+import com.example.urlshorter.cache.OffHeapLinkIndex;
+import com.example.urlshorter.service.ShortenerService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares resolve latency over the whole table with and without the off-heap link index. The resolve cache is kept
+ * small, so without the index almost every resolve goes to the db. Prints the index memory once it is loaded.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ResolveIndexBenchmark {
+    @Param({"1000000"})
+    int tableSize;
+
+    @Param({"false", "true"})
+    boolean index;
+
+    private ConfigurableApplicationContext context;
+
+    private ShortenerService shortenerService;
+
+    @Setup(Level.Trial)
+    public void setup() throws InterruptedException {
+        context = BenchmarkContext.start(WebApplicationType.NONE, tableSize,
+                "app.index.enabled=" + index,
+                "app.cache.max-size=1000",
+                "app.analytics.enabled=false");
+        shortenerService = context.getBean(ShortenerService.class);
+        OffHeapLinkIndex offHeapLinkIndex = context.getBean(OffHeapLinkIndex.class);
+        long start = System.currentTimeMillis();
+        while (index && !offHeapLinkIndex.isLoaded()) {
+            Thread.sleep(100);
+        }
+        if (index) {
+            System.out.printf("%nIndexed %d links in %d ms, %d bytes off-heap, %.1f bytes per link%n",
+                    offHeapLinkIndex.size(), System.currentTimeMillis() - start, offHeapLinkIndex.offHeapBytes(),
+                    (double) offHeapLinkIndex.offHeapBytes() / offHeapLinkIndex.size());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<String> resolve() {
+        return shortenerService.resolve(BenchmarkContext.shortCode(ThreadLocalRandom.current().nextLong(tableSize) + 1));
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.urlshorter.benchmark;
+
+import com.example.urlshorter.service.ShortenerService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what the shortener.* timers cost on the cached resolve path, with the Prometheus registry and the
+ * configured percentiles and histogram buckets. metrics=false denies the meters, which turns them into no-ops.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ResolveMetricsBenchmark {
+    private static final int TABLE_SIZE = 10_000;
+    private static final int HOT_SET = 1_000;
+
+    @Param({"false", "true"})
+    boolean metrics;
+
+    private ConfigurableApplicationContext context;
+
+    private ShortenerService shortenerService;
+
+    private String[] codes;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkContext.start(WebApplicationType.NONE, TABLE_SIZE,
+                "management.metrics.enable.shortener=" + metrics,
+                "app.analytics.enabled=false");
+        shortenerService = context.getBean(ShortenerService.class);
+        codes = new String[HOT_SET];
+        for (int i = 0; i < HOT_SET; i++) {
+            codes[i] = BenchmarkContext.shortCode(i + 1L);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<String> resolve() {
+        return shortenerService.resolve(codes[ThreadLocalRandom.current().nextInt(HOT_SET)]);
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.urlshorter.benchmark;
+
+import com.example.urlshorter.codec.LinkBinaryCodec;
+import com.example.urlshorter.config.OutputDTOHttpMessageConverter;
+import com.example.urlshorter.dto.OriginalOutputDTO;
+import com.example.urlshorter.dto.Status;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.urlshorter.constants.Constant.RETRIEVED_ORIGINAL_LINK;
+
+/**
+ * Compares writing a resolve response with Jackson, as before, to OutputDTOHttpMessageConverter in JSON, text and
+ * binary. The body size of each format is printed at setup, i.e. the bytes on the wire besides the headers.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class ResponseFormatBenchmark {
+    private final MappingJackson2HttpMessageConverter jacksonConverter = new MappingJackson2HttpMessageConverter(new ObjectMapper());
+
+    private final OutputDTOHttpMessageConverter converter = new OutputDTOHttpMessageConverter();
+
+    // reused, only the headers are per response as with a servlet response
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream(1024);
+
+    private OriginalOutputDTO outputDTO;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        outputDTO = new OriginalOutputDTO(Status.SUCCESS, RETRIEVED_ORIGINAL_LINK, BenchmarkContext.longLink(123_456), "vat.sl/w7e");
+        System.out.printf("%nBody bytes: jackson %d, json %d, text %d, binary %d%n",
+                jackson().size(), json().size(),
+                text().size(), binary().size());
+    }
+
+    @Benchmark
+    public Message jackson() throws IOException {
+        Message message = new Message(body);
+        jacksonConverter.write(outputDTO, MediaType.APPLICATION_JSON, message);
+        return message;
+    }
+
+    @Benchmark
+    public Message json() throws IOException {
+        return write(MediaType.APPLICATION_JSON);
+    }
+
+    @Benchmark
+    public Message text() throws IOException {
+        return write(MediaType.TEXT_PLAIN);
+    }
+
+    @Benchmark
+    public Message binary() throws IOException {
+        return write(LinkBinaryCodec.MEDIA_TYPE);
+    }
+
+    private Message write(MediaType mediaType) throws IOException {
+        Message message = new Message(body);
+        converter.write(outputDTO, mediaType, message);
+        return message;
+    }
+
+    public static final class Message implements HttpOutputMessage {
+        private final HttpHeaders headers = new HttpHeaders();
+
+        private final ByteArrayOutputStream body;
+
+        Message(ByteArrayOutputStream body) {
+            body.reset();
+            this.body = body;
+        }
+
+        @Override
+        public OutputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        int size() {
+            return body.size();
+        }
+    }
+}
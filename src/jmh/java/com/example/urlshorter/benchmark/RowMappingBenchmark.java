@@ -0,0 +1,126 @@
+package com.example.urlshorter.benchmark;
+
+import com.example.urlshorter.dto.LinkRecordDTO;
+import com.example.urlshorter.repository.ShortenerRepository;
+import com.example.urlshorter.service.LinkDigest;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the ShortenerRepository queries, with constant statements and static row mappers, to the former way of
+ * running them: a BeanPropertyRowMapper per call over select *, queryForObject throwing on a missing id and
+ * in-queries with as many placeholders as digests.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class RowMappingBenchmark {
+    private static final int TABLE_SIZE = 100_000;
+    private static final int PAGE_SIZE = 100;
+    private static final int MAX_HASHES = 64;
+
+    private ConfigurableApplicationContext context;
+
+    private ShortenerRepository shortenerRepository;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkContext.start(WebApplicationType.NONE, TABLE_SIZE);
+        shortenerRepository = context.getBean(ShortenerRepository.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<LinkRecordDTO> findPage() {
+        return shortenerRepository.findPage(randomAfterId(), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<LinkRecordDTO> legacyFindPage() {
+        return jdbcTemplate.query("select * from shortener where id > ? order by id limit ?",
+                new BeanPropertyRowMapper<>(LinkRecordDTO.class),
+                randomAfterId(), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Optional<String> findById() {
+        return shortenerRepository.findById(randomId());
+    }
+
+    @Benchmark
+    public Optional<String> legacyFindById() {
+        return legacyFindById(randomId());
+    }
+
+    @Benchmark
+    public Optional<String> findByIdMissing() {
+        return shortenerRepository.findById(TABLE_SIZE + randomId());
+    }
+
+    @Benchmark
+    public Optional<String> legacyFindByIdMissing() {
+        return legacyFindById(TABLE_SIZE + randomId());
+    }
+
+    @Benchmark
+    public List<LinkRecordDTO> findByLongLinkHashes() {
+        return shortenerRepository.findByLongLinkHashes(randomHashes());
+    }
+
+    @Benchmark
+    public List<LinkRecordDTO> legacyFindByLongLinkHashes() {
+        List<byte[]> longLinkHashes = randomHashes();
+        return jdbcTemplate.query("select * from shortener where long_link_hash in ("
+                        + String.join(",", Collections.nCopies(longLinkHashes.size(), "?")) + ")",
+                new BeanPropertyRowMapper<>(LinkRecordDTO.class),
+                longLinkHashes.toArray());
+    }
+
+    private Optional<String> legacyFindById(long id) {
+        try {
+            return Optional.ofNullable(jdbcTemplate.queryForObject("select long_link from shortener where id = ?", String.class, id));
+        } catch (EmptyResultDataAccessException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static long randomId() {
+        return ThreadLocalRandom.current().nextInt(TABLE_SIZE) + 1L;
+    }
+
+    private static long randomAfterId() {
+        return ThreadLocalRandom.current().nextInt(TABLE_SIZE - PAGE_SIZE);
+    }
+
+    // a batch of 1 to MAX_HASHES digests, as shorten-batch sends them
+    private static List<byte[]> randomHashes() {
+        int count = ThreadLocalRandom.current().nextInt(MAX_HASHES) + 1;
+        List<byte[]> longLinkHashes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            longLinkHashes.add(LinkDigest.of(BenchmarkContext.longLink(randomId())));
+        }
+        return longLinkHashes;
+    }
+}
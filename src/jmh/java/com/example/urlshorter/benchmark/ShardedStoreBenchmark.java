@@ -0,0 +1,94 @@
+package com.example.urlshorter.benchmark;
+
+import com.example.urlshorter.dto.LinkRecordDTO;
+import com.example.urlshorter.metrics.ShortenerMetrics;
+import com.example.urlshorter.repository.sharded.ShardedLinkStore;
+import com.example.urlshorter.service.LinkDigest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures write and read throughput of the ShardedLinkStore as shards are added, each shard an in-memory H2
+ * database: batches of new links, resolves by id and dedup lookups by long link over a preloaded table.
+ * Shards only add throughput when there are cores, or machines, to run them on; run with -t to match.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ShardedStoreBenchmark {
+    private static final int TABLE_SIZE = 100_000;
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"1", "2", "4"})
+    public int shards;
+
+    private ShardedLinkStore linkStore;
+
+    private final AtomicLong nextId = new AtomicLong(TABLE_SIZE + 1);
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String run = UUID.randomUUID().toString();
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < shards; i++) {
+            urls.add("jdbc:h2:mem:shard-" + run + "-" + i + ";DB_CLOSE_DELAY=-1");
+        }
+        linkStore = new ShardedLinkStore(urls, "sa", "", 10, 1, true, new ShortenerMetrics(new SimpleMeterRegistry()));
+        List<LinkRecordDTO> batch = new ArrayList<>(10_000);
+        for (long id = 1; id <= TABLE_SIZE; id++) {
+            batch.add(link(id));
+            if (batch.size() == 10_000) {
+                linkStore.insertAll(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        linkStore.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void insertAll() {
+        long first = nextId.getAndAdd(BATCH_SIZE);
+        List<LinkRecordDTO> batch = new ArrayList<>(BATCH_SIZE);
+        for (long id = first; id < first + BATCH_SIZE; id++) {
+            batch.add(link(id));
+        }
+        linkStore.insertAll(batch);
+    }
+
+    @Benchmark
+    public Optional<String> findById() {
+        return linkStore.findById(randomId());
+    }
+
+    @Benchmark
+    public Optional<Long> findByLongLink() {
+        String longLink = BenchmarkContext.longLink(randomId());
+        return linkStore.findByLongLink(longLink, LinkDigest.of(longLink));
+    }
+
+    private static LinkRecordDTO link(long id) {
+        String longLink = BenchmarkContext.longLink(id);
+        return new LinkRecordDTO(id, longLink, LinkDigest.of(longLink));
+    }
+
+    private static long randomId() {
+        return ThreadLocalRandom.current().nextInt(TABLE_SIZE) + 1L;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.urlshorter.benchmark;
+
+import com.example.urlshorter.repository.ShortenerRepository;
+import com.example.urlshorter.service.LinkDigest;
+import lombok.Setter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmarks the ShortenerRepository queries against embedded H2 at different table sizes.
+ * legacyFindByShortLink runs the former lookup on the unique varchar(65535) short_link column of a copy of the table,
+ * as a baseline for findById.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class ShortenerRepositoryBenchmark {
+    @Param({"10000", "1000000"})
+    int tableSize;
+
+    private ConfigurableApplicationContext context;
+
+    private ShortenerRepository shortenerRepository;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private final AtomicLong newIds = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkContext.start(WebApplicationType.NONE, tableSize);
+        shortenerRepository = context.getBean(ShortenerRepository.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        newIds.set(tableSize);
+
+        jdbcTemplate.execute("create table legacy_shortener(id number(8) primary key, long_link varchar(65535) unique not null, short_link varchar(65535) unique not null)");
+        jdbcTemplate.update("insert into legacy_shortener(id, long_link, short_link) select id, long_link, concat(?, id) from shortener", BenchmarkContext.BASE_URL);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<String> findById() {
+        return shortenerRepository.findById(randomId());
+    }
+
+    @Benchmark
+    public List<LegacyRow> legacyFindByShortLink() {
+        // short_link holds app.base.url + id here, same width and selectivity as the base62 code
+        return jdbcTemplate.query("select * from legacy_shortener where short_link = ?",
+                new BeanPropertyRowMapper<>(LegacyRow.class),
+                BenchmarkContext.BASE_URL + randomId());
+    }
+
+    @Benchmark
+    public Optional<Long> findByLongLink() {
+        String longLink = BenchmarkContext.longLink(randomId());
+        return shortenerRepository.findByLongLink(longLink, LinkDigest.of(longLink));
+    }
+
+    @Benchmark
+    public Optional<Long> findByLongLinkMissing() {
+        String longLink = "https://www.example.com/missing/" + randomId();
+        return shortenerRepository.findByLongLink(longLink, LinkDigest.of(longLink));
+    }
+
+    @Benchmark
+    public void insert() {
+        long id = newIds.incrementAndGet();
+        String longLink = BenchmarkContext.longLink(id);
+        shortenerRepository.insert(id, longLink, LinkDigest.of(longLink));
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextInt(tableSize) + 1L;
+    }
+
+    @Setter
+    public static class LegacyRow {
+        private long id;
+        private String longLink;
+        private String shortLink;
+    }
+}
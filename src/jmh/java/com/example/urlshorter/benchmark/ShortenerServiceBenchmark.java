@@ -0,0 +1,81 @@
+package com.example.urlshorter.benchmark;
+
+import com.example.urlshorter.dto.InputURLDTO;
+import com.example.urlshorter.dto.OutputDTO;
+import com.example.urlshorter.service.ShortenerService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmarks ShortenerService against embedded H2 at different table sizes.
+ * getOriginalHot resolves a small hot set which is served from the cache; getOriginalRandom resolves
+ * random codes of the whole table, which mostly misses once the table is larger than app.cache.max-size.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class ShortenerServiceBenchmark {
+    private static final int HOT_SET = 1_000;
+
+    @Param({"10000", "1000000"})
+    int tableSize;
+
+    @Param({"false", "true"})
+    boolean bloomFilter;
+
+    private ConfigurableApplicationContext context;
+
+    private ShortenerService shortenerService;
+
+    private final AtomicLong newLinks = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkContext.start(WebApplicationType.NONE, tableSize, "app.dedup.bloom.enabled=" + bloomFilter);
+        shortenerService = context.getBean(ShortenerService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public OutputDTO shortenNew() {
+        return shortenerService.shorten(input("https://www.example.com/new/" + newLinks.incrementAndGet()));
+    }
+
+    @Benchmark
+    public OutputDTO shortenExisting() {
+        return shortenerService.shorten(input(BenchmarkContext.longLink(randomId(tableSize))));
+    }
+
+    @Benchmark
+    public OutputDTO getOriginalHot() {
+        return shortenerService.getOriginal(input(BenchmarkContext.BASE_URL + BenchmarkContext.shortCode(randomId(HOT_SET))));
+    }
+
+    @Benchmark
+    public OutputDTO getOriginalRandom() {
+        return shortenerService.getOriginal(input(BenchmarkContext.BASE_URL + BenchmarkContext.shortCode(randomId(tableSize))));
+    }
+
+    private static long randomId(int bound) {
+        return ThreadLocalRandom.current().nextInt(bound) + 1L;
+    }
+
+    private static InputURLDTO input(String link) {
+        InputURLDTO inputURLDTO = new InputURLDTO();
+        inputURLDTO.setLink(link);
+        return inputURLDTO;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.urlshorter.benchmark;
+
+import com.example.urlshorter.validation.UrlNormalizer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Compares UrlNormalizer to the @Pattern regex it replaced on InputURLDTO, on a valid link and on an input without
+ * a top-level domain, each of about 100 bytes and 8 KB. The regex backtracks over its {2,256} character class at
+ * every start position before it gives up on the second kind.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class UrlValidationBenchmark {
+    private static final Pattern LEGACY_PATTERN =
+            Pattern.compile("[(http(s)?):\\/\\/(www\\.)?a-zA-Z0-9@:%._\\+~#=]{2,256}\\.[a-z]{2,6}\\b([-a-zA-Z0-9@:%_\\+.~#?&//=]*)");
+
+    @Param({"100", "8192"})
+    public int length;
+
+    @Param({"valid", "noTld"})
+    public String input;
+
+    private String link;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String prefix = input.equals("valid") ? "https://www.example.com/" : "https://";
+        StringBuilder builder = new StringBuilder(prefix);
+        for (int i = 0; builder.length() < length; i++) {
+            builder.append(input.equals("valid") ? (i % 8 == 7 ? '/' : 'a') : (i % 8 == 7 ? '_' : 'a'));
+        }
+        link = builder.toString();
+    }
+
+    @Benchmark
+    public String normalize() {
+        return UrlNormalizer.normalize(link);
+    }
+
+    @Benchmark
+    public boolean legacyPattern() {
+        // as @Pattern validates, the whole input has to match
+        return LEGACY_PATTERN.matcher(link).matches();
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.urlshorter.benchmark;
+
+import com.example.urlshorter.dto.CacheStatsDTO;
+import com.example.urlshorter.service.ShortenerService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares a cold start with a start from a cache snapshot: the time to start the application and serve its first
+ * resolves, and the cache hit rate over those resolves. Resolves follow a Zipf distribution over the table. With
+ * snapshot=true, a previous instance served the same traffic and wrote its snapshot on shutdown.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class WarmStartBenchmark {
+    private static final int TABLE_SIZE = 200_000;
+    private static final int CACHE_SIZE = 20_000;
+    private static final int PREVIOUS_RESOLVES = 500_000;
+    private static final int FIRST_RESOLVES = 100_000;
+
+    @Param({"false", "true"})
+    boolean snapshot;
+
+    private String url;
+
+    private Path snapshotFile;
+
+    private final Zipf zipf = new Zipf(TABLE_SIZE, 1.0, 42);
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        Path dir = Files.createDirectories(Path.of("target", "jmh", "warm-start-" + UUID.randomUUID()));
+        url = "jdbc:h2:file:" + dir.toAbsolutePath().resolve("db");
+        snapshotFile = dir.resolve("hot-links.snap");
+        BenchmarkContext.createDatabase(url, TABLE_SIZE);
+        if (snapshot) {
+            // the previous instance, which writes the snapshot on shutdown
+            try (ConfigurableApplicationContext context = start()) {
+                resolve(context.getBean(ShortenerService.class), PREVIOUS_RESOLVES);
+            }
+        }
+    }
+
+    @Benchmark
+    public double startAndServe() {
+        long start = System.nanoTime();
+        try (ConfigurableApplicationContext context = start()) {
+            long startupMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            ShortenerService shortenerService = context.getBean(ShortenerService.class);
+            resolve(shortenerService, FIRST_RESOLVES);
+            CacheStatsDTO cacheStats = shortenerService.getCacheStats();
+            System.out.printf("%nstartup %d ms, first %d resolves in %d ms, hit rate %.3f%n", startupMillis, FIRST_RESOLVES,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) - startupMillis, cacheStats.getHitRate());
+            return cacheStats.getHitRate();
+        }
+    }
+
+    private ConfigurableApplicationContext start() {
+        return BenchmarkContext.startOn(WebApplicationType.NONE, url,
+                "app.cache.max-size=" + CACHE_SIZE,
+                "app.cache.snapshot.enabled=" + snapshot,
+                "app.cache.snapshot.file=" + snapshotFile,
+                "app.analytics.enabled=false");
+    }
+
+    private void resolve(ShortenerService shortenerService, int resolves) {
+        zipf.reset();
+        for (int i = 0; i < resolves; i++) {
+            shortenerService.resolve(BenchmarkContext.shortCode(zipf.next()));
+        }
+    }
+
+    /**
+     * Zipf distributed ids 1..n, the same sequence after every reset.
+     */
+    private static final class Zipf {
+        private final double[] cdf;
+
+        private final long seed;
+
+        private Random random;
+
+        private Zipf(int n, double exponent, long seed) {
+            this.cdf = new double[n];
+            this.seed = seed;
+            double sum = 0;
+            for (int i = 0; i < n; i++) {
+                sum += 1 / Math.pow(i + 1, exponent);
+                cdf[i] = sum;
+            }
+            for (int i = 0; i < n; i++) {
+                cdf[i] /= sum;
+            }
+            reset();
+        }
+
+        private void reset() {
+            random = new Random(seed);
+        }
+
+        private long next() {
+            int index = Arrays.binarySearch(cdf, random.nextDouble());
+            return (index >= 0 ? index : -index - 1) + 1L;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.urlshorter.codec;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares Base62Codec with the former String[] based ShortenerService.generateShortLink, for ids of different magnitude.
+ * The legacy method runs with its debug logging disabled, as in production.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Base62CodecBenchmark {
+    private static final String BASE_URL = "vat.sl/";
+
+    private static final String[] BASE62_DIGITS = "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ".split("");
+
+    private static final Logger log = (Logger) LoggerFactory.getLogger(Base62CodecBenchmark.class);
+
+    @Param({"1", "56800235583", "9223372036854775807"})
+    long id;
+
+    private Base62Codec base62Codec;
+
+    private String shortCode;
+
+    private final char[] buffer = new char[Base62Codec.MAX_LENGTH];
+
+    @Setup
+    public void setup() {
+        log.setLevel(Level.INFO);
+        base62Codec = new Base62Codec(BASE62_DIGITS);
+        shortCode = base62Codec.encode(id);
+    }
+
+    @Benchmark
+    public String legacyGenerateShortLink() {
+        long id = this.id;
+        log.debug("id:" + id);
+        StringBuilder sb = new StringBuilder();
+
+        while (id != 0) {
+            String c = BASE62_DIGITS[(int) (id % 62)];
+            sb.append(c);
+            id = id/62;
+        }
+        sb.reverse();
+        log.debug("uri:" + sb);
+        return BASE_URL + sb;
+    }
+
+    @Benchmark
+    public String generateShortLink() {
+        StringBuilder sb = new StringBuilder(BASE_URL.length() + Base62Codec.MAX_LENGTH).append(BASE_URL);
+        return base62Codec.appendTo(id, sb).toString();
+    }
+
+    @Benchmark
+    public int encodeToBuffer() {
+        return base62Codec.encode(id, buffer, 0);
+    }
+
+    @Benchmark
+    public long decode() {
+        return base62Codec.tryDecode(shortCode, 0, shortCode.length());
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.urlshorter.accesslog;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Writes one access log record per sampled request: method, endpoint, path, status and duration.
+ * Bodies, headers and query strings are never read. The endpoint is the name of the handler method, e.g. redirect
+ * or shorten; app.access-log.endpoint.[name].enabled=false turns logging off for it. Server errors are always logged
+ * with app.access-log.always-log-errors, everything else with probability app.access-log.sample-rate.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class AccessLogFilter extends OncePerRequestFilter {
+    static final String UNMATCHED_ENDPOINT = "unmatched";
+
+    private final AsyncAccessLogAppender asyncAccessLogAppender;
+
+    private final Environment environment;
+
+    private final boolean enabled;
+
+    private final double sampleRate;
+
+    private final boolean alwaysLogErrors;
+
+    private final Map<String, Boolean> endpointEnabled = new ConcurrentHashMap<>();
+
+    public AccessLogFilter(AsyncAccessLogAppender asyncAccessLogAppender, Environment environment,
+                           @Value("${app.access-log.enabled}") boolean enabled,
+                           @Value("${app.access-log.sample-rate}") double sampleRate,
+                           @Value("${app.access-log.always-log-errors}") boolean alwaysLogErrors) {
+        this.asyncAccessLogAppender = asyncAccessLogAppender;
+        this.environment = environment;
+        this.enabled = enabled;
+        this.sampleRate = sampleRate;
+        this.alwaysLogErrors = alwaysLogErrors;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!enabled) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        long start = System.nanoTime();
+        int status = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+        try {
+            filterChain.doFilter(request, response);
+            status = response.getStatus();
+        } finally {
+            long durationNanos = System.nanoTime() - start;
+            if ((alwaysLogErrors && status >= HttpServletResponse.SC_INTERNAL_SERVER_ERROR) || sampled()) {
+                String endpoint = endpoint(request);
+                if (isEndpointEnabled(endpoint)) {
+                    asyncAccessLogAppender.append(System.currentTimeMillis(), request.getMethod(), endpoint,
+                            request.getRequestURI(), status, durationNanos);
+                }
+            }
+        }
+    }
+
+    private boolean sampled() {
+        return sampleRate >= 1.0 || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    private boolean isEndpointEnabled(String endpoint) {
+        Boolean endpointEnabledFlag = endpointEnabled.get(endpoint);
+        if (endpointEnabledFlag == null) {
+            endpointEnabledFlag = environment.getProperty("app.access-log.endpoint." + endpoint + ".enabled", Boolean.class, true);
+            endpointEnabled.put(endpoint, endpointEnabledFlag);
+        }
+        return endpointEnabledFlag;
+    }
+
+    private static String endpoint(HttpServletRequest request) {
+        return request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE) instanceof HandlerMethod handlerMethod
+                ? handlerMethod.getMethod().getName()
+                : UNMATCHED_ENDPOINT;
+    }
+}
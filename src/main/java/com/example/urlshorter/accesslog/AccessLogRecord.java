@@ -0,0 +1,45 @@
+package com.example.urlshorter.accesslog;
+
+/**
+ * One access log entry. Records are preallocated slots of the AsyncAccessLogAppender ring buffer and are
+ * overwritten in place, so logging a request allocates nothing beyond what the request already holds.
+ */
+final class AccessLogRecord {
+    long timestampMillis;
+    String method;
+    String endpoint;
+    String path;
+    int status;
+    long durationNanos;
+
+    // sequence of the request which wrote this slot, published last
+    volatile long sequence = -1;
+
+    /**
+     * Appends the record as one JSON line without the line break.
+     * @param sb StringBuilder
+     */
+    void appendJson(StringBuilder sb) {
+        sb.append("{\"ts\":").append(timestampMillis)
+                .append(",\"method\":\"").append(method)
+                .append("\",\"endpoint\":\"").append(endpoint)
+                .append("\",\"path\":\"");
+        appendEscaped(sb, path);
+        sb.append("\",\"status\":").append(status)
+                .append(",\"durationUs\":").append(durationNanos / 1000)
+                .append('}');
+    }
+
+    private static void appendEscaped(StringBuilder sb, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+    }
+}
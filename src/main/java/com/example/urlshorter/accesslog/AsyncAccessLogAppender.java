@@ -0,0 +1,127 @@
+package com.example.urlshorter.accesslog;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded multi-producer ring buffer of access log records, drained by a single writer thread.
+ * Request threads claim a slot with one CAS and fill it in place; formatting and the actual logging happen on
+ * the writer thread. When the writer falls behind, new records are dropped and counted instead of blocking requests.
+ * Lines go to the "access" logger at INFO, so where they end up is up to the logging configuration.
+ */
+
+@Slf4j
+@Component
+public class AsyncAccessLogAppender {
+    private static final Logger ACCESS_LOG = LoggerFactory.getLogger("access");
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final AccessLogRecord[] records;
+
+    private final int mask;
+
+    private final AtomicLong tail = new AtomicLong();
+
+    private volatile long head;
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final Thread writer;
+
+    private volatile boolean running = true;
+
+    public AsyncAccessLogAppender(@Value("${app.access-log.buffer-size}") int bufferSize) {
+        int capacity = Integer.highestOneBit(Math.max(2, bufferSize - 1)) << 1;
+        this.records = new AccessLogRecord[capacity];
+        for (int i = 0; i < capacity; i++) {
+            records[i] = new AccessLogRecord();
+        }
+        this.mask = capacity - 1;
+        this.writer = new Thread(this::drainLoop, "access-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues a record, dropping it if the buffer is full.
+     * @return true if the record was queued
+     */
+    public boolean append(long timestampMillis, String method, String endpoint, String path, int status, long durationNanos) {
+        long sequence;
+        do {
+            sequence = tail.get();
+            if (sequence - head >= records.length) {
+                dropped.increment();
+                return false;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+        AccessLogRecord record = records[(int) sequence & mask];
+        record.timestampMillis = timestampMillis;
+        record.method = method;
+        record.endpoint = endpoint;
+        record.path = path;
+        record.status = status;
+        record.durationNanos = durationNanos;
+        record.sequence = sequence;
+        return true;
+    }
+
+    /**
+     * Returns the number of records dropped because the buffer was full.
+     * @return long
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Returns the number of records written so far.
+     * @return long
+     */
+    public long getWritten() {
+        return head;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    private void drainLoop() {
+        StringBuilder sb = new StringBuilder(256);
+        while (true) {
+            long next = head;
+            AccessLogRecord record = records[(int) next & mask];
+            if (record.sequence != next) {
+                if (!running && tail.get() == next) {
+                    return;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            sb.setLength(0);
+            record.appendJson(sb);
+            record.method = null;
+            record.endpoint = null;
+            record.path = null;
+            head = next + 1;
+            try {
+                ACCESS_LOG.info(sb.toString());
+            } catch (RuntimeException e) {
+                log.warn("Writing access log failed", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.urlshorter.admission;
+
+import com.example.urlshorter.metrics.DbLatencyMonitor;
+import com.example.urlshorter.metrics.ShortenerMetrics;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Decides whether a request is admitted, per client and per endpoint class, read or write.
+ * Every client, an API key or an IP address, has a read and a write token bucket, see ClientBuckets, refilled at
+ * app.admission.[read|write].rate per second up to burst tokens. Buckets live in a Caffeine cache bounded to
+ * max-clients and dropped after idle-timeout without requests; a dropped bucket comes back full.
+ * While the db query latency averages over app.admission.shed.db-latency, writes, which always hit the db, are shed
+ * before they take a token; reads are mostly served from the cache and keep going.
+ * Decisions are counted as admission.requests, tagged with the class and outcome admitted, limited or shed.
+ */
+
+@Component
+public class AdmissionControl {
+    private final boolean enabled;
+
+    private final long readIntervalNanos;
+
+    private final long readBurstNanos;
+
+    private final long writeIntervalNanos;
+
+    private final long writeBurstNanos;
+
+    private final long shedLatencyNanos;
+
+    private final long shedRetryAfterNanos;
+
+    private final DbLatencyMonitor dbLatencyMonitor;
+
+    private final Cache<String, ClientBuckets> clients;
+
+    private final Function<String, ClientBuckets> newClient = client -> new ClientBuckets(System.nanoTime());
+
+    private final Counter readAdmitted;
+
+    private final Counter readLimited;
+
+    private final Counter writeAdmitted;
+
+    private final Counter writeLimited;
+
+    private final Counter writeShed;
+
+    public AdmissionControl(MeterRegistry meterRegistry, ShortenerMetrics shortenerMetrics,
+                            @Value("${app.admission.enabled}") boolean enabled,
+                            @Value("${app.admission.read.rate}") int readRate,
+                            @Value("${app.admission.read.burst}") int readBurst,
+                            @Value("${app.admission.write.rate}") int writeRate,
+                            @Value("${app.admission.write.burst}") int writeBurst,
+                            @Value("${app.admission.max-clients}") long maxClients,
+                            @Value("${app.admission.idle-timeout}") Duration idleTimeout,
+                            @Value("${app.admission.shed.db-latency}") Duration shedLatency,
+                            @Value("${app.admission.shed.retry-after}") Duration shedRetryAfter) {
+        this.enabled = enabled;
+        this.readIntervalNanos = TimeUnit.SECONDS.toNanos(1) / readRate;
+        this.readBurstNanos = readIntervalNanos * readBurst;
+        this.writeIntervalNanos = TimeUnit.SECONDS.toNanos(1) / writeRate;
+        this.writeBurstNanos = writeIntervalNanos * writeBurst;
+        this.shedLatencyNanos = shedLatency.toNanos();
+        this.shedRetryAfterNanos = shedRetryAfter.toNanos();
+        this.dbLatencyMonitor = shortenerMetrics.dbLatency();
+        this.clients = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(idleTimeout)
+                .build();
+        this.readAdmitted = counter(meterRegistry, "read", "admitted");
+        this.readLimited = counter(meterRegistry, "read", "limited");
+        this.writeAdmitted = counter(meterRegistry, "write", "admitted");
+        this.writeLimited = counter(meterRegistry, "write", "limited");
+        this.writeShed = counter(meterRegistry, "write", "shed");
+        Gauge.builder("admission.clients", this, AdmissionControl::clientCount)
+                .description("Clients with a rate limit bucket")
+                .register(meterRegistry);
+        Gauge.builder("admission.db.latency", dbLatencyMonitor, monitor -> monitor.averageNanos() / 1e9)
+                .description("Moving average of the db query latency which writes are shed on")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns whether admission control is enabled with app.admission.enabled.
+     * @return boolean
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Admits a request of the given client or tells it when to retry.
+     * @param client String, API key or IP address
+     * @param write boolean, true for endpoints creating links
+     * @return 0 if the request is admitted, else the nanoseconds after which to retry
+     */
+    public long admit(String client, boolean write) {
+        if (write && dbLatencyMonitor.isAbove(shedLatencyNanos)) {
+            writeShed.increment();
+            return shedRetryAfterNanos;
+        }
+        ClientBuckets clientBuckets = clients.get(client, newClient);
+        long waitNanos = write
+                ? clientBuckets.take(true, System.nanoTime(), writeIntervalNanos, writeBurstNanos)
+                : clientBuckets.take(false, System.nanoTime(), readIntervalNanos, readBurstNanos);
+        if (waitNanos == 0) {
+            (write ? writeAdmitted : readAdmitted).increment();
+        } else {
+            (write ? writeLimited : readLimited).increment();
+        }
+        return waitNanos;
+    }
+
+    /**
+     * Returns the number of clients with a bucket.
+     * @return long
+     */
+    public long clientCount() {
+        return clients.estimatedSize();
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String endpointClass, String outcome) {
+        return Counter.builder("admission.requests")
+                .description("Requests by admission decision")
+                .tag("class", endpointClass)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
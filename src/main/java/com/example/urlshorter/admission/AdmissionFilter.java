@@ -0,0 +1,81 @@
+package com.example.urlshorter.admission;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs every request through AdmissionControl before it reaches a handler, answering 429 with Retry-After in
+ * seconds when it is not admitted. Writes are POSTs to /v1/shorten and /v1/shorten/batch, everything else is a read;
+ * /actuator is never limited. The client is the value of the app.admission.api-key-header header if present,
+ * else the remote address. Runs after the access log filter, so rejected requests are logged as well.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class AdmissionFilter extends OncePerRequestFilter {
+    private static final String WRITE_PATH = "/v1/shorten";
+    private static final String ACTUATOR_PATH = "/actuator";
+    private static final String API_KEY_PREFIX = "key:";
+    private static final byte[] TOO_MANY_REQUESTS_BODY =
+            "{\"errorMessage\":\"Too many requests, please retry\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final AdmissionControl admissionControl;
+
+    private final String apiKeyHeader;
+
+    public AdmissionFilter(AdmissionControl admissionControl,
+                           @Value("${app.admission.api-key-header}") String apiKeyHeader) {
+        this.admissionControl = admissionControl;
+        this.apiKeyHeader = apiKeyHeader;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!admissionControl.isEnabled()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        String uri = request.getRequestURI();
+        int pathStart = request.getContextPath().length();
+        if (uri.startsWith(ACTUATOR_PATH, pathStart)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        boolean write = uri.startsWith(WRITE_PATH, pathStart) && "POST".equals(request.getMethod());
+        long retryAfterNanos = admissionControl.admit(client(request), write);
+        if (retryAfterNanos == 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds(retryAfterNanos)));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(TOO_MANY_REQUESTS_BODY.length);
+        response.getOutputStream().write(TOO_MANY_REQUESTS_BODY);
+    }
+
+    private String client(HttpServletRequest request) {
+        String apiKey = request.getHeader(apiKeyHeader);
+        // prefixed, so an API key cannot pose as an IP address
+        return apiKey != null ? API_KEY_PREFIX + apiKey : request.getRemoteAddr();
+    }
+
+    // whole seconds, rounded up, at least one
+    static long retryAfterSeconds(long retryAfterNanos) {
+        return Math.max(1, (retryAfterNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+}
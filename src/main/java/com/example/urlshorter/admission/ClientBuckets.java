@@ -0,0 +1,62 @@
+package com.example.urlshorter.admission;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * The read and the write token bucket of one client.
+ * A bucket is kept as the single timestamp at which it will be full again, the theoretical arrival time of the
+ * generic cell rate algorithm: taking a token pushes it one interval further, and a token is available while it is
+ * at most burst intervals ahead of now. This is the same as counting tokens refilled at one per interval up to
+ * burst, but the state fits in one long, so a take is one compare-and-set and never locks.
+ */
+final class ClientBuckets {
+    private static final VarHandle READ;
+    private static final VarHandle WRITE;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            READ = lookup.findVarHandle(ClientBuckets.class, "readFullAt", long.class);
+            WRITE = lookup.findVarHandle(ClientBuckets.class, "writeFullAt", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private volatile long readFullAt;
+
+    private volatile long writeFullAt;
+
+    /**
+     * Creates full buckets.
+     * @param nowNanos long, System.nanoTime()
+     */
+    ClientBuckets(long nowNanos) {
+        this.readFullAt = nowNanos;
+        this.writeFullAt = nowNanos;
+    }
+
+    /**
+     * Takes a token from the read or the write bucket.
+     * @param write boolean
+     * @param nowNanos long, System.nanoTime()
+     * @param intervalNanos long, time to refill one token
+     * @param burstNanos long, time to refill the whole bucket
+     * @return 0 if a token was taken, else the nanoseconds until one is available
+     */
+    long take(boolean write, long nowNanos, long intervalNanos, long burstNanos) {
+        VarHandle bucket = write ? WRITE : READ;
+        while (true) {
+            long fullAt = (long) bucket.getVolatile(this);
+            long next = Math.max(fullAt, nowNanos) + intervalNanos;
+            long waitNanos = next - burstNanos - nowNanos;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (bucket.compareAndSet(this, fullAt, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.example.urlshorter.analytics;
+
+import com.example.urlshorter.dto.ClickCountDTO;
+import com.example.urlshorter.repository.ClickStatsRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Counts clicks in memory and writes them to link_click_stats in the background.
+ * The resolve path only increments a counter per link and time bucket; a single flusher thread adds the
+ * aggregated counts with one batched upsert every flush-interval, or earlier once flush-events clicks came in.
+ * Every flush removes the counters it drained, so pending falls back under max-pending-keys after each flush.
+ * Counts of a failed flush are merged back and retried, so a slow or unavailable db delays stats but loses no clicks.
+ * Pending counters are bounded by max-pending-keys: over that, recording waits up to backpressure-timeout for a flush.
+ * Callers which must not block, like the reactive resolve on a Netty event loop, use tryRecord, which drops clicks
+ * needing a new counter instead of waiting.
+ */
+
+@Slf4j
+@Component
+public class ClickAggregator {
+    private final ClickStatsRepository clickStatsRepository;
+
+    private final Clock clock;
+
+    private final boolean enabled;
+
+    private final long bucketMillis;
+
+    private final long flushEvents;
+
+    private final int maxPendingKeys;
+
+    private final long backpressureTimeoutNanos;
+
+    // marks a drained counter, clicks racing the drain retry on a new counter
+    private static final long CLOSED = Long.MIN_VALUE;
+
+    private final ConcurrentHashMap<ClickKey, AtomicLong> pending = new ConcurrentHashMap<>();
+
+    private final LongAdder eventsSinceFlush = new LongAdder();
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final Condition flushed = flushLock.newCondition();
+
+    private final ScheduledExecutorService flusher;
+
+    @Autowired
+    public ClickAggregator(ClickStatsRepository clickStatsRepository,
+                           @Value("${app.analytics.enabled}") boolean enabled,
+                           @Value("${app.analytics.bucket}") Duration bucket,
+                           @Value("${app.analytics.flush-interval}") Duration flushInterval,
+                           @Value("${app.analytics.flush-events}") long flushEvents,
+                           @Value("${app.analytics.max-pending-keys}") int maxPendingKeys,
+                           @Value("${app.analytics.backpressure-timeout}") Duration backpressureTimeout) {
+        this(clickStatsRepository, Clock.systemUTC(), enabled, bucket, flushInterval, flushEvents, maxPendingKeys, backpressureTimeout);
+    }
+
+    ClickAggregator(ClickStatsRepository clickStatsRepository, Clock clock, boolean enabled, Duration bucket,
+                    Duration flushInterval, long flushEvents, int maxPendingKeys, Duration backpressureTimeout) {
+        this.clickStatsRepository = clickStatsRepository;
+        this.clock = clock;
+        this.enabled = enabled;
+        this.bucketMillis = bucket.toMillis();
+        this.flushEvents = flushEvents;
+        this.maxPendingKeys = maxPendingKeys;
+        this.backpressureTimeoutNanos = backpressureTimeout.toNanos();
+        if (enabled) {
+            this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "click-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long intervalMillis = flushInterval.toMillis();
+            flusher.scheduleWithFixedDelay(this::flush, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.flusher = null;
+        }
+    }
+
+    /**
+     * Counts a click on the given link in the current time bucket.
+     * @param id long
+     */
+    public void record(long id) {
+        if (!enabled) {
+            return;
+        }
+        long now = clock.millis();
+        add(new ClickKey(id, now - now % bucketMillis), 1);
+        counted();
+        if (pending.size() > maxPendingKeys) {
+            awaitFlush();
+        }
+    }
+
+    /**
+     * Counts a click on the given link in the current time bucket without ever waiting. Over max-pending-keys,
+     * a click on a link and bucket without a pending counter is dropped and a flush is requested.
+     * @param id long
+     * @return false if the click was dropped
+     */
+    public boolean tryRecord(long id) {
+        if (!enabled) {
+            return true;
+        }
+        long now = clock.millis();
+        ClickKey clickKey = new ClickKey(id, now - now % bucketMillis);
+        while (true) {
+            AtomicLong counter = pending.size() > maxPendingKeys
+                    ? pending.get(clickKey)
+                    : pending.computeIfAbsent(clickKey, key -> new AtomicLong());
+            if (counter == null) {
+                requestFlush();
+                return false;
+            }
+            if (increment(counter, 1)) {
+                break;
+            }
+            pending.remove(clickKey, counter);
+        }
+        counted();
+        return true;
+    }
+
+    /**
+     * Writes all counted clicks to the db. Runs on the flusher thread, callable directly e.g. on shutdown.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushRequested.set(false);
+            eventsSinceFlush.reset();
+            Map<ClickKey, Long> counts = drain();
+            if (!counts.isEmpty()) {
+                write(counts);
+            }
+        } catch (RuntimeException e) {
+            log.error("Flushing click counts failed", e);
+        } finally {
+            flushed.signalAll();
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of link and bucket counters waiting for the next flush.
+     * @return int
+     */
+    public int pendingKeys() {
+        return pending.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+            flush();
+        }
+    }
+
+    private Map<ClickKey, Long> drain() {
+        Map<ClickKey, Long> counts = new HashMap<>();
+        pending.forEach((key, counter) -> {
+            long clicks = counter.getAndSet(CLOSED);
+            pending.remove(key, counter);
+            if (clicks != 0) {
+                counts.put(key, clicks);
+            }
+        });
+        return counts;
+    }
+
+    private void write(Map<ClickKey, Long> counts) {
+        List<ClickCountDTO> clickCountDTOs = new ArrayList<>(counts.size());
+        counts.forEach((key, clicks) -> clickCountDTOs.add(new ClickCountDTO(key.id, key.bucketStart, clicks)));
+        try {
+            clickStatsRepository.addClicks(clickCountDTOs);
+        } catch (RuntimeException e) {
+            log.warn("Writing {} click counters failed, retrying with the next flush", counts.size(), e);
+            counts.forEach(this::add);
+        }
+    }
+
+    private void add(ClickKey key, long clicks) {
+        while (true) {
+            AtomicLong counter = pending.computeIfAbsent(key, k -> new AtomicLong());
+            if (increment(counter, clicks)) {
+                return;
+            }
+            pending.remove(key, counter);
+        }
+    }
+
+    private static boolean increment(AtomicLong counter, long clicks) {
+        return counter.getAndUpdate(previous -> previous == CLOSED ? previous : previous + clicks) != CLOSED;
+    }
+
+    private void counted() {
+        eventsSinceFlush.increment();
+        if (eventsSinceFlush.sum() >= flushEvents) {
+            requestFlush();
+        }
+    }
+
+    private void requestFlush() {
+        if (flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flush);
+        }
+    }
+
+    private void awaitFlush() {
+        requestFlush();
+        long deadline = System.nanoTime() + backpressureTimeoutNanos;
+        try {
+            if (!flushLock.tryLock(backpressureTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                return;
+            }
+            try {
+                long remainingNanos = deadline - System.nanoTime();
+                while (pending.size() > maxPendingKeys && remainingNanos > 0) {
+                    remainingNanos = flushed.awaitNanos(remainingNanos);
+                }
+            } finally {
+                flushLock.unlock();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class ClickKey {
+        private final long id;
+        private final long bucketStart;
+
+        private ClickKey(long id, long bucketStart) {
+            this.id = id;
+            this.bucketStart = bucketStart;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ClickKey other && id == other.id && bucketStart == other.bucketStart;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(id * 31 + bucketStart);
+        }
+    }
+}
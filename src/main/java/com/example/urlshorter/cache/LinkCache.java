@@ -0,0 +1,164 @@
+package com.example.urlshorter.cache;
+
+import com.example.urlshorter.dto.CacheStatsDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * A bounded read-through cache for short code to long link resolution.
+ * Size based eviction uses Caffeine's W-TinyLFU policy, so one-hit wonders don't push out hot entries.
+ * Unknown short codes are cached as empty values with a shorter ttl.
+ * The cache statistics are published as cache.* meters with cache=links.
+ */
+
+@Component
+public class LinkCache implements MeterBinder {
+    private final Cache<String, Optional<String>> cache;
+
+    public LinkCache(@Value("${app.cache.max-size}") long maxSize,
+                     @Value("${app.cache.ttl}") Duration ttl,
+                     @Value("${app.cache.negative-ttl}") Duration negativeTtl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new LinkExpiry(ttl.toNanos(), negativeTtl.toNanos()))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the cached long link for the given short code, loading it on a miss.
+     * @param shortCode String
+     * @param loader Function
+     * @return Optional<String>
+     */
+    public Optional<String> get(String shortCode, Function<String, Optional<String>> loader) {
+        return cache.get(shortCode, loader);
+    }
+
+    /**
+     * Returns the cached long link for the given short code without loading it.
+     * @param shortCode String
+     * @return Optional<String>, null if the short code is not cached
+     */
+    public Optional<String> getIfPresent(String shortCode) {
+        return cache.getIfPresent(shortCode);
+    }
+
+    /**
+     * Returns the cached long link for the given short code, else loads and caches it.
+     * Unlike get, the loader runs outside of the cache's locks, so concurrent loads of the same code have to be
+     * coalesced by the caller, and no hit or miss is counted, the caller's getIfPresent did.
+     * A link cached while the loader ran, e.g. by put for a newly created link, wins over the loaded value.
+     * @param shortCode String
+     * @param loader Function
+     * @return Optional<String>
+     */
+    public Optional<String> getOrLoad(String shortCode, Function<String, Optional<String>> loader) {
+        Optional<String> cached = cache.policy().getIfPresentQuietly(shortCode);
+        if (cached != null) {
+            return cached;
+        }
+        Optional<String> loaded = loader.apply(shortCode);
+        cached = cache.asMap().putIfAbsent(shortCode, loaded);
+        return cached != null ? cached : loaded;
+    }
+
+    /**
+     * Caches a newly created mapping, replacing a cached not-found entry.
+     * @param shortCode String
+     * @param longLink String
+     */
+    public void put(String shortCode, String longLink) {
+        cache.put(shortCode, Optional.of(longLink));
+    }
+
+    /**
+     * Removes the given short code, to be called when a mapping is deleted.
+     * @param shortCode String
+     */
+    public void evict(String shortCode) {
+        cache.invalidate(shortCode);
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void evictAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Returns up to limit cached links, hottest first as ranked by the eviction policy's frequency sketch.
+     * Cached not-found entries are left out.
+     * @param limit int
+     * @return Map<String, String> short code to long link, in iteration order
+     */
+    public Map<String, String> hottest(int limit) {
+        Map<String, String> hottest = new LinkedHashMap<>();
+        // applies buffered reads to the frequency sketch first
+        cache.cleanUp();
+        cache.policy().eviction().ifPresent(eviction -> eviction.hottest(limit).forEach((shortCode, longLink) ->
+                longLink.ifPresent(value -> hottest.put(shortCode, value))));
+        return hottest;
+    }
+
+    /**
+     * Returns the maximum number of entries.
+     * @return long
+     */
+    public long maximumSize() {
+        return cache.policy().eviction().map(eviction -> eviction.getMaximum()).orElse(Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns hit, miss and eviction counters.
+     * @return CacheStatsDTO
+     */
+    public CacheStatsDTO stats() {
+        CacheStats stats = cache.stats();
+        return new CacheStatsDTO(cache.estimatedSize(), stats.hitCount(), stats.missCount(), stats.hitRate(), stats.evictionCount());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "links");
+    }
+
+    private static final class LinkExpiry implements Expiry<String, Optional<String>> {
+        private final long ttlNanos;
+        private final long negativeTtlNanos;
+
+        private LinkExpiry(long ttlNanos, long negativeTtlNanos) {
+            this.ttlNanos = ttlNanos;
+            this.negativeTtlNanos = negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(String key, Optional<String> value, long currentTime) {
+            return value.isPresent() ? ttlNanos : negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Optional<String> value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Optional<String> value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.urlshorter.cache;
+
+import com.example.urlshorter.codec.Base62Codec;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * Writes the hottest LinkCache entries to a local snapshot file and loads them back at startup, so a new instance
+ * serves its hot set from the cache right away instead of going to the store for every first resolve.
+ * The snapshot is written every app.cache.snapshot.interval and on shutdown, to a temporary file which is then
+ * renamed over the previous one. It is loaded while the context starts, i.e. before the application reports
+ * readiness; a missing, truncated or corrupt snapshot means a cold start.
+ * Format: [long magic][int version][long created millis][int count], count times [long id][int length][utf-8 long
+ * link], hottest first, then [int crc32c] of everything before it.
+ */
+
+@Slf4j
+@Component
+public class LinkCacheSnapshot {
+    static final long MAGIC = 0x4c4e4b534e415031L; // "LNKSNAP1"
+    static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = Long.BYTES + Integer.BYTES + Long.BYTES + Integer.BYTES;
+
+    private final LinkCache linkCache;
+
+    private final Base62Codec base62Codec;
+
+    private final boolean enabled;
+
+    private final Path file;
+
+    private final int maxEntries;
+
+    private final Duration interval;
+
+    private ScheduledExecutorService writer;
+
+    public LinkCacheSnapshot(LinkCache linkCache, Base62Codec base62Codec,
+                             @Value("${app.cache.snapshot.enabled}") boolean enabled,
+                             @Value("${app.cache.snapshot.file}") Path file,
+                             @Value("${app.cache.snapshot.max-entries}") int maxEntries,
+                             @Value("${app.cache.snapshot.interval}") Duration interval) {
+        this.linkCache = linkCache;
+        this.base62Codec = base62Codec;
+        this.enabled = enabled;
+        this.file = file;
+        this.maxEntries = maxEntries;
+        this.interval = interval;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        load();
+        writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-snapshot-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = interval.toMillis();
+        writer.scheduleWithFixedDelay(this::writeQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (writer == null) {
+            return;
+        }
+        // let a running write finish, interrupting it would close its channel under the final write
+        writer.shutdown();
+        try {
+            writer.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writeQuietly();
+    }
+
+    /**
+     * Puts the links of the snapshot file into the cache, hottest first, up to the smaller of max-entries and the
+     * cache size.
+     * @return number of links loaded, 0 if there is no valid snapshot
+     */
+    int load() {
+        if (!Files.exists(file)) {
+            log.info("No cache snapshot at {}, starting with a cold cache", file);
+            return 0;
+        }
+        long start = System.currentTimeMillis();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE + Integer.BYTES || size > Integer.MAX_VALUE) {
+                log.warn("Ignoring cache snapshot {} of {} bytes", file, size);
+                return 0;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.slice(0, (int) size - Integer.BYTES));
+            if (buffer.getLong(0) != MAGIC || buffer.getInt(Long.BYTES) != VERSION
+                    || buffer.getInt((int) size - Integer.BYTES) != (int) crc.getValue()) {
+                log.warn("Ignoring corrupt cache snapshot {}", file);
+                return 0;
+            }
+            int count = buffer.getInt(HEADER_SIZE - Integer.BYTES);
+            long limit = Math.min(maxEntries, linkCache.maximumSize());
+            buffer.position(HEADER_SIZE);
+            int loaded = 0;
+            byte[] longLink = new byte[256];
+            for (int i = 0; i < count && loaded < limit; i++) {
+                long id = buffer.getLong();
+                int length = buffer.getInt();
+                if (longLink.length < length) {
+                    longLink = new byte[length];
+                }
+                buffer.get(longLink, 0, length);
+                linkCache.put(base62Codec.encode(id), new String(longLink, 0, length, StandardCharsets.UTF_8));
+                loaded++;
+            }
+            log.info("Loaded {} links from cache snapshot {} written {} ago, in {} ms", loaded, file,
+                    Duration.ofMillis(System.currentTimeMillis() - buffer.getLong(Long.BYTES + Integer.BYTES)),
+                    System.currentTimeMillis() - start);
+            return loaded;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not load cache snapshot {}, starting with a cold cache", file, e);
+            return 0;
+        }
+    }
+
+    /**
+     * Writes the hottest max-entries cached links to the snapshot file.
+     * @return number of links written
+     */
+    int write() throws IOException {
+        Map<String, String> hottest = linkCache.hottest(maxEntries);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + hottest.size() * 128 + Integer.BYTES);
+        buffer.putLong(MAGIC).putInt(VERSION).putLong(System.currentTimeMillis()).putInt(0);
+        int count = 0;
+        for (Map.Entry<String, String> entry : hottest.entrySet()) {
+            long id = base62Codec.tryDecode(entry.getKey(), 0, entry.getKey().length());
+            if (id == Base62Codec.INVALID) {
+                continue;
+            }
+            byte[] longLink = entry.getValue().getBytes(StandardCharsets.UTF_8);
+            if (buffer.remaining() < Long.BYTES + Integer.BYTES + longLink.length + Integer.BYTES) {
+                buffer = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + longLink.length + 64))
+                        .put(buffer.flip());
+            }
+            buffer.putLong(id).putInt(longLink.length).put(longLink);
+            count++;
+        }
+        buffer.putInt(HEADER_SIZE - Integer.BYTES, count);
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue()).flip();
+
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tmp = parent.resolve(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return count;
+    }
+
+    private void writeQuietly() {
+        try {
+            long start = System.currentTimeMillis();
+            int count = write();
+            log.debug("Wrote {} links to cache snapshot {} in {} ms", count, file, System.currentTimeMillis() - start);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not write cache snapshot {}", file, e);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.urlshorter.cache;
+
+import com.example.urlshorter.dto.LinkRecordDTO;
+import com.example.urlshorter.repository.LinkStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An optional in-memory index of all links, id to long link, kept outside the Java heap.
+ * Long links are appended as [int length][utf-8 bytes] to direct buffer slabs; an offset table of direct buffer
+ * pages, indexed by id, holds the slab and position of each link. Ids are dense, so the table needs 8 bytes per id
+ * and the heap only holds the page and slab arrays, whatever the number of links.
+ * The index is loaded from the LinkStore in keyset pages by a background thread at startup and links created on
+ * this node are added as they are stored. Until an id is indexed, callers fall back to the cache and the store.
+ * Loading starts after the write-behind journal of a previous run was replayed into the store.
+ * Writers are serialized; readers never lock: the offset is published with release semantics after the link bytes.
+ */
+
+@Slf4j
+@Component
+@DependsOn("writeBehindIngest")
+public class OffHeapLinkIndex implements MeterBinder {
+    private static final int PAGE_BITS = 16;
+    private static final int PAGE_IDS = 1 << PAGE_BITS;
+    private static final int PAGE_BYTES = PAGE_IDS * Long.BYTES;
+    // ids up to 2^36, larger ones are not indexed
+    private static final int MAX_PAGES = 1 << 20;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final LinkStore linkStore;
+
+    private final boolean enabled;
+
+    private final int slabSize;
+
+    private final int loadPageSize;
+
+    // offset table pages by id >>> PAGE_BITS, an entry is (slab index + 1) << 32 | position, 0 if the id is not indexed
+    private volatile ByteBuffer[] pages = new ByteBuffer[0];
+
+    private volatile ByteBuffer[] slabs = new ByteBuffer[0];
+
+    private int slabPosition;
+
+    private int allocatedPages;
+
+    private volatile long size;
+
+    private volatile long usedBytes;
+
+    private volatile boolean loaded;
+
+    private volatile boolean stopped;
+
+    public OffHeapLinkIndex(LinkStore linkStore,
+                            @Value("${app.index.enabled}") boolean enabled,
+                            @Value("${app.index.slab-size}") DataSize slabSize,
+                            @Value("${app.index.load-page-size}") int loadPageSize) {
+        this.linkStore = linkStore;
+        this.enabled = enabled;
+        this.slabSize = Math.toIntExact(slabSize.toBytes());
+        this.loadPageSize = loadPageSize;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        Thread loader = new Thread(this::load, "link-index-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    @PreDestroy
+    void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Indexes every stored link, one keyset page at a time.
+     */
+    void load() {
+        long start = System.currentTimeMillis();
+        try {
+            long afterId = 0;
+            List<LinkRecordDTO> page;
+            do {
+                page = linkStore.findPage(afterId, loadPageSize);
+                for (LinkRecordDTO linkRecordDTO : page) {
+                    put(linkRecordDTO.getId(), linkRecordDTO.getLongLink());
+                }
+                if (!page.isEmpty()) {
+                    afterId = page.get(page.size() - 1).getId();
+                }
+            } while (page.size() == loadPageSize && !stopped);
+        } catch (RuntimeException e) {
+            log.warn("Loading the link index stopped after {} links, the rest is resolved from the store", size, e);
+            return;
+        }
+        loaded = !stopped;
+        log.info("Loaded {} links into the link index in {} ms, {} bytes of long links and {} bytes of offsets off-heap",
+                size, System.currentTimeMillis() - start, usedBytes, (long) allocatedPages * PAGE_BYTES);
+    }
+
+    /**
+     * Returns whether the index is enabled with app.index.enabled.
+     * @return boolean
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns whether the startup load went through all stored links.
+     * @return boolean
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Returns the long link of the given id.
+     * @param id long
+     * @return String, null if the id is not indexed
+     */
+    public String get(long id) {
+        long pageIndex = id >>> PAGE_BITS;
+        ByteBuffer[] currentPages = pages;
+        if (id <= 0 || pageIndex >= currentPages.length || currentPages[(int) pageIndex] == null) {
+            return null;
+        }
+        long entry = (long) LONGS.getAcquire(currentPages[(int) pageIndex], (int) (id & (PAGE_IDS - 1)) * Long.BYTES);
+        if (entry == 0) {
+            return null;
+        }
+        ByteBuffer slab = slabs[(int) (entry >>> 32) - 1];
+        int position = (int) entry;
+        byte[] longLink = new byte[slab.getInt(position)];
+        slab.get(position + Integer.BYTES, longLink);
+        return new String(longLink, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Adds a link unless the id is already indexed. Does nothing if the index is disabled.
+     * @param id long
+     * @param longLink String
+     * @return true if the link was added
+     */
+    public boolean put(long id, String longLink) {
+        long pageIndex = id >>> PAGE_BITS;
+        if (!enabled || id <= 0 || pageIndex >= MAX_PAGES) {
+            return false;
+        }
+        byte[] bytes = longLink.getBytes(StandardCharsets.UTF_8);
+        if (Integer.BYTES + bytes.length > slabSize) {
+            return false;
+        }
+        return append((int) pageIndex, id, bytes);
+    }
+
+    // writes the long link to the current slab and its entry to the offset table, single writer at a time
+    private synchronized boolean append(int pageIndex, long id, byte[] bytes) {
+        ByteBuffer page = page(pageIndex);
+        int entryOffset = (int) (id & (PAGE_IDS - 1)) * Long.BYTES;
+        if (page.getLong(entryOffset) != 0) {
+            return false;
+        }
+        int entrySize = Integer.BYTES + bytes.length;
+        ByteBuffer[] currentSlabs = slabs;
+        if (currentSlabs.length == 0 || slabPosition + entrySize > slabSize) {
+            currentSlabs = Arrays.copyOf(currentSlabs, currentSlabs.length + 1);
+            currentSlabs[currentSlabs.length - 1] = ByteBuffer.allocateDirect(slabSize);
+            slabs = currentSlabs;
+            slabPosition = 0;
+        }
+        ByteBuffer slab = currentSlabs[currentSlabs.length - 1];
+        slab.putInt(slabPosition, bytes.length);
+        slab.put(slabPosition + Integer.BYTES, bytes);
+        LONGS.setRelease(page, entryOffset, (long) currentSlabs.length << 32 | slabPosition);
+        slabPosition += entrySize;
+        usedBytes += entrySize;
+        size++;
+        return true;
+    }
+
+    /**
+     * Returns the number of indexed links.
+     * @return long
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns the direct memory held by the index: slabs and offset table pages.
+     * @return long bytes
+     */
+    public long offHeapBytes() {
+        return (long) slabs.length * slabSize + (long) allocatedPages * PAGE_BYTES;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        Gauge.builder("link.index.links", this, OffHeapLinkIndex::size)
+                .description("Links in the off-heap link index")
+                .register(meterRegistry);
+        Gauge.builder("link.index.memory", this, OffHeapLinkIndex::offHeapBytes)
+                .description("Direct memory held by the off-heap link index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    private ByteBuffer page(int pageIndex) {
+        ByteBuffer[] currentPages = pages;
+        if (pageIndex >= currentPages.length) {
+            currentPages = Arrays.copyOf(currentPages, Math.min(MAX_PAGES, Math.max(pageIndex + 1, currentPages.length * 2)));
+        } else if (currentPages[pageIndex] != null) {
+            return currentPages[pageIndex];
+        } else {
+            currentPages = currentPages.clone();
+        }
+        // zeroed, i.e. no id of the page is indexed
+        currentPages[pageIndex] = ByteBuffer.allocateDirect(PAGE_BYTES).order(ByteOrder.nativeOrder());
+        allocatedPages++;
+        pages = currentPages;
+        return currentPages[pageIndex];
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.urlshorter.codec;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * Encodes ids to base62 short codes and decodes them back, using the alphabet in app.base62digits.
+ * Works on char tables and caller supplied buffers, nothing is allocated besides the returned String.
+ */
+
+@Component
+public class Base62Codec {
+    /**
+     * Length of the code of Long.MAX_VALUE, no code is longer.
+     */
+    public static final int MAX_LENGTH = 11;
+
+    /**
+     * Returned by tryDecode for codes which are not valid.
+     */
+    public static final long INVALID = -1;
+
+    private static final int BASE = 62;
+
+    private final char[] digits = new char[BASE];
+
+    private final byte[] values = new byte[128];
+
+    public Base62Codec(@Value("${app.base62digits}") String[] base62digits) {
+        if (base62digits.length != BASE) {
+            throw new IllegalArgumentException("app.base62digits must have 62 digits");
+        }
+        Arrays.fill(values, (byte) -1);
+        for (int i = 0; i < BASE; i++) {
+            char c = base62digits[i].length() == 1 ? base62digits[i].charAt(0) : 0;
+            if (c == 0 || c >= values.length || values[c] != -1) {
+                throw new IllegalArgumentException("Invalid or duplicate base62 digit:" + base62digits[i]);
+            }
+            digits[i] = c;
+            values[c] = (byte) i;
+        }
+    }
+
+    /**
+     * Returns the number of digits of the code of the given id.
+     * @param id long, not negative
+     * @return int
+     */
+    public int length(long id) {
+        checkId(id);
+        int length = 1;
+        while (id >= BASE) {
+            id /= BASE;
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * Writes the code of the given id into the buffer.
+     * @param id long, not negative
+     * @param buffer char[] with at least length(id) chars from offset
+     * @param offset int
+     * @return number of chars written
+     */
+    public int encode(long id, char[] buffer, int offset) {
+        int length = length(id);
+        for (int i = offset + length - 1; i >= offset; i--) {
+            buffer[i] = digits[(int) (id % BASE)];
+            id /= BASE;
+        }
+        return length;
+    }
+
+    /**
+     * Returns the code of the given id.
+     * @param id long, not negative
+     * @return String
+     */
+    public String encode(long id) {
+        char[] buffer = new char[MAX_LENGTH];
+        return new String(buffer, 0, encode(id, buffer, 0));
+    }
+
+    /**
+     * Appends the code of the given id.
+     * @param id long, not negative
+     * @param sb StringBuilder
+     * @return the given StringBuilder
+     */
+    public StringBuilder appendTo(long id, StringBuilder sb) {
+        int length = length(id);
+        int start = sb.length();
+        sb.setLength(start + length);
+        for (int i = start + length - 1; i >= start; i--) {
+            sb.setCharAt(i, digits[(int) (id % BASE)]);
+            id /= BASE;
+        }
+        return sb;
+    }
+
+    /**
+     * Decodes the given code.
+     * @param code CharSequence
+     * @return long
+     * @throws IllegalArgumentException if the code is empty, contains a char outside the alphabet or overflows a long
+     */
+    public long decode(CharSequence code) {
+        long id = tryDecode(code, 0, code.length());
+        if (id == INVALID) {
+            throw new IllegalArgumentException("Invalid base62 code:" + code);
+        }
+        return id;
+    }
+
+    /**
+     * Decodes the chars from..to of the given sequence, without throwing on invalid input.
+     * @param code CharSequence
+     * @param from int, inclusive
+     * @param to int, exclusive
+     * @return long, or INVALID if the range is empty, contains a char outside the alphabet or overflows a long
+     */
+    public long tryDecode(CharSequence code, int from, int to) {
+        if (from >= to) {
+            return INVALID;
+        }
+        long id = 0;
+        for (int i = from; i < to; i++) {
+            char c = code.charAt(i);
+            int value = c < values.length ? values[c] : -1;
+            if (value < 0 || id > (Long.MAX_VALUE - value) / BASE) {
+                return INVALID;
+            }
+            id = id * BASE + value;
+        }
+        return id;
+    }
+
+    private static void checkId(long id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Negative id:" + id);
+        }
+    }
+}
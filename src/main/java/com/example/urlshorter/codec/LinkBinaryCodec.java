@@ -0,0 +1,76 @@
+package com.example.urlshorter.codec;
+
+import org.springframework.http.MediaType;
+
+import java.io.DataInput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The compact binary format of resolve responses, for service-to-service callers: one record per short link,
+ * [int length][utf-8 long link], big-endian, length -1 if the short link was not found. Nothing else is sent,
+ * the caller knows which short links it asked for and in which order.
+ */
+public final class LinkBinaryCodec {
+    public static final String MEDIA_TYPE_VALUE = "application/x-shortener-links";
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+
+    /**
+     * Length of the record of a short link which was not found.
+     */
+    public static final int NOT_FOUND = -1;
+
+    private static final byte[] NOT_FOUND_RECORD = {-1, -1, -1, -1};
+
+    private LinkBinaryCodec() {
+    }
+
+    /**
+     * Writes the record of one short link.
+     * @param outputStream OutputStream
+     * @param longLink String, null if the short link was not found
+     */
+    public static void write(OutputStream outputStream, String longLink) throws IOException {
+        outputStream.write(longLink == null ? NOT_FOUND_RECORD : encode(longLink));
+    }
+
+    /**
+     * Returns the record of one short link.
+     * @param longLink String, null if the short link was not found
+     * @return byte[]
+     */
+    public static byte[] encode(String longLink) {
+        if (longLink == null) {
+            return NOT_FOUND_RECORD.clone();
+        }
+        byte[] bytes = longLink.getBytes(StandardCharsets.UTF_8);
+        byte[] record = new byte[Integer.BYTES + bytes.length];
+        record[0] = (byte) (bytes.length >>> 24);
+        record[1] = (byte) (bytes.length >>> 16);
+        record[2] = (byte) (bytes.length >>> 8);
+        record[3] = (byte) bytes.length;
+        System.arraycopy(bytes, 0, record, Integer.BYTES, bytes.length);
+        return record;
+    }
+
+    /**
+     * Reads the record of one short link.
+     * @param input DataInput
+     * @return String, null if the short link was not found
+     * @throws EOFException if there are no more records
+     */
+    public static String read(DataInput input) throws IOException {
+        int length = input.readInt();
+        if (length == NOT_FOUND) {
+            return null;
+        }
+        if (length < 0) {
+            throw new IOException("Invalid record length " + length);
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
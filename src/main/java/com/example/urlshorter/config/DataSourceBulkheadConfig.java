@@ -0,0 +1,44 @@
+package com.example.urlshorter.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Wraps the DataSource into a BulkheadDataSource sized to the connection pool.
+ * Matters most with spring.threads.virtual.enabled, where request concurrency is no longer capped by the Tomcat pool.
+ */
+
+@Configuration
+@ConditionalOnProperty(value = "app.datasource.bulkhead.enabled", havingValue = "true")
+public class DataSourceBulkheadConfig {
+
+    /**
+     * Wraps every DataSource bean once it is configured.
+     * @param environment Environment
+     * @return BeanPostProcessor
+     */
+    @Bean
+    public static BeanPostProcessor dataSourceBulkheadPostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof BulkheadDataSource) {
+                    return bean;
+                }
+                int permits = dataSource instanceof HikariDataSource hikariDataSource
+                        ? hikariDataSource.getMaximumPoolSize()
+                        : environment.getRequiredProperty("app.datasource.bulkhead.permits", Integer.class);
+                return new BulkheadDataSource(dataSource, permits,
+                        environment.getRequiredProperty("app.datasource.bulkhead.max-waiting", Integer.class),
+                        environment.getRequiredProperty("app.datasource.bulkhead.acquire-timeout", Duration.class).toNanos());
+            }
+        };
+    }
+}
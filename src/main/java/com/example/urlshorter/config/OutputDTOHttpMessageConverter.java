@@ -0,0 +1,190 @@
+package com.example.urlshorter.config;
+
+import com.example.urlshorter.codec.LinkBinaryCodec;
+import com.example.urlshorter.dto.OriginalOutputDTO;
+import com.example.urlshorter.dto.OutputDTO;
+import com.example.urlshorter.dto.Status;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.urlshorter.constants.Constant.*;
+
+/**
+ * Writes a single OutputDTO straight to the response stream, ahead of Jackson, in the negotiated format:
+ * JSON as Jackson would write it, or, for an OriginalOutputDTO only, just the long link for text/plain or one
+ * LinkBinaryCodec record. Other results, e.g. of shorten, are JSON only.
+ * The JSON of the status and of the constant messages is encoded once, field names are pre-encoded and only the
+ * links are escaped per response; nothing is looked up by reflection. The body is written with one call, its
+ * length known up front. Lists of OutputDTO stay with Jackson.
+ */
+
+@Component
+public class OutputDTOHttpMessageConverter implements HttpMessageConverter<OutputDTO> {
+    private static final JsonStringEncoder ENCODER = JsonStringEncoder.getInstance();
+
+    private static final byte[][] STATUS_FIELDS = new byte[Status.values().length][];
+    private static final Map<String, byte[]> MESSAGE_FIELDS = new HashMap<>();
+    private static final byte[] LONG_LINK_NAME = ascii("\"longLink\":\"");
+    private static final byte[] SHORT_LINK_NAME = ascii("\"shortLink\":\"");
+    private static final byte[] QUOTE = ascii("\"");
+    private static final MediaType TEXT_PLAIN_UTF8 = new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+    private static final List<MediaType> SUPPORTED_MEDIA_TYPES =
+            List.of(MediaType.APPLICATION_JSON, MediaType.TEXT_PLAIN, LinkBinaryCodec.MEDIA_TYPE);
+    private static final List<MediaType> JSON_MEDIA_TYPES = List.of(MediaType.APPLICATION_JSON);
+
+    static {
+        for (Status status : Status.values()) {
+            STATUS_FIELDS[status.ordinal()] = field("status", status.name());
+        }
+        for (String message : new String[]{GENERATED_SHORT_LINK, SHORT_LINK_NOT_FOUND, RETRIEVED_ORIGINAL_LINK, INVALID_LINK}) {
+            MESSAGE_FIELDS.put(message, field("message", message));
+        }
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        if (OutputDTO.class != clazz && OriginalOutputDTO.class != clazz) {
+            return false;
+        }
+        if (mediaType == null) {
+            return true;
+        }
+        for (MediaType supportedMediaType : getSupportedMediaTypes(clazz)) {
+            if (supportedMediaType.isCompatibleWith(mediaType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public List<MediaType> getSupportedMediaTypes() {
+        return SUPPORTED_MEDIA_TYPES;
+    }
+
+    @Override
+    public List<MediaType> getSupportedMediaTypes(Class<?> clazz) {
+        return OriginalOutputDTO.class == clazz ? SUPPORTED_MEDIA_TYPES : JSON_MEDIA_TYPES;
+    }
+
+    @Override
+    public OutputDTO read(Class<? extends OutputDTO> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("OutputDTO is not read from requests", inputMessage);
+    }
+
+    /**
+     * Writes the response with its content type and length, JSON unless text or binary was negotiated for an
+     * OriginalOutputDTO.
+     */
+    @Override
+    public void write(OutputDTO outputDTO, MediaType contentType, HttpOutputMessage outputMessage) throws IOException {
+        byte[] body;
+        MediaType bodyContentType;
+        if (!(outputDTO instanceof OriginalOutputDTO)) {
+            body = json(outputDTO);
+            bodyContentType = MediaType.APPLICATION_JSON;
+        } else if (contentType != null && contentType.equalsTypeAndSubtype(MediaType.TEXT_PLAIN)) {
+            body = outputDTO.getLongLink() == null ? new byte[0] : outputDTO.getLongLink().getBytes(StandardCharsets.UTF_8);
+            bodyContentType = TEXT_PLAIN_UTF8;
+        } else if (contentType != null && contentType.equalsTypeAndSubtype(LinkBinaryCodec.MEDIA_TYPE)) {
+            body = LinkBinaryCodec.encode(outputDTO.getStatus() == Status.SUCCESS ? outputDTO.getLongLink() : null);
+            bodyContentType = LinkBinaryCodec.MEDIA_TYPE;
+        } else {
+            body = json(outputDTO);
+            bodyContentType = MediaType.APPLICATION_JSON;
+        }
+        HttpHeaders headers = outputMessage.getHeaders();
+        headers.setContentType(bodyContentType);
+        headers.setContentLength(body.length);
+        OutputStream outputStream = outputMessage.getBody();
+        outputStream.write(body);
+        outputStream.flush();
+    }
+
+    // the fields of OutputDTO in @JsonPropertyOrder, null fields left out as with @JsonInclude(NON_NULL)
+    private static byte[] json(OutputDTO outputDTO) {
+        byte[] statusField = outputDTO.getStatus() == null ? null : STATUS_FIELDS[outputDTO.getStatus().ordinal()];
+        byte[] messageField = outputDTO.getMessage() == null ? null : MESSAGE_FIELDS.get(outputDTO.getMessage());
+        if (messageField == null && outputDTO.getMessage() != null) {
+            messageField = field("message", outputDTO.getMessage());
+        }
+        byte[] longLink = outputDTO.getLongLink() == null ? null : quote(outputDTO.getLongLink());
+        byte[] shortLink = outputDTO.getShortLink() == null ? null : quote(outputDTO.getShortLink());
+
+        int fieldsLength = size(statusField, 0) + size(messageField, 0)
+                + size(longLink, LONG_LINK_NAME.length + 1) + size(shortLink, SHORT_LINK_NAME.length + 1);
+        // braces, no comma before the first field
+        byte[] json = new byte[fieldsLength == 0 ? 2 : fieldsLength + 1];
+        int position = 0;
+        json[position++] = '{';
+        position = append(json, position, null, statusField, null);
+        position = append(json, position, null, messageField, null);
+        position = append(json, position, LONG_LINK_NAME, longLink, QUOTE);
+        position = append(json, position, SHORT_LINK_NAME, shortLink, QUOTE);
+        json[position] = '}';
+        return json;
+    }
+
+    // a field preceded by a comma unless it is the first one, nothing if the value is null
+    private static int append(byte[] json, int position, byte[] name, byte[] value, byte[] end) {
+        if (value == null) {
+            return position;
+        }
+        if (position > 1) {
+            json[position++] = ',';
+        }
+        position = copy(name, json, position);
+        position = copy(value, json, position);
+        return copy(end, json, position);
+    }
+
+    private static int copy(byte[] part, byte[] json, int position) {
+        if (part == null) {
+            return position;
+        }
+        System.arraycopy(part, 0, json, position, part.length);
+        return position + part.length;
+    }
+
+    // a separating comma and the given overhead, for a non-null value
+    private static int size(byte[] value, int overhead) {
+        return value == null ? 0 : value.length + overhead + 1;
+    }
+
+    private static byte[] quote(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x20 || c >= 0x7f || c == '"' || c == '\\') {
+                return ENCODER.quoteAsUTF8(value);
+            }
+        }
+        // printable ASCII, nothing to escape
+        return value.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static byte[] field(String name, String value) {
+        return ("\"" + name + "\":\"" + new String(ENCODER.quoteAsString(value)) + "\"").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
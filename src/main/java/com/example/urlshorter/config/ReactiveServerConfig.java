@@ -0,0 +1,74 @@
+package com.example.urlshorter.config;
+
+import com.example.urlshorter.controller.ShortenerRouter;
+import com.example.urlshorter.service.ShortenerOperations;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.LoopResources;
+
+/**
+ * Starts the reactive ShortenerRouter on its own Reactor Netty server next to the servlet container.
+ * Both starters are on the classpath, so Spring Boot keeps running a servlet application and this server is
+ * started by hand on app.reactive.port with app.reactive.event-loop-threads event loop threads.
+ */
+
+@Slf4j
+@Configuration
+@ConditionalOnProperty(value = "app.reactive.enabled", havingValue = "true")
+public class ReactiveServerConfig {
+
+    /**
+     * Creates the event loop threads of the reactive server.
+     * @param eventLoopThreads int
+     * @return LoopResources
+     */
+    @Bean(destroyMethod = "dispose")
+    public LoopResources reactiveLoopResources(@Value("${app.reactive.event-loop-threads}") int eventLoopThreads) {
+        return LoopResources.create("reactive-http", 1, eventLoopThreads, true);
+    }
+
+    /**
+     * Binds the reactive server, app.reactive.operations selects the ShortenerOperations bean behind the router.
+     * @return DisposableServer
+     */
+    @Bean(destroyMethod = "disposeNow")
+    public DisposableServer reactiveServer(ApplicationContext applicationContext,
+                                           LoopResources reactiveLoopResources,
+                                           ObjectMapper objectMapper,
+                                           Validator validator,
+                                           @Value("${app.reactive.operations}") String operations,
+                                           @Value("${app.reactive.port}") int port,
+                                           @Value("${server.servlet.context-path:}") String basePath,
+                                           @Value("${app.redirect.status}") int redirectStatus) {
+        ShortenerOperations shortenerOperations = applicationContext.getBean(operations + "ShortenerOperations", ShortenerOperations.class);
+        HandlerStrategies handlerStrategies = HandlerStrategies.builder()
+                .codecs(configurer -> {
+                    configurer.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                    configurer.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                })
+                .build();
+        HttpHandler httpHandler = RouterFunctions.toHttpHandler(
+                new ShortenerRouter(shortenerOperations, validator, redirectStatus).routes(basePath), handlerStrategies);
+        DisposableServer disposableServer = HttpServer.create()
+                .port(port)
+                .runOn(reactiveLoopResources)
+                .handle(new ReactorHttpHandlerAdapter(httpHandler))
+                .bindNow();
+        log.info("Reactive shortener router listening on port {} with {} operations", disposableServer.port(), operations);
+        return disposableServer;
+    }
+}
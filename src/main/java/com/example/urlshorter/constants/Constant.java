@@ -4,4 +4,5 @@ public class Constant {
     public static final String GENERATED_SHORT_LINK = "Generated short link";
     public static final String SHORT_LINK_NOT_FOUND = "Short link not found";
     public static final String RETRIEVED_ORIGINAL_LINK = "Retrieved original link";
+    public static final String INVALID_LINK = "Invalid link";
 }
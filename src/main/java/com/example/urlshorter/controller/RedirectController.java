@@ -0,0 +1,38 @@
+package com.example.urlshorter.controller;
+
+import com.example.urlshorter.service.ShortenerService;
+import com.example.urlshorter.validation.UrlNormalizer;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Optional;
+
+/**
+ * A controller answering short link clicks with a redirect to the long link.
+ * Writes status and Location header straight to the response, there is no body to serialize.
+ */
+
+@RestController
+public class RedirectController {
+    @Autowired
+    private ShortenerService shortenerService;
+
+    @Value("${app.redirect.status}")
+    private int redirectStatus;
+
+    @GetMapping(value = "/{code:[0-9a-zA-Z]{1,11}}")
+    public void redirect(@PathVariable String code, HttpServletResponse response) {
+        Optional<String> longLinkOptional = shortenerService.resolve(code);
+        if (longLinkOptional.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        response.setStatus(redirectStatus);
+        response.setHeader(HttpHeaders.LOCATION, UrlNormalizer.absolute(longLinkOptional.get()));
+    }
+}
@@ -1,16 +1,35 @@
 package com.example.urlshorter.controller;
 
+import com.example.urlshorter.codec.LinkBinaryCodec;
+import com.example.urlshorter.dto.CacheStatsDTO;
+import com.example.urlshorter.dto.ExportFormat;
 import com.example.urlshorter.dto.InputURLDTO;
+import com.example.urlshorter.dto.LinkPageDTO;
+import com.example.urlshorter.dto.LinkStatsDTO;
+import com.example.urlshorter.dto.OriginalOutputDTO;
 import com.example.urlshorter.dto.OutputDTO;
+import com.example.urlshorter.dto.ResolveFormat;
+import com.example.urlshorter.dto.Status;
+import com.example.urlshorter.service.BatchResolveService;
+import com.example.urlshorter.service.LinkExportService;
 import com.example.urlshorter.service.ShortenerService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * A REST controller for handling all operations related to URL Shortener.
@@ -20,13 +39,50 @@ import java.util.List;
 @RestController
 @RequestMapping(value = "/v1", produces = MediaType.APPLICATION_JSON_VALUE)
 public class ShortenerController {
+    static final String NEXT_AFTER_HEADER = "X-Next-After";
+    static final int DEFAULT_PAGE_SIZE = 1000;
+    static final int MAX_PAGE_SIZE = 10000;
+
     @Autowired
     private ShortenerService shortenerService;
 
+    @Autowired
+    private LinkExportService linkExportService;
+
+    @Autowired
+    private BatchResolveService batchResolveService;
+
+    @Value("${app.shorten.batch.max-size}")
+    private int batchMaxSize;
 
     @GetMapping(value = "/get-all")
-    public ResponseEntity<List<OutputDTO>> getAllLinks() {
-        return ResponseEntity.ok(shortenerService.getAllLinks());
+    public ResponseEntity<List<OutputDTO>> getAllLinks(@RequestParam(defaultValue = "0") long after,
+                                                       @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        LinkPageDTO linkPageDTO = shortenerService.getLinks(after, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (linkPageDTO.getNextAfter() != null) {
+            response.header(NEXT_AFTER_HEADER, String.valueOf(linkPageDTO.getNextAfter()));
+        }
+        return response.body(linkPageDTO.getLinks());
+    }
+
+    /**
+     * Streams all links after the given id as NDJSON or CSV, written straight to the response.
+     */
+    @GetMapping(value = "/export", produces = {"application/x-ndjson", "text/csv"})
+    public void export(@RequestParam(defaultValue = "ndjson") String format,
+                       @RequestParam(defaultValue = "0") long after,
+                       HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Unknown export format:" + format);
+            return;
+        }
+        response.setContentType(exportFormat.getContentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        linkExportService.export(exportFormat, after, response.getOutputStream());
     }
 
 
@@ -35,9 +91,85 @@ public class ShortenerController {
         return ResponseEntity.ok(shortenerService.shorten(inputURLDTO));
     }
 
-    @PostMapping(value = "/original", consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<OutputDTO> getOriginal(@Valid @RequestBody InputURLDTO inputURLDTO) {
+    /**
+     * Shortens a JSON array of links, 400 if it holds more than app.shorten.batch.max-size links.
+     */
+    @PostMapping(value = "/shorten/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<OutputDTO>> shortenBatch(@RequestBody List<InputURLDTO> inputURLDTOs) {
+        if (inputURLDTOs.size() > batchMaxSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Batch of " + inputURLDTOs.size() + " links is over the maximum of " + batchMaxSize);
+        }
+        return ResponseEntity.ok(shortenerService.shortenBatch(inputURLDTOs));
+    }
+
+    /**
+     * Resolves a short link, as JSON or as one LinkBinaryCodec record, see OutputDTOHttpMessageConverter.
+     */
+    @PostMapping(value = "/original", consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = {MediaType.APPLICATION_JSON_VALUE, LinkBinaryCodec.MEDIA_TYPE_VALUE})
+    public ResponseEntity<OriginalOutputDTO> getOriginal(@Valid @RequestBody InputURLDTO inputURLDTO) {
         return ResponseEntity.ok(shortenerService.getOriginal(inputURLDTO));
     }
 
+    /**
+     * Resolves a short link to just the long link as text, 404 if the short link is not found.
+     */
+    @PostMapping(value = "/original", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<OriginalOutputDTO> getOriginalText(@Valid @RequestBody InputURLDTO inputURLDTO) {
+        OriginalOutputDTO outputDTO = shortenerService.getOriginal(inputURLDTO);
+        return outputDTO.getStatus() == Status.SUCCESS ? ResponseEntity.ok(outputDTO) : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Resolves a JSON array of short links, streaming one JSON result per short link in request order.
+     */
+    @PostMapping(value = "/original/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public void getOriginalBatch(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        resolveBatch(ResolveFormat.JSON, request, response);
+    }
+
+    /**
+     * Resolves a JSON array of short links, streaming one line per short link, empty if the short link is not found.
+     */
+    @PostMapping(value = "/original/batch", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.TEXT_PLAIN_VALUE)
+    public void getOriginalBatchText(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        resolveBatch(ResolveFormat.TEXT, request, response);
+    }
+
+    /**
+     * Resolves a JSON array of short links, streaming one LinkBinaryCodec record per short link.
+     */
+    @PostMapping(value = "/original/batch", consumes = MediaType.APPLICATION_JSON_VALUE, produces = LinkBinaryCodec.MEDIA_TYPE_VALUE)
+    public void getOriginalBatchBinary(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        resolveBatch(ResolveFormat.BINARY, request, response);
+    }
+
+    private void resolveBatch(ResolveFormat format, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(format.getContentType());
+        if (format != ResolveFormat.BINARY) {
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        }
+        try {
+            batchResolveService.resolve(format, request.getInputStream(), response.getOutputStream());
+        } catch (JsonProcessingException e) {
+            if (response.isCommitted()) {
+                // results of earlier chunks are already sent, the client sees a truncated body
+                throw e;
+            }
+            response.reset();
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Malformed batch: " + e.getOriginalMessage());
+        }
+    }
+
+    @GetMapping(value = "/cache/stats")
+    public ResponseEntity<CacheStatsDTO> getCacheStats() {
+        return ResponseEntity.ok(shortenerService.getCacheStats());
+    }
+
+    @GetMapping(value = "/stats/{code:[0-9a-zA-Z]{1,11}}")
+    public ResponseEntity<LinkStatsDTO> getStats(@PathVariable String code) {
+        return ResponseEntity.of(shortenerService.getStats(code));
+    }
+
 }
@@ -0,0 +1,116 @@
+package com.example.urlshorter.controller;
+
+import com.example.urlshorter.dto.InputURLDTO;
+import com.example.urlshorter.dto.Violation;
+import com.example.urlshorter.dto.Violations;
+import com.example.urlshorter.service.ShortenerOperations;
+import com.example.urlshorter.validation.UrlNormalizer;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.web.reactive.function.server.RequestPredicates;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * A WebFlux functional router serving the redirect, shorten and getOriginal endpoints of the MVC controllers
+ * on top of ShortenerOperations, with the same paths and bodies.
+ */
+
+@Slf4j
+public class ShortenerRouter {
+    private final ShortenerOperations shortenerOperations;
+
+    private final Validator validator;
+
+    private final int redirectStatus;
+
+    public ShortenerRouter(ShortenerOperations shortenerOperations, Validator validator, int redirectStatus) {
+        this.shortenerOperations = shortenerOperations;
+        this.validator = validator;
+        this.redirectStatus = redirectStatus;
+    }
+
+    /**
+     * Returns the routes below the given base path.
+     * @param basePath String, e.g. the servlet context path, empty for none
+     * @return RouterFunction<ServerResponse>
+     */
+    public RouterFunction<ServerResponse> routes(String basePath) {
+        RouterFunction<ServerResponse> routes = RouterFunctions.route()
+                .GET("/{code:[0-9a-zA-Z]{1,11}}", this::redirect)
+                .POST("/v1/shorten", RequestPredicates.contentType(MediaType.APPLICATION_JSON), this::shorten)
+                .POST("/v1/original", RequestPredicates.contentType(MediaType.APPLICATION_JSON), this::getOriginal)
+                .onError(ShortenerRouter::isOverloaded, (e, request) -> serviceUnavailable())
+                .onError(e -> true, (e, request) -> internalServerError(e))
+                .build();
+        return basePath.isEmpty() ? routes : RouterFunctions.nest(RequestPredicates.path(basePath), routes);
+    }
+
+    private Mono<ServerResponse> redirect(ServerRequest request) {
+        return shortenerOperations.resolve(request.pathVariable("code"))
+                .flatMap(longLink -> ServerResponse.status(redirectStatus)
+                        .header(HttpHeaders.LOCATION, UrlNormalizer.absolute(longLink))
+                        .build())
+                .switchIfEmpty(Mono.defer(() -> ServerResponse.notFound().build()));
+    }
+
+    private Mono<ServerResponse> shorten(ServerRequest request) {
+        return request.bodyToMono(InputURLDTO.class)
+                .flatMap(inputURLDTO -> validated(inputURLDTO, () -> shortenerOperations.shorten(inputURLDTO)
+                        .flatMap(outputDTO -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(outputDTO))))
+                .switchIfEmpty(Mono.defer(() -> ServerResponse.badRequest().build()));
+    }
+
+    private Mono<ServerResponse> getOriginal(ServerRequest request) {
+        return request.bodyToMono(InputURLDTO.class)
+                .flatMap(inputURLDTO -> validated(inputURLDTO, () -> shortenerOperations.getOriginal(inputURLDTO)
+                        .flatMap(outputDTO -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(outputDTO))))
+                .switchIfEmpty(Mono.defer(() -> ServerResponse.badRequest().build()));
+    }
+
+    private Mono<ServerResponse> validated(InputURLDTO inputURLDTO, Supplier<Mono<ServerResponse>> handler) {
+        Set<ConstraintViolation<InputURLDTO>> constraintViolations = validator.validate(inputURLDTO);
+        if (inputURLDTO.getLink() != null && constraintViolations.isEmpty()) {
+            return handler.get();
+        }
+        List<Violation> violations = constraintViolations.isEmpty()
+                ? List.of(new Violation("link", "must not be null"))
+                : constraintViolations.stream()
+                        .map(v -> new Violation(v.getPropertyPath().toString(), v.getMessage()))
+                        .toList();
+        return ServerResponse.badRequest().contentType(MediaType.APPLICATION_JSON).bodyValue(new Violations(violations));
+    }
+
+    private static boolean isOverloaded(Throwable throwable) {
+        return throwable instanceof RejectedExecutionException || throwable instanceof CannotGetJdbcConnectionException
+                || throwable instanceof QueryTimeoutException;
+    }
+
+    private static Mono<ServerResponse> serviceUnavailable() {
+        return ServerResponse.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new Violation("Service is busy, please retry"));
+    }
+
+    private static Mono<ServerResponse> internalServerError(Throwable throwable) {
+        log.error("Reactive request failed", throwable);
+        return ServerResponse.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new Violation("Please check logs for more details"));
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.urlshorter.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.*;
+
+/**
+ * DTO class to output resolve cache statistics.
+ */
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({
+        "size",
+        "hitCount",
+        "missCount",
+        "hitRate",
+        "evictionCount"
+})
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class CacheStatsDTO {
+    @JsonProperty("size")
+    private long size;
+
+    @JsonProperty("hitCount")
+    private long hitCount;
+
+    @JsonProperty("missCount")
+    private long missCount;
+
+    @JsonProperty("hitRate")
+    private double hitRate;
+
+    @JsonProperty("evictionCount")
+    private long evictionCount;
+}
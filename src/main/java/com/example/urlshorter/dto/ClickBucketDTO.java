@@ -0,0 +1,29 @@
+package com.example.urlshorter.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.*;
+
+/**
+ * DTO class to output the clicks of a time bucket, bucketStart is in epoch milliseconds.
+ */
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({
+        "bucketStart",
+        "clicks"
+})
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class ClickBucketDTO {
+    @JsonProperty("bucketStart")
+    private long bucketStart;
+
+    @JsonProperty("clicks")
+    private long clicks;
+}
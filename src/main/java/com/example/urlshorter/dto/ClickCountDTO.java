@@ -0,0 +1,20 @@
+package com.example.urlshorter.dto;
+
+import lombok.*;
+
+/**
+ * DTO class for the clicks of one link in one time bucket.
+ */
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class ClickCountDTO {
+    private long id;
+
+    private long bucketStart;
+
+    private long clicks;
+}
@@ -0,0 +1,19 @@
+package com.example.urlshorter.dto;
+
+import lombok.Getter;
+
+/**
+ * Formats of the streaming link export.
+ */
+
+@Getter
+public enum ExportFormat {
+    NDJSON("application/x-ndjson"),
+    CSV("text/csv");
+
+    private final String contentType;
+
+    ExportFormat(String contentType) {
+        this.contentType = contentType;
+    }
+}
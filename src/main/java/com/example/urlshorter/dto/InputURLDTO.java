@@ -1,15 +1,13 @@
 package com.example.urlshorter.dto;
 
+import com.example.urlshorter.validation.ValidUrl;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
-import jakarta.validation.constraints.Pattern;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
 
-//import javax.validation.constraints.Pattern;
-
 /**
  * DTO class for input url.
  */
@@ -23,7 +21,7 @@ import lombok.ToString;
 @Setter
 @ToString
 public class InputURLDTO {
-    @Pattern(regexp = "[(http(s)?):\\/\\/(www\\.)?a-zA-Z0-9@:%._\\+~#=]{2,256}\\.[a-z]{2,6}\\b([-a-zA-Z0-9@:%_\\+.~#?&//=]*)")
+    @ValidUrl
     @JsonProperty("link")
     private String link;
 }
@@ -0,0 +1,20 @@
+package com.example.urlshorter.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * DTO class for a page of links. nextAfter is the cursor for the next page, null on the last page.
+ */
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class LinkPageDTO {
+    private List<OutputDTO> links;
+
+    private Long nextAfter;
+}
@@ -0,0 +1,25 @@
+package com.example.urlshorter.dto;
+
+import lombok.*;
+
+/**
+ * DTO class for a row of the shortener table.
+ */
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class LinkRecordDTO {
+    private long id;
+
+    private String longLink;
+
+    private byte[] longLinkHash;
+
+    public LinkRecordDTO(long id, String longLink) {
+        this.id = id;
+        this.longLink = longLink;
+    }
+}
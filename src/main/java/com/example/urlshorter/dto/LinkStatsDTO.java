@@ -0,0 +1,35 @@
+package com.example.urlshorter.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * DTO class to output the click statistics of a short link.
+ */
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({
+        "shortLink",
+        "totalClicks",
+        "buckets"
+})
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class LinkStatsDTO {
+    @JsonProperty("shortLink")
+    private String shortLink;
+
+    @JsonProperty("totalClicks")
+    private long totalClicks;
+
+    @JsonProperty("buckets")
+    private List<ClickBucketDTO> buckets;
+}
@@ -0,0 +1,16 @@
+package com.example.urlshorter.dto;
+
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO class to output the result of a getOriginal lookup.
+ * Written as JSON like any OutputDTO, and also as just the long link or as a binary record, see
+ * OutputDTOHttpMessageConverter; other results only have a JSON form.
+ */
+
+@NoArgsConstructor
+public class OriginalOutputDTO extends OutputDTO {
+    public OriginalOutputDTO(Status status, String message, String longLink, String shortLink) {
+        super(status, message, longLink, shortLink);
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.urlshorter.dto;
+
+import com.example.urlshorter.codec.LinkBinaryCodec;
+import lombok.Getter;
+import org.springframework.http.MediaType;
+
+/**
+ * Formats of the streaming batch resolve.
+ */
+
+@Getter
+public enum ResolveFormat {
+    JSON(MediaType.APPLICATION_JSON_VALUE),
+    TEXT(MediaType.TEXT_PLAIN_VALUE),
+    BINARY(LinkBinaryCodec.MEDIA_TYPE_VALUE);
+
+    private final String contentType;
+
+    ResolveFormat(String contentType) {
+        this.contentType = contentType;
+    }
+}
@@ -4,9 +4,12 @@ import com.example.urlshorter.dto.Violation;
 import com.example.urlshorter.dto.Violations;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -28,6 +31,20 @@ import java.util.List;
 @ControllerAdvice
 public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
 
+    /**
+     * Handles running out of db connections, e.g. when the bulkhead in front of the pool is full, and timing out
+     * waiting for a concurrent request's db lookup.
+     * @param exception DataAccessException
+     * @return Violation
+     */
+    @ExceptionHandler({CannotGetJdbcConnectionException.class, QueryTimeoutException.class})
+    public ResponseEntity<Violation> handleNoDbConnection(DataAccessException exception) {
+        log.debug(exception.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new Violation("Service is busy, please retry"));
+    }
+
     /**
      * A generic handler for all errors and exceptions whose handling is not defined.
      * @param throwable Throwable
@@ -0,0 +1,216 @@
+package com.example.urlshorter.ingest;
+
+import com.example.urlshorter.dto.LinkRecordDTO;
+import com.example.urlshorter.service.LinkDigest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Local append-only journal of links accepted by write-behind shorten and not yet inserted into the store.
+ * Header [long magic][long checkpoint], then records [int length][long id][16 byte digest][utf-8 long link][int crc32c],
+ * length and crc covering the id, digest and long link. Everything before the checkpoint is in the store.
+ * Appends are serialized by the caller and only written to the page cache; sync forces them to disk, one force
+ * covering every append made before it, so concurrent requests share their fsyncs.
+ */
+final class IngestJournal implements Closeable {
+    static final long MAGIC = 0x494e47455354314cL; // "INGEST1L"
+    static final int HEADER_SIZE = Long.BYTES + Long.BYTES;
+
+    private static final int CHECKPOINT_OFFSET = Long.BYTES;
+    private static final int FIXED_SIZE = Long.BYTES + LinkDigest.LENGTH;
+    private static final int MAX_BODY_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    private final CRC32C crc = new CRC32C();
+
+    private ByteBuffer writeBuffer = ByteBuffer.allocate(4096);
+
+    // end of the last appended record
+    private volatile long end;
+
+    // everything before it is on disk
+    private volatile long durable;
+
+    IngestJournal(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (channel.size() < HEADER_SIZE) {
+            channel.truncate(0);
+            writeFully(header.putLong(0, MAGIC).putLong(CHECKPOINT_OFFSET, HEADER_SIZE), 0);
+            channel.force(true);
+        } else {
+            readFully(header, 0);
+            if (header.getLong(0) != MAGIC) {
+                throw new IOException(file + " is not an ingest journal");
+            }
+        }
+        this.end = HEADER_SIZE;
+        this.durable = HEADER_SIZE;
+    }
+
+    /**
+     * Passes every record after the checkpoint to the visitor, then truncates the journal after the last complete
+     * record, dropping a torn append of a crashed process. Called once before the first append.
+     * @param visitor RecordVisitor
+     * @return number of records
+     */
+    int recover(RecordVisitor visitor) throws IOException {
+        ByteBuffer checkpoint = ByteBuffer.allocate(Long.BYTES);
+        readFully(checkpoint, CHECKPOINT_OFFSET);
+        long size = channel.size();
+        long offset = Math.max(HEADER_SIZE, Math.min(checkpoint.getLong(0), size));
+        int count = 0;
+        ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+        while (offset + Integer.BYTES <= size) {
+            readFully(length.clear(), offset);
+            int bodySize = length.getInt(0);
+            if (bodySize < FIXED_SIZE || bodySize > MAX_BODY_SIZE || offset + Integer.BYTES + bodySize + Integer.BYTES > size) {
+                break;
+            }
+            ByteBuffer record = ByteBuffer.allocate(bodySize + Integer.BYTES);
+            readFully(record, offset + Integer.BYTES);
+            crc.reset();
+            crc.update(record.array(), 0, bodySize);
+            if ((int) crc.getValue() != record.getInt(bodySize)) {
+                break;
+            }
+            byte[] longLinkHash = new byte[LinkDigest.LENGTH];
+            record.get(Long.BYTES, longLinkHash);
+            String longLink = new String(record.array(), FIXED_SIZE, bodySize - FIXED_SIZE, StandardCharsets.UTF_8);
+            long start = offset;
+            offset += Integer.BYTES + bodySize + Integer.BYTES;
+            visitor.visit(new LinkRecordDTO(record.getLong(0), longLink, longLinkHash), start, offset);
+            count++;
+        }
+        if (offset < size) {
+            channel.truncate(offset);
+            channel.force(true);
+        }
+        end = offset;
+        durable = offset;
+        return count;
+    }
+
+    /**
+     * Appends a record without forcing it to disk, see sync. Not thread safe.
+     * @param linkRecordDTO LinkRecordDTO with id, long link and digest
+     * @return end offset of the record, to pass to sync
+     */
+    long append(LinkRecordDTO linkRecordDTO) throws IOException {
+        byte[] longLinkBytes = linkRecordDTO.getLongLink().getBytes(StandardCharsets.UTF_8);
+        int bodySize = FIXED_SIZE + longLinkBytes.length;
+        if (bodySize > MAX_BODY_SIZE) {
+            throw new IllegalArgumentException("Long link of " + longLinkBytes.length + " bytes is too long");
+        }
+        int recordSize = Integer.BYTES + bodySize + Integer.BYTES;
+        if (writeBuffer.capacity() < recordSize) {
+            writeBuffer = ByteBuffer.allocate(Integer.highestOneBit(recordSize) << 1);
+        }
+        ByteBuffer record = writeBuffer.clear();
+        record.putInt(bodySize).putLong(linkRecordDTO.getId()).put(linkRecordDTO.getLongLinkHash(), 0, LinkDigest.LENGTH)
+                .put(longLinkBytes);
+        crc.reset();
+        crc.update(record.array(), Integer.BYTES, bodySize);
+        record.putInt((int) crc.getValue()).flip();
+
+        long offset = end;
+        writeFully(record, offset);
+        end = offset + recordSize;
+        return end;
+    }
+
+    /**
+     * Returns once the journal is on disk up to the given offset. The first caller forces the journal for
+     * everyone who appended before it; callers waiting meanwhile are usually covered by that force.
+     * @param offset long, as returned by append
+     */
+    void sync(long offset) throws IOException {
+        if (durable >= offset) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            if (durable >= offset) {
+                return;
+            }
+            long target = end;
+            channel.force(false);
+            durable = target;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Records that everything before the given offset is in the store. Not forced to disk: a stale checkpoint
+     * only means that recovery replays records the store already has.
+     * @param offset long, as returned by append
+     */
+    void checkpoint(long offset) throws IOException {
+        writeFully(ByteBuffer.allocate(Long.BYTES).putLong(0, offset), CHECKPOINT_OFFSET);
+    }
+
+    /**
+     * Drops all records, once they are all in the store. Serialized with append by the caller.
+     */
+    void reset() throws IOException {
+        syncLock.lock();
+        try {
+            checkpoint(HEADER_SIZE);
+            channel.truncate(HEADER_SIZE);
+            channel.force(true);
+            end = HEADER_SIZE;
+            durable = HEADER_SIZE;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    long end() {
+        return end;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.force(true);
+        channel.close();
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of ingest journal at " + position);
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Callback for records found by recover.
+     */
+    @FunctionalInterface
+    interface RecordVisitor {
+        void visit(LinkRecordDTO linkRecordDTO, long start, long end);
+    }
+}
@@ -0,0 +1,332 @@
+package com.example.urlshorter.ingest;
+
+import com.example.urlshorter.dto.LinkRecordDTO;
+import com.example.urlshorter.repository.LinkStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Optional write-behind mode of shorten: a new link is appended to a local IngestJournal and acknowledged once the
+ * journal is on disk, with fsyncs shared by concurrent requests. Until a background writer has inserted it into the
+ * LinkStore, in batches of app.ingest.write-behind.batch-size, the link is served from memory here.
+ * At startup, links journaled but not yet stored by a previous process are replayed into the store; the ids they
+ * were given cannot be handed out again, as the IdAllocator reserves its blocks in the db.
+ * If the store is down, links stay pending and are retried on the next flush.
+ * An acknowledged id is never dropped: a link whose long link was stored with another id in the meantime, by
+ * shorten-batch or another node, stays in memory as a conflict, is logged as an error and counted by the
+ * link.write-behind.conflicts gauge. Conflicts are copied to a small side journal, the journal file name plus
+ * ".conflicts", before the checkpoint moves past them, so they don't keep the journal from being truncated.
+ */
+
+@Slf4j
+@Component
+public class WriteBehindIngest implements MeterBinder {
+    private final LinkStore linkStore;
+
+    private final boolean enabled;
+
+    private final Path journalFile;
+
+    private final int batchSize;
+
+    private final Duration flushInterval;
+
+    private final long journalMaxSize;
+
+    private final Object appendLock = new Object();
+
+    // in journal order
+    private final ConcurrentLinkedQueue<Pending> queue = new ConcurrentLinkedQueue<>();
+
+    private final Map<Long, Pending> pendingById = new ConcurrentHashMap<>();
+
+    private final Map<String, Pending> pendingByLongLink = new ConcurrentHashMap<>();
+
+    // pending links whose long link was stored with another id, kept in the conflict journal
+    private final Map<Long, Pending> conflicts = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private IngestJournal journal;
+
+    private IngestJournal conflictJournal;
+
+    private ScheduledExecutorService writer;
+
+    public WriteBehindIngest(LinkStore linkStore,
+                             @Value("${app.ingest.write-behind.enabled}") boolean enabled,
+                             @Value("${app.ingest.write-behind.journal}") Path journalFile,
+                             @Value("${app.ingest.write-behind.batch-size}") int batchSize,
+                             @Value("${app.ingest.write-behind.flush-interval}") Duration flushInterval,
+                             @Value("${app.ingest.write-behind.journal-max-size}") DataSize journalMaxSize) {
+        this.linkStore = linkStore;
+        this.enabled = enabled;
+        this.journalFile = journalFile;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.journalMaxSize = journalMaxSize.toBytes();
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        conflictJournal = new IngestJournal(journalFile.resolveSibling(journalFile.getFileName() + ".conflicts"));
+        conflictJournal.recover((linkRecordDTO, start, end) ->
+                conflicts.put(linkRecordDTO.getId(), new Pending(linkRecordDTO, end)));
+        journal = new IngestJournal(journalFile);
+        int recovered = journal.recover((linkRecordDTO, start, end) -> {
+            Pending pending = new Pending(linkRecordDTO, end);
+            queue.add(pending);
+            pendingById.put(linkRecordDTO.getId(), pending);
+            pendingByLongLink.putIfAbsent(linkRecordDTO.getLongLink(), pending);
+        });
+        if (recovered > 0) {
+            log.info("Replaying {} links from ingest journal {}", recovered, journalFile);
+            flush();
+        }
+        writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "write-behind-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = flushInterval.toMillis();
+        writer.scheduleWithFixedDelay(this::flushQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() throws IOException {
+        if (writer == null) {
+            return;
+        }
+        writer.shutdown();
+        try {
+            writer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushQuietly();
+        journal.close();
+        conflictJournal.close();
+    }
+
+    /**
+     * Returns whether write-behind is enabled with app.ingest.write-behind.enabled.
+     * @return boolean
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Journals a new link and returns once it is on disk. If the same long link is already pending, nothing is
+     * journaled and the pending id is returned instead.
+     * @param linkRecordDTO LinkRecordDTO with a newly allocated id, long link and digest
+     * @return id of the link
+     */
+    public long submit(LinkRecordDTO linkRecordDTO) {
+        Pending pending;
+        try {
+            synchronized (appendLock) {
+                pending = pendingByLongLink.get(linkRecordDTO.getLongLink());
+                if (pending == null) {
+                    pending = new Pending(linkRecordDTO, journal.append(linkRecordDTO));
+                    queue.add(pending);
+                    pendingById.put(linkRecordDTO.getId(), pending);
+                    pendingByLongLink.put(linkRecordDTO.getLongLink(), pending);
+                }
+            }
+            journal.sync(pending.journalEnd);
+        } catch (IOException e) {
+            throw new DataAccessResourceFailureException("Could not append to the ingest journal", e);
+        }
+        if (pendingById.size() >= batchSize && flushRequested.compareAndSet(false, true)) {
+            try {
+                writer.execute(this::flushQuietly);
+            } catch (RejectedExecutionException e) {
+                // shutting down, stop flushes the rest
+            }
+        }
+        return pending.linkRecordDTO.getId();
+    }
+
+    /**
+     * Returns the long link of a pending link, i.e. one not yet in the store.
+     * @param id long
+     * @return Optional<String>
+     */
+    public Optional<String> findPending(long id) {
+        Pending pending = enabled ? pendingById.get(id) : null;
+        if (pending == null && enabled) {
+            pending = conflicts.get(id);
+        }
+        return pending == null ? Optional.empty() : Optional.of(pending.linkRecordDTO.getLongLink());
+    }
+
+    /**
+     * Returns the id of a pending long link, i.e. one not yet in the store.
+     * @param longLink String
+     * @return Optional<Long>
+     */
+    public Optional<Long> findPendingId(String longLink) {
+        Pending pending = enabled ? pendingByLongLink.get(longLink) : null;
+        return pending == null ? Optional.empty() : Optional.of(pending.linkRecordDTO.getId());
+    }
+
+    /**
+     * Returns the number of links not yet in the store.
+     * @return int
+     */
+    public int pendingCount() {
+        return pendingById.size();
+    }
+
+    /**
+     * Returns the number of links whose long link was stored with another id, served from memory only.
+     * @return int
+     */
+    public int conflictCount() {
+        return conflicts.size();
+    }
+
+    /**
+     * Inserts all pending links into the store, batch by batch, and moves the journal checkpoint after them, once
+     * conflicts of the batch are in the conflict journal. Truncates the journal when nothing is pending and it
+     * outgrew app.ingest.write-behind.journal-max-size.
+     * @return number of links inserted
+     */
+    synchronized int flush() throws IOException {
+        int flushed = 0;
+        List<Pending> batch = new ArrayList<>(Math.min(batchSize, 1024));
+        while (true) {
+            batch.clear();
+            Iterator<Pending> iterator = queue.iterator();
+            while (batch.size() < batchSize && iterator.hasNext()) {
+                batch.add(iterator.next());
+            }
+            if (batch.isEmpty()) {
+                break;
+            }
+            keepConflicts(insert(batch));
+            for (Pending pending : batch) {
+                queue.poll();
+                pendingById.remove(pending.linkRecordDTO.getId(), pending);
+                pendingByLongLink.remove(pending.linkRecordDTO.getLongLink(), pending);
+            }
+            journal.checkpoint(batch.get(batch.size() - 1).journalEnd);
+            flushed += batch.size();
+        }
+        if (journal.end() > journalMaxSize) {
+            synchronized (appendLock) {
+                if (queue.isEmpty()) {
+                    journal.reset();
+                }
+            }
+        }
+        return flushed;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        Gauge.builder("link.write-behind.pending", this, WriteBehindIngest::pendingCount)
+                .description("Links journaled by write-behind shorten and not yet in the store")
+                .register(meterRegistry);
+        Gauge.builder("link.write-behind.conflicts", this, WriteBehindIngest::conflictCount)
+                .description("Write-behind links whose long link was stored with another id, kept in memory and in the journal")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Inserts the given links, returning those whose long link is already stored with another id.
+     */
+    private List<Pending> insert(List<Pending> batch) {
+        List<LinkRecordDTO> linkRecordDTOs = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            linkRecordDTOs.add(pending.linkRecordDTO);
+        }
+        try {
+            linkStore.insertAll(linkRecordDTOs);
+            return List.of();
+        } catch (DuplicateKeyException e) {
+            // replayed links already stored before a crash, or a long link stored concurrently by another node
+            List<Pending> batchConflicts = new ArrayList<>();
+            for (Pending pending : batch) {
+                LinkRecordDTO linkRecordDTO = pending.linkRecordDTO;
+                try {
+                    linkStore.insert(linkRecordDTO.getId(), linkRecordDTO.getLongLink(), linkRecordDTO.getLongLinkHash());
+                } catch (DuplicateKeyException duplicate) {
+                    if (linkStore.findById(linkRecordDTO.getId()).isEmpty()) {
+                        log.error("Link {} of {} was acknowledged but the long link was stored with another id, "
+                                + "keeping it in memory and in the journal", linkRecordDTO.getId(), linkRecordDTO.getLongLink());
+                        batchConflicts.add(pending);
+                    }
+                }
+            }
+            return batchConflicts;
+        }
+    }
+
+    /**
+     * Copies conflicts to the conflict journal and forces it, a replayed conflict is already there.
+     */
+    private void keepConflicts(List<Pending> batchConflicts) throws IOException {
+        long end = 0;
+        for (Pending pending : batchConflicts) {
+            LinkRecordDTO linkRecordDTO = pending.linkRecordDTO;
+            if (!conflicts.containsKey(linkRecordDTO.getId())) {
+                end = conflictJournal.append(linkRecordDTO);
+                conflicts.put(linkRecordDTO.getId(), new Pending(linkRecordDTO, end));
+            }
+        }
+        if (end > 0) {
+            conflictJournal.sync(end);
+        }
+    }
+
+    private void flushQuietly() {
+        flushRequested.set(false);
+        try {
+            flush();
+        } catch (IOException | DataAccessException e) {
+            log.warn("Write-behind flush failed, {} links stay pending", pendingById.size(), e);
+        }
+    }
+
+    private static final class Pending {
+        private final LinkRecordDTO linkRecordDTO;
+
+        private final long journalEnd;
+
+        private Pending(LinkRecordDTO linkRecordDTO, long journalEnd) {
+            this.linkRecordDTO = linkRecordDTO;
+            this.journalEnd = journalEnd;
+        }
+    }
+}
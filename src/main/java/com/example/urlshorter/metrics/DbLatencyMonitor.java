@@ -0,0 +1,47 @@
+package com.example.urlshorter.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moving average of the db query latency, fed by the QueryStats of point queries, for load shedding.
+ * Each sample moves the average by 1/8 of its distance to the sample. Samples are folded in without a lock, so
+ * a racing sample may be lost, which only makes the average a little older.
+ * The average is taken as current for a second after the last sample; with no queries since, the db is idle.
+ */
+public final class DbLatencyMonitor {
+    private static final int WEIGHT_SHIFT = 3;
+    private static final long STALE_AFTER_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private volatile long averageNanos;
+
+    private volatile long lastSampleNanos = System.nanoTime() - STALE_AFTER_NANOS;
+
+    /**
+     * Adds a query latency to the average.
+     * @param latencyNanos long
+     * @param nowNanos long, System.nanoTime() at the end of the query
+     */
+    void record(long latencyNanos, long nowNanos) {
+        long average = averageNanos;
+        averageNanos = average + ((latencyNanos - average) >> WEIGHT_SHIFT);
+        lastSampleNanos = nowNanos;
+    }
+
+    /**
+     * Returns the average query latency, 0 if no query ran for a second.
+     * @return long nanoseconds
+     */
+    public long averageNanos() {
+        return System.nanoTime() - lastSampleNanos < STALE_AFTER_NANOS ? averageNanos : 0;
+    }
+
+    /**
+     * Returns whether the average query latency is over the given threshold.
+     * @param thresholdNanos long
+     * @return boolean
+     */
+    public boolean isAbove(long thresholdNanos) {
+        // the clock is only read when the average is high
+        return averageNanos > thresholdNanos && averageNanos() > thresholdNanos;
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.urlshorter.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Statistics of one db query: calls and latency as the shortener.db.query timer, rows read or written as the
+ * shortener.db.rows summary, both tagged with the query name. Failed calls are timed, their rows are not counted.
+ * Latencies of point queries also feed the DbLatencyMonitor shared by them; scans, streams and batches do not, their
+ * time grows with the rows and, for streams, with the consumer, not with the load on the db.
+ */
+public final class QueryStats {
+    private final Timer timer;
+
+    private final DistributionSummary rows;
+
+    // null if the query does not feed the monitor
+    private final DbLatencyMonitor dbLatencyMonitor;
+
+    QueryStats(Timer timer, DistributionSummary rows, DbLatencyMonitor dbLatencyMonitor) {
+        this.timer = timer;
+        this.rows = rows;
+        this.dbLatencyMonitor = dbLatencyMonitor;
+    }
+
+    /**
+     * Runs a query returning rows.
+     * @param query Supplier<List<T>>
+     * @return List<T>, the rows
+     */
+    public <T> List<T> list(Supplier<List<T>> query) {
+        long start = System.nanoTime();
+        try {
+            List<T> result = query.get();
+            rows.record(result.size());
+            return result;
+        } finally {
+            record(start);
+        }
+    }
+
+    /**
+     * Runs a query returning at most one row.
+     * @param query Supplier<Optional<T>>
+     * @return Optional<T>
+     */
+    public <T> Optional<T> optional(Supplier<Optional<T>> query) {
+        long start = System.nanoTime();
+        try {
+            Optional<T> result = query.get();
+            rows.record(result.isPresent() ? 1 : 0);
+            return result;
+        } finally {
+            record(start);
+        }
+    }
+
+    /**
+     * Runs a query or update which counts its rows itself, e.g. a streaming query or a batch insert.
+     * @param query LongSupplier returning the number of rows
+     * @return long, the number of rows
+     */
+    public long count(LongSupplier query) {
+        long start = System.nanoTime();
+        try {
+            long count = query.getAsLong();
+            rows.record(count);
+            return count;
+        } finally {
+            record(start);
+        }
+    }
+
+    private void record(long start) {
+        long end = System.nanoTime();
+        timer.record(end - start, TimeUnit.NANOSECONDS);
+        if (dbLatencyMonitor != null) {
+            dbLatencyMonitor.record(end - start, end);
+        }
+    }
+
+    Timer timer() {
+        return timer;
+    }
+
+    DistributionSummary rows() {
+        return rows;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.urlshorter.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers of the shortener operations and statistics of the db queries, published as shortener.* meters.
+ * Meters are registered once and kept in fields, recording is a lock-free histogram update without lookups.
+ * Percentiles and histogram buckets are configured with management.metrics.distribution.*.shortener.
+ */
+
+@Component
+public class ShortenerMetrics {
+    static final String SHORTEN = "shortener.shorten";
+    static final String GET_ORIGINAL = "shortener.get-original";
+    static final String RESOLVE = "shortener.resolve";
+    static final String DB_QUERY = "shortener.db.query";
+    static final String DB_ROWS = "shortener.db.rows";
+
+    private final MeterRegistry meterRegistry;
+
+    private final Timer shortenDedup;
+
+    private final Timer shortenCreated;
+
+    private final Timer getOriginalFound;
+
+    private final Timer getOriginalNotFound;
+
+    private final Timer resolveFound;
+
+    private final Timer resolveNotFound;
+
+    private final DbLatencyMonitor dbLatencyMonitor = new DbLatencyMonitor();
+
+    public ShortenerMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.shortenDedup = timer(SHORTEN, "Time to shorten a link", "dedup");
+        this.shortenCreated = timer(SHORTEN, "Time to shorten a link", "created");
+        this.getOriginalFound = timer(GET_ORIGINAL, "Time to look up the long link of a short link", "found");
+        this.getOriginalNotFound = timer(GET_ORIGINAL, "Time to look up the long link of a short link", "not-found");
+        this.resolveFound = timer(RESOLVE, "Time to resolve a short code", "found");
+        this.resolveNotFound = timer(RESOLVE, "Time to resolve a short code", "not-found");
+    }
+
+    /**
+     * Records a shorten call.
+     * @param dedup boolean, true if the long link was already shortened
+     * @param startNanos long, System.nanoTime() at the start of the call
+     */
+    public void shortened(boolean dedup, long startNanos) {
+        record(dedup ? shortenDedup : shortenCreated, startNanos);
+    }
+
+    /**
+     * Records a getOriginal call.
+     * @param found boolean
+     * @param startNanos long, System.nanoTime() at the start of the call
+     */
+    public void originalLookedUp(boolean found, long startNanos) {
+        record(found ? getOriginalFound : getOriginalNotFound, startNanos);
+    }
+
+    /**
+     * Records a resolve call.
+     * @param found boolean
+     * @param startNanos long, System.nanoTime() at the start of the call
+     */
+    public void resolved(boolean found, long startNanos) {
+        record(found ? resolveFound : resolveNotFound, startNanos);
+    }
+
+    /**
+     * Returns the statistics of the given db query, to be kept by the caller.
+     * @param query String, name of the repository method
+     * @return QueryStats
+     */
+    public QueryStats queryStats(String query) {
+        return queryStats(query, null);
+    }
+
+    /**
+     * Returns the statistics of the given point query, one reading or writing a row by key, whose latency also
+     * feeds the DbLatencyMonitor.
+     * @param query String, name of the repository method
+     * @return QueryStats
+     */
+    public QueryStats pointQueryStats(String query) {
+        return queryStats(query, dbLatencyMonitor);
+    }
+
+    private QueryStats queryStats(String query, DbLatencyMonitor dbLatencyMonitor) {
+        Timer timer = Timer.builder(DB_QUERY)
+                .description("Time to run a shortener db query")
+                .tag("query", query)
+                .register(meterRegistry);
+        DistributionSummary rows = DistributionSummary.builder(DB_ROWS)
+                .description("Rows read or written by a shortener db query")
+                .baseUnit("rows")
+                .tag("query", query)
+                .register(meterRegistry);
+        return new QueryStats(timer, rows, dbLatencyMonitor);
+    }
+
+    /**
+     * Returns the moving average of the latency of the point queries.
+     * @return DbLatencyMonitor
+     */
+    public DbLatencyMonitor dbLatency() {
+        return dbLatencyMonitor;
+    }
+
+    private Timer timer(String name, String description, String outcome) {
+        return Timer.builder(name)
+                .description(description)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static void record(Timer timer, long startNanos) {
+        timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.urlshorter.repository;
+
+import com.example.urlshorter.dto.ClickBucketDTO;
+import com.example.urlshorter.dto.ClickCountDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * A repository class for the per link, per time bucket click counters in link_click_stats.
+ */
+
+@Repository
+public class ClickStatsRepository {
+    private static final int UPSERT_BATCH_SIZE = 1000;
+
+    static final RowMapper<ClickBucketDTO> CLICK_BUCKET_ROW_MAPPER = (rs, rowNum) -> new ClickBucketDTO(rs.getLong(1), rs.getLong(2));
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    /**
+     * Adds the given clicks to the stored counters, creating missing rows.
+     * All batches run in one transaction, so a failed call adds nothing and can be retried as a whole.
+     * @param clickCountDTOs List<ClickCountDTO>
+     */
+    @Transactional
+    public void addClicks(List<ClickCountDTO> clickCountDTOs) {
+        jdbcTemplate.batchUpdate(
+                "merge into link_click_stats t"
+                        + " using (values(cast(? as bigint), cast(? as bigint), cast(? as bigint))) s(id, bucket_start, clicks)"
+                        + " on t.id = s.id and t.bucket_start = s.bucket_start"
+                        + " when matched then update set t.clicks = t.clicks + s.clicks"
+                        + " when not matched then insert(id, bucket_start, clicks) values(s.id, s.bucket_start, s.clicks)",
+                clickCountDTOs,
+                UPSERT_BATCH_SIZE,
+                (ps, clickCountDTO) -> {
+                    ps.setLong(1, clickCountDTO.getId());
+                    ps.setLong(2, clickCountDTO.getBucketStart());
+                    ps.setLong(3, clickCountDTO.getClicks());
+                });
+    }
+
+    /**
+     * Returns the click counters of the given link, oldest bucket first.
+     * @param id long
+     * @return List<ClickBucketDTO>
+     */
+    public List<ClickBucketDTO> findByLinkId(long id) {
+        return jdbcTemplate.query("select bucket_start, clicks from link_click_stats where id = ? order by bucket_start",
+                CLICK_BUCKET_ROW_MAPPER, id);
+    }
+}
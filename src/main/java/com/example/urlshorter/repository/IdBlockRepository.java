@@ -0,0 +1,33 @@
+package com.example.urlshorter.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * A repository class to reserve ranges of ids from the id_block high-water-mark table.
+ */
+
+@Repository
+public class IdBlockRepository {
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    /**
+     * Reserves a contiguous range of ids for the given sequence.
+     * The update takes a row lock, so concurrent callers (also on other nodes) always get disjoint ranges.
+     * @param name String
+     * @param size int
+     * @return first id of the reserved range, the range is [first, first + size)
+     */
+    @Transactional
+    public long reserve(String name, int size) {
+        int updated = jdbcTemplate.update("update id_block set next_id = next_id + ? where name = ?", size, name);
+        if (updated == 0) {
+            throw new IllegalStateException("No id_block row found for sequence:" + name);
+        }
+        Long next = jdbcTemplate.queryForObject("select next_id from id_block where name = ?", Long.class, name);
+        return next - size;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.urlshorter.repository;
+
+/**
+ * Callback for rows streamed from the shortener table.
+ */
+@FunctionalInterface
+public interface LinkRowHandler {
+
+    /**
+     * Handles one row.
+     * @param id long
+     * @param longLink String
+     */
+    void handle(long id, String longLink);
+}
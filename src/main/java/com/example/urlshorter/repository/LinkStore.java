@@ -0,0 +1,83 @@
+package com.example.urlshorter.repository;
+
+import com.example.urlshorter.dto.LinkRecordDTO;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Storage engine for links: id, long link and the digest of the long link, see LinkDigest.
+ * The engine is picked with app.store.engine, jdbc for ShortenerRepository, mapped for MappedLinkStore or sharded
+ * for ShardedLinkStore.
+ * Implementations are thread safe, reject a second link with the same id or digest with a DuplicateKeyException
+ * and return scans and pages ordered by id.
+ */
+public interface LinkStore {
+
+    /**
+     * Inserts a new link.
+     * @param id long
+     * @param longLink String
+     * @param longLinkHash byte[], see LinkDigest
+     */
+    void insert(long id, String longLink, byte[] longLinkHash);
+
+    /**
+     * Inserts the given links.
+     * @param linkRecordDTOs List<LinkRecordDTO> with id, long link and digest
+     */
+    void insertAll(List<LinkRecordDTO> linkRecordDTOs);
+
+    /**
+     * Returns long link for the given id.
+     * @param id long
+     * @return Optional<String>
+     */
+    Optional<String> findById(long id);
+
+    /**
+     * Returns ids and long links of the links with one of the given ids, in no particular order.
+     * Ids without a link are left out.
+     * @param ids List<Long>, distinct
+     * @return List<LinkRecordDTO>
+     */
+    List<LinkRecordDTO> findByIds(List<Long> ids);
+
+    /**
+     * Returns id for the given long link.
+     * @param longLink String
+     * @param longLinkHash byte[], see LinkDigest
+     * @return Optional<Long>
+     */
+    Optional<Long> findByLongLink(String longLink, byte[] longLinkHash);
+
+    /**
+     * Returns ids and long links of the links with one of the given digests.
+     * Callers compare the long links, a digest match alone does not mean the long link is the same.
+     * @param longLinkHashes List<byte[]>
+     * @return List<LinkRecordDTO>
+     */
+    List<LinkRecordDTO> findByLongLinkHashes(List<byte[]> longLinkHashes);
+
+    /**
+     * Returns the links with an id greater than afterId, ordered by id.
+     * @param afterId long, 0 for the first page
+     * @param limit int
+     * @return List<LinkRecordDTO>
+     */
+    List<LinkRecordDTO> findPage(long afterId, int limit);
+
+    /**
+     * Streams all links with an id greater than afterId, ordered by id, to the given handler.
+     * @param afterId long, 0 for all links
+     * @param handler LinkRowHandler
+     */
+    void forEachLink(long afterId, LinkRowHandler handler);
+
+    /**
+     * Passes the long link digest of every link to the given consumer without materializing them.
+     * @param consumer Consumer<byte[]>
+     */
+    void forEachLongLinkHash(Consumer<byte[]> consumer);
+}
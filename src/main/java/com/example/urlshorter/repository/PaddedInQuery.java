@@ -0,0 +1,52 @@
+package com.example.urlshorter.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * An in-query run in chunks of at most MAX_SIZE values, each chunk padded to one of a few fixed sizes by repeating
+ * its last value, so the driver and the db see a dozen statements instead of one per list size.
+ */
+public final class PaddedInQuery {
+    public static final int MAX_SIZE = 1000;
+
+    private static final int[] SIZES = {1, 2, 4, 8, 16, 32, 64, 128, 256, 512, MAX_SIZE};
+
+    private final String[] sql;
+
+    /**
+     * Creates the statements for the given query.
+     * @param sqlBeforeIn String, the query up to the in-list, e.g. "select id from shortener where id"
+     */
+    public PaddedInQuery(String sqlBeforeIn) {
+        this.sql = Arrays.stream(SIZES)
+                .mapToObj(size -> sqlBeforeIn + " in (" + String.join(",", Collections.nCopies(size, "?")) + ")")
+                .toArray(String[]::new);
+    }
+
+    /**
+     * Runs the query once per chunk of the given values and returns the rows of all chunks.
+     * @param values List<?>
+     * @param chunkQuery BiFunction<String, Object[], List<T>> running a statement with its arguments
+     * @return List<T>
+     */
+    public <T> List<T> query(List<?> values, BiFunction<String, Object[], List<T>> chunkQuery) {
+        List<T> result = new ArrayList<>();
+        for (int from = 0; from < values.size(); from += MAX_SIZE) {
+            List<?> chunk = values.subList(from, Math.min(from + MAX_SIZE, values.size()));
+            int sizeIndex = 0;
+            while (SIZES[sizeIndex] < chunk.size()) {
+                sizeIndex++;
+            }
+            Object[] args = new Object[SIZES[sizeIndex]];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = chunk.get(Math.min(i, chunk.size() - 1));
+            }
+            result.addAll(chunkQuery.apply(sql[sizeIndex], args));
+        }
+        return result;
+    }
+}
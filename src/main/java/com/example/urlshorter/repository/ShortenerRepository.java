@@ -1,87 +1,223 @@
 package com.example.urlshorter.repository;
 
-import com.example.urlshorter.dto.OutputDTO;
-import lombok.extern.slf4j.Slf4j;
+import com.example.urlshorter.dto.LinkRecordDTO;
+import com.example.urlshorter.metrics.QueryStats;
+import com.example.urlshorter.metrics.ShortenerMetrics;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.dao.EmptyResultDataAccessException;
-import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
 
+import java.sql.PreparedStatement;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
- * A repository class to interact with the db.
+ * A repository class to interact with the db, the jdbc LinkStore engine.
+ * Only the id is stored for a link, the short link is rendered from it by the service.
+ * Statements are constants, so the driver and the db reuse their parsed and planned form; in-queries are padded to
+ * a few fixed sizes for the same reason, see PaddedInQuery. Rows are read by position with static row mappers,
+ * selecting only the columns needed. Every query counts its calls, latency and rows as shortener.db.*, tagged with the method name;
+ * the point queries findById, findByLongLink and insert also feed the db latency average used for load shedding.
  */
 
-@Slf4j
 @Repository
-public class ShortenerRepository {
+@ConditionalOnProperty(value = "app.store.engine", havingValue = "jdbc", matchIfMissing = true)
+public class ShortenerRepository implements LinkStore {
+    private static final int INSERT_BATCH_SIZE = 1000;
+    private static final int STREAM_FETCH_SIZE = 1000;
+
+    private static final String FIND_PAGE_SQL = "select id, long_link from shortener where id > ? order by id limit ?";
+    private static final String FOR_EACH_LINK_SQL = "select id, long_link from shortener where id > ? order by id";
+    private static final String FIND_BY_LONG_LINK_SQL = "select id, long_link from shortener where long_link_hash = ?";
+    private static final String FOR_EACH_LONG_LINK_HASH_SQL = "select long_link_hash from shortener";
+    private static final String FIND_BY_ID_SQL = "select long_link from shortener where id = ?";
+    private static final String INSERT_SQL = "insert into shortener(id, long_link, long_link_hash) values(?, ?, ?)";
+    private static final PaddedInQuery FIND_BY_LONG_LINK_HASHES_QUERY =
+            new PaddedInQuery("select id, long_link from shortener where long_link_hash");
+    private static final PaddedInQuery FIND_BY_IDS_QUERY = new PaddedInQuery("select id, long_link from shortener where id");
+
+    static final RowMapper<LinkRecordDTO> LINK_ROW_MAPPER = (rs, rowNum) -> new LinkRecordDTO(rs.getLong(1), rs.getString(2));
+
+    private static final ResultSetExtractor<Optional<String>> LONG_LINK_EXTRACTOR =
+            rs -> rs.next() ? Optional.of(rs.getString(1)) : Optional.empty();
+
     @Autowired
     JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    ShortenerMetrics shortenerMetrics;
+
+    public ShortenerRepository() {
+    }
+
     /**
-     * Returns all long links and short links in the db.
-     * @return List<ShortenOutputDTO>
+     * Creates a repository on the given db, for engines managing their own data sources.
+     * @param jdbcTemplate JdbcTemplate
+     * @param shortenerMetrics ShortenerMetrics
      */
-    public List<OutputDTO> getAllLinks() {
-        return jdbcTemplate.query("select * from shortener", new BeanPropertyRowMapper<>(OutputDTO.class));
+    public ShortenerRepository(JdbcTemplate jdbcTemplate, ShortenerMetrics shortenerMetrics) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shortenerMetrics = shortenerMetrics;
+        registerQueryStats();
+    }
+
+    private QueryStats findPageStats;
+    private QueryStats forEachLinkStats;
+    private QueryStats findByLongLinkStats;
+    private QueryStats findByLongLinkHashesStats;
+    private QueryStats forEachLongLinkHashStats;
+    private QueryStats findByIdStats;
+    private QueryStats findByIdsStats;
+    private QueryStats insertStats;
+    private QueryStats insertAllStats;
+
+    @PostConstruct
+    void registerQueryStats() {
+        findPageStats = shortenerMetrics.queryStats("findPage");
+        forEachLinkStats = shortenerMetrics.queryStats("forEachLink");
+        findByLongLinkStats = shortenerMetrics.pointQueryStats("findByLongLink");
+        findByLongLinkHashesStats = shortenerMetrics.queryStats("findByLongLinkHashes");
+        forEachLongLinkHashStats = shortenerMetrics.queryStats("forEachLongLinkHash");
+        findByIdStats = shortenerMetrics.pointQueryStats("findById");
+        findByIdsStats = shortenerMetrics.queryStats("findByIds");
+        insertStats = shortenerMetrics.pointQueryStats("insert");
+        insertAllStats = shortenerMetrics.queryStats("insertAll");
+    }
+
+    /**
+     * Returns the links with an id greater than afterId, ordered by id. Keyset pagination on the primary key,
+     * so the cost of a page does not grow with its position.
+     * @param afterId long, 0 for the first page
+     * @param limit int
+     * @return List<LinkRecordDTO>
+     */
+    @Override
+    public List<LinkRecordDTO> findPage(long afterId, int limit) {
+        return findPageStats.list(() -> jdbcTemplate.query(FIND_PAGE_SQL, LINK_ROW_MAPPER, afterId, limit));
     }
 
     /**
-     * Returns short link for the given long link.
+     * Streams all links with an id greater than afterId, ordered by id, to the given handler.
+     * Rows are fetched in chunks and never collected, memory use does not depend on the table size.
+     * @param afterId long, 0 for all links
+     * @param handler LinkRowHandler
+     */
+    @Override
+    public void forEachLink(long afterId, LinkRowHandler handler) {
+        forEachLinkStats.count(() -> {
+            long[] rows = new long[1];
+            jdbcTemplate.query(con -> {
+                        PreparedStatement ps = con.prepareStatement(FOR_EACH_LINK_SQL);
+                        ps.setFetchSize(STREAM_FETCH_SIZE);
+                        ps.setLong(1, afterId);
+                        return ps;
+                    },
+                    (RowCallbackHandler) rs -> {
+                        handler.handle(rs.getLong(1), rs.getString(2));
+                        rows[0]++;
+                    });
+            return rows[0];
+        });
+    }
+
+    /**
+     * Returns id for the given long link.
+     * Probes the index on the fixed width long_link_hash, the long link itself is only compared on a digest match.
      * @param longLink String
-     * @return List<String>
+     * @param longLinkHash byte[], see LinkDigest
+     * @return Optional<Long>
+     */
+    @Override
+    public Optional<Long> findByLongLink(String longLink, byte[] longLinkHash) {
+        List<LinkRecordDTO> result = findByLongLinkStats.list(() -> jdbcTemplate.query(FIND_BY_LONG_LINK_SQL, LINK_ROW_MAPPER, longLinkHash));
+        return result.stream()
+                .filter(linkRecordDTO -> linkRecordDTO.getLongLink().equals(longLink))
+                .map(LinkRecordDTO::getId)
+                .findFirst();
+    }
+
+    /**
+     * Returns ids and long links of the rows with one of the given digests, using one in-query per chunk of digests.
+     * Callers compare the long links, a digest match alone does not mean the long link is the same.
+     * @param longLinkHashes List<byte[]>
+     * @return List<LinkRecordDTO>
      */
-    public Optional<String> findByLongLink(String longLink) {
-        try {
-            OutputDTO result = jdbcTemplate.queryForObject("select * from shortener where long_link = ?",
-                    new BeanPropertyRowMapper<>(OutputDTO.class),
-                    longLink);
-            return Optional.of(result.getShortLink());
-        }
-        catch (EmptyResultDataAccessException e) {
-            log.debug("No record found in database for:"+ longLink, e);
-            return Optional.empty();
-        }
+    @Override
+    public List<LinkRecordDTO> findByLongLinkHashes(List<byte[]> longLinkHashes) {
+        return FIND_BY_LONG_LINK_HASHES_QUERY.query(longLinkHashes,
+                (sql, args) -> findByLongLinkHashesStats.list(() -> jdbcTemplate.query(sql, LINK_ROW_MAPPER, args)));
     }
 
     /**
-     * Returns long link for the given short link.
-     * @param shortLink String
-     * @return List<String>
+     * Passes the long link digest of every row to the given consumer without materializing them.
+     * @param consumer Consumer<byte[]>
      */
-    public Optional<String> findByShortLink(String shortLink) {
-        try {
-            OutputDTO result = jdbcTemplate.queryForObject("select * from shortener where short_link = ?",
-                    new BeanPropertyRowMapper<>(OutputDTO.class),
-                    shortLink);
-            return Optional.of(result.getLongLink());
-        }
-        catch (EmptyResultDataAccessException e) {
-            log.debug("No record found in database for:"+ shortLink, e);
-            return Optional.empty();
-        }
+    @Override
+    public void forEachLongLinkHash(Consumer<byte[]> consumer) {
+        forEachLongLinkHashStats.count(() -> {
+            long[] rows = new long[1];
+            jdbcTemplate.query(FOR_EACH_LONG_LINK_HASH_SQL, (RowCallbackHandler) rs -> {
+                consumer.accept(rs.getBytes(1));
+                rows[0]++;
+            });
+            return rows[0];
+        });
     }
 
     /**
-     * Returns the value of maximum Id in the db.
-     * @return Integer
+     * Returns long link for the given id.
+     * @param id long
+     * @return Optional<String>
      */
-    public Integer getMaxId() {
-        return jdbcTemplate.queryForObject("select max(id) from shortener", Integer.class);
+    @Override
+    public Optional<String> findById(long id) {
+        return findByIdStats.optional(() -> jdbcTemplate.query(FIND_BY_ID_SQL, LONG_LINK_EXTRACTOR, id));
     }
 
     /**
-     * Returns long link for the given short link.
-     * @param id Integer
+     * Returns ids and long links of the rows with one of the given ids, using one in-query per chunk of ids.
+     * @param ids List<Long>
+     * @return List<LinkRecordDTO>
+     */
+    @Override
+    public List<LinkRecordDTO> findByIds(List<Long> ids) {
+        return FIND_BY_IDS_QUERY.query(ids, (sql, args) -> findByIdsStats.list(() -> jdbcTemplate.query(sql, LINK_ROW_MAPPER, args)));
+    }
+
+    /**
+     * Inserts a new link.
+     * @param id long
      * @param longLink String
-     * @param shortLink String
+     * @param longLinkHash byte[], see LinkDigest
+     */
+    @Override
+    public void insert(long id, String longLink, byte[] longLinkHash) {
+        insertStats.count(() -> jdbcTemplate.update(INSERT_SQL, id, longLink, longLinkHash));
+    }
+
+    /**
+     * Inserts the given links with JDBC batches.
+     * @param linkRecordDTOs List<LinkRecordDTO> with id, long link and digest
      */
-    public void insert(Integer id, String longLink, String shortLink) {
-        jdbcTemplate.update(
-                "insert into shortener(id, long_link, short_link) values(?, ?, ?)",
-                id, longLink, shortLink);
+    @Override
+    public void insertAll(List<LinkRecordDTO> linkRecordDTOs) {
+        insertAllStats.count(() -> {
+            jdbcTemplate.batchUpdate(
+                    INSERT_SQL,
+                    linkRecordDTOs,
+                    INSERT_BATCH_SIZE,
+                    (ps, linkRecordDTO) -> {
+                        ps.setLong(1, linkRecordDTO.getId());
+                        ps.setString(2, linkRecordDTO.getLongLink());
+                        ps.setBytes(3, linkRecordDTO.getLongLinkHash());
+                    });
+            return linkRecordDTOs.size();
+        });
     }
 }
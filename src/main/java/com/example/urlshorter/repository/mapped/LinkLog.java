@@ -0,0 +1,286 @@
+package com.example.urlshorter.repository.mapped;
+
+import com.example.urlshorter.dto.LinkRecordDTO;
+import com.example.urlshorter.service.LinkDigest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only file of link records, the source of truth of the MappedLinkStore.
+ * A record is [int length][long id][16 byte digest][utf-8 long link][int crc32c], length and crc covering the
+ * id, digest and long link. Appends are not thread safe and are serialized by the store; reads are positional
+ * and run concurrently with appends, up to the end published after each append.
+ */
+final class LinkLog implements Closeable {
+    static final long MAGIC = 0x4c494e4b4c4f4731L; // "LINKLOG1"
+    static final int HEADER_SIZE = Long.BYTES;
+
+    private static final int FIXED_SIZE = Long.BYTES + LinkDigest.LENGTH;
+    private static final int MAX_BODY_SIZE = 1 << 20;
+    private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+
+    private final boolean sync;
+
+    private final ThreadLocal<CRC32C> crc = ThreadLocal.withInitial(CRC32C::new);
+
+    private ByteBuffer writeBuffer = ByteBuffer.allocate(4096);
+
+    // end of the last complete record, everything before it is readable
+    private volatile long end;
+
+    LinkLog(Path file, boolean sync) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.sync = sync;
+        if (channel.size() < HEADER_SIZE) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putLong(0, MAGIC);
+            channel.truncate(0);
+            writeFully(header, 0);
+            channel.force(true);
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(header, 0);
+            if (header.getLong(0) != MAGIC) {
+                throw new IOException(file + " is not a link log");
+            }
+        }
+        this.end = HEADER_SIZE;
+    }
+
+    /**
+     * Scans the records from the given offset, truncates the file after the last complete record and makes
+     * everything up to it readable. Called once before the first append.
+     * @param from long, offset of a record boundary, HEADER_SIZE for the whole log
+     * @param visitor RecordVisitor
+     * @return end of the last complete record
+     */
+    long recover(long from, RecordVisitor visitor) throws IOException {
+        this.end = channel.size();
+        Cursor cursor = cursor(Math.max(from, HEADER_SIZE));
+        while (cursor.next()) {
+            visitor.visit(cursor);
+        }
+        long validEnd = cursor.nextOffset();
+        if (validEnd < channel.size()) {
+            // torn or corrupt tail of a crashed append
+            channel.truncate(validEnd);
+            channel.force(true);
+        }
+        this.end = validEnd;
+        return validEnd;
+    }
+
+    /**
+     * Appends a record without syncing it, see flush.
+     * @param id long
+     * @param longLinkHash byte[]
+     * @param longLink String
+     * @return offset of the record
+     */
+    long append(long id, byte[] longLinkHash, String longLink) throws IOException {
+        byte[] longLinkBytes = longLink.getBytes(StandardCharsets.UTF_8);
+        int bodySize = FIXED_SIZE + longLinkBytes.length;
+        if (bodySize > MAX_BODY_SIZE) {
+            throw new IllegalArgumentException("Long link of " + longLinkBytes.length + " bytes is too long");
+        }
+        int recordSize = Integer.BYTES + bodySize + Integer.BYTES;
+        if (writeBuffer.capacity() < recordSize) {
+            writeBuffer = ByteBuffer.allocate(Integer.highestOneBit(recordSize) << 1);
+        }
+        ByteBuffer record = writeBuffer.clear();
+        record.putInt(bodySize).putLong(id).put(longLinkHash, 0, LinkDigest.LENGTH).put(longLinkBytes);
+        CRC32C checksum = crc.get();
+        checksum.reset();
+        checksum.update(record.array(), Integer.BYTES, bodySize);
+        record.putInt((int) checksum.getValue()).flip();
+
+        long offset = end;
+        writeFully(record, offset);
+        end = offset + recordSize;
+        return offset;
+    }
+
+    /**
+     * Forces the appended records to disk if the log was opened with sync.
+     */
+    void flush() throws IOException {
+        if (sync) {
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Drops the records from the given offset on, appended by an insert which failed before indexing them.
+     * Not thread safe, serialized with append by the store.
+     * @param offset long, end of the log before the failed appends
+     */
+    void truncate(long offset) throws IOException {
+        end = offset;
+        channel.truncate(offset);
+        flush();
+    }
+
+    /**
+     * Reads the record at the given offset.
+     * @param offset long, as returned by append or a cursor
+     * @return LinkRecordDTO with id, long link and digest
+     */
+    LinkRecordDTO read(long offset) throws IOException {
+        ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+        readFully(length, offset);
+        int bodySize = length.getInt(0);
+        ByteBuffer body = ByteBuffer.allocate(bodySize);
+        readFully(body, offset + Integer.BYTES);
+        byte[] longLinkHash = new byte[LinkDigest.LENGTH];
+        body.get(Long.BYTES, longLinkHash);
+        String longLink = new String(body.array(), FIXED_SIZE, bodySize - FIXED_SIZE, StandardCharsets.UTF_8);
+        return new LinkRecordDTO(body.getLong(0), longLink, longLinkHash);
+    }
+
+    /**
+     * Returns a cursor over the records from the given offset up to the current end.
+     * @param from long, offset of a record boundary
+     * @return Cursor
+     */
+    Cursor cursor(long from) {
+        return new Cursor(from, end);
+    }
+
+    long end() {
+        return end;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.force(true);
+        channel.close();
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of link log at " + position);
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Callback for records found by recover.
+     */
+    @FunctionalInterface
+    interface RecordVisitor {
+        void visit(Cursor cursor) throws IOException;
+    }
+
+    /**
+     * Sequential reader over the records, reading the file in large chunks. The digest array is reused,
+     * the long link is only decoded when asked for. next() stops at the first incomplete or corrupt record.
+     */
+    final class Cursor {
+        private final long limit;
+
+        private ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE).limit(0);
+
+        // file offset of buffer position 0
+        private long bufferOffset;
+
+        private long offset = -1;
+
+        private long nextOffset;
+
+        private long id;
+
+        private final byte[] longLinkHash = new byte[LinkDigest.LENGTH];
+
+        private int longLinkPosition;
+
+        private int longLinkLength;
+
+        private Cursor(long from, long limit) {
+            this.bufferOffset = from;
+            this.nextOffset = from;
+            this.limit = limit;
+        }
+
+        boolean next() throws IOException {
+            if (!fill(Integer.BYTES)) {
+                return false;
+            }
+            int start = (int) (nextOffset - bufferOffset);
+            int bodySize = buffer.getInt(start);
+            if (bodySize < FIXED_SIZE || bodySize > MAX_BODY_SIZE || !fill(Integer.BYTES + bodySize + Integer.BYTES)) {
+                return false;
+            }
+            start = (int) (nextOffset - bufferOffset);
+            int bodyStart = start + Integer.BYTES;
+            CRC32C checksum = crc.get();
+            checksum.reset();
+            checksum.update(buffer.array(), bodyStart, bodySize);
+            if ((int) checksum.getValue() != buffer.getInt(bodyStart + bodySize)) {
+                return false;
+            }
+            offset = nextOffset;
+            id = buffer.getLong(bodyStart);
+            buffer.get(bodyStart + Long.BYTES, longLinkHash);
+            longLinkPosition = bodyStart + FIXED_SIZE;
+            longLinkLength = bodySize - FIXED_SIZE;
+            nextOffset = offset + Integer.BYTES + bodySize + Integer.BYTES;
+            return true;
+        }
+
+        long offset() {
+            return offset;
+        }
+
+        long nextOffset() {
+            return nextOffset;
+        }
+
+        long id() {
+            return id;
+        }
+
+        byte[] longLinkHash() {
+            return longLinkHash;
+        }
+
+        String longLink() {
+            return new String(buffer.array(), longLinkPosition, longLinkLength, StandardCharsets.UTF_8);
+        }
+
+        // makes the given number of bytes from nextOffset available in the buffer, false at the end of the log
+        private boolean fill(int bytes) throws IOException {
+            if (nextOffset + bytes > limit) {
+                return false;
+            }
+            if (nextOffset + bytes <= bufferOffset + buffer.limit()) {
+                return true;
+            }
+            if (buffer.capacity() < bytes) {
+                buffer = ByteBuffer.allocate(Integer.highestOneBit(bytes) << 1);
+            }
+            buffer.clear();
+            bufferOffset = nextOffset;
+            buffer.limit((int) Math.min(buffer.capacity(), limit - bufferOffset));
+            readFully(buffer, bufferOffset);
+            buffer.flip();
+            return true;
+        }
+    }
+}
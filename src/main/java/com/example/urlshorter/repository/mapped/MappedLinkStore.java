@@ -0,0 +1,306 @@
+package com.example.urlshorter.repository.mapped;
+
+import com.example.urlshorter.dto.LinkRecordDTO;
+import com.example.urlshorter.repository.LinkRowHandler;
+import com.example.urlshorter.repository.LinkStore;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Repository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * An embedded LinkStore for nodes without a SQL database: an append-only LinkLog plus two memory-mapped
+ * MappedLongIndex tables, id to log offset and long link digest to log offset.
+ * Inserts append to the log, optionally force it to disk, then publish the offsets in the indexes; reads never lock.
+ * The indexes are marked clean on close and trusted on the next start, otherwise they are rebuilt from the log,
+ * dropping a torn record at its end.
+ * As long as ids are inserted in ascending order, which is the case for a single node, pages and scans read the
+ * log sequentially from the afterId record; otherwise a page scans the id index and a scan sorts the ids first.
+ */
+
+@Slf4j
+@Repository
+@ConditionalOnProperty(value = "app.store.engine", havingValue = "mapped")
+public class MappedLinkStore implements LinkStore, Closeable {
+    static final String LOG_FILE = "links.log";
+    static final String ID_INDEX_FILE = "links.id.idx";
+    static final String HASH_INDEX_FILE = "links.hash.idx";
+
+    private final LinkLog linkLog;
+
+    private final MappedLongIndex idIndex;
+
+    private final MappedLongIndex hashIndex;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private boolean closed;
+
+    public MappedLinkStore(@Value("${app.store.mapped.dir}") Path dir,
+                           @Value("${app.store.mapped.initial-capacity}") long initialCapacity,
+                           @Value("${app.store.mapped.sync}") boolean sync) throws IOException {
+        Files.createDirectories(dir);
+        this.linkLog = new LinkLog(dir.resolve(LOG_FILE), sync);
+        this.idIndex = MappedLongIndex.open(dir.resolve(ID_INDEX_FILE), true, initialCapacity);
+        this.hashIndex = MappedLongIndex.open(dir.resolve(HASH_INDEX_FILE), false, initialCapacity);
+
+        long start = System.currentTimeMillis();
+        long from = idIndex.logEnd();
+        boolean trusted = idIndex.wasClean() && hashIndex.wasClean() && hashIndex.logEnd() == from
+                && from >= LinkLog.HEADER_SIZE && from <= Files.size(dir.resolve(LOG_FILE));
+        if (!trusted) {
+            log.warn("Link indexes in {} were not closed cleanly, rebuilding them from the log", dir);
+            idIndex.clear();
+            hashIndex.clear();
+            from = LinkLog.HEADER_SIZE;
+        }
+        long end = linkLog.recover(from, cursor -> index(cursor.id(), cursor.longLinkHash(), cursor.offset()));
+        log.info("Opened link store in {} with {} links, replayed {} bytes of log in {} ms",
+                dir, idIndex.size(), end - from, System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public void insert(long id, String longLink, byte[] longLinkHash) {
+        insertAll(List.of(new LinkRecordDTO(id, longLink, longLinkHash)));
+    }
+
+    /**
+     * Inserts the given links with one append and sync of the log. Either all links are inserted or,
+     * if one of them has the id or digest of a stored link or of another link in the list, none.
+     * @param linkRecordDTOs List<LinkRecordDTO> with id, long link and digest
+     */
+    @Override
+    public void insertAll(List<LinkRecordDTO> linkRecordDTOs) {
+        writeLock.lock();
+        try {
+            checkNew(linkRecordDTOs);
+            long[] offsets = append(linkRecordDTOs);
+            for (int i = 0; i < offsets.length; i++) {
+                index(linkRecordDTOs.get(i).getId(), linkRecordDTOs.get(i).getLongLinkHash(), offsets[i]);
+            }
+        } catch (IOException e) {
+            throw new DataAccessResourceFailureException("Could not update the link indexes", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // appends and syncs the links, or truncates the log back to where it was, so a crash can't resurrect them
+    private long[] append(List<LinkRecordDTO> linkRecordDTOs) {
+        long logEnd = linkLog.end();
+        try {
+            long[] offsets = new long[linkRecordDTOs.size()];
+            for (int i = 0; i < offsets.length; i++) {
+                LinkRecordDTO linkRecordDTO = linkRecordDTOs.get(i);
+                offsets[i] = linkLog.append(linkRecordDTO.getId(), linkRecordDTO.getLongLinkHash(), linkRecordDTO.getLongLink());
+            }
+            linkLog.flush();
+            return offsets;
+        } catch (IOException | RuntimeException e) {
+            try {
+                linkLog.truncate(logEnd);
+            } catch (IOException truncateFailure) {
+                e.addSuppressed(truncateFailure);
+            }
+            if (e instanceof IOException) {
+                throw new DataAccessResourceFailureException("Could not append to the link log", e);
+            }
+            throw (RuntimeException) e;
+        }
+    }
+
+    @Override
+    public Optional<String> findById(long id) {
+        long offset = idIndex.get(id);
+        return offset < 0 ? Optional.empty() : Optional.of(read(offset).getLongLink());
+    }
+
+    @Override
+    public List<LinkRecordDTO> findByIds(List<Long> ids) {
+        List<LinkRecordDTO> result = new ArrayList<>(ids.size());
+        for (long id : ids) {
+            long offset = idIndex.get(id);
+            if (offset >= 0) {
+                result.add(new LinkRecordDTO(id, read(offset).getLongLink()));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Optional<Long> findByLongLink(String longLink, byte[] longLinkHash) {
+        return findByLongLinkHash(longLinkHash).stream()
+                .filter(linkRecordDTO -> linkRecordDTO.getLongLink().equals(longLink))
+                .map(LinkRecordDTO::getId)
+                .findFirst();
+    }
+
+    @Override
+    public List<LinkRecordDTO> findByLongLinkHashes(List<byte[]> longLinkHashes) {
+        List<LinkRecordDTO> result = new ArrayList<>();
+        for (byte[] longLinkHash : longLinkHashes) {
+            result.addAll(findByLongLinkHash(longLinkHash));
+        }
+        return result;
+    }
+
+    @Override
+    public List<LinkRecordDTO> findPage(long afterId, int limit) {
+        List<LinkRecordDTO> page = new ArrayList<>(Math.min(limit, 1024));
+        if (limit <= 0) {
+            return page;
+        }
+        if (idIndex.isAscending()) {
+            scanAscending(afterId, (id, longLink) -> page.add(new LinkRecordDTO(id, longLink)), limit);
+            return page;
+        }
+        // the limit smallest ids after afterId, largest on top
+        PriorityQueue<Long> smallest = new PriorityQueue<>(Collections.reverseOrder());
+        idIndex.forEachEntry((id, offset) -> {
+            if (id > afterId && (smallest.size() < limit || id < smallest.peek())) {
+                smallest.add(id);
+                if (smallest.size() > limit) {
+                    smallest.poll();
+                }
+            }
+        });
+        long[] ids = smallest.stream().mapToLong(Long::longValue).sorted().toArray();
+        for (long id : ids) {
+            page.add(new LinkRecordDTO(id, read(idIndex.get(id)).getLongLink()));
+        }
+        return page;
+    }
+
+    @Override
+    public void forEachLink(long afterId, LinkRowHandler handler) {
+        if (idIndex.isAscending()) {
+            scanAscending(afterId, handler, Long.MAX_VALUE);
+            return;
+        }
+        long[] ids = new long[Math.toIntExact(idIndex.size())];
+        int[] count = new int[1];
+        idIndex.forEachEntry((id, offset) -> {
+            if (id > afterId && count[0] < ids.length) {
+                ids[count[0]++] = id;
+            }
+        });
+        Arrays.sort(ids, 0, count[0]);
+        for (int i = 0; i < count[0]; i++) {
+            handler.handle(ids[i], read(idIndex.get(ids[i])).getLongLink());
+        }
+    }
+
+    @Override
+    public void forEachLongLinkHash(Consumer<byte[]> consumer) {
+        try {
+            LinkLog.Cursor cursor = linkLog.cursor(LinkLog.HEADER_SIZE);
+            while (cursor.next()) {
+                consumer.accept(cursor.longLinkHash().clone());
+            }
+        } catch (IOException e) {
+            throw new DataAccessResourceFailureException("Could not read the link log", e);
+        }
+    }
+
+    /**
+     * Writes the indexes to disk and marks them clean, so the next start does not rebuild them.
+     */
+    @PreDestroy
+    @Override
+    public void close() throws IOException {
+        writeLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            linkLog.close();
+            idIndex.setLogEnd(linkLog.end());
+            hashIndex.setLogEnd(linkLog.end());
+            idIndex.close();
+            hashIndex.close();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // reads the log from the record after afterId, whose offset is known when it exists
+    private void scanAscending(long afterId, LinkRowHandler handler, long limit) {
+        long afterOffset = idIndex.get(afterId);
+        try {
+            LinkLog.Cursor cursor = linkLog.cursor(afterOffset < 0 ? LinkLog.HEADER_SIZE : afterOffset);
+            long count = 0;
+            while (count < limit && cursor.next()) {
+                if (cursor.id() > afterId) {
+                    handler.handle(cursor.id(), cursor.longLink());
+                    count++;
+                }
+            }
+        } catch (IOException e) {
+            throw new DataAccessResourceFailureException("Could not read the link log", e);
+        }
+    }
+
+    private List<LinkRecordDTO> findByLongLinkHash(byte[] longLinkHash) {
+        List<LinkRecordDTO> result = new ArrayList<>(1);
+        hashIndex.forEach(hashKey(longLinkHash), offset -> {
+            LinkRecordDTO linkRecordDTO = read(offset);
+            if (Arrays.equals(linkRecordDTO.getLongLinkHash(), longLinkHash)) {
+                result.add(linkRecordDTO);
+            }
+        });
+        return result;
+    }
+
+    private void checkNew(List<LinkRecordDTO> linkRecordDTOs) {
+        Set<Long> ids = new HashSet<>();
+        Set<ByteBuffer> longLinkHashes = new HashSet<>();
+        for (LinkRecordDTO linkRecordDTO : linkRecordDTOs) {
+            if (idIndex.get(linkRecordDTO.getId()) >= 0 || !ids.add(linkRecordDTO.getId())) {
+                throw new DuplicateKeyException("Duplicate link id " + linkRecordDTO.getId());
+            }
+            if (!findByLongLinkHash(linkRecordDTO.getLongLinkHash()).isEmpty()
+                    || !longLinkHashes.add(ByteBuffer.wrap(linkRecordDTO.getLongLinkHash()))) {
+                throw new DuplicateKeyException("Duplicate long link digest for " + linkRecordDTO.getLongLink());
+            }
+        }
+    }
+
+    private void index(long id, byte[] longLinkHash, long offset) throws IOException {
+        idIndex.put(id, offset);
+        hashIndex.put(hashKey(longLinkHash), offset);
+    }
+
+    private LinkRecordDTO read(long offset) {
+        try {
+            return linkLog.read(offset);
+        } catch (IOException e) {
+            throw new DataAccessResourceFailureException("Could not read the link log", e);
+        }
+    }
+
+    // the first 8 digest bytes, 0 is reserved for empty index slots
+    private static long hashKey(byte[] longLinkHash) {
+        long key = ByteBuffer.wrap(longLinkHash).getLong();
+        return key == 0 ? 1 : key;
+    }
+}
@@ -0,0 +1,333 @@
+package com.example.urlshorter.repository.mapped;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongConsumer;
+
+/**
+ * A memory-mapped open-addressing hash table from long keys to long values, e.g. id to log offset.
+ * Linear probing over 16 byte slots [key][value], key 0 marks an empty slot. A unique index rejects a second put
+ * of the same key, otherwise equal keys are kept side by side and visited with forEach.
+ * Writers are serialized by the caller; readers run concurrently: the value is written before the key is
+ * published with release semantics, so a reader which sees the key sees its value.
+ * The header records up to which log offset the table is complete and whether it was closed cleanly;
+ * the owner rebuilds the table from the log when it was not.
+ */
+final class MappedLongIndex implements Closeable {
+    private static final int MAGIC = 0x4c4e4b49; // "LNKI"
+    private static final int HEADER_SIZE = 64;
+    private static final int SLOT_SIZE = 16;
+    // largest power of two a single mapping can hold
+    private static final long MAX_CAPACITY = 1L << 26;
+    private static final double MAX_LOAD = 0.7;
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int CLEAN_OFFSET = 4;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int SIZE_OFFSET = 16;
+    private static final int LOG_END_OFFSET = 24;
+    private static final int MAX_KEY_OFFSET = 32;
+    private static final int ASCENDING_OFFSET = 40;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private final Path file;
+
+    private final boolean unique;
+
+    private final boolean wasClean;
+
+    private volatile Table table;
+
+    private MappedLongIndex(Path file, boolean unique, Table table) {
+        this.file = file;
+        this.unique = unique;
+        this.wasClean = table.buffer.getInt(CLEAN_OFFSET) == 1;
+        this.table = table;
+    }
+
+    /**
+     * Opens the index file, creating an empty one if it does not exist or is not a valid index.
+     * The returned index is marked as in use until close.
+     * @param file Path
+     * @param unique boolean
+     * @param initialCapacity long, rounded up to a power of two
+     * @return MappedLongIndex
+     */
+    static MappedLongIndex open(Path file, boolean unique, long initialCapacity) throws IOException {
+        Table table = Files.exists(file) ? Table.open(file) : null;
+        if (table == null) {
+            table = Table.create(file, capacityFor(initialCapacity));
+        }
+        MappedLongIndex index = new MappedLongIndex(file, unique, table);
+        table.buffer.putInt(CLEAN_OFFSET, 0);
+        table.buffer.force();
+        return index;
+    }
+
+    /**
+     * Returns whether the index was closed cleanly the last time, i.e. whether it is complete up to logEnd.
+     * @return boolean
+     */
+    boolean wasClean() {
+        return wasClean;
+    }
+
+    /**
+     * Removes all entries, keeping the capacity.
+     */
+    void clear() {
+        Table current = table;
+        for (long slot = 0; slot < current.capacity; slot++) {
+            current.buffer.putLong(current.slotOffset(slot), 0);
+        }
+        current.size = 0;
+        current.buffer.putLong(MAX_KEY_OFFSET, 0);
+        current.buffer.putLong(ASCENDING_OFFSET, 1);
+        current.buffer.putLong(LOG_END_OFFSET, 0);
+    }
+
+    /**
+     * Puts the given entry, growing the table when it gets too full.
+     * @param key long, not 0
+     * @param value long
+     * @return false if the index is unique and already contains the key
+     */
+    boolean put(long key, long value) throws IOException {
+        if (key == 0) {
+            throw new IllegalArgumentException("Key 0 is reserved for empty slots");
+        }
+        Table current = table;
+        if (current.size + 1 > current.capacity * MAX_LOAD) {
+            current = grow(current);
+        }
+        long mask = current.capacity - 1;
+        for (long slot = mix(key) & mask; ; slot = (slot + 1) & mask) {
+            int slotOffset = current.slotOffset(slot);
+            long slotKey = (long) LONGS.getAcquire(current.buffer, slotOffset);
+            if (slotKey == 0) {
+                current.buffer.putLong(slotOffset + Long.BYTES, value);
+                LONGS.setRelease(current.buffer, slotOffset, key);
+                current.size++;
+                current.buffer.putLong(SIZE_OFFSET, current.size);
+                long maxKey = current.buffer.getLong(MAX_KEY_OFFSET);
+                if (key <= maxKey) {
+                    current.buffer.putLong(ASCENDING_OFFSET, 0);
+                } else {
+                    current.buffer.putLong(MAX_KEY_OFFSET, key);
+                }
+                return true;
+            }
+            if (unique && slotKey == key) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Returns the value of the given key.
+     * @param key long
+     * @return long, -1 if the key is not in the index
+     */
+    long get(long key) {
+        if (key == 0) {
+            return -1;
+        }
+        Table current = table;
+        long mask = current.capacity - 1;
+        for (long slot = mix(key) & mask; ; slot = (slot + 1) & mask) {
+            int slotOffset = current.slotOffset(slot);
+            long slotKey = (long) LONGS.getAcquire(current.buffer, slotOffset);
+            if (slotKey == key) {
+                return current.buffer.getLong(slotOffset + Long.BYTES);
+            }
+            if (slotKey == 0) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Passes the value of every entry with the given key to the consumer.
+     * @param key long
+     * @param consumer LongConsumer
+     */
+    void forEach(long key, LongConsumer consumer) {
+        Table current = table;
+        long mask = current.capacity - 1;
+        for (long slot = mix(key) & mask; ; slot = (slot + 1) & mask) {
+            int slotOffset = current.slotOffset(slot);
+            long slotKey = (long) LONGS.getAcquire(current.buffer, slotOffset);
+            if (slotKey == 0) {
+                return;
+            }
+            if (slotKey == key) {
+                consumer.accept(current.buffer.getLong(slotOffset + Long.BYTES));
+            }
+        }
+    }
+
+    /**
+     * Passes every entry to the visitor, in slot order.
+     * @param visitor EntryVisitor
+     */
+    void forEachEntry(EntryVisitor visitor) {
+        Table current = table;
+        for (long slot = 0; slot < current.capacity; slot++) {
+            int slotOffset = current.slotOffset(slot);
+            long slotKey = (long) LONGS.getAcquire(current.buffer, slotOffset);
+            if (slotKey != 0) {
+                visitor.visit(slotKey, current.buffer.getLong(slotOffset + Long.BYTES));
+            }
+        }
+    }
+
+    long size() {
+        return table.size;
+    }
+
+    /**
+     * Returns whether every key was put in ascending order.
+     * @return boolean
+     */
+    boolean isAscending() {
+        return table.buffer.getLong(ASCENDING_OFFSET) == 1;
+    }
+
+    long logEnd() {
+        return table.buffer.getLong(LOG_END_OFFSET);
+    }
+
+    void setLogEnd(long logEnd) {
+        table.buffer.putLong(LOG_END_OFFSET, logEnd);
+    }
+
+    /**
+     * Writes the index to disk and marks it as cleanly closed.
+     */
+    @Override
+    public void close() {
+        Table current = table;
+        current.buffer.force();
+        current.buffer.putInt(CLEAN_OFFSET, 1);
+        current.buffer.force();
+    }
+
+    private Table grow(Table current) throws IOException {
+        if (current.capacity >= MAX_CAPACITY) {
+            throw new IllegalStateException("Index " + file + " is full at " + current.size + " entries");
+        }
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.deleteIfExists(tmp);
+        Table grown = Table.create(tmp, current.capacity * 2);
+        long mask = grown.capacity - 1;
+        for (long slot = 0; slot < current.capacity; slot++) {
+            int slotOffset = current.slotOffset(slot);
+            long key = current.buffer.getLong(slotOffset);
+            if (key != 0) {
+                long target = mix(key) & mask;
+                while (grown.buffer.getLong(grown.slotOffset(target)) != 0) {
+                    target = (target + 1) & mask;
+                }
+                grown.buffer.putLong(grown.slotOffset(target) + Long.BYTES, current.buffer.getLong(slotOffset + Long.BYTES));
+                grown.buffer.putLong(grown.slotOffset(target), key);
+            }
+        }
+        grown.size = current.size;
+        grown.buffer.putLong(SIZE_OFFSET, current.size);
+        grown.buffer.putLong(LOG_END_OFFSET, current.buffer.getLong(LOG_END_OFFSET));
+        grown.buffer.putLong(MAX_KEY_OFFSET, current.buffer.getLong(MAX_KEY_OFFSET));
+        grown.buffer.putLong(ASCENDING_OFFSET, current.buffer.getLong(ASCENDING_OFFSET));
+        grown.buffer.force();
+        // readers holding the old table keep using its mapping until they are done
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        table = grown;
+        return grown;
+    }
+
+    private static long capacityFor(long expectedEntries) {
+        long capacity = Long.highestOneBit(Math.max(16, (long) (expectedEntries / MAX_LOAD)) - 1) << 1;
+        return Math.min(capacity, MAX_CAPACITY);
+    }
+
+    private static long mix(long key) {
+        // murmur3 finalizer, spreads sequential ids over the table
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    /**
+     * Callback for entries visited by forEachEntry.
+     */
+    @FunctionalInterface
+    interface EntryVisitor {
+        void visit(long key, long value);
+    }
+
+    private static final class Table {
+        private final MappedByteBuffer buffer;
+
+        private final long capacity;
+
+        private long size;
+
+        private Table(MappedByteBuffer buffer, long capacity, long size) {
+            this.buffer = buffer;
+            this.capacity = capacity;
+            this.size = size;
+        }
+
+        private int slotOffset(long slot) {
+            return HEADER_SIZE + (int) (slot * SLOT_SIZE);
+        }
+
+        private static Table create(Path file, long capacity) throws IOException {
+            MappedByteBuffer buffer = map(file, HEADER_SIZE + capacity * SLOT_SIZE);
+            buffer.putInt(MAGIC_OFFSET, MAGIC);
+            buffer.putLong(CAPACITY_OFFSET, capacity);
+            buffer.putLong(ASCENDING_OFFSET, 1);
+            return new Table(buffer, capacity, 0);
+        }
+
+        // returns null if the file is not a valid index
+        private static Table open(Path file) throws IOException {
+            long fileSize = Files.size(file);
+            if (fileSize < HEADER_SIZE) {
+                return null;
+            }
+            MappedByteBuffer buffer = map(file, fileSize);
+            long capacity = buffer.getLong(CAPACITY_OFFSET);
+            if (buffer.getInt(MAGIC_OFFSET) != MAGIC || Long.bitCount(capacity) != 1
+                    || fileSize != HEADER_SIZE + capacity * SLOT_SIZE) {
+                return null;
+            }
+            return new Table(buffer, capacity, buffer.getLong(SIZE_OFFSET));
+        }
+
+        private static MappedByteBuffer map(Path file, long size) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                if (channel.size() != size) {
+                    channel.truncate(0);
+                    // extends the file with zeros, i.e. empty slots
+                    channel.write(ByteBuffer.allocate(1), size - 1);
+                }
+                return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+        }
+    }
+}
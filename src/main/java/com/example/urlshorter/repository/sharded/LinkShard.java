@@ -0,0 +1,111 @@
+package com.example.urlshorter.repository.sharded;
+
+import com.example.urlshorter.dto.LinkRecordDTO;
+import com.example.urlshorter.metrics.QueryStats;
+import com.example.urlshorter.metrics.ShortenerMetrics;
+import com.example.urlshorter.repository.PaddedInQuery;
+import com.example.urlshorter.repository.ShortenerRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * One database of the ShardedLinkStore. The shortener table holds the links whose id routes here and is read and
+ * written through a ShortenerRepository; the shortener_digest table maps the digests which route here to the id
+ * of their link, wherever that link is stored.
+ */
+final class LinkShard {
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String INSERT_DIGEST_SQL = "insert into shortener_digest(long_link_hash, id) values(?, ?)";
+    private static final String FIND_ID_BY_DIGEST_SQL = "select id from shortener_digest where long_link_hash = ?";
+    private static final String FOR_EACH_DIGEST_SQL = "select long_link_hash from shortener_digest";
+    private static final String DELETE_LINK_SQL = "delete from shortener where id = ? and long_link_hash = ?";
+    private static final PaddedInQuery FIND_IDS_BY_DIGESTS_QUERY = new PaddedInQuery("select id from shortener_digest where long_link_hash");
+
+    private static final RowMapper<Long> ID_ROW_MAPPER = (rs, rowNum) -> rs.getLong(1);
+
+    private final DataSource dataSource;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ShortenerRepository links;
+
+    private final QueryStats insertDigestsStats;
+
+    private final QueryStats findIdsByDigestsStats;
+
+    LinkShard(DataSource dataSource, ShortenerMetrics shortenerMetrics) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.links = new ShortenerRepository(jdbcTemplate, shortenerMetrics);
+        this.insertDigestsStats = shortenerMetrics.queryStats("insertDigests");
+        this.findIdsByDigestsStats = shortenerMetrics.queryStats("findIdsByDigests");
+    }
+
+    DataSource dataSource() {
+        return dataSource;
+    }
+
+    /**
+     * Returns the links of this shard.
+     * @return ShortenerRepository
+     */
+    ShortenerRepository links() {
+        return links;
+    }
+
+    /**
+     * Inserts the digest entries of the given links.
+     * @param linkRecordDTOs List<LinkRecordDTO> with id and digest
+     */
+    void insertDigests(List<LinkRecordDTO> linkRecordDTOs) {
+        insertDigestsStats.count(() -> {
+            jdbcTemplate.batchUpdate(INSERT_DIGEST_SQL, linkRecordDTOs, BATCH_SIZE, (ps, linkRecordDTO) -> {
+                ps.setBytes(1, linkRecordDTO.getLongLinkHash());
+                ps.setLong(2, linkRecordDTO.getId());
+            });
+            return linkRecordDTOs.size();
+        });
+    }
+
+    /**
+     * Returns the id the given digest is mapped to.
+     * @param longLinkHash byte[]
+     * @return Optional<Long>
+     */
+    Optional<Long> findIdByDigest(byte[] longLinkHash) {
+        return findIdsByDigestsStats.optional(() -> jdbcTemplate.query(FIND_ID_BY_DIGEST_SQL, ID_ROW_MAPPER, longLinkHash).stream().findFirst());
+    }
+
+    /**
+     * Returns the ids the given digests are mapped to.
+     * @param longLinkHashes List<byte[]>
+     * @return List<Long>
+     */
+    List<Long> findIdsByDigests(List<byte[]> longLinkHashes) {
+        return FIND_IDS_BY_DIGESTS_QUERY.query(longLinkHashes,
+                (sql, args) -> findIdsByDigestsStats.list(() -> jdbcTemplate.query(sql, ID_ROW_MAPPER, args)));
+    }
+
+    /**
+     * Deletes the given link if it is stored with the given digest, undoing an insert.
+     * @param linkRecordDTO LinkRecordDTO with id and digest
+     */
+    void deleteLink(LinkRecordDTO linkRecordDTO) {
+        jdbcTemplate.update(DELETE_LINK_SQL, linkRecordDTO.getId(), linkRecordDTO.getLongLinkHash());
+    }
+
+    /**
+     * Passes every digest mapped in this shard to the consumer.
+     * @param consumer Consumer<byte[]>
+     */
+    void forEachDigest(Consumer<byte[]> consumer) {
+        jdbcTemplate.query(FOR_EACH_DIGEST_SQL, (RowCallbackHandler) rs -> consumer.accept(rs.getBytes(1)));
+    }
+}
@@ -0,0 +1,268 @@
+package com.example.urlshorter.repository.sharded;
+
+import com.example.urlshorter.dto.LinkRecordDTO;
+import com.example.urlshorter.metrics.ShortenerMetrics;
+import com.example.urlshorter.repository.LinkRowHandler;
+import com.example.urlshorter.repository.LinkStore;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * A LinkStore spreading links over several databases. A link is stored in the shard of its id: ids are cut into
+ * ranges of app.store.sharded.id-range-size, assigned to the shards round robin, so a resolve decodes the short
+ * code and goes to one shard without any lookup. Dedup needs the same for long links: every shard also maps the
+ * digests routed to it, by their first 8 bytes, to the id of their link, and the primary key on the digest keeps
+ * long links unique across shards.
+ * An insert writes the link row first and the digest entry second. If a process dies in between, the link is
+ * resolvable but not found by dedup, so it may be shortened again; an entry never points to a missing link.
+ * The shards hold the shortener and shortener_digest tables only, ids and click stats stay in the main database.
+ */
+
+@Slf4j
+@Repository
+@ConditionalOnProperty(value = "app.store.engine", havingValue = "sharded")
+public class ShardedLinkStore implements LinkStore, Closeable {
+    private static final int SCAN_PAGE_SIZE = 1000;
+
+    private final List<LinkShard> shards;
+
+    private final long idRangeSize;
+
+    @Autowired
+    public ShardedLinkStore(@Value("${app.store.sharded.urls}") List<String> urls,
+                            @Value("${app.store.sharded.username}") String username,
+                            @Value("${app.store.sharded.password}") String password,
+                            @Value("${app.store.sharded.pool-size}") int poolSize,
+                            @Value("${app.store.sharded.id-range-size}") long idRangeSize,
+                            @Value("${app.store.sharded.initialize-schema}") boolean initializeSchema,
+                            ShortenerMetrics shortenerMetrics) {
+        this(createDataSources(urls, username, password, poolSize), idRangeSize, initializeSchema, shortenerMetrics);
+    }
+
+    ShardedLinkStore(List<? extends DataSource> dataSources, long idRangeSize, boolean initializeSchema,
+                     ShortenerMetrics shortenerMetrics) {
+        if (dataSources.isEmpty() || idRangeSize < 1) {
+            throw new IllegalArgumentException("Need at least one shard and an id range size of at least 1");
+        }
+        this.idRangeSize = idRangeSize;
+        this.shards = new ArrayList<>(dataSources.size());
+        for (DataSource dataSource : dataSources) {
+            if (initializeSchema) {
+                new ResourceDatabasePopulator(new ClassPathResource("schema-shard.sql")).execute(dataSource);
+            }
+            shards.add(new LinkShard(dataSource, shortenerMetrics));
+        }
+        log.info("Opened sharded link store with {} shards and id ranges of {}", shards.size(), idRangeSize);
+    }
+
+    /**
+     * Returns the index of the shard storing the link with the given id.
+     * @param id long
+     * @return int
+     */
+    int shardOfId(long id) {
+        return (int) Math.floorMod(id / idRangeSize, (long) shards.size());
+    }
+
+    /**
+     * Returns the index of the shard mapping the given digest.
+     * @param longLinkHash byte[]
+     * @return int
+     */
+    int shardOfDigest(byte[] longLinkHash) {
+        return (int) Math.floorMod(ByteBuffer.wrap(longLinkHash).getLong(), (long) shards.size());
+    }
+
+    @Override
+    public void insert(long id, String longLink, byte[] longLinkHash) {
+        insertAll(List.of(new LinkRecordDTO(id, longLink, longLinkHash)));
+    }
+
+    /**
+     * Inserts the link rows with one batch per shard, then the digest entries with one batch per shard.
+     * If an id or a digest is taken, the links which could not be inserted completely are removed again and a
+     * DuplicateKeyException is thrown; the other links of the list stay inserted.
+     * @param linkRecordDTOs List<LinkRecordDTO> with id, long link and digest
+     */
+    @Override
+    public void insertAll(List<LinkRecordDTO> linkRecordDTOs) {
+        DuplicateKeyException duplicate = null;
+        List<LinkRecordDTO> inserted = new ArrayList<>(linkRecordDTOs.size());
+        for (Map.Entry<Integer, List<LinkRecordDTO>> entry : groupByShard(linkRecordDTOs, linkRecordDTO -> shardOfId(linkRecordDTO.getId())).entrySet()) {
+            LinkShard shard = shards.get(entry.getKey());
+            try {
+                shard.links().insertAll(entry.getValue());
+                inserted.addAll(entry.getValue());
+            } catch (DuplicateKeyException e) {
+                // a batch may be partly applied, keep the links stored as given
+                duplicate = e;
+                inserted.addAll(storedAsGiven(shard, entry.getValue()));
+            }
+        }
+        for (Map.Entry<Integer, List<LinkRecordDTO>> entry : groupByShard(inserted, linkRecordDTO -> shardOfDigest(linkRecordDTO.getLongLinkHash())).entrySet()) {
+            LinkShard shard = shards.get(entry.getKey());
+            try {
+                shard.insertDigests(entry.getValue());
+            } catch (DuplicateKeyException e) {
+                duplicate = e;
+                for (LinkRecordDTO linkRecordDTO : entry.getValue()) {
+                    Optional<Long> mappedId = shard.findIdByDigest(linkRecordDTO.getLongLinkHash());
+                    if (mappedId.isEmpty() || mappedId.get() != linkRecordDTO.getId()) {
+                        // the long link belongs to another id, or the entry is missing: undo the link row
+                        shards.get(shardOfId(linkRecordDTO.getId())).deleteLink(linkRecordDTO);
+                    }
+                }
+            }
+        }
+        if (duplicate != null) {
+            throw duplicate;
+        }
+    }
+
+    @Override
+    public Optional<String> findById(long id) {
+        return shards.get(shardOfId(id)).links().findById(id);
+    }
+
+    /**
+     * Returns the links of the given ids, with one in-query per chunk of ids on each shard holding some of them.
+     * @param ids List<Long>
+     * @return List<LinkRecordDTO>
+     */
+    @Override
+    public List<LinkRecordDTO> findByIds(List<Long> ids) {
+        List<LinkRecordDTO> result = new ArrayList<>(ids.size());
+        for (Map.Entry<Integer, List<Long>> entry : groupByShard(ids, id -> shardOfId(id)).entrySet()) {
+            result.addAll(shards.get(entry.getKey()).links().findByIds(entry.getValue()));
+        }
+        return result;
+    }
+
+    @Override
+    public Optional<Long> findByLongLink(String longLink, byte[] longLinkHash) {
+        return shards.get(shardOfDigest(longLinkHash)).findIdByDigest(longLinkHash)
+                .filter(id -> findById(id).filter(longLink::equals).isPresent());
+    }
+
+    @Override
+    public List<LinkRecordDTO> findByLongLinkHashes(List<byte[]> longLinkHashes) {
+        List<Long> ids = new ArrayList<>();
+        for (Map.Entry<Integer, List<byte[]>> entry : groupByShard(longLinkHashes, this::shardOfDigest).entrySet()) {
+            ids.addAll(shards.get(entry.getKey()).findIdsByDigests(entry.getValue()));
+        }
+        return findByIds(ids);
+    }
+
+    /**
+     * Returns the first limit links after afterId of every shard, merged by id.
+     * @param afterId long, 0 for the first page
+     * @param limit int
+     * @return List<LinkRecordDTO>
+     */
+    @Override
+    public List<LinkRecordDTO> findPage(long afterId, int limit) {
+        List<LinkRecordDTO> page = new ArrayList<>();
+        for (LinkShard shard : shards) {
+            page.addAll(shard.links().findPage(afterId, limit));
+        }
+        page.sort(Comparator.comparingLong(LinkRecordDTO::getId));
+        return page.size() > limit ? new ArrayList<>(page.subList(0, limit)) : page;
+    }
+
+    /**
+     * Streams the links ordered by id, as a series of merged pages.
+     * @param afterId long, 0 for all links
+     * @param handler LinkRowHandler
+     */
+    @Override
+    public void forEachLink(long afterId, LinkRowHandler handler) {
+        List<LinkRecordDTO> page;
+        do {
+            page = findPage(afterId, SCAN_PAGE_SIZE);
+            for (LinkRecordDTO linkRecordDTO : page) {
+                handler.handle(linkRecordDTO.getId(), linkRecordDTO.getLongLink());
+            }
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == SCAN_PAGE_SIZE);
+    }
+
+    @Override
+    public void forEachLongLinkHash(Consumer<byte[]> consumer) {
+        for (LinkShard shard : shards) {
+            shard.forEachDigest(consumer);
+        }
+    }
+
+    /**
+     * Closes the connection pools created for the shards.
+     */
+    @PreDestroy
+    @Override
+    public void close() {
+        for (LinkShard shard : shards) {
+            if (shard.dataSource() instanceof HikariDataSource hikariDataSource) {
+                hikariDataSource.close();
+            }
+        }
+    }
+
+    // the links of the batch which are stored as given, by this batch or by an earlier attempt
+    private static List<LinkRecordDTO> storedAsGiven(LinkShard shard, List<LinkRecordDTO> linkRecordDTOs) {
+        Map<Long, String> stored = new HashMap<>();
+        for (LinkRecordDTO linkRecordDTO : shard.links().findByIds(linkRecordDTOs.stream().map(LinkRecordDTO::getId).toList())) {
+            stored.put(linkRecordDTO.getId(), linkRecordDTO.getLongLink());
+        }
+        List<LinkRecordDTO> result = new ArrayList<>();
+        for (LinkRecordDTO linkRecordDTO : linkRecordDTOs) {
+            if (linkRecordDTO.getLongLink().equals(stored.get(linkRecordDTO.getId()))) {
+                result.add(linkRecordDTO);
+            }
+        }
+        return result;
+    }
+
+    private static <T> Map<Integer, List<T>> groupByShard(List<T> values, ToIntFunction<T> shardOf) {
+        Map<Integer, List<T>> byShard = new HashMap<>();
+        for (T value : values) {
+            byShard.computeIfAbsent(shardOf.applyAsInt(value), shard -> new ArrayList<>()).add(value);
+        }
+        return byShard;
+    }
+
+    private static List<HikariDataSource> createDataSources(List<String> urls, String username, String password, int poolSize) {
+        List<HikariDataSource> dataSources = new ArrayList<>(urls.size());
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("shard-" + i);
+            dataSource.setJdbcUrl(urls.get(i));
+            dataSource.setUsername(username);
+            dataSource.setPassword(password);
+            dataSource.setMaximumPoolSize(poolSize);
+            dataSource.setMinimumIdle(poolSize);
+            dataSources.add(dataSource);
+        }
+        return dataSources;
+    }
+}
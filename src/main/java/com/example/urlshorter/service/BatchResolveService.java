@@ -0,0 +1,202 @@
+package com.example.urlshorter.service;
+
+import com.example.urlshorter.codec.LinkBinaryCodec;
+import com.example.urlshorter.dto.ResolveFormat;
+import com.example.urlshorter.dto.Status;
+import com.example.urlshorter.repository.PaddedInQuery;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.urlshorter.constants.Constant.RETRIEVED_ORIGINAL_LINK;
+import static com.example.urlshorter.constants.Constant.SHORT_LINK_NOT_FOUND;
+
+/**
+ * A service class resolving a batch of short links, streamed in and out.
+ * The request, a JSON array of {"link": ...} objects as for shorten/batch, is read one chunk at a time; each chunk
+ * is resolved with ShortenerService.resolveAll, i.e. one in-query for its cache misses, and written before the next
+ * chunk is read, so memory use stays flat no matter the batch size.
+ */
+
+@Service
+public class BatchResolveService {
+    static final int CHUNK_SIZE = PaddedInQuery.MAX_SIZE;
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private ShortenerService shortenerService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Reads the short links and writes one result per short link, in request order. Closes neither stream.
+     * JSON results are shaped like the results of /original; text results are lines with the long link, empty if
+     * the short link is not found; binary results are LinkBinaryCodec records.
+     * @param format ResolveFormat
+     * @param inputStream InputStream, a JSON array of InputURLDTO
+     * @param outputStream OutputStream
+     * @return number of short links
+     * @throws JsonParseException if the input is not such an array, the results of the chunks before stay written
+     * @throws IOException if reading or writing fails, e.g. the client went away
+     */
+    public long resolve(ResolveFormat format, InputStream inputStream, OutputStream outputStream) throws IOException {
+        long count = 0;
+        try (JsonParser parser = objectMapper.getFactory().createParser(inputStream)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Expected an array of links");
+            }
+            ResultWriter resultWriter = resultWriter(format, outputStream);
+            List<String> shortLinks = new ArrayList<>(CHUNK_SIZE);
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                shortLinks.add(readLink(parser, token));
+                if (shortLinks.size() == CHUNK_SIZE) {
+                    write(resultWriter, shortLinks);
+                    count += shortLinks.size();
+                    shortLinks.clear();
+                }
+            }
+            write(resultWriter, shortLinks);
+            count += shortLinks.size();
+            resultWriter.finish();
+        }
+        return count;
+    }
+
+    private void write(ResultWriter resultWriter, List<String> shortLinks) throws IOException {
+        String[] longLinks = shortenerService.resolveAll(shortLinks);
+        for (int i = 0; i < longLinks.length; i++) {
+            resultWriter.write(shortLinks.get(i), longLinks[i]);
+        }
+    }
+
+    private static String readLink(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected a link object");
+        }
+        String link = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            if (parser.nextToken() == JsonToken.VALUE_STRING && "link".equals(field)) {
+                link = parser.getText();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return link;
+    }
+
+    private ResultWriter resultWriter(ResolveFormat format, OutputStream outputStream) throws IOException {
+        if (format == ResolveFormat.TEXT) {
+            return new TextResultWriter(outputStream);
+        } else if (format == ResolveFormat.BINARY) {
+            return new BinaryResultWriter(outputStream);
+        }
+        return new JsonResultWriter(objectMapper.getFactory().createGenerator(outputStream));
+    }
+
+    /**
+     * Writes the results of one format.
+     */
+    private interface ResultWriter {
+        void write(String shortLink, String longLink) throws IOException;
+
+        /**
+         * Ends the results and flushes them, without closing the output stream.
+         */
+        void finish() throws IOException;
+    }
+
+    private static final class JsonResultWriter implements ResultWriter {
+        private final JsonGenerator generator;
+
+        private JsonResultWriter(JsonGenerator generator) throws IOException {
+            this.generator = generator;
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+        }
+
+        @Override
+        public void write(String shortLink, String longLink) throws IOException {
+            generator.writeStartObject();
+            if (longLink != null) {
+                generator.writeStringField("status", Status.SUCCESS.name());
+                generator.writeStringField("message", RETRIEVED_ORIGINAL_LINK);
+                generator.writeStringField("longLink", longLink);
+            } else {
+                generator.writeStringField("status", Status.FAILED.name());
+                generator.writeStringField("message", SHORT_LINK_NOT_FOUND);
+            }
+            if (shortLink != null) {
+                generator.writeStringField("shortLink", shortLink);
+            }
+            generator.writeEndObject();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.writeEndArray();
+            generator.close();
+        }
+    }
+
+    private static final class TextResultWriter implements ResultWriter {
+        private final Writer writer;
+
+        private TextResultWriter(OutputStream outputStream) {
+            this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        }
+
+        @Override
+        public void write(String shortLink, String longLink) throws IOException {
+            if (longLink != null) {
+                writer.write(longLink);
+            }
+            writer.write('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+    }
+
+    private static final class BinaryResultWriter implements ResultWriter {
+        private final OutputStream outputStream;
+
+        private BinaryResultWriter(OutputStream outputStream) {
+            this.outputStream = new BufferedOutputStream(outputStream, WRITE_BUFFER_SIZE);
+        }
+
+        @Override
+        public void write(String shortLink, String longLink) throws IOException {
+            LinkBinaryCodec.write(outputStream, longLink);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            outputStream.flush();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.urlshorter.service;
+
+import com.example.urlshorter.repository.IdBlockRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An id allocator which reserves blocks of ids from the db and hands them out from memory.
+ * Taking an id is a single atomic increment; the db is only hit once per block.
+ */
+
+@Slf4j
+@Component
+public class BlockIdAllocator implements IdAllocator {
+    static final String SEQUENCE_NAME = "shortener";
+
+    private final IdBlockRepository idBlockRepository;
+
+    private final int blockSize;
+
+    private final AtomicReference<Block> current = new AtomicReference<>(new Block(0, 0));
+
+    // not synchronized: a virtual thread blocking on the db inside a monitor would pin its carrier thread
+    private final ReentrantLock refillLock = new ReentrantLock();
+
+    public BlockIdAllocator(IdBlockRepository idBlockRepository, @Value("${app.id.block-size}") int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("app.id.block-size must be positive");
+        }
+        this.idBlockRepository = idBlockRepository;
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public long nextId() {
+        while (true) {
+            Block block = current.get();
+            long id = block.next.getAndIncrement();
+            if (id < block.end) {
+                return id;
+            }
+            refill(block);
+        }
+    }
+
+    @Override
+    public long nextIds(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("count must be positive");
+        }
+        return idBlockRepository.reserve(SEQUENCE_NAME, count);
+    }
+
+    /**
+     * Replaces the exhausted block with a newly reserved one.
+     * Threads racing here reserve only once; the others retry on the new block.
+     * @param exhausted Block
+     */
+    private void refill(Block exhausted) {
+        refillLock.lock();
+        try {
+            if (current.get() != exhausted) {
+                return;
+            }
+            long first = idBlockRepository.reserve(SEQUENCE_NAME, blockSize);
+            log.debug("Reserved id block [{}, {})", first, first + blockSize);
+            current.set(new Block(first, first + blockSize));
+        } finally {
+            refillLock.unlock();
+        }
+    }
+
+    private static final class Block {
+        private final AtomicLong next;
+        private final long end;
+
+        private Block(long first, long end) {
+            this.next = new AtomicLong(first);
+            this.end = end;
+        }
+    }
+}
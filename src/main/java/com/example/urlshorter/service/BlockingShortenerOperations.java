@@ -0,0 +1,33 @@
+package com.example.urlshorter.service;
+
+import com.example.urlshorter.dto.InputURLDTO;
+import com.example.urlshorter.dto.OutputDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * ShortenerOperations calling ShortenerService on the subscribing thread, db calls included.
+ * The baseline for benchmarks; on an event loop every cache miss stalls all connections of that loop.
+ */
+
+@Component
+public class BlockingShortenerOperations implements ShortenerOperations {
+    @Autowired
+    private ShortenerService shortenerService;
+
+    @Override
+    public Mono<OutputDTO> shorten(InputURLDTO inputURLDTO) {
+        return Mono.fromSupplier(() -> shortenerService.shorten(inputURLDTO));
+    }
+
+    @Override
+    public Mono<OutputDTO> getOriginal(InputURLDTO inputURLDTO) {
+        return Mono.fromSupplier(() -> shortenerService.getOriginal(inputURLDTO));
+    }
+
+    @Override
+    public Mono<String> resolve(String shortCode) {
+        return Mono.fromSupplier(() -> shortenerService.resolve(shortCode)).flatMap(Mono::justOrEmpty);
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.urlshorter.service;
+
+/**
+ * Hands out unique ids for new short links.
+ */
+public interface IdAllocator {
+
+    /**
+     * Returns the next unused id. Never returns the same id twice, also across nodes sharing one database.
+     * @return long
+     */
+    long nextId();
+
+    /**
+     * Reserves a contiguous range of unused ids, for bulk inserts.
+     * @param count int, positive
+     * @return first id of the range, the range is [first, first + count)
+     */
+    long nextIds(int count);
+}
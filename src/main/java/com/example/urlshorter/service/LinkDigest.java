@@ -0,0 +1,34 @@
+package com.example.urlshorter.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Computes the fixed width digest of a long link which is indexed for dedup.
+ * The digest is the first 128 bits of SHA-256, so crafted collisions are not feasible.
+ */
+public final class LinkDigest {
+    public static final int LENGTH = 16;
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private LinkDigest() {
+    }
+
+    /**
+     * Returns the digest of the given long link.
+     * @param longLink String
+     * @return byte[] of LENGTH bytes
+     */
+    public static byte[] of(String longLink) {
+        return Arrays.copyOf(SHA_256.get().digest(longLink.getBytes(StandardCharsets.UTF_8)), LENGTH);
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.urlshorter.service;
+
+import com.example.urlshorter.codec.Base62Codec;
+import com.example.urlshorter.dto.ExportFormat;
+import com.example.urlshorter.repository.LinkRowHandler;
+import com.example.urlshorter.repository.LinkStore;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A service class streaming all links as NDJSON or CSV.
+ * Rows go from the jdbc result set straight to the output stream, nothing is collected per row,
+ * so memory use stays flat no matter the table size.
+ */
+
+@Service
+public class LinkExportService {
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    @Value("${app.base.url}")
+    private String url;
+
+    @Autowired
+    private LinkStore linkStore;
+
+    @Autowired
+    private Base62Codec base62Codec;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Writes all links with an id greater than afterId, ordered by id. Does not close the output stream.
+     * @param format ExportFormat
+     * @param afterId long, 0 for all links
+     * @param outputStream OutputStream
+     * @throws IOException if writing fails, e.g. the client went away
+     */
+    public void export(ExportFormat format, long afterId, OutputStream outputStream) throws IOException {
+        char[] shortLink = new char[url.length() + Base62Codec.MAX_LENGTH];
+        url.getChars(0, url.length(), shortLink, 0);
+        try {
+            if (format == ExportFormat.NDJSON) {
+                exportNdjson(afterId, outputStream, shortLink);
+            } else {
+                exportCsv(afterId, outputStream, shortLink);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void exportNdjson(long afterId, OutputStream outputStream, char[] shortLink) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            linkStore.forEachLink(afterId, unchecked((id, longLink) -> {
+                generator.writeStartObject();
+                generator.writeStringField("longLink", longLink);
+                generator.writeFieldName("shortLink");
+                generator.writeString(shortLink, 0, url.length() + base62Codec.encode(id, shortLink, url.length()));
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }));
+        }
+    }
+
+    private void exportCsv(long afterId, OutputStream outputStream, char[] shortLink) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        writer.write("longLink,shortLink\n");
+        linkStore.forEachLink(afterId, unchecked((id, longLink) -> {
+            writeCsvField(writer, longLink);
+            writer.write(',');
+            writer.write(shortLink, 0, url.length() + base62Codec.encode(id, shortLink, url.length()));
+            writer.write('\n');
+        }));
+        writer.flush();
+    }
+
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+
+    private static LinkRowHandler unchecked(IOLinkRowHandler handler) {
+        return (id, longLink) -> {
+            try {
+                handler.handle(id, longLink);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    @FunctionalInterface
+    private interface IOLinkRowHandler {
+        void handle(long id, String longLink) throws IOException;
+    }
+}
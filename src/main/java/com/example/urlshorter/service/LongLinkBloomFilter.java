@@ -0,0 +1,105 @@
+package com.example.urlshorter.service;
+
+import com.example.urlshorter.repository.LinkStore;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * An optional in-memory Bloom filter over the digests of all stored long links.
+ * A negative answer means the long link is new, so shorten can skip the dedup query.
+ * Links stored by other nodes are not known here; their inserts fail on the unique digest index and are re-read.
+ * Loaded after the write-behind journal of a previous run was replayed into the store.
+ */
+
+@Slf4j
+@Component
+@DependsOn("writeBehindIngest")
+public class LongLinkBloomFilter {
+    @Autowired
+    private LinkStore linkStore;
+
+    private final boolean enabled;
+
+    private final AtomicLongArray bits;
+
+    private final long bitCount;
+
+    private final int hashCount;
+
+    public LongLinkBloomFilter(@Value("${app.dedup.bloom.enabled}") boolean enabled,
+                               @Value("${app.dedup.bloom.expected-insertions}") long expectedInsertions,
+                               @Value("${app.dedup.bloom.fpp}") double fpp) {
+        this.enabled = enabled;
+        if (!enabled) {
+            this.bits = null;
+            this.bitCount = 0;
+            this.hashCount = 0;
+            return;
+        }
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        int words = Math.toIntExact(Math.max(1, (optimalBits + 63) / 64));
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = words * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+    }
+
+    @PostConstruct
+    void load() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        linkStore.forEachLongLinkHash(this::put);
+        log.info("Loaded long link Bloom filter in {} ms", System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Returns false only if no long link with the given digest was added. Always true when disabled.
+     * @param longLinkHash byte[]
+     * @return boolean
+     */
+    public boolean mightContain(byte[] longLinkHash) {
+        if (!enabled) {
+            return true;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(longLinkHash);
+        long h1 = buffer.getLong(0);
+        long h2 = buffer.getLong(8);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds the given digest.
+     * @param longLinkHash byte[]
+     */
+    public void put(byte[] longLinkHash) {
+        if (!enabled) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(longLinkHash);
+        long h1 = buffer.getLong(0);
+        long h2 = buffer.getLong(8);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            while (((current = bits.get(word)) & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+                // retry, another bit of the word was set concurrently
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.urlshorter.service;
+
+import com.example.urlshorter.dto.InputURLDTO;
+import com.example.urlshorter.dto.OutputDTO;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Optional;
+
+/**
+ * ShortenerOperations which never block the subscribing thread.
+ * Cached short codes are answered in place; cache misses and shorten run the JDBC calls on a bounded scheduler
+ * sized like the connection pool, whose queue caps the number of requests waiting for the db.
+ * Only created with app.reactive.enabled, so the scheduler threads do not exist otherwise.
+ */
+
+@Component
+@ConditionalOnProperty(value = "app.reactive.enabled", havingValue = "true")
+public class ReactiveShortenerOperations implements ShortenerOperations {
+    private final ShortenerService shortenerService;
+
+    private final Scheduler jdbcScheduler;
+
+    public ReactiveShortenerOperations(ShortenerService shortenerService,
+                                       @Value("${spring.datasource.hikari.maximum-pool-size}") int jdbcThreads,
+                                       @Value("${app.reactive.jdbc-queue-size}") int jdbcQueueSize) {
+        this.shortenerService = shortenerService;
+        this.jdbcScheduler = Schedulers.newBoundedElastic(jdbcThreads, jdbcQueueSize, "reactive-jdbc");
+    }
+
+    @Override
+    public Mono<OutputDTO> shorten(InputURLDTO inputURLDTO) {
+        return Mono.fromCallable(() -> shortenerService.shorten(inputURLDTO)).subscribeOn(jdbcScheduler);
+    }
+
+    @Override
+    public Mono<OutputDTO> getOriginal(InputURLDTO inputURLDTO) {
+        Optional<String> shortCodeOptional = shortenerService.toShortCode(inputURLDTO.getLink());
+        if (shortCodeOptional.isEmpty()) {
+            return Mono.just(shortenerService.toOriginalOutput(inputURLDTO, Optional.empty()));
+        }
+        return resolve(shortCodeOptional.get())
+                .<OutputDTO>map(longLink -> shortenerService.toOriginalOutput(inputURLDTO, Optional.of(longLink)))
+                .defaultIfEmpty(shortenerService.toOriginalOutput(inputURLDTO, Optional.empty()));
+    }
+
+    @Override
+    public Mono<String> resolve(String shortCode) {
+        Optional<String> cached = shortenerService.resolveCached(shortCode);
+        if (cached != null) {
+            return Mono.justOrEmpty(cached);
+        }
+        return Mono.fromCallable(() -> shortenerService.resolve(shortCode))
+                .subscribeOn(jdbcScheduler)
+                .flatMap(Mono::justOrEmpty);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jdbcScheduler.dispose();
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.urlshorter.service;
+
+import com.example.urlshorter.dto.InputURLDTO;
+import com.example.urlshorter.dto.OutputDTO;
+import reactor.core.publisher.Mono;
+
+/**
+ * The shorten and resolve operations served by the reactive router.
+ * BlockingShortenerOperations runs ShortenerService on the calling thread like the MVC controllers do,
+ * ReactiveShortenerOperations never blocks the calling thread; both can be benchmarked behind the same router.
+ */
+public interface ShortenerOperations {
+
+    /**
+     * Returns short link for the given long link.
+     * @param inputURLDTO InputURLDTO
+     * @return Mono<OutputDTO>
+     */
+    Mono<OutputDTO> shorten(InputURLDTO inputURLDTO);
+
+    /**
+     * Returns long link for the given short link.
+     * @param inputURLDTO InputURLDTO
+     * @return Mono<OutputDTO>
+     */
+    Mono<OutputDTO> getOriginal(InputURLDTO inputURLDTO);
+
+    /**
+     * Returns long link for the given short code, empty if the code is unknown.
+     * @param shortCode String
+     * @return Mono<String>
+     */
+    Mono<String> resolve(String shortCode);
+}
@@ -1,55 +1,260 @@
 package com.example.urlshorter.service;
 
+import com.example.urlshorter.analytics.ClickAggregator;
+import com.example.urlshorter.cache.LinkCache;
+import com.example.urlshorter.cache.OffHeapLinkIndex;
+import com.example.urlshorter.codec.Base62Codec;
+import com.example.urlshorter.dto.CacheStatsDTO;
+import com.example.urlshorter.dto.ClickBucketDTO;
 import com.example.urlshorter.dto.InputURLDTO;
+import com.example.urlshorter.dto.LinkPageDTO;
+import com.example.urlshorter.dto.LinkRecordDTO;
+import com.example.urlshorter.dto.LinkStatsDTO;
+import com.example.urlshorter.dto.OriginalOutputDTO;
 import com.example.urlshorter.dto.OutputDTO;
 import com.example.urlshorter.dto.Status;
-import com.example.urlshorter.repository.ShortenerRepository;
+import com.example.urlshorter.ingest.WriteBehindIngest;
+import com.example.urlshorter.metrics.ShortenerMetrics;
+import com.example.urlshorter.repository.ClickStatsRepository;
+import com.example.urlshorter.repository.LinkStore;
+import com.example.urlshorter.validation.UrlNormalizer;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 
 import static com.example.urlshorter.constants.Constant.*;
 
 /**
  * A service class having business logic for url shortener
+ * Concurrent cache misses of the same short code and concurrent shortens of the same long link are coalesced, see
+ * SingleFlight: one request queries the db, the others wait up to app.coalescing.timeout for its result.
  */
 
 @Service
 @Slf4j
 public class ShortenerService {
-    @Value("${app.base62digits}")
-    private String[] base62digits;
-
     @Value("${app.base.url}")
     private String url;
 
+    @Value("${app.coalescing.timeout}")
+    private Duration coalescingTimeout;
+
+    @Autowired
+    private LinkStore linkStore;
+
+    @Autowired
+    private IdAllocator idAllocator;
+
+    @Autowired
+    private LinkCache linkCache;
+
+    @Autowired
+    private OffHeapLinkIndex offHeapLinkIndex;
+
+    @Autowired
+    private LongLinkBloomFilter longLinkBloomFilter;
+
+    @Autowired
+    private Base62Codec base62Codec;
+
     @Autowired
-    private ShortenerRepository shortenerRepository;
+    private ClickAggregator clickAggregator;
+
+    @Autowired
+    private ClickStatsRepository clickStatsRepository;
+
+    @Autowired
+    private ShortenerMetrics shortenerMetrics;
+
+    @Autowired
+    private WriteBehindIngest writeBehindIngest;
+
+    private final Function<String, Optional<String>> loadByCode = this::loadByCode;
+
+    private final Function<String, Optional<String>> loadAndCache = shortCode -> linkCache.getOrLoad(shortCode, loadByCode);
+
+    private SingleFlight<String, Optional<String>> resolveFlight;
+
+    private SingleFlight<String, Long> shortenFlight;
+
+    @PostConstruct
+    void init() {
+        resolveFlight = new SingleFlight<>(coalescingTimeout.toNanos());
+        shortenFlight = new SingleFlight<>(coalescingTimeout.toNanos());
+    }
 
     /**
-     * Returns short link for the given long link.
+     * Returns short link for the given long link, validated by the caller.
+     * The link is stored and deduplicated in its canonical form, see UrlNormalizer.
+     * With write-behind, a new link is journaled locally and inserted into the db later.
      * @param inputURLDTO InputURLDTO
      * @return ShortenOutputDTO
      */
     public OutputDTO shorten(InputURLDTO inputURLDTO) {
-        Optional<String> shortLinkOptional = shortenerRepository.findByLongLink(inputURLDTO.getLink());
-        if (shortLinkOptional.isPresent()) {
-            return new OutputDTO(Status.SUCCESS, GENERATED_SHORT_LINK, inputURLDTO.getLink(), shortLinkOptional.get());
+        long start = System.nanoTime();
+        String longLink = canonical(inputURLDTO.getLink());
+        // only set if this request's own lookup ran, requests which joined a concurrent shorten count as dedup
+        boolean[] created = new boolean[1];
+        long id = shortenFlight.execute(longLink, link -> findOrCreate(link, created));
+        shortenerMetrics.shortened(!created[0], start);
+        return new OutputDTO(Status.SUCCESS, GENERATED_SHORT_LINK, longLink, generateShortLink(id));
+    }
+
+    /**
+     * Returns the id of the given canonical long link, storing it first if it is new.
+     * @param longLink String
+     * @param created boolean[], its first element is set to true if the link was new
+     * @return id of the link
+     */
+    private long findOrCreate(String longLink, boolean[] created) {
+        byte[] longLinkHash = LinkDigest.of(longLink);
+        Optional<Long> idOptional = writeBehindIngest.findPendingId(longLink);
+        if (idOptional.isEmpty() && longLinkBloomFilter.mightContain(longLinkHash)) {
+            idOptional = linkStore.findByLongLink(longLink, longLinkHash);
+        }
+        if (idOptional.isPresent()) {
+            return idOptional.get();
+        }
+        created[0] = true;
+        return writeBehindIngest.isEnabled()
+                ? submit(idAllocator.nextId(), longLink, longLinkHash)
+                : insert(idAllocator.nextId(), longLink, longLinkHash);
+    }
+
+    /**
+     * Returns short links for the given long links, in input order.
+     * Invalid links get a FAILED result. Links are deduplicated in their canonical form within the batch, against
+     * the pending write-behind links and against the db with one in-query per chunk, ids for new links are reserved
+     * as one range and inserted with JDBC batches.
+     * @param inputURLDTOs List<InputURLDTO>
+     * @return List<OutputDTO>
+     */
+    public List<OutputDTO> shortenBatch(List<InputURLDTO> inputURLDTOs) {
+        OutputDTO[] results = new OutputDTO[inputURLDTOs.size()];
+        String[] longLinks = new String[results.length];
+        Map<String, byte[]> longLinkHashes = new LinkedHashMap<>();
+        for (int i = 0; i < results.length; i++) {
+            InputURLDTO inputURLDTO = inputURLDTOs.get(i);
+            longLinks[i] = inputURLDTO == null ? null : UrlNormalizer.normalize(inputURLDTO.getLink());
+            if (longLinks[i] == null) {
+                results[i] = new OutputDTO(Status.FAILED, INVALID_LINK, inputURLDTO == null ? null : inputURLDTO.getLink(), null);
+            } else {
+                longLinkHashes.computeIfAbsent(longLinks[i], LinkDigest::of);
+            }
+        }
+
+        Map<String, Long> ids = new HashMap<>();
+        List<byte[]> candidates = new ArrayList<>(longLinkHashes.size());
+        for (Map.Entry<String, byte[]> entry : longLinkHashes.entrySet()) {
+            Optional<Long> pendingId = writeBehindIngest.findPendingId(entry.getKey());
+            if (pendingId.isPresent()) {
+                ids.put(entry.getKey(), pendingId.get());
+            } else if (longLinkBloomFilter.mightContain(entry.getValue())) {
+                candidates.add(entry.getValue());
+            }
+        }
+        for (LinkRecordDTO linkRecordDTO : linkStore.findByLongLinkHashes(candidates)) {
+            if (longLinkHashes.containsKey(linkRecordDTO.getLongLink())) {
+                ids.put(linkRecordDTO.getLongLink(), linkRecordDTO.getId());
+            }
+        }
+
+        int newLinkCount = longLinkHashes.size() - ids.size();
+        if (newLinkCount > 0) {
+            List<LinkRecordDTO> newLinks = new ArrayList<>(newLinkCount);
+            long id = idAllocator.nextIds(newLinkCount);
+            for (Map.Entry<String, byte[]> entry : longLinkHashes.entrySet()) {
+                if (!ids.containsKey(entry.getKey())) {
+                    newLinks.add(new LinkRecordDTO(id++, entry.getKey(), entry.getValue()));
+                }
+            }
+            insertAll(newLinks, ids);
+        }
+
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null) {
+                String longLink = longLinks[i];
+                results[i] = new OutputDTO(Status.SUCCESS, GENERATED_SHORT_LINK, longLink, generateShortLink(ids.get(longLink)));
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Inserts a new link, or returns the id of the same long link if it was inserted concurrently.
+     * Either way the Bloom filter, the index and the cache learn the stored id.
+     * @param id long
+     * @param longLink String
+     * @param longLinkHash byte[]
+     * @return id of the link
+     */
+    private long insert(long id, String longLink, byte[] longLinkHash) {
+        long storedId = id;
+        try {
+            linkStore.insert(id, longLink, longLinkHash);
+        } catch (DuplicateKeyException e) {
+            // inserted concurrently by another request or node, or by the failed part of a batch insert
+            storedId = linkStore.findByLongLink(longLink, longLinkHash).orElseThrow(() -> e);
+        }
+        linkCreated(storedId, longLink, longLinkHash);
+        return storedId;
+    }
+
+    /**
+     * Journals a new link for write-behind, or returns the id of the same long link if it is already pending.
+     * @param id long
+     * @param longLink String
+     * @param longLinkHash byte[]
+     * @return id of the link
+     */
+    private long submit(long id, String longLink, byte[] longLinkHash) {
+        long submittedId = writeBehindIngest.submit(new LinkRecordDTO(id, longLink, longLinkHash));
+        if (submittedId == id) {
+            linkCreated(id, longLink, longLinkHash);
         }
-        Integer id = shortenerRepository.getMaxId();
-        log.debug("Id:" + id);
-        if (id == null) {
-            id = 1;
-        } else {
-            id++;
+        return submittedId;
+    }
+
+    private void insertAll(List<LinkRecordDTO> newLinks, Map<String, Long> ids) {
+        try {
+            linkStore.insertAll(newLinks);
+        } catch (DuplicateKeyException e) {
+            // some links were inserted concurrently, insert one by one; rows of this batch which made it are found by dedup
+            log.debug("Batch insert of {} links failed, inserting one by one", newLinks.size(), e);
+            for (LinkRecordDTO linkRecordDTO : newLinks) {
+                ids.put(linkRecordDTO.getLongLink(), insert(linkRecordDTO.getId(), linkRecordDTO.getLongLink(), linkRecordDTO.getLongLinkHash()));
+            }
+            return;
         }
-        String shortLink = generateShortLink(id);
-        shortenerRepository.insert(id, inputURLDTO.getLink(), shortLink);
-        return new OutputDTO(Status.SUCCESS, GENERATED_SHORT_LINK, inputURLDTO.getLink(), shortLink);
+        for (LinkRecordDTO linkRecordDTO : newLinks) {
+            ids.put(linkRecordDTO.getLongLink(), linkRecordDTO.getId());
+            linkCreated(linkRecordDTO.getId(), linkRecordDTO.getLongLink(), linkRecordDTO.getLongLinkHash());
+        }
+    }
+
+    // links not validated by the caller are taken as given
+    private static String canonical(String longLink) {
+        String canonical = UrlNormalizer.normalize(longLink);
+        return canonical != null ? canonical : longLink;
+    }
+
+    private void linkCreated(long id, String longLink, byte[] longLinkHash) {
+        longLinkBloomFilter.put(longLinkHash);
+        offHeapLinkIndex.put(id, longLink);
+        linkCache.put(base62Codec.encode(id), longLink);
     }
 
     /**
@@ -57,35 +262,193 @@ public class ShortenerService {
      * @param inputURLDTO InputURLDTO
      * @return ShortenOutputDTO
      */
-    public OutputDTO getOriginal(InputURLDTO inputURLDTO) {
-        Optional<String> longLinkOptional = shortenerRepository.findByShortLink(inputURLDTO.getLink());
-        return longLinkOptional.map(s -> new OutputDTO(Status.SUCCESS, RETRIEVED_ORIGINAL_LINK, s, inputURLDTO.getLink())).orElseGet(() -> new OutputDTO(Status.FAILED, SHORT_LINK_NOT_FOUND, null, inputURLDTO.getLink()));
+    public OriginalOutputDTO getOriginal(InputURLDTO inputURLDTO) {
+        long start = System.nanoTime();
+        Optional<String> longLinkOptional = toShortCode(inputURLDTO.getLink()).flatMap(this::resolve);
+        shortenerMetrics.originalLookedUp(longLinkOptional.isPresent(), start);
+        return toOriginalOutput(inputURLDTO, longLinkOptional);
+    }
+
+    /**
+     * Returns the short code of the given short link, empty if the link does not start with the base url.
+     * @param shortLink String
+     * @return Optional<String>
+     */
+    public Optional<String> toShortCode(String shortLink) {
+        return shortLink.startsWith(url) ? Optional.of(shortLink.substring(url.length())) : Optional.empty();
+    }
+
+    /**
+     * Returns the getOriginal result for the given input and resolved long link.
+     * @param inputURLDTO InputURLDTO
+     * @param longLinkOptional Optional<String>
+     * @return OriginalOutputDTO
+     */
+    public OriginalOutputDTO toOriginalOutput(InputURLDTO inputURLDTO, Optional<String> longLinkOptional) {
+        return longLinkOptional.map(s -> new OriginalOutputDTO(Status.SUCCESS, RETRIEVED_ORIGINAL_LINK, s, inputURLDTO.getLink())).orElseGet(() -> new OriginalOutputDTO(Status.FAILED, SHORT_LINK_NOT_FOUND, null, inputURLDTO.getLink()));
+    }
+
+    /**
+     * Returns long link for the given short code, i.e. the short link without the base url.
+     * Served from the off-heap index or the cache when possible; a miss decodes the code and looks up the id,
+     * once for all concurrent misses of the code. Found links count a click.
+     * @param shortCode String
+     * @return Optional<String>
+     */
+    public Optional<String> resolve(String shortCode) {
+        long start = System.nanoTime();
+        String indexed = getIndexed(shortCode);
+        Optional<String> longLinkOptional = countClick(shortCode, indexed != null ? Optional.of(indexed) : getOrLoad(shortCode));
+        shortenerMetrics.resolved(longLinkOptional.isPresent(), start);
+        return longLinkOptional;
+    }
+
+    /**
+     * Returns long link for the given short code if the code is indexed or cached, never touching the db.
+     * Used by non-blocking callers, which move to resolve on another thread when this returns null. Never waits
+     * for the click counters either, see ClickAggregator.tryRecord.
+     * @param shortCode String
+     * @return Optional<String>, null if the short code is not cached
+     */
+    public Optional<String> resolveCached(String shortCode) {
+        String indexed = getIndexed(shortCode);
+        Optional<String> longLinkOptional = indexed != null ? Optional.of(indexed) : linkCache.getIfPresent(shortCode);
+        if (longLinkOptional != null && longLinkOptional.isPresent()) {
+            clickAggregator.tryRecord(base62Codec.tryDecode(shortCode, 0, shortCode.length()));
+        }
+        return longLinkOptional;
+    }
+
+    /**
+     * Returns long links for the given short links, in input order, null for short links which are not found.
+     * Links are served from the off-heap index, the cache or the pending write-behind links where possible; the
+     * remaining ids are fetched together with one in-query per chunk, see LinkStore.findByIds.
+     * Fetched links are not cached, so a bulk lookup of cold links does not evict the hot ones, and no clicks are
+     * counted: a bulk lookup is not a visit.
+     * @param shortLinks List<String>, null entries are not found
+     * @return String[]
+     */
+    public String[] resolveAll(List<String> shortLinks) {
+        String[] longLinks = new String[shortLinks.size()];
+        // by position, the id to fetch from the store, INVALID if resolved without it
+        long[] ids = new long[longLinks.length];
+        Map<Long, String> fetched = new HashMap<>();
+        for (int i = 0; i < longLinks.length; i++) {
+            String shortLink = shortLinks.get(i);
+            long id = shortLink != null && shortLink.startsWith(url)
+                    ? base62Codec.tryDecode(shortLink, url.length(), shortLink.length())
+                    : Base62Codec.INVALID;
+            ids[i] = Base62Codec.INVALID;
+            if (id == Base62Codec.INVALID) {
+                continue;
+            }
+            longLinks[i] = offHeapLinkIndex.isEnabled() ? offHeapLinkIndex.get(id) : null;
+            if (longLinks[i] != null) {
+                continue;
+            }
+            Optional<String> cached = linkCache.getIfPresent(shortLink.substring(url.length()));
+            if (cached != null) {
+                longLinks[i] = cached.orElse(null);
+                continue;
+            }
+            longLinks[i] = writeBehindIngest.findPending(id).orElse(null);
+            if (longLinks[i] == null) {
+                ids[i] = id;
+                fetched.put(id, null);
+            }
+        }
+        if (!fetched.isEmpty()) {
+            for (LinkRecordDTO linkRecordDTO : linkStore.findByIds(new ArrayList<>(fetched.keySet()))) {
+                fetched.put(linkRecordDTO.getId(), linkRecordDTO.getLongLink());
+            }
+            for (int i = 0; i < longLinks.length; i++) {
+                if (ids[i] != Base62Codec.INVALID) {
+                    longLinks[i] = fetched.get(ids[i]);
+                }
+            }
+        }
+        return longLinks;
+    }
+
+    private String getIndexed(String shortCode) {
+        return offHeapLinkIndex.isEnabled() ? offHeapLinkIndex.get(base62Codec.tryDecode(shortCode, 0, shortCode.length())) : null;
+    }
+
+    private Optional<String> countClick(String shortCode, Optional<String> longLinkOptional) {
+        if (longLinkOptional.isPresent()) {
+            clickAggregator.record(base62Codec.tryDecode(shortCode, 0, shortCode.length()));
+        }
+        return longLinkOptional;
+    }
+
+    /**
+     * Returns the click statistics of the given short code, empty for unknown codes.
+     * Clicks show up once the ClickAggregator flushed them.
+     * @param shortCode String
+     * @return Optional<LinkStatsDTO>
+     */
+    public Optional<LinkStatsDTO> getStats(String shortCode) {
+        if (getOrLoad(shortCode).isEmpty()) {
+            return Optional.empty();
+        }
+        long id = base62Codec.tryDecode(shortCode, 0, shortCode.length());
+        List<ClickBucketDTO> buckets = clickStatsRepository.findByLinkId(id);
+        long totalClicks = 0;
+        for (ClickBucketDTO bucket : buckets) {
+            totalClicks += bucket.getClicks();
+        }
+        return Optional.of(new LinkStatsDTO(generateShortLink(id), totalClicks, buckets));
+    }
+
+    private Optional<String> getOrLoad(String shortCode) {
+        Optional<String> cached = linkCache.getIfPresent(shortCode);
+        // the loader looks at the cache again: a load which finished since has cached the link
+        return cached != null ? cached : resolveFlight.execute(shortCode, loadAndCache);
+    }
+
+    private Optional<String> loadByCode(String shortCode) {
+        long id = base62Codec.tryDecode(shortCode, 0, shortCode.length());
+        if (id == Base62Codec.INVALID) {
+            return Optional.empty();
+        }
+        Optional<String> pending = writeBehindIngest.findPending(id);
+        return pending.isPresent() ? pending : linkStore.findById(id);
+    }
+
+    /**
+     * Returns a page of long links and short links in db, ordered by id.
+     * @param afterId long, nextAfter of the previous page or 0 for the first page
+     * @param limit int
+     * @return LinkPageDTO
+     */
+    public LinkPageDTO getLinks(long afterId, int limit) {
+        List<LinkRecordDTO> page = linkStore.findPage(afterId, limit);
+        List<OutputDTO> links = page.stream()
+                .map(this::toOutputDTO)
+                .toList();
+        Long nextAfter = page.size() == limit ? page.get(page.size() - 1).getId() : null;
+        return new LinkPageDTO(links, nextAfter);
+    }
+
+    private OutputDTO toOutputDTO(LinkRecordDTO linkRecordDTO) {
+        return new OutputDTO(linkRecordDTO.getLongLink(), generateShortLink(linkRecordDTO.getId()));
     }
 
     /**
-     * Returns all the long links and short links in db.
-     * @return List<ShortenOutputDTO>
+     * Returns the resolve cache statistics.
+     * @return CacheStatsDTO
      */
-    public List<OutputDTO> getAllLinks() {
-        return shortenerRepository.getAllLinks();
+    public CacheStatsDTO getCacheStats() {
+        return linkCache.stats();
     }
 
     /**
-     * Generates short link from an int.
-     * @param id int
+     * Generates short link from a long.
+     * @param id long
      * @return String
      */
-    private String generateShortLink(int id) {
-        log.debug("id:" + id);
-        StringBuilder sb = new StringBuilder();
-
-        while (id != 0) {
-            String c = base62digits[id%62];
-            sb.append(c);
-            id = id/62;
-        }
-        sb.reverse();
-        log.debug("uri:" + sb);
-        return url + sb;
+    private String generateShortLink(long id) {
+        StringBuilder sb = new StringBuilder(url.length() + Base62Codec.MAX_LENGTH).append(url);
+        return base62Codec.appendTo(id, sb).toString();
     }
 }
@@ -0,0 +1,83 @@
+package com.example.urlshorter.service;
+
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.dao.TransientDataAccessResourceException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Coalesces concurrent loads of the same key: the first caller runs the loader on its own thread, callers arriving
+ * while it runs wait for its result instead of running the loader again. A failed load throws the same exception
+ * to all of them. Nothing is kept once the load is done, the next caller runs the loader again, so a loader which
+ * wants later callers to skip the db has to cache its result before it returns.
+ * The loader runs outside of any lock, a slow load only holds up callers of the same key.
+ */
+final class SingleFlight<K, V> {
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final long timeoutNanos;
+
+    /**
+     * Creates a single flight whose waiting callers give up after the given timeout.
+     * @param timeoutNanos long
+     */
+    SingleFlight(long timeoutNanos) {
+        this.timeoutNanos = timeoutNanos;
+    }
+
+    /**
+     * Returns the value loaded for the given key, by the given loader or by the loader of a concurrent caller.
+     * @param key K
+     * @param loader Function
+     * @return V
+     * @throws QueryTimeoutException if a concurrent load took longer than the timeout
+     */
+    V execute(K key, Function<K, V> loader) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            return await(running);
+        }
+        try {
+            V value = loader.apply(key);
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Returns the number of keys being loaded.
+     * @return int
+     */
+    int inFlight() {
+        return inFlight.size();
+    }
+
+    private V await(CompletableFuture<V> running) {
+        try {
+            return running.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            // the loader only throws unchecked exceptions, see execute
+            Throwable cause = e.getCause();
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw (RuntimeException) cause;
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException("Timed out waiting for a concurrent load of the same key", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TransientDataAccessResourceException("Interrupted waiting for a concurrent load of the same key", e);
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.example.urlshorter.validation;
+
+/**
+ * Validates a link and returns its canonical form, in one pass over the link and without regular expressions.
+ * Accepted: [http:// or https://][userinfo@]host[:port][path][?query][#fragment], the host being a domain name
+ * with at least two labels and an alphabetic or punycode top-level label, an IPv4 address or an [IPv6] literal.
+ * Path, query and fragment may hold the characters of RFC 3986, percent-encodings, brackets and non-ASCII
+ * characters; whitespace, control characters and "<>\"\\^`{|}" are rejected.
+ * Canonical form, so that equivalent links get one short link: scheme and host in lower case, default and empty
+ * ports removed, an empty path written as "/", percent-encodings in upper case and percent-encoded unreserved
+ * characters decoded. A link already in canonical form is returned as is, without copying.
+ */
+public final class UrlNormalizer {
+    /**
+     * Longest accepted link, the size of the long_link column.
+     */
+    public static final int MAX_LENGTH = 65535;
+
+    private static final int MAX_HOST_LENGTH = 253;
+    private static final int MAX_LABEL_LENGTH = 63;
+    private static final int MAX_PORT = 65535;
+
+    // characters allowed in userinfo, path, query and fragment besides alphanumerics, '%' and non-ASCII
+    private static final boolean[] USERINFO_CHARS = chars("-._~!$&'()*+,;=:");
+    private static final boolean[] PATH_CHARS = chars("-._~!$&'()*+,;=:@/[]");
+    private static final boolean[] QUERY_CHARS = chars("-._~!$&'()*+,;=:@/?[]");
+
+    private final String link;
+
+    private final int length;
+
+    // the canonical link up to copied, null as long as it equals the link
+    private StringBuilder canonical;
+
+    private int copied;
+
+    private UrlNormalizer(String link) {
+        this.link = link;
+        this.length = link.length();
+    }
+
+    /**
+     * Returns the canonical form of the given link.
+     * @param link String
+     * @return String, null if the link is not valid
+     */
+    public static String normalize(String link) {
+        if (link == null || link.isEmpty() || link.length() > MAX_LENGTH) {
+            return null;
+        }
+        return new UrlNormalizer(link).parse();
+    }
+
+    /**
+     * Returns whether the given link is valid.
+     * @param link String
+     * @return boolean
+     */
+    public static boolean isValid(String link) {
+        return normalize(link) != null;
+    }
+
+    /**
+     * Returns the given link as an absolute http(s) link for a redirect, links without a scheme would be resolved
+     * relative to this service. Only a leading scheme counts, e.g. "example.com/r?to=https://foo.com" has none.
+     * @param link String
+     * @return String, the link with "http://" prepended if it has no http or https scheme
+     */
+    public static String absolute(String link) {
+        return hasScheme(link, "http://") || hasScheme(link, "https://") ? link : "http://" + link;
+    }
+
+    private static boolean hasScheme(String link, String scheme) {
+        return link.regionMatches(true, 0, scheme, 0, scheme.length());
+    }
+
+    private String parse() {
+        int defaultPort = -1;
+        int authorityStart = 0;
+        if (startsWithIgnoreCase("http://")) {
+            lowerCase(0, 4);
+            defaultPort = 80;
+            authorityStart = 7;
+        } else if (startsWithIgnoreCase("https://")) {
+            lowerCase(0, 5);
+            defaultPort = 443;
+            authorityStart = 8;
+        }
+
+        int authorityEnd = authorityStart;
+        int at = -1;
+        while (authorityEnd < length) {
+            char c = link.charAt(authorityEnd);
+            if (c == '/' || c == '?' || c == '#') {
+                break;
+            }
+            if (c == '@') {
+                at = authorityEnd;
+            }
+            authorityEnd++;
+        }
+
+        int hostStart = authorityStart;
+        if (at >= 0) {
+            if (!encoded(authorityStart, at, USERINFO_CHARS)) {
+                return null;
+            }
+            hostStart = at + 1;
+        }
+        int hostEnd = link.startsWith("[", hostStart) ? ipLiteral(hostStart, authorityEnd) : host(hostStart, authorityEnd);
+        if (hostEnd < 0 || !port(hostEnd, authorityEnd, defaultPort)) {
+            return null;
+        }
+
+        int index = authorityEnd;
+        if (index == length || link.charAt(index) != '/') {
+            replace(index, index, "/");
+        }
+        int queryStart = indexOf('?', index);
+        int fragmentStart = indexOf('#', index);
+        if (queryStart > fragmentStart) {
+            // a '?' in the fragment
+            queryStart = fragmentStart;
+        }
+        if (!encoded(index, queryStart, PATH_CHARS)
+                || queryStart < fragmentStart && !encoded(queryStart + 1, fragmentStart, QUERY_CHARS)
+                || fragmentStart < length && !encoded(fragmentStart + 1, length, QUERY_CHARS)) {
+            return null;
+        }
+        if (canonical == null) {
+            return link;
+        }
+        return canonical.append(link, copied, length).toString();
+    }
+
+    // a domain name or an IPv4 address up to ':' or end, returns the end of the host or -1
+    private int host(int start, int end) {
+        int labels = 0;
+        int labelStart = start;
+        boolean upperCase = false;
+        boolean alphabeticLabel = true;
+        boolean numericLabel = true;
+        boolean numeric = true;
+        int index = start;
+        for (; ; index++) {
+            if (index - start > MAX_HOST_LENGTH) {
+                return -1;
+            }
+            char c = index < end ? link.charAt(index) : ':';
+            if (c == '.' || c == ':') {
+                int labelLength = index - labelStart;
+                if (labelLength == 0 || labelLength > MAX_LABEL_LENGTH
+                        || link.charAt(labelStart) == '-' || link.charAt(index - 1) == '-') {
+                    return -1;
+                }
+                numeric &= numericLabel && labelLength <= 3 && Integer.parseInt(link, labelStart, index, 10) <= 255;
+                labels++;
+                if (c == ':') {
+                    break;
+                }
+                labelStart = index + 1;
+                alphabeticLabel = true;
+                numericLabel = true;
+            } else if (c >= 'a' && c <= 'z' || isAllowedNonAscii(c)) {
+                numericLabel = false;
+            } else if (c >= 'A' && c <= 'Z') {
+                numericLabel = false;
+                upperCase = true;
+            } else if (c >= '0' && c <= '9') {
+                alphabeticLabel = false;
+            } else if (c == '-' || c == '_') {
+                alphabeticLabel = false;
+                numericLabel = false;
+            } else {
+                return -1;
+            }
+        }
+        if (labels < 2) {
+            return -1;
+        }
+        if (numericLabel ? !(numeric && labels == 4) : !(alphabeticLabel && index - labelStart >= 2 || isPunycode(labelStart))) {
+            return -1;
+        }
+        if (upperCase) {
+            lowerCase(start, index);
+        }
+        return index;
+    }
+
+    // an IPv6 literal in brackets, returns the end after the closing bracket or -1
+    private int ipLiteral(int start, int end) {
+        boolean upperCase = false;
+        int colons = 0;
+        for (int index = start + 1; index < end; index++) {
+            char c = link.charAt(index);
+            if (c == ']') {
+                if (colons < 2) {
+                    return -1;
+                }
+                if (upperCase) {
+                    lowerCase(start, index);
+                }
+                return index + 1;
+            }
+            if (c == ':') {
+                colons++;
+            } else if (c >= 'A' && c <= 'F') {
+                upperCase = true;
+            } else if (!(c >= '0' && c <= '9' || c >= 'a' && c <= 'f' || c == '.')) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    // an optional port from start, i.e. the end of the host, to the end of the authority
+    private boolean port(int start, int end, int defaultPort) {
+        if (start == end) {
+            return true;
+        }
+        if (link.charAt(start) != ':' || end - start > 6) {
+            return false;
+        }
+        int port = 0;
+        for (int index = start + 1; index < end; index++) {
+            char c = link.charAt(index);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+            port = port * 10 + c - '0';
+        }
+        if (port > MAX_PORT) {
+            return false;
+        }
+        if (start + 1 == end || port == defaultPort) {
+            replace(start, end, "");
+        } else if (link.charAt(start + 1) == '0') {
+            replace(start + 1, end, Integer.toString(port));
+        }
+        return true;
+    }
+
+    // checks the characters of userinfo, path, query or fragment and normalizes their percent-encodings
+    private boolean encoded(int start, int end, boolean[] allowed) {
+        for (int index = start; index < end; index++) {
+            char c = link.charAt(index);
+            if (c == '%') {
+                if (index + 2 >= end) {
+                    return false;
+                }
+                int high = hexValue(link.charAt(index + 1));
+                int low = hexValue(link.charAt(index + 2));
+                if (high < 0 || low < 0) {
+                    return false;
+                }
+                char decoded = (char) (high << 4 | low);
+                if (isUnreserved(decoded)) {
+                    replace(index, index + 3, String.valueOf(decoded));
+                } else if (Character.isLowerCase(link.charAt(index + 1)) || Character.isLowerCase(link.charAt(index + 2))) {
+                    replace(index + 1, index + 3, link.substring(index + 1, index + 3).toUpperCase());
+                }
+                index += 2;
+            } else if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9'
+                    || c < allowed.length && allowed[c] || isAllowedNonAscii(c))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean startsWithIgnoreCase(String prefix) {
+        return link.regionMatches(true, 0, prefix, 0, prefix.length());
+    }
+
+    private boolean isPunycode(int labelStart) {
+        return link.regionMatches(true, labelStart, "xn--", 0, 4);
+    }
+
+    private int indexOf(char c, int from) {
+        int index = link.indexOf(c, from);
+        return index < 0 ? length : index;
+    }
+
+    private void lowerCase(int start, int end) {
+        for (int index = start; index < end; index++) {
+            char c = link.charAt(index);
+            if (c >= 'A' && c <= 'Z') {
+                StringBuilder lowerCase = new StringBuilder(end - start).append(link, start, end);
+                for (int i = index - start; i < lowerCase.length(); i++) {
+                    char upper = lowerCase.charAt(i);
+                    if (upper >= 'A' && upper <= 'Z') {
+                        lowerCase.setCharAt(i, (char) (upper + ('a' - 'A')));
+                    }
+                }
+                replace(start, end, lowerCase.toString());
+                return;
+            }
+        }
+    }
+
+    // replaces the given range of the link in the canonical form, ranges are replaced in ascending order
+    private void replace(int start, int end, String replacement) {
+        if (canonical == null) {
+            canonical = new StringBuilder(length + 1);
+        }
+        canonical.append(link, copied, start).append(replacement);
+        copied = end;
+    }
+
+    private static boolean isUnreserved(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '-' || c == '.' || c == '_' || c == '~';
+    }
+
+    private static boolean isAllowedNonAscii(char c) {
+        return c >= 0x80 && !Character.isISOControl(c) && !Character.isWhitespace(c) && !Character.isSpaceChar(c);
+    }
+
+    private static int hexValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    private static boolean[] chars(String chars) {
+        boolean[] allowed = new boolean[128];
+        for (char c : chars.toCharArray()) {
+            allowed[c] = true;
+        }
+        return allowed;
+    }
+}
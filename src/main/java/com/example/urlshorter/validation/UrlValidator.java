@@ -0,0 +1,15 @@
+package com.example.urlshorter.validation;
+
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+/**
+ * Validator of the ValidUrl constraint.
+ */
+public class UrlValidator implements ConstraintValidator<ValidUrl, String> {
+
+    @Override
+    public boolean isValid(String value, ConstraintValidatorContext context) {
+        return value == null || UrlNormalizer.isValid(value);
+    }
+}
@@ -1 +1,5 @@
-create table shortener(id number(8) primary key AUTO_INCREMENT, long_link varchar(65535) unique not null, short_link varchar(65535) unique not null);
\ No newline at end of file
+create table shortener(id bigint primary key, long_link varchar(65535) not null, long_link_hash binary(16) not null);
+create unique index shortener_long_link_hash on shortener(long_link_hash);
+create table id_block(name varchar(64) primary key, next_id bigint not null);
+insert into id_block(name, next_id) values('shortener', 1);
+create table link_click_stats(id bigint not null, bucket_start bigint not null, clicks bigint not null, primary key(id, bucket_start));
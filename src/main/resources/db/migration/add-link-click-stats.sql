@@ -0,0 +1,3 @@
+-- Click counters per link and time bucket, bucket_start is in epoch milliseconds.
+-- Rows are only written by the ClickAggregator flusher, which adds to existing counters with merge.
+create table if not exists link_click_stats(id bigint not null, bucket_start bigint not null, clicks bigint not null, primary key(id, bucket_start));
@@ -0,0 +1,11 @@
+-- Replaces the unique index on the up to 64 KB wide long_link column by a unique index on a 128 bit digest.
+-- long_link_hash is the first 16 bytes of SHA-256 over the UTF-8 long link, see LinkDigest.
+alter table shortener add column long_link_hash binary(16);
+update shortener set long_link_hash = substring(hash('SHA-256', long_link), 1, 16);
+alter table shortener alter column long_link_hash set not null;
+create unique index shortener_long_link_hash on shortener(long_link_hash);
+
+-- The unique constraint on long_link has a generated name, look it up before dropping it:
+-- select constraint_name from information_schema.table_constraints
+--     where table_name = 'SHORTENER' and constraint_type = 'UNIQUE';
+-- alter table shortener drop constraint <constraint_name>;
@@ -0,0 +1,10 @@
+-- Migrates a shortener table created with the short_link column to the id-only format.
+-- short_link always held app.base.url + base62(id), the short link is now rendered from the id instead.
+alter table shortener alter column id set data type bigint;
+alter table shortener drop column short_link;
+
+-- Ids are reserved from id_block, seed it past the existing rows.
+create table if not exists id_block(name varchar(64) primary key, next_id bigint not null);
+insert into id_block(name, next_id)
+    select 'shortener', coalesce(max(id), 0) + 1 from shortener
+    where not exists (select 1 from id_block where name = 'shortener');
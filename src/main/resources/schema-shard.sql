@@ -0,0 +1,2 @@
+create table if not exists shortener(id bigint primary key, long_link varchar(65535) not null, long_link_hash binary(16) not null);
+create table if not exists shortener_digest(long_link_hash binary(16) primary key, id bigint not null);
@@ -0,0 +1,101 @@
+package com.example.urlshorter.accesslog;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+
+class AccessLogFilterTest {
+    private final AsyncAccessLogAppender asyncAccessLogAppender = Mockito.mock(AsyncAccessLogAppender.class);
+
+    private final MockEnvironment environment = new MockEnvironment();
+
+    @Test
+    void testLogsSampledRequest() throws Exception {
+        AccessLogFilter accessLogFilter = new AccessLogFilter(asyncAccessLogAppender, environment, true, 1.0, true);
+
+        accessLogFilter.doFilter(request(), new MockHttpServletResponse(), chain(302));
+
+        Mockito.verify(asyncAccessLogAppender).append(Mockito.anyLong(), Mockito.eq("GET"), Mockito.eq("redirect"),
+                Mockito.eq("/projects/shortener/abc"), Mockito.eq(302), Mockito.anyLong());
+    }
+
+    @Test
+    void testSkipsUnsampledRequest() throws Exception {
+        AccessLogFilter accessLogFilter = new AccessLogFilter(asyncAccessLogAppender, environment, true, 0, true);
+
+        accessLogFilter.doFilter(request(), new MockHttpServletResponse(), chain(302));
+
+        Mockito.verifyNoInteractions(asyncAccessLogAppender);
+    }
+
+    @Test
+    void testLogsServerErrorRegardlessOfSampling() throws Exception {
+        AccessLogFilter accessLogFilter = new AccessLogFilter(asyncAccessLogAppender, environment, true, 0, true);
+
+        accessLogFilter.doFilter(request(), new MockHttpServletResponse(), chain(503));
+
+        Mockito.verify(asyncAccessLogAppender).append(Mockito.anyLong(), Mockito.anyString(), Mockito.anyString(),
+                Mockito.anyString(), Mockito.eq(503), Mockito.anyLong());
+    }
+
+    @Test
+    void testEndpointDisabled() throws Exception {
+        environment.setProperty("app.access-log.endpoint.redirect.enabled", "false");
+        AccessLogFilter accessLogFilter = new AccessLogFilter(asyncAccessLogAppender, environment, true, 1.0, true);
+
+        accessLogFilter.doFilter(request(), new MockHttpServletResponse(), chain(302));
+
+        Mockito.verifyNoInteractions(asyncAccessLogAppender);
+    }
+
+    @Test
+    void testDisabled() throws Exception {
+        AccessLogFilter accessLogFilter = new AccessLogFilter(asyncAccessLogAppender, environment, false, 1.0, true);
+
+        accessLogFilter.doFilter(request(), new MockHttpServletResponse(), chain(500));
+
+        Mockito.verifyNoInteractions(asyncAccessLogAppender);
+    }
+
+    @Test
+    void testUnmatchedEndpoint() throws Exception {
+        AccessLogFilter accessLogFilter = new AccessLogFilter(asyncAccessLogAppender, environment, true, 1.0, true);
+
+        accessLogFilter.doFilter(new MockHttpServletRequest("GET", "/favicon.ico"), new MockHttpServletResponse(),
+                (request, response) -> ((HttpServletResponse) response).setStatus(404));
+
+        Mockito.verify(asyncAccessLogAppender).append(Mockito.anyLong(), Mockito.eq("GET"), Mockito.eq(AccessLogFilter.UNMATCHED_ENDPOINT),
+                Mockito.eq("/favicon.ico"), Mockito.eq(404), Mockito.anyLong());
+    }
+
+    private static MockHttpServletRequest request() {
+        return new MockHttpServletRequest("GET", "/projects/shortener/abc");
+    }
+
+    private static FilterChain chain(int status) {
+        return (request, response) -> {
+            request.setAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE, handlerMethod());
+            ((HttpServletResponse) response).setStatus(status);
+        };
+    }
+
+    private static HandlerMethod handlerMethod() {
+        try {
+            return new HandlerMethod(new Handlers(), Handlers.class.getMethod("redirect"));
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static class Handlers {
+        public void redirect() {
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.urlshorter.accesslog;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+class AsyncAccessLogAppenderTest {
+
+    @Test
+    void testEveryRecordIsWrittenOrCountedAsDropped() throws Exception {
+        AsyncAccessLogAppender asyncAccessLogAppender = new AsyncAccessLogAppender(64);
+        int threads = 4;
+        int recordsPerThread = 10_000;
+        AtomicLong queued = new AtomicLong();
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executorService.submit(() -> {
+                for (int i = 0; i < recordsPerThread; i++) {
+                    if (asyncAccessLogAppender.append(i, "GET", "redirect", "/abc", 302, 1000)) {
+                        queued.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executorService.shutdown();
+        asyncAccessLogAppender.shutdown();
+
+        Assertions.assertEquals(queued.get(), asyncAccessLogAppender.getWritten());
+        Assertions.assertEquals((long) threads * recordsPerThread, queued.get() + asyncAccessLogAppender.getDropped());
+    }
+
+    @Test
+    void testRecordJson() {
+        AccessLogRecord record = new AccessLogRecord();
+        record.timestampMillis = 1000;
+        record.method = "GET";
+        record.endpoint = "redirect";
+        record.path = "/projects/shortener/a\"b";
+        record.status = 302;
+        record.durationNanos = 12_345;
+        StringBuilder sb = new StringBuilder();
+
+        record.appendJson(sb);
+
+        Assertions.assertEquals("{\"ts\":1000,\"method\":\"GET\",\"endpoint\":\"redirect\",\"path\":\"/projects/shortener/a\\\"b\",\"status\":302,\"durationUs\":12}", sb.toString());
+    }
+}
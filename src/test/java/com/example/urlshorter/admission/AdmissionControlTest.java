@@ -0,0 +1,145 @@
+package com.example.urlshorter.admission;
+
+import com.example.urlshorter.metrics.ShortenerMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class AdmissionControlTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ShortenerMetrics shortenerMetrics = new ShortenerMetrics(meterRegistry);
+
+    @Test
+    void testBucketRefillsOneTokenPerInterval() {
+        long now = System.nanoTime();
+        ClientBuckets clientBuckets = new ClientBuckets(now);
+        long interval = SECOND / 10;
+
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertEquals(0, clientBuckets.take(false, now, interval, 3 * interval));
+        }
+        Assertions.assertEquals(interval, clientBuckets.take(false, now, interval, 3 * interval));
+        // the write bucket is separate
+        Assertions.assertEquals(0, clientBuckets.take(true, now, interval, 3 * interval));
+
+        Assertions.assertEquals(interval / 2, clientBuckets.take(false, now + interval / 2, interval, 3 * interval));
+        Assertions.assertEquals(0, clientBuckets.take(false, now + interval, interval, 3 * interval));
+        // idle time refills up to the burst only
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertEquals(0, clientBuckets.take(false, now + 100 * interval, interval, 3 * interval));
+        }
+        Assertions.assertTrue(clientBuckets.take(false, now + 100 * interval, interval, 3 * interval) > 0);
+    }
+
+    @Test
+    void testSeparateBudgetsPerClientAndClass() {
+        AdmissionControl admissionControl = admissionControl(Duration.ofSeconds(10));
+
+        Assertions.assertEquals(0, admissionControl.admit("10.0.0.1", true));
+        Assertions.assertEquals(0, admissionControl.admit("10.0.0.1", true));
+        long retryAfter = admissionControl.admit("10.0.0.1", true);
+        Assertions.assertTrue(retryAfter > 0 && retryAfter <= SECOND, "retry after " + retryAfter);
+
+        Assertions.assertEquals(0, admissionControl.admit("10.0.0.1", false));
+        Assertions.assertEquals(0, admissionControl.admit("10.0.0.2", true));
+
+        Assertions.assertEquals(2, admissionControl.clientCount());
+        Assertions.assertEquals(3, meterRegistry.get("admission.requests").tag("class", "write").tag("outcome", "admitted").counter().count());
+        Assertions.assertEquals(1, meterRegistry.get("admission.requests").tag("class", "write").tag("outcome", "limited").counter().count());
+        Assertions.assertEquals(1, meterRegistry.get("admission.requests").tag("class", "read").tag("outcome", "admitted").counter().count());
+    }
+
+    @Test
+    void testWritesAreShedWhileTheDbIsSlow() {
+        AdmissionControl admissionControl = admissionControl(Duration.ofMillis(1));
+
+        shortenerMetrics.pointQueryStats("insert").count(() -> {
+            sleep(40);
+            return 1;
+        });
+
+        Assertions.assertEquals(TimeUnit.SECONDS.toNanos(2), admissionControl.admit("10.0.0.1", true));
+        Assertions.assertEquals(0, admissionControl.admit("10.0.0.1", false));
+        Assertions.assertEquals(1, meterRegistry.get("admission.requests").tag("outcome", "shed").counter().count());
+    }
+
+    @Test
+    void testLongStreamingQueryDoesNotShedWrites() {
+        AdmissionControl admissionControl = admissionControl(Duration.ofMillis(1));
+
+        // an export streaming to a slow client
+        shortenerMetrics.queryStats("forEachLink").count(() -> {
+            sleep(40);
+            return 100_000;
+        });
+        shortenerMetrics.pointQueryStats("findById").optional(Optional::empty);
+
+        Assertions.assertEquals(0, admissionControl.admit("10.0.0.1", true));
+        Assertions.assertEquals(0, meterRegistry.get("admission.requests").tag("outcome", "shed").counter().count());
+    }
+
+    @Test
+    void testConcurrentClientsNeverOverdrawTheBucket() throws Exception {
+        AdmissionControl admissionControl = new AdmissionControl(meterRegistry, shortenerMetrics, true,
+                1, 1000, 1, 1, 100, Duration.ofMinutes(1), Duration.ofSeconds(10), Duration.ofSeconds(1));
+        int threads = 8;
+        AtomicInteger admitted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 500; i++) {
+                    if (admissionControl.admit("10.0.0.1", false) == 0) {
+                        admitted.incrementAndGet();
+                    }
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long refilled = (System.nanoTime() - begin) / SECOND;
+
+        Assertions.assertTrue(admitted.get() >= 1000 && admitted.get() <= 1000 + refilled + 1, "admitted " + admitted.get());
+    }
+
+    @Test
+    void testRetryAfterSeconds() {
+        Assertions.assertEquals(1, AdmissionFilter.retryAfterSeconds(1));
+        Assertions.assertEquals(1, AdmissionFilter.retryAfterSeconds(SECOND));
+        Assertions.assertEquals(2, AdmissionFilter.retryAfterSeconds(SECOND + 1));
+    }
+
+    private AdmissionControl admissionControl(Duration shedLatency) {
+        return new AdmissionControl(meterRegistry, shortenerMetrics, true,
+                100, 10, 1, 2, 100, Duration.ofMinutes(1), shedLatency, Duration.ofSeconds(2));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.urlshorter.analytics;
+
+import com.example.urlshorter.dto.ClickCountDTO;
+import com.example.urlshorter.repository.ClickStatsRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+class ClickAggregatorTest {
+    private static final Duration BUCKET = Duration.ofMinutes(1);
+    private static final Duration NEVER = Duration.ofDays(1);
+
+    private final RecordingRepository repository = new RecordingRepository();
+
+    private final Clock clock = Mockito.mock(Clock.class);
+
+    private ClickAggregator clickAggregator;
+
+    @AfterEach
+    public void shutdown() {
+        if (clickAggregator != null) {
+            clickAggregator.shutdown();
+        }
+    }
+
+    @Test
+    void testConcurrentClicksAreAllCounted() throws Exception {
+        Mockito.when(clock.millis()).thenReturn(60_000L);
+        clickAggregator = new ClickAggregator(repository, clock, true, BUCKET, NEVER, Long.MAX_VALUE, 1000, Duration.ofMillis(50));
+        int threads = 8;
+        int clicksPerThread = 10_000;
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executorService.submit(() -> {
+                start.await();
+                for (int i = 0; i < clicksPerThread; i++) {
+                    clickAggregator.record(i % 10);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        // flushes racing the recorders must not lose increments either
+        while (futures.stream().anyMatch(f -> !f.isDone())) {
+            clickAggregator.flush();
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executorService.shutdown();
+        clickAggregator.flush();
+
+        Assertions.assertEquals((long) threads * clicksPerThread, repository.total());
+        Assertions.assertEquals((long) threads * clicksPerThread / 10, repository.clicks(3, 60_000L));
+    }
+
+    @Test
+    void testFailedFlushIsRetried() {
+        Mockito.when(clock.millis()).thenReturn(60_000L);
+        clickAggregator = new ClickAggregator(repository, clock, true, BUCKET, NEVER, Long.MAX_VALUE, 1000, Duration.ofMillis(50));
+        clickAggregator.record(1);
+        clickAggregator.record(1);
+
+        repository.failing.set(true);
+        clickAggregator.flush();
+        Assertions.assertEquals(0, repository.total());
+
+        clickAggregator.record(1);
+        repository.failing.set(false);
+        clickAggregator.flush();
+        Assertions.assertEquals(3, repository.clicks(1, 60_000L));
+    }
+
+    @Test
+    void testFlushedCountersAreRemoved() {
+        Mockito.when(clock.millis()).thenReturn(60_000L);
+        clickAggregator = new ClickAggregator(repository, clock, true, BUCKET, NEVER, Long.MAX_VALUE, 1000, Duration.ofMillis(50));
+        clickAggregator.record(1);
+        Mockito.when(clock.millis()).thenReturn(125_000L);
+        clickAggregator.record(1);
+        clickAggregator.flush();
+
+        Assertions.assertEquals(1, repository.clicks(1, 60_000L));
+        Assertions.assertEquals(1, repository.clicks(1, 120_000L));
+        // the counter of the current bucket is drained too
+        Assertions.assertEquals(0, clickAggregator.pendingKeys());
+        clickAggregator.record(1);
+        clickAggregator.flush();
+        Assertions.assertEquals(2, repository.clicks(1, 120_000L));
+    }
+
+    @Test
+    void testFlushAfterFlushEvents() throws InterruptedException {
+        Mockito.when(clock.millis()).thenReturn(60_000L);
+        clickAggregator = new ClickAggregator(repository, clock, true, BUCKET, NEVER, 100, 1000, Duration.ofMillis(50));
+        for (int i = 0; i < 100; i++) {
+            clickAggregator.record(1);
+        }
+        for (int i = 0; i < 100 && repository.total() < 100; i++) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(100, repository.total());
+    }
+
+    @Test
+    void testBackpressureWhenDbIsSlow() {
+        Mockito.when(clock.millis()).thenReturn(60_000L);
+        repository.delayMillis = 200;
+        clickAggregator = new ClickAggregator(repository, clock, true, BUCKET, NEVER, Long.MAX_VALUE, 10, Duration.ofMillis(20));
+        long start = System.nanoTime();
+        for (int i = 0; i < 50; i++) {
+            clickAggregator.record(i);
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        clickAggregator.shutdown();
+
+        // recording slowed down while over the limit, but each wait is bounded and no click got lost
+        Assertions.assertTrue(elapsedMillis >= 20, "elapsed " + elapsedMillis);
+        Assertions.assertTrue(elapsedMillis < 50 * 100, "elapsed " + elapsedMillis);
+        Assertions.assertEquals(50, repository.total());
+    }
+
+    @Test
+    void testManyLinksInOneBucketDoNotBlock() {
+        Mockito.when(clock.millis()).thenReturn(60_000L);
+        Duration backpressureTimeout = Duration.ofSeconds(1);
+        clickAggregator = new ClickAggregator(repository, clock, true, BUCKET, NEVER, Long.MAX_VALUE, 10, backpressureTimeout);
+        for (int i = 0; i < 50; i++) {
+            clickAggregator.record(i);
+        }
+        clickAggregator.flush();
+
+        // with a fast db each flush brings pending under the limit again, no record waits for the timeout
+        long start = System.nanoTime();
+        for (int i = 50; i < 100; i++) {
+            clickAggregator.record(i);
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        Assertions.assertTrue(elapsedMillis < backpressureTimeout.toMillis(), "elapsed " + elapsedMillis);
+        Assertions.assertTrue(clickAggregator.pendingKeys() <= 11, "pending " + clickAggregator.pendingKeys());
+        Assertions.assertTrue(clickAggregator.tryRecord(100));
+
+        clickAggregator.flush();
+        Assertions.assertEquals(101, repository.total());
+    }
+
+    @Test
+    void testTryRecordDropsInsteadOfWaiting() {
+        Mockito.when(clock.millis()).thenReturn(60_000L);
+        repository.delayMillis = 200;
+        clickAggregator = new ClickAggregator(repository, clock, true, BUCKET, NEVER, Long.MAX_VALUE, 1, Duration.ofSeconds(10));
+        long start = System.nanoTime();
+        Assertions.assertTrue(clickAggregator.tryRecord(1));
+        Assertions.assertTrue(clickAggregator.tryRecord(2));
+        // over the limit, new counters are dropped while existing ones still count
+        Assertions.assertFalse(clickAggregator.tryRecord(3));
+        Assertions.assertTrue(clickAggregator.tryRecord(1));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        clickAggregator.shutdown();
+
+        Assertions.assertTrue(elapsedMillis < 200, "elapsed " + elapsedMillis);
+        Assertions.assertEquals(2, repository.clicks(1, 60_000L));
+        Assertions.assertEquals(1, repository.clicks(2, 60_000L));
+        Assertions.assertEquals(0, repository.clicks(3, 60_000L));
+    }
+
+    @Test
+    void testDisabled() {
+        clickAggregator = new ClickAggregator(repository, clock, false, BUCKET, NEVER, 1, 1, Duration.ofMillis(50));
+        clickAggregator.record(1);
+        clickAggregator.flush();
+
+        Assertions.assertEquals(0, clickAggregator.pendingKeys());
+        Assertions.assertEquals(0, repository.total());
+    }
+
+    private static class RecordingRepository extends ClickStatsRepository {
+        final AtomicBoolean failing = new AtomicBoolean();
+        final Map<String, Long> clicks = new HashMap<>();
+        volatile long delayMillis;
+
+        @Override
+        public synchronized void addClicks(List<ClickCountDTO> clickCountDTOs) {
+            if (delayMillis > 0) {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (failing.get()) {
+                throw new DataAccessResourceFailureException("db down");
+            }
+            for (ClickCountDTO clickCountDTO : clickCountDTOs) {
+                clicks.merge(clickCountDTO.getId() + "@" + clickCountDTO.getBucketStart(), clickCountDTO.getClicks(), Long::sum);
+            }
+        }
+
+        synchronized long clicks(long id, long bucketStart) {
+            return clicks.getOrDefault(id + "@" + bucketStart, 0L);
+        }
+
+        synchronized long total() {
+            return clicks.values().stream().mapToLong(Long::longValue).sum();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.urlshorter.cache;
+
+import com.example.urlshorter.codec.Base62Codec;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+class LinkCacheSnapshotTest {
+    private static final String LONG_LINK_GOOGlE = "https://www.google.com/";
+
+    private final Base62Codec base62Codec = new Base62Codec("0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ".split(""));
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testWriteAndLoad() throws IOException {
+        LinkCache linkCache = cache(100);
+        for (long id = 1; id <= 10; id++) {
+            linkCache.put(base62Codec.encode(id), "https://www.example.com/" + id);
+        }
+        linkCache.put("abc", "https://例え.jp/パス");
+        linkCache.get("zz", k -> Optional.empty());
+
+        Assertions.assertEquals(11, snapshot(linkCache, 100).write());
+
+        LinkCache restarted = cache(100);
+        Assertions.assertEquals(11, snapshot(restarted, 100).load());
+        for (long id = 1; id <= 10; id++) {
+            Assertions.assertEquals(Optional.of("https://www.example.com/" + id), restarted.getIfPresent(base62Codec.encode(id)));
+        }
+        Assertions.assertEquals(Optional.of("https://例え.jp/パス"), restarted.getIfPresent("abc"));
+        Assertions.assertNull(restarted.getIfPresent("zz"));
+    }
+
+    @Test
+    void testLoadKeepsHottest() throws IOException {
+        // full, so the eviction policy ranks entries by frequency
+        LinkCache linkCache = cache(20);
+        for (long id = 1; id <= 20; id++) {
+            linkCache.put(base62Codec.encode(id), "https://www.example.com/" + id);
+        }
+        for (int i = 0; i < 10; i++) {
+            linkCache.getIfPresent(base62Codec.encode(7));
+            linkCache.getIfPresent(base62Codec.encode(7));
+            // drains the read buffer, which drops reads while it is full
+            linkCache.hottest(1);
+        }
+        snapshot(linkCache, 100).write();
+
+        LinkCache smaller = cache(5);
+        Assertions.assertEquals(5, snapshot(smaller, 100).load());
+        Assertions.assertEquals(Optional.of("https://www.example.com/7"), smaller.getIfPresent(base62Codec.encode(7)));
+    }
+
+    @Test
+    void testCorruptSnapshotIsIgnored() throws IOException {
+        LinkCache linkCache = cache(100);
+        linkCache.put("1", LONG_LINK_GOOGlE);
+        snapshot(linkCache, 100).write();
+        byte[] bytes = Files.readAllBytes(dir.resolve("hot-links.snap"));
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(dir.resolve("hot-links.snap"), bytes);
+
+        LinkCache restarted = cache(100);
+        Assertions.assertEquals(0, snapshot(restarted, 100).load());
+        Assertions.assertNull(restarted.getIfPresent("1"));
+    }
+
+    @Test
+    void testMissingSnapshot() {
+        Assertions.assertEquals(0, snapshot(cache(100), 100).load());
+    }
+
+    private LinkCache cache(long maxSize) {
+        return new LinkCache(maxSize, Duration.ofHours(1), Duration.ofHours(1));
+    }
+
+    private LinkCacheSnapshot snapshot(LinkCache linkCache, int maxEntries) {
+        return new LinkCacheSnapshot(linkCache, base62Codec, true, dir.resolve("hot-links.snap"), maxEntries, Duration.ofMinutes(5));
+    }
+}
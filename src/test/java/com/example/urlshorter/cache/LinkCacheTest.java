@@ -0,0 +1,76 @@
+package com.example.urlshorter.cache;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class LinkCacheTest {
+    private static final String LONG_LINK_GOOGlE = "https://www.google.com/";
+    private static final String SHORT_LINK_GOOGLE = "vat.sl/1";
+    private static final String SHORT_LINK_FB = "vat.sl/2";
+
+    @Test
+    void testReadThrough() {
+        LinkCache linkCache = new LinkCache(100, Duration.ofHours(1), Duration.ofHours(1));
+        AtomicInteger loads = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            Optional<String> result = linkCache.get(SHORT_LINK_GOOGLE, k -> {
+                loads.incrementAndGet();
+                return Optional.of(LONG_LINK_GOOGlE);
+            });
+            Assertions.assertEquals(LONG_LINK_GOOGlE, result.get());
+        }
+        Assertions.assertEquals(1, loads.get());
+        Assertions.assertEquals(2, linkCache.stats().getHitCount());
+        Assertions.assertEquals(1, linkCache.stats().getMissCount());
+    }
+
+    @Test
+    void testNegativeEntryExpires() throws InterruptedException {
+        LinkCache linkCache = new LinkCache(100, Duration.ofHours(1), Duration.ofMillis(20));
+        AtomicInteger loads = new AtomicInteger();
+
+        linkCache.get(SHORT_LINK_FB, k -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        });
+        Thread.sleep(50);
+        linkCache.get(SHORT_LINK_FB, k -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        });
+        Assertions.assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testGetOrLoadKeepsLinkCachedWhileLoading() {
+        LinkCache linkCache = new LinkCache(100, Duration.ofHours(1), Duration.ofHours(1));
+
+        Optional<String> result = linkCache.getOrLoad(SHORT_LINK_GOOGLE, k -> {
+            // created concurrently, after the load missed it
+            linkCache.put(SHORT_LINK_GOOGLE, LONG_LINK_GOOGlE);
+            return Optional.empty();
+        });
+        Assertions.assertEquals(LONG_LINK_GOOGlE, result.get());
+        Assertions.assertEquals(LONG_LINK_GOOGlE, linkCache.getOrLoad(SHORT_LINK_GOOGLE, k -> Optional.empty()).get());
+
+        Assertions.assertTrue(linkCache.getOrLoad(SHORT_LINK_FB, k -> Optional.empty()).isEmpty());
+        Assertions.assertTrue(linkCache.getIfPresent(SHORT_LINK_FB).isEmpty());
+        Assertions.assertEquals(1, linkCache.stats().getHitCount());
+        Assertions.assertEquals(0, linkCache.stats().getMissCount());
+    }
+
+    @Test
+    void testEvict() {
+        LinkCache linkCache = new LinkCache(100, Duration.ofHours(1), Duration.ofHours(1));
+        linkCache.put(SHORT_LINK_GOOGLE, LONG_LINK_GOOGlE);
+        linkCache.evict(SHORT_LINK_GOOGLE);
+
+        Optional<String> result = linkCache.get(SHORT_LINK_GOOGLE, k -> Optional.empty());
+        Assertions.assertTrue(result.isEmpty());
+    }
+}
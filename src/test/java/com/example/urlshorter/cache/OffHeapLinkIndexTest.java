@@ -0,0 +1,85 @@
+package com.example.urlshorter.cache;
+
+import com.example.urlshorter.dto.LinkRecordDTO;
+import com.example.urlshorter.repository.LinkStore;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+
+class OffHeapLinkIndexTest {
+    private static final String LONG_LINK_GOOGlE = "https://www.google.com/";
+    private static final String LONG_LINK_FB = "https://www.facebook.com/";
+
+    private final LinkStore linkStore = Mockito.mock(LinkStore.class);
+
+    @Test
+    void testPutAndGet() {
+        OffHeapLinkIndex offHeapLinkIndex = new OffHeapLinkIndex(linkStore, true, DataSize.ofKilobytes(64), 10);
+
+        Assertions.assertTrue(offHeapLinkIndex.put(1, LONG_LINK_GOOGlE));
+        Assertions.assertTrue(offHeapLinkIndex.put(2, "https://例え.jp/パス?q=ü€"));
+
+        Assertions.assertEquals(LONG_LINK_GOOGlE, offHeapLinkIndex.get(1));
+        Assertions.assertEquals("https://例え.jp/パス?q=ü€", offHeapLinkIndex.get(2));
+        Assertions.assertNull(offHeapLinkIndex.get(3));
+        Assertions.assertNull(offHeapLinkIndex.get(-1));
+        Assertions.assertEquals(2, offHeapLinkIndex.size());
+    }
+
+    @Test
+    void testFirstPutWins() {
+        OffHeapLinkIndex offHeapLinkIndex = new OffHeapLinkIndex(linkStore, true, DataSize.ofKilobytes(64), 10);
+
+        offHeapLinkIndex.put(1, LONG_LINK_GOOGlE);
+
+        Assertions.assertFalse(offHeapLinkIndex.put(1, LONG_LINK_FB));
+        Assertions.assertEquals(LONG_LINK_GOOGlE, offHeapLinkIndex.get(1));
+    }
+
+    @Test
+    void testSlabsAndPagesAreAddedOnDemand() {
+        OffHeapLinkIndex offHeapLinkIndex = new OffHeapLinkIndex(linkStore, true, DataSize.ofBytes(64), 10);
+
+        for (long id = 1; id <= 100; id++) {
+            offHeapLinkIndex.put(id, "https://www.example.com/" + id);
+        }
+        // far away ids of another node's id block
+        offHeapLinkIndex.put(1L << 30, LONG_LINK_FB);
+        // longer than a slab
+        Assertions.assertFalse(offHeapLinkIndex.put(101, "https://www.example.com/" + "a".repeat(64)));
+        // beyond the offset table
+        Assertions.assertFalse(offHeapLinkIndex.put(1L << 40, LONG_LINK_GOOGlE));
+
+        for (long id = 1; id <= 100; id++) {
+            Assertions.assertEquals("https://www.example.com/" + id, offHeapLinkIndex.get(id));
+        }
+        Assertions.assertEquals(LONG_LINK_FB, offHeapLinkIndex.get(1L << 30));
+        Assertions.assertNull(offHeapLinkIndex.get((1L << 30) + 1));
+        Assertions.assertNull(offHeapLinkIndex.get(101));
+    }
+
+    @Test
+    void testLoadInKeysetPages() {
+        Mockito.when(linkStore.findPage(0, 2)).thenReturn(List.of(new LinkRecordDTO(1, LONG_LINK_GOOGlE), new LinkRecordDTO(2, LONG_LINK_FB)));
+        Mockito.when(linkStore.findPage(2, 2)).thenReturn(List.of(new LinkRecordDTO(5, "https://www.example.com/")));
+        OffHeapLinkIndex offHeapLinkIndex = new OffHeapLinkIndex(linkStore, true, DataSize.ofKilobytes(64), 2);
+
+        offHeapLinkIndex.load();
+
+        Assertions.assertTrue(offHeapLinkIndex.isLoaded());
+        Assertions.assertEquals(3, offHeapLinkIndex.size());
+        Assertions.assertEquals("https://www.example.com/", offHeapLinkIndex.get(5));
+        Mockito.verify(linkStore, Mockito.never()).findPage(5, 2);
+    }
+
+    @Test
+    void testDisabled() {
+        OffHeapLinkIndex offHeapLinkIndex = new OffHeapLinkIndex(linkStore, false, DataSize.ofKilobytes(64), 10);
+
+        Assertions.assertFalse(offHeapLinkIndex.put(1, LONG_LINK_GOOGlE));
+        Assertions.assertNull(offHeapLinkIndex.get(1));
+    }
+}
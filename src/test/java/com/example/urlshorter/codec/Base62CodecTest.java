@@ -0,0 +1,89 @@
+package com.example.urlshorter.codec;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+class Base62CodecTest {
+    private static final String DIGITS = "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
+
+    private final Base62Codec base62Codec = new Base62Codec(DIGITS.split(""));
+
+    @Test
+    void testRoundTripAllCodesUpToThreeDigits() {
+        char[] buffer = new char[Base62Codec.MAX_LENGTH];
+        for (long id = 0; id < 62L * 62 * 62; id++) {
+            int length = base62Codec.encode(id, buffer, 0);
+            Assertions.assertEquals(id, base62Codec.tryDecode(new String(buffer), 0, length));
+        }
+    }
+
+    @Test
+    void testRoundTripDigitBoundaries() {
+        for (long power = 1; power > 0 && power <= Long.MAX_VALUE / 62; power *= 62) {
+            for (long id : new long[]{power - 1, power, power + 1, power * 62 - 1}) {
+                Assertions.assertEquals(id, base62Codec.decode(base62Codec.encode(id)));
+            }
+        }
+        Assertions.assertEquals(Long.MAX_VALUE, base62Codec.decode(base62Codec.encode(Long.MAX_VALUE)));
+        Assertions.assertEquals(Base62Codec.MAX_LENGTH, base62Codec.encode(Long.MAX_VALUE).length());
+    }
+
+    @Test
+    void testRoundTripRandomIds() {
+        SplittableRandom random = new SplittableRandom(62);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1_000_000; i++) {
+            long id = random.nextLong(Long.MAX_VALUE);
+            sb.setLength(0);
+            base62Codec.appendTo(id, sb.append("vat.sl/"));
+            Assertions.assertEquals(id, base62Codec.tryDecode(sb, 7, sb.length()));
+        }
+    }
+
+    @Test
+    void testMatchesLegacyEncoding() {
+        String[] base62digits = DIGITS.split("");
+        for (long id = 1; id < 100_000; id++) {
+            StringBuilder sb = new StringBuilder();
+            long legacyId = id;
+            while (legacyId != 0) {
+                sb.append(base62digits[(int) (legacyId % 62)]);
+                legacyId = legacyId / 62;
+            }
+            Assertions.assertEquals(sb.reverse().toString(), base62Codec.encode(id));
+        }
+    }
+
+    @Test
+    void testEncode() {
+        Assertions.assertEquals("0", base62Codec.encode(0));
+        Assertions.assertEquals("Z", base62Codec.encode(61));
+        Assertions.assertEquals("10", base62Codec.encode(62));
+        Assertions.assertEquals("aZl8N0y58M7", base62Codec.encode(Long.MAX_VALUE));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> base62Codec.encode(-1));
+    }
+
+    @Test
+    void testDecodeInvalid() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> base62Codec.decode(""));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> base62Codec.decode("a-b"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> base62Codec.decode("é"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> base62Codec.decode("aZl8N0y58M8"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> base62Codec.decode("zzzzzzzzzzzz"));
+        Assertions.assertEquals(Base62Codec.INVALID, base62Codec.tryDecode("vat.sl/", 7, 7));
+        for (char c = 0; c < 256; c++) {
+            if (DIGITS.indexOf(c) < 0) {
+                Assertions.assertEquals(Base62Codec.INVALID, base62Codec.tryDecode(String.valueOf(c), 0, 1));
+            }
+        }
+    }
+
+    @Test
+    void testInvalidAlphabet() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new Base62Codec("0,1,2".split(",")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new Base62Codec(DIGITS.replace('Z', 'Y').split("")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new Base62Codec(DIGITS.replace('Z', 'é').split("")));
+    }
+}
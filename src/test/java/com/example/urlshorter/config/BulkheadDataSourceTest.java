@@ -0,0 +1,74 @@
+package com.example.urlshorter.config;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+class BulkheadDataSourceTest {
+    private final DataSource target = Mockito.mock(DataSource.class);
+
+    @BeforeEach
+    public void initialise() throws SQLException {
+        Mockito.when(target.getConnection()).thenAnswer(invocation -> Mockito.mock(Connection.class));
+    }
+
+    @Test
+    void testCloseReturnsPermit() throws SQLException {
+        BulkheadDataSource dataSource = new BulkheadDataSource(target, 1, 0, TimeUnit.MILLISECONDS.toNanos(10));
+
+        Connection connection = dataSource.getConnection();
+        Assertions.assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        connection.close();
+        // closing twice must not hand out a second permit
+        connection.close();
+
+        dataSource.getConnection();
+        Assertions.assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+    }
+
+    @Test
+    void testWaitTimesOut() throws SQLException {
+        BulkheadDataSource dataSource = new BulkheadDataSource(target, 1, 10, TimeUnit.MILLISECONDS.toNanos(20));
+        dataSource.getConnection();
+
+        long start = System.nanoTime();
+        Assertions.assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        Assertions.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20));
+    }
+
+    @Test
+    void testWaiterGetsReleasedConnection() throws Exception {
+        BulkheadDataSource dataSource = new BulkheadDataSource(target, 1, 10, TimeUnit.SECONDS.toNanos(5));
+        Connection connection = dataSource.getConnection();
+
+        CompletableFuture<Connection> waiter = CompletableFuture.supplyAsync(() -> {
+            try {
+                return dataSource.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        while (dataSource.getWaiting() == 0) {
+            Thread.sleep(1);
+        }
+        connection.close();
+        Assertions.assertNotNull(waiter.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testFailedConnectReturnsPermit() throws SQLException {
+        BulkheadDataSource dataSource = new BulkheadDataSource(target, 1, 0, TimeUnit.MILLISECONDS.toNanos(10));
+        Mockito.when(target.getConnection()).thenThrow(new SQLException("db down")).thenAnswer(invocation -> Mockito.mock(Connection.class));
+
+        Assertions.assertThrows(SQLException.class, dataSource::getConnection);
+        Assertions.assertNotNull(dataSource.getConnection());
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.urlshorter.config;
+
+import com.example.urlshorter.codec.LinkBinaryCodec;
+import com.example.urlshorter.dto.OriginalOutputDTO;
+import com.example.urlshorter.dto.OutputDTO;
+import com.example.urlshorter.dto.Status;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static com.example.urlshorter.constants.Constant.*;
+
+class OutputDTOHttpMessageConverterTest {
+    private final OutputDTOHttpMessageConverter converter = new OutputDTOHttpMessageConverter();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testJsonIsWrittenAsByJackson() throws IOException {
+        List<OutputDTO> outputDTOs = List.of(
+                new OutputDTO(Status.SUCCESS, RETRIEVED_ORIGINAL_LINK, "https://www.google.com/", "vat.sl/1"),
+                new OutputDTO(Status.FAILED, SHORT_LINK_NOT_FOUND, null, "vat.sl/1"),
+                new OutputDTO(Status.SUCCESS, GENERATED_SHORT_LINK, "https://example.com/\"quoted\"\\été\u0001", "vat.sl/2"),
+                new OutputDTO(null, "Some \"other\" message", "https://example.com/", null),
+                new OutputDTO("https://example.com/", "vat.sl/3"),
+                new OutputDTO());
+
+        for (OutputDTO outputDTO : outputDTOs) {
+            Assertions.assertEquals(objectMapper.writeValueAsString(outputDTO), write(outputDTO, MediaType.APPLICATION_JSON).getBodyAsString(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void testText() throws IOException {
+        MockHttpOutputMessage message = write(new OriginalOutputDTO(Status.SUCCESS, RETRIEVED_ORIGINAL_LINK, "https://example.com/été", "vat.sl/1"), MediaType.TEXT_PLAIN);
+
+        Assertions.assertEquals("https://example.com/été", message.getBodyAsString(StandardCharsets.UTF_8));
+        Assertions.assertEquals(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8), message.getHeaders().getContentType());
+    }
+
+    @Test
+    void testBinary() throws IOException {
+        byte[] found = write(new OriginalOutputDTO(Status.SUCCESS, RETRIEVED_ORIGINAL_LINK, "https://example.com/été", "vat.sl/1"), LinkBinaryCodec.MEDIA_TYPE).getBodyAsBytes();
+        byte[] notFound = write(new OriginalOutputDTO(Status.FAILED, SHORT_LINK_NOT_FOUND, null, "vat.sl/1"), LinkBinaryCodec.MEDIA_TYPE).getBodyAsBytes();
+
+        Assertions.assertEquals("https://example.com/été", LinkBinaryCodec.read(new DataInputStream(new ByteArrayInputStream(found))));
+        Assertions.assertEquals(4 + "https://example.com/été".getBytes(StandardCharsets.UTF_8).length, found.length);
+        Assertions.assertArrayEquals(new byte[]{-1, -1, -1, -1}, notFound);
+        Assertions.assertNull(LinkBinaryCodec.read(new DataInputStream(new ByteArrayInputStream(notFound))));
+    }
+
+    @Test
+    void testOtherResultsAreJsonOnly() throws IOException {
+        OutputDTO shortened = new OutputDTO(Status.SUCCESS, GENERATED_SHORT_LINK, "https://example.com/", "vat.sl/1");
+
+        Assertions.assertFalse(converter.canWrite(OutputDTO.class, MediaType.TEXT_PLAIN));
+        Assertions.assertFalse(converter.canWrite(OutputDTO.class, LinkBinaryCodec.MEDIA_TYPE));
+        Assertions.assertTrue(converter.canWrite(OriginalOutputDTO.class, MediaType.TEXT_PLAIN));
+        Assertions.assertEquals(List.of(MediaType.APPLICATION_JSON), converter.getSupportedMediaTypes(OutputDTO.class));
+        Assertions.assertEquals(objectMapper.writeValueAsString(shortened),
+                write(shortened, MediaType.TEXT_PLAIN).getBodyAsString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testOnlyWritesOutputDTO() {
+        Assertions.assertTrue(converter.canWrite(OutputDTO.class, MediaType.APPLICATION_JSON));
+        Assertions.assertTrue(converter.canWrite(OriginalOutputDTO.class, MediaType.APPLICATION_JSON));
+        Assertions.assertFalse(converter.canWrite(List.class, MediaType.APPLICATION_JSON));
+        Assertions.assertFalse(converter.canRead(OutputDTO.class, MediaType.APPLICATION_JSON));
+    }
+
+    private MockHttpOutputMessage write(OutputDTO outputDTO, MediaType mediaType) throws IOException {
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        converter.write(outputDTO, mediaType, message);
+        return message;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.urlshorter.config;
+
+import com.example.urlshorter.dto.InputURLDTO;
+import com.example.urlshorter.dto.OutputDTO;
+import com.example.urlshorter.service.ShortenerService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.netty.DisposableServer;
+
+@SpringBootTest(properties = {"app.reactive.enabled=true", "app.reactive.port=0"})
+@AutoConfigureTestDatabase
+class ReactiveServerConfigTest {
+    @Autowired
+    DisposableServer reactiveServer;
+
+    @Autowired
+    ShortenerService shortenerService;
+
+    @Test
+    void testReactiveServerServesRedirectAndShorten() {
+        WebTestClient webTestClient = WebTestClient.bindToServer()
+                .baseUrl("http://localhost:" + reactiveServer.port() + "/projects/shortener")
+                .build();
+        InputURLDTO inputURLDTO = new InputURLDTO();
+        inputURLDTO.setLink("https://www.example.com/reactive");
+        OutputDTO outputDTO = shortenerService.shorten(inputURLDTO);
+        String shortCode = outputDTO.getShortLink().substring(outputDTO.getShortLink().lastIndexOf('/') + 1);
+
+        webTestClient.get().uri("/" + shortCode)
+                .exchange()
+                .expectStatus().isFound()
+                .expectHeader().valueEquals(HttpHeaders.LOCATION, "https://www.example.com/reactive");
+
+        webTestClient.post().uri("/v1/shorten")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"link\": \"https://www.example.com/reactive\"}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.shortLink").isEqualTo(outputDTO.getShortLink());
+    }
+}
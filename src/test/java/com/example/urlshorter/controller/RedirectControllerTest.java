@@ -0,0 +1,78 @@
+package com.example.urlshorter.controller;
+
+import com.example.urlshorter.accesslog.AsyncAccessLogAppender;
+import com.example.urlshorter.admission.AdmissionControl;
+import com.example.urlshorter.service.ShortenerService;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.util.Optional;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(RedirectController.class)
+class RedirectControllerTest {
+    private static final String LONG_LINK_GOOGlE = "https://www.google.com/";
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @MockBean
+    ShortenerService shortenerService;
+
+    @MockBean
+    AsyncAccessLogAppender asyncAccessLogAppender;
+
+    @MockBean
+    AdmissionControl admissionControl;
+
+    @Test
+    void testRedirect() throws Exception {
+        Mockito.when(shortenerService.resolve("1")).thenReturn(Optional.of(LONG_LINK_GOOGlE));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/1"))
+                .andExpect(status().isFound())
+                .andExpect(header().string(HttpHeaders.LOCATION, LONG_LINK_GOOGlE));
+    }
+
+    @Test
+    void testRedirectWithoutScheme() throws Exception {
+        Mockito.when(shortenerService.resolve("1")).thenReturn(Optional.of("google.com"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/1"))
+                .andExpect(status().isFound())
+                .andExpect(header().string(HttpHeaders.LOCATION, "http://google.com"));
+    }
+
+    @Test
+    void testRedirectWithSchemeOnlyInQuery() throws Exception {
+        Mockito.when(shortenerService.resolve("1")).thenReturn(Optional.of("example.com/r?to=https://foo.com"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/1"))
+                .andExpect(status().isFound())
+                .andExpect(header().string(HttpHeaders.LOCATION, "http://example.com/r?to=https://foo.com"));
+    }
+
+    @Test
+    void testRedirectNotFound() throws Exception {
+        Mockito.when(shortenerService.resolve("2")).thenReturn(Optional.empty());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/2"))
+                .andExpect(status().isNotFound())
+                .andExpect(header().doesNotExist(HttpHeaders.LOCATION));
+    }
+
+    @Test
+    void testRedirectInvalidCode() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/a-b"))
+                .andExpect(status().isNotFound());
+        Mockito.verifyNoInteractions(shortenerService);
+    }
+}
@@ -1,8 +1,22 @@
 package com.example.urlshorter.controller;
 
+import com.example.urlshorter.codec.LinkBinaryCodec;
+import com.example.urlshorter.dto.CacheStatsDTO;
+import com.example.urlshorter.dto.ClickBucketDTO;
+import com.example.urlshorter.dto.ExportFormat;
+import com.example.urlshorter.dto.LinkPageDTO;
+import com.example.urlshorter.dto.LinkStatsDTO;
+import com.example.urlshorter.dto.OriginalOutputDTO;
 import com.example.urlshorter.dto.OutputDTO;
+import com.example.urlshorter.dto.ResolveFormat;
 import com.example.urlshorter.dto.Status;
+import com.example.urlshorter.accesslog.AsyncAccessLogAppender;
+import com.example.urlshorter.admission.AdmissionControl;
+import com.example.urlshorter.service.BatchResolveService;
+import com.example.urlshorter.service.LinkExportService;
+import com.fasterxml.jackson.core.JsonParseException;
 import com.example.urlshorter.service.ShortenerService;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.skyscreamer.jsonassert.JSONAssert;
@@ -15,14 +29,20 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 import static com.example.urlshorter.constants.Constant.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@WebMvcTest(ShortenerController.class)
+@WebMvcTest(value = ShortenerController.class, properties = "app.shorten.batch.max-size=2")
 class ShortenerControllerTest {
     private static final String LONG_LINK_GOOGlE = "https://www.google.com/";
     private static final String LONG_LINK_FB = "https://www.facebook.com/";
@@ -32,7 +52,12 @@ class ShortenerControllerTest {
     private static final String BASE_URL = "/v1";
     private static final String GET_ALL_LINKS_URL = "/get-all";
     private static final String SHORTEN_URL = "/shorten";
+    private static final String SHORTEN_BATCH_URL = "/shorten/batch";
     private static final String GET_ORIGINAL_URL = "/original";
+    private static final String GET_ORIGINAL_BATCH_URL = "/original/batch";
+    private static final String CACHE_STATS_URL = "/cache/stats";
+    private static final String EXPORT_URL = "/export";
+    private static final String STATS_URL = "/stats/";
 
     private static final String SHORTEN_INPUT_DTO = "{\n" +
             "    \"link\": \"https://www.google.com/\"\n" +
@@ -49,16 +74,30 @@ class ShortenerControllerTest {
     @MockBean
     ShortenerService shortenerService;
 
+    @MockBean
+    AsyncAccessLogAppender asyncAccessLogAppender;
+
+    @MockBean
+    AdmissionControl admissionControl;
+
+    @MockBean
+    LinkExportService linkExportService;
+
+    @MockBean
+    BatchResolveService batchResolveService;
+
     @Test
     void testGetAllLinks() throws Exception {
         List<OutputDTO> outputDTOList = new ArrayList<>();
         outputDTOList.add(new OutputDTO(LONG_LINK_GOOGlE, SHORT_LINK_GOOGLE));
         outputDTOList.add(new OutputDTO(LONG_LINK_FB, SHORT_LINK_FB));
-        Mockito.when(shortenerService.getAllLinks()).thenReturn(outputDTOList);
+        Mockito.when(shortenerService.getLinks(0L, 2)).thenReturn(new LinkPageDTO(outputDTOList, 2L));
 
         MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get(BASE_URL + GET_ALL_LINKS_URL)
+                        .param("limit", "2")
                         .accept(MediaType.APPLICATION_JSON_VALUE))
                 .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-After", "2"))
                 .andReturn();
 
         String response = mvcResult.getResponse().getContentAsString(StandardCharsets.UTF_8);
@@ -69,11 +108,12 @@ class ShortenerControllerTest {
     @Test
     void testGetAllLinksEmptyResult() throws Exception {
         List<OutputDTO> outputDTOList = new ArrayList<>();
-        Mockito.when(shortenerService.getAllLinks()).thenReturn(outputDTOList);
+        Mockito.when(shortenerService.getLinks(0L, 1000)).thenReturn(new LinkPageDTO(outputDTOList, null));
 
         MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get(BASE_URL + GET_ALL_LINKS_URL)
                         .accept(MediaType.APPLICATION_JSON_VALUE))
                 .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-After"))
                 .andReturn();
 
         String response = mvcResult.getResponse().getContentAsString(StandardCharsets.UTF_8);
@@ -81,6 +121,59 @@ class ShortenerControllerTest {
                 "[]", response, JSONCompareMode.LENIENT);
     }
 
+    @Test
+    void testGetAllLinksLimitClamped() throws Exception {
+        Mockito.when(shortenerService.getLinks(5L, 10000)).thenReturn(new LinkPageDTO(new ArrayList<>(), null));
+
+        mockMvc.perform(MockMvcRequestBuilders.get(BASE_URL + GET_ALL_LINKS_URL)
+                        .param("after", "5")
+                        .param("limit", "1000000")
+                        .accept(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isOk());
+
+        Mockito.verify(shortenerService).getLinks(5L, 10000);
+    }
+
+    @Test
+    void testExportCsv() throws Exception {
+        Mockito.doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(2).write("longLink,shortLink\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(linkExportService).export(Mockito.eq(ExportFormat.CSV), Mockito.eq(7L), Mockito.any());
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get(BASE_URL + EXPORT_URL)
+                        .param("format", "csv")
+                        .param("after", "7"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andReturn();
+
+        Assertions.assertEquals("longLink,shortLink\n", mvcResult.getResponse().getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testExportUnknownFormat() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get(BASE_URL + EXPORT_URL)
+                        .param("format", "xml"))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verifyNoInteractions(linkExportService);
+    }
+
+    @Test
+    void testShortenIsNotWrittenAsText() throws Exception {
+        OutputDTO outputDTO = new OutputDTO(Status.SUCCESS, GENERATED_SHORT_LINK, LONG_LINK_GOOGlE, SHORT_LINK_GOOGLE);
+        Mockito.when(shortenerService.shorten(Mockito.any())).thenReturn(outputDTO);
+
+        for (MediaType mediaType : List.of(MediaType.TEXT_PLAIN, LinkBinaryCodec.MEDIA_TYPE)) {
+            mockMvc.perform(MockMvcRequestBuilders.post(BASE_URL + SHORTEN_URL)
+                            .content(SHORTEN_INPUT_DTO)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .accept(mediaType))
+                    .andExpect(status().isNotAcceptable());
+        }
+    }
+
     @Test
     void testShorten() throws Exception {
         OutputDTO outputDTO = new OutputDTO(Status.SUCCESS, GENERATED_SHORT_LINK, LONG_LINK_GOOGlE, SHORT_LINK_GOOGLE);
@@ -103,11 +196,43 @@ class ShortenerControllerTest {
                         "}", response, JSONCompareMode.LENIENT);
     }
 
+    @Test
+    void testShortenBatch() throws Exception {
+        List<OutputDTO> outputDTOList = new ArrayList<>();
+        outputDTOList.add(new OutputDTO(Status.SUCCESS, GENERATED_SHORT_LINK, LONG_LINK_GOOGlE, SHORT_LINK_GOOGLE));
+        outputDTOList.add(new OutputDTO(Status.FAILED, INVALID_LINK, "not a link", null));
+        Mockito.when(shortenerService.shortenBatch(Mockito.any())).thenReturn(outputDTOList);
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.post(BASE_URL + SHORTEN_BATCH_URL)
+                        .content("[{\"link\": \"https://www.google.com/\"}, {\"link\": \"not a link\"}]")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        String response = mvcResult.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        JSONAssert.assertEquals(
+                "[{\"status\":\"SUCCESS\",\"message\":\"Generated short link\",\"longLink\":\"https://www.google.com/\",\"shortLink\":\"vat.sl/1\"}," +
+                        "{\"status\":\"FAILED\",\"message\":\"Invalid link\",\"longLink\":\"not a link\"}]", response, JSONCompareMode.STRICT);
+    }
+
+    @Test
+    void testShortenBatchOverMaxSize() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post(BASE_URL + SHORTEN_BATCH_URL)
+                        .content("[{\"link\": \"https://www.google.com/\"}, {\"link\": \"https://www.facebook.com/\"}, "
+                                + "{\"link\": \"https://www.example.com/\"}]")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verifyNoInteractions(shortenerService);
+    }
+
     @Test
     void testShortenInternalServerError() throws Exception {
         OutputDTO outputDTO = new OutputDTO(Status.SUCCESS, GENERATED_SHORT_LINK, LONG_LINK_GOOGlE, SHORT_LINK_GOOGLE);
         Mockito.when(shortenerService.shorten(Mockito.any())).thenReturn(outputDTO);
-        Mockito.when(shortenerService.shorten(Mockito.any())).thenThrow();
+        Mockito.when(shortenerService.shorten(Mockito.any())).thenThrow(new IllegalStateException());
 
         MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.post(BASE_URL + SHORTEN_URL)
                         .content(SHORTEN_INPUT_DTO)
@@ -123,7 +248,7 @@ class ShortenerControllerTest {
 
     @Test
     void testGetOriginalSuccess() throws Exception {
-        OutputDTO outputDTO = new OutputDTO(Status.SUCCESS, RETRIEVED_ORIGINAL_LINK, LONG_LINK_GOOGlE, SHORT_LINK_GOOGLE);
+        OriginalOutputDTO outputDTO = new OriginalOutputDTO(Status.SUCCESS, RETRIEVED_ORIGINAL_LINK, LONG_LINK_GOOGlE, SHORT_LINK_GOOGLE);
         Mockito.when(shortenerService.getOriginal(Mockito.any())).thenReturn(outputDTO);
 
         MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.post(BASE_URL + GET_ORIGINAL_URL)
@@ -145,7 +270,7 @@ class ShortenerControllerTest {
 
     @Test
     void testGetOriginalFailure() throws Exception {
-        OutputDTO outputDTO = new OutputDTO(Status.FAILED, SHORT_LINK_NOT_FOUND, null, SHORT_LINK_GOOGLE);
+        OriginalOutputDTO outputDTO = new OriginalOutputDTO(Status.FAILED, SHORT_LINK_NOT_FOUND, null, SHORT_LINK_GOOGLE);
         Mockito.when(shortenerService.getOriginal(Mockito.any())).thenReturn(outputDTO);
 
         MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.post(BASE_URL + GET_ORIGINAL_URL)
@@ -160,11 +285,75 @@ class ShortenerControllerTest {
                 "{\"status\":\"FAILED\",\"message\":\"Short link not found\",\"shortLink\":\"vat.sl/1\"}", response, JSONCompareMode.LENIENT);
     }
 
+    @Test
+    void testGetOriginalDefaultsToJson() throws Exception {
+        OriginalOutputDTO outputDTO = new OriginalOutputDTO(Status.SUCCESS, RETRIEVED_ORIGINAL_LINK, LONG_LINK_GOOGlE, SHORT_LINK_GOOGLE);
+        Mockito.when(shortenerService.getOriginal(Mockito.any())).thenReturn(outputDTO);
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.post(BASE_URL + GET_ORIGINAL_URL)
+                        .content(GET_ORIGINAL_INPUT_DTO)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andReturn();
+
+        Assertions.assertEquals(
+                "{\"status\":\"SUCCESS\",\"message\":\"Retrieved original link\",\"longLink\":\"https://www.google.com/\",\"shortLink\":\"vat.sl/1\"}",
+                mvcResult.getResponse().getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testGetOriginalText() throws Exception {
+        OriginalOutputDTO outputDTO = new OriginalOutputDTO(Status.SUCCESS, RETRIEVED_ORIGINAL_LINK, LONG_LINK_GOOGlE, SHORT_LINK_GOOGLE);
+        Mockito.when(shortenerService.getOriginal(Mockito.any())).thenReturn(outputDTO);
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.post(BASE_URL + GET_ORIGINAL_URL)
+                        .content(GET_ORIGINAL_INPUT_DTO)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.TEXT_PLAIN))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_PLAIN))
+                .andReturn();
+
+        Assertions.assertEquals(LONG_LINK_GOOGlE, mvcResult.getResponse().getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testGetOriginalTextNotFound() throws Exception {
+        OriginalOutputDTO outputDTO = new OriginalOutputDTO(Status.FAILED, SHORT_LINK_NOT_FOUND, null, SHORT_LINK_GOOGLE);
+        Mockito.when(shortenerService.getOriginal(Mockito.any())).thenReturn(outputDTO);
+
+        mockMvc.perform(MockMvcRequestBuilders.post(BASE_URL + GET_ORIGINAL_URL)
+                        .content(GET_ORIGINAL_INPUT_DTO)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.TEXT_PLAIN))
+                .andExpect(status().isNotFound())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void testGetOriginalBinary() throws Exception {
+        OriginalOutputDTO outputDTO = new OriginalOutputDTO(Status.SUCCESS, RETRIEVED_ORIGINAL_LINK, LONG_LINK_GOOGlE, SHORT_LINK_GOOGLE);
+        Mockito.when(shortenerService.getOriginal(Mockito.any())).thenReturn(outputDTO);
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.post(BASE_URL + GET_ORIGINAL_URL)
+                        .content(GET_ORIGINAL_INPUT_DTO)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(LinkBinaryCodec.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(LinkBinaryCodec.MEDIA_TYPE))
+                .andReturn();
+
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(mvcResult.getResponse().getContentAsByteArray()));
+        Assertions.assertEquals(LONG_LINK_GOOGlE, LinkBinaryCodec.read(input));
+        Assertions.assertEquals(-1, input.read());
+    }
+
     @Test
     void testGetOriginalInternalServerError() throws Exception {
-        OutputDTO outputDTO = new OutputDTO(Status.SUCCESS, RETRIEVED_ORIGINAL_LINK, LONG_LINK_GOOGlE, SHORT_LINK_GOOGLE);
+        OriginalOutputDTO outputDTO = new OriginalOutputDTO(Status.SUCCESS, RETRIEVED_ORIGINAL_LINK, LONG_LINK_GOOGlE, SHORT_LINK_GOOGLE);
         Mockito.when(shortenerService.getOriginal(Mockito.any())).thenReturn(outputDTO);
-        Mockito.when(shortenerService.getOriginal(Mockito.any())).thenThrow();
+        Mockito.when(shortenerService.getOriginal(Mockito.any())).thenThrow(new IllegalStateException());
 
         MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.post(BASE_URL + GET_ORIGINAL_URL)
                         .content(GET_ORIGINAL_INPUT_DTO)
@@ -177,4 +366,104 @@ class ShortenerControllerTest {
         JSONAssert.assertEquals(
                 "{\"errorMessage\":\"Please check logs for more details\"}", response, JSONCompareMode.LENIENT);
     }
+
+    @Test
+    void testGetOriginalBatchFormats() throws Exception {
+        Mockito.doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(2).write(invocation.<ResolveFormat>getArgument(0).name().getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        }).when(batchResolveService).resolve(Mockito.any(), Mockito.any(), Mockito.any());
+
+        for (MediaType mediaType : List.of(MediaType.APPLICATION_JSON, MediaType.TEXT_PLAIN, LinkBinaryCodec.MEDIA_TYPE)) {
+            MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.post(BASE_URL + GET_ORIGINAL_BATCH_URL)
+                            .content("[" + GET_ORIGINAL_INPUT_DTO + "]")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .accept(mediaType))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentTypeCompatibleWith(mediaType))
+                    .andReturn();
+
+            ResolveFormat format = mediaType.equals(MediaType.APPLICATION_JSON) ? ResolveFormat.JSON
+                    : mediaType.equals(MediaType.TEXT_PLAIN) ? ResolveFormat.TEXT : ResolveFormat.BINARY;
+            Assertions.assertEquals(format.name(), mvcResult.getResponse().getContentAsString(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void testGetOriginalBatchMalformed() throws Exception {
+        Mockito.when(batchResolveService.resolve(Mockito.any(), Mockito.any(), Mockito.any()))
+                .thenThrow(new JsonParseException(null, "Expected an array of links"));
+
+        mockMvc.perform(MockMvcRequestBuilders.post(BASE_URL + GET_ORIGINAL_BATCH_URL)
+                        .content(GET_ORIGINAL_INPUT_DTO)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testShortenTooManyRequests() throws Exception {
+        Mockito.when(admissionControl.isEnabled()).thenReturn(true);
+        Mockito.when(admissionControl.admit("key:abc", true)).thenReturn(1_500_000_000L);
+
+        mockMvc.perform(MockMvcRequestBuilders.post(BASE_URL + SHORTEN_URL)
+                        .header("X-API-Key", "abc")
+                        .content(SHORTEN_INPUT_DTO)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "2"));
+
+        Mockito.verifyNoInteractions(shortenerService);
+    }
+
+    @Test
+    void testGetOriginalAdmittedAsRead() throws Exception {
+        Mockito.when(admissionControl.isEnabled()).thenReturn(true);
+        Mockito.when(shortenerService.getOriginal(Mockito.any()))
+                .thenReturn(new OriginalOutputDTO(Status.SUCCESS, RETRIEVED_ORIGINAL_LINK, LONG_LINK_GOOGlE, SHORT_LINK_GOOGLE));
+
+        mockMvc.perform(MockMvcRequestBuilders.post(BASE_URL + GET_ORIGINAL_URL)
+                        .content(GET_ORIGINAL_INPUT_DTO)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        Mockito.verify(admissionControl).admit("127.0.0.1", false);
+    }
+
+    @Test
+    void testGetCacheStats() throws Exception {
+        Mockito.when(shortenerService.getCacheStats()).thenReturn(new CacheStatsDTO(2, 3, 1, 0.75, 0));
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get(BASE_URL + CACHE_STATS_URL)
+                        .accept(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        String response = mvcResult.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        JSONAssert.assertEquals(
+                "{\"size\":2,\"hitCount\":3,\"missCount\":1,\"hitRate\":0.75,\"evictionCount\":0}", response, JSONCompareMode.LENIENT);
+    }
+
+    @Test
+    void testGetStats() throws Exception {
+        LinkStatsDTO linkStatsDTO = new LinkStatsDTO(SHORT_LINK_GOOGLE, 5, List.of(new ClickBucketDTO(0L, 5)));
+        Mockito.when(shortenerService.getStats("1")).thenReturn(Optional.of(linkStatsDTO));
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get(BASE_URL + STATS_URL + "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        String response = mvcResult.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        JSONAssert.assertEquals(
+                "{\"shortLink\":\"vat.sl/1\",\"totalClicks\":5,\"buckets\":[{\"bucketStart\":0,\"clicks\":5}]}", response, JSONCompareMode.STRICT);
+    }
+
+    @Test
+    void testGetStatsNotFound() throws Exception {
+        Mockito.when(shortenerService.getStats("1")).thenReturn(Optional.empty());
+
+        mockMvc.perform(MockMvcRequestBuilders.get(BASE_URL + STATS_URL + "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+    }
 }
@@ -0,0 +1,130 @@
+package com.example.urlshorter.controller;
+
+import com.example.urlshorter.dto.OutputDTO;
+import com.example.urlshorter.dto.Status;
+import com.example.urlshorter.service.ShortenerOperations;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.RejectedExecutionException;
+
+import static com.example.urlshorter.constants.Constant.*;
+
+class ShortenerRouterTest {
+    private static final String LONG_LINK_GOOGlE = "https://www.google.com/";
+    private static final String SHORT_LINK_GOOGLE = "vat.sl/1";
+
+    private final ShortenerOperations shortenerOperations = Mockito.mock(ShortenerOperations.class);
+
+    private final WebTestClient webTestClient = WebTestClient.bindToRouterFunction(
+                    new ShortenerRouter(shortenerOperations, Validation.buildDefaultValidatorFactory().getValidator(), 302).routes("/projects/shortener"))
+            .build();
+
+    @Test
+    void testRedirect() {
+        Mockito.when(shortenerOperations.resolve("1")).thenReturn(Mono.just(LONG_LINK_GOOGlE));
+
+        webTestClient.get().uri("/projects/shortener/1")
+                .exchange()
+                .expectStatus().isFound()
+                .expectHeader().valueEquals(HttpHeaders.LOCATION, LONG_LINK_GOOGlE);
+    }
+
+    @Test
+    void testRedirectAddsScheme() {
+        Mockito.when(shortenerOperations.resolve("1")).thenReturn(Mono.just("www.google.com"));
+
+        webTestClient.get().uri("/projects/shortener/1")
+                .exchange()
+                .expectHeader().valueEquals(HttpHeaders.LOCATION, "http://www.google.com");
+    }
+
+    @Test
+    void testRedirectAddsSchemeWithSchemeOnlyInQuery() {
+        Mockito.when(shortenerOperations.resolve("1")).thenReturn(Mono.just("example.com/r?to=https://foo.com"));
+
+        webTestClient.get().uri("/projects/shortener/1")
+                .exchange()
+                .expectHeader().valueEquals(HttpHeaders.LOCATION, "http://example.com/r?to=https://foo.com");
+    }
+
+    @Test
+    void testRedirectNotFound() {
+        Mockito.when(shortenerOperations.resolve("2")).thenReturn(Mono.empty());
+
+        webTestClient.get().uri("/projects/shortener/2")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void testRedirectOverloaded() {
+        Mockito.when(shortenerOperations.resolve("2")).thenReturn(Mono.error(new RejectedExecutionException()));
+
+        webTestClient.get().uri("/projects/shortener/2")
+                .exchange()
+                .expectStatus().isEqualTo(503)
+                .expectHeader().exists(HttpHeaders.RETRY_AFTER);
+    }
+
+    @Test
+    void testShortenQueryTimeout() {
+        // a coalesced shorten whose flight did not finish in time
+        Mockito.when(shortenerOperations.shorten(Mockito.any())).thenReturn(Mono.error(new QueryTimeoutException("timeout")));
+
+        webTestClient.post().uri("/projects/shortener/v1/shorten")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"link\": \"https://www.google.com/\"}")
+                .exchange()
+                .expectStatus().isEqualTo(503)
+                .expectHeader().exists(HttpHeaders.RETRY_AFTER);
+    }
+
+    @Test
+    void testShorten() {
+        Mockito.when(shortenerOperations.shorten(Mockito.any()))
+                .thenReturn(Mono.just(new OutputDTO(Status.SUCCESS, GENERATED_SHORT_LINK, LONG_LINK_GOOGlE, SHORT_LINK_GOOGLE)));
+
+        webTestClient.post().uri("/projects/shortener/v1/shorten")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"link\": \"https://www.google.com/\"}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo("SUCCESS")
+                .jsonPath("$.shortLink").isEqualTo(SHORT_LINK_GOOGLE);
+    }
+
+    @Test
+    void testShortenInvalidLink() {
+        webTestClient.post().uri("/projects/shortener/v1/shorten")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"link\": \"not a link\"}")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.requestViolations[0].fieldName").isEqualTo("link");
+
+        Mockito.verifyNoInteractions(shortenerOperations);
+    }
+
+    @Test
+    void testGetOriginal() {
+        Mockito.when(shortenerOperations.getOriginal(Mockito.any()))
+                .thenReturn(Mono.just(new OutputDTO(Status.SUCCESS, RETRIEVED_ORIGINAL_LINK, LONG_LINK_GOOGlE, SHORT_LINK_GOOGLE)));
+
+        webTestClient.post().uri("/projects/shortener/v1/original")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"link\": \"vat.sl/1\"}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.longLink").isEqualTo(LONG_LINK_GOOGlE);
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.urlshorter.ingest;
+
+import com.example.urlshorter.dto.LinkRecordDTO;
+import com.example.urlshorter.repository.mapped.MappedLinkStore;
+import com.example.urlshorter.service.LinkDigest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kills a process shortening links in write-behind mode and checks that every link it acknowledged is stored
+ * after the restart, whether it was still in the journal or already flushed.
+ */
+class WriteBehindIngestKillTest {
+    private static final int ACKS_BEFORE_KILL = 3000;
+    private static final String ACK = "ACK ";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testNoAcknowledgedLinkIsLost() throws Exception {
+        Process process = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"), Writer.class.getName(), dir.toString())
+                .redirectErrorStream(true)
+                .start();
+        List<Long> acknowledged = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while (acknowledged.size() < ACKS_BEFORE_KILL && (line = reader.readLine()) != null) {
+                if (line.startsWith(ACK)) {
+                    acknowledged.add(Long.parseLong(line.substring(ACK.length())));
+                }
+            }
+            process.destroyForcibly();
+            Assertions.assertTrue(process.waitFor(30, TimeUnit.SECONDS));
+        }
+        Assertions.assertEquals(ACKS_BEFORE_KILL, acknowledged.size());
+
+        try (MappedLinkStore store = new MappedLinkStore(dir.resolve("links"), 1000, true)) {
+            WriteBehindIngest ingest = ingest(store, dir);
+            ingest.start();
+            Assertions.assertEquals(0, ingest.pendingCount());
+            for (long id : acknowledged) {
+                Assertions.assertEquals(Optional.of("https://www.example.com/" + id), store.findById(id), "link " + id);
+            }
+            ingest.stop();
+        }
+    }
+
+    private static WriteBehindIngest ingest(MappedLinkStore store, Path dir) {
+        // a small journal, so it is also truncated while links are written
+        return new WriteBehindIngest(store, true, dir.resolve("ingest.journal"), 100, Duration.ofMillis(10), DataSize.ofKilobytes(64));
+    }
+
+    /**
+     * Shortens links until killed, printing the id of each one once submit returned.
+     */
+    public static final class Writer {
+        public static void main(String[] args) throws Exception {
+            Path dir = Path.of(args[0]);
+            MappedLinkStore store = new MappedLinkStore(dir.resolve("links"), 1000, true);
+            WriteBehindIngest ingest = ingest(store, dir);
+            ingest.start();
+            for (long id = 1; ; id++) {
+                String longLink = "https://www.example.com/" + id;
+                ingest.submit(new LinkRecordDTO(id, longLink, LinkDigest.of(longLink)));
+                System.out.println(ACK + id);
+            }
+        }
+    }
+}
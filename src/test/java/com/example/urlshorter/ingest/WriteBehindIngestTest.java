@@ -0,0 +1,243 @@
+package com.example.urlshorter.ingest;
+
+import com.example.urlshorter.dto.LinkRecordDTO;
+import com.example.urlshorter.repository.LinkStore;
+import com.example.urlshorter.service.LinkDigest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+class WriteBehindIngestTest {
+    @TempDir
+    Path dir;
+
+    private final LinkStore linkStore = Mockito.mock(LinkStore.class);
+
+    private final List<WriteBehindIngest> ingests = new ArrayList<>();
+
+    @AfterEach
+    void stopIngests() throws IOException {
+        for (WriteBehindIngest ingest : ingests) {
+            ingest.stop();
+        }
+    }
+
+    @Test
+    void testSubmitIsPendingUntilFlushed() throws IOException {
+        WriteBehindIngest ingest = start(linkStore, 100, DataSize.ofMegabytes(1));
+
+        Assertions.assertEquals(1, ingest.submit(link(1)));
+        Assertions.assertEquals(Optional.of("https://www.example.com/1"), ingest.findPending(1));
+        Assertions.assertEquals(Optional.of(1L), ingest.findPendingId("https://www.example.com/1"));
+        Mockito.verifyNoInteractions(linkStore);
+
+        Assertions.assertEquals(1, ingest.flush());
+        Assertions.assertEquals(List.of(1L), insertedIds(linkStore).get(0));
+        Assertions.assertEquals(Optional.empty(), ingest.findPending(1));
+        Assertions.assertEquals(0, ingest.pendingCount());
+    }
+
+    @Test
+    void testSubmitPendingLongLink() throws IOException {
+        WriteBehindIngest ingest = start(linkStore, 100, DataSize.ofMegabytes(1));
+
+        Assertions.assertEquals(1, ingest.submit(link(1)));
+        Assertions.assertEquals(1, ingest.submit(new LinkRecordDTO(2, "https://www.example.com/1", LinkDigest.of("https://www.example.com/1"))));
+        Assertions.assertEquals(Optional.empty(), ingest.findPending(2));
+        Assertions.assertEquals(1, ingest.pendingCount());
+    }
+
+    @Test
+    void testFlushInBatches() throws IOException {
+        // a full batch also triggers a flush on the writer thread
+        WriteBehindIngest ingest = start(linkStore, 2, DataSize.ofMegabytes(1));
+        for (long id = 1; id <= 5; id++) {
+            ingest.submit(link(id));
+        }
+
+        ingest.flush();
+        Assertions.assertEquals(0, ingest.pendingCount());
+        List<List<Long>> batches = insertedIds(linkStore);
+        Assertions.assertEquals(List.of(1L, 2L, 3L, 4L, 5L), batches.stream().flatMap(List::stream).toList());
+        Assertions.assertTrue(batches.stream().allMatch(batch -> batch.size() <= 2));
+    }
+
+    @Test
+    void testFailedFlushKeepsLinksPending() throws IOException {
+        WriteBehindIngest ingest = start(linkStore, 100, DataSize.ofMegabytes(1));
+        ingest.submit(link(1));
+        Mockito.doThrow(new DataAccessResourceFailureException("down")).when(linkStore).insertAll(Mockito.anyList());
+
+        Assertions.assertThrows(DataAccessResourceFailureException.class, ingest::flush);
+        Assertions.assertEquals(Optional.of("https://www.example.com/1"), ingest.findPending(1));
+
+        Mockito.doNothing().when(linkStore).insertAll(Mockito.anyList());
+        Assertions.assertEquals(1, ingest.flush());
+        Assertions.assertEquals(0, ingest.pendingCount());
+    }
+
+    @Test
+    void testRecoverReplaysUnflushedLinks() throws IOException {
+        WriteBehindIngest crashed = start(linkStore, 100, DataSize.ofMegabytes(1));
+        crashed.submit(link(1));
+        crashed.submit(link(2));
+        crashed.flush();
+        crashed.submit(link(3));
+        crashed.submit(link(4));
+        // not stopped, as if the process was killed
+
+        LinkStore restartedStore = Mockito.mock(LinkStore.class);
+        WriteBehindIngest restarted = start(restartedStore, 100, DataSize.ofMegabytes(1));
+
+        Assertions.assertEquals(List.of(List.of(3L, 4L)), insertedIds(restartedStore));
+        Assertions.assertEquals(0, restarted.pendingCount());
+        Assertions.assertEquals(5, restarted.submit(link(5)));
+        Assertions.assertEquals(1, restarted.flush());
+    }
+
+    @Test
+    void testRecoverSkipsLinksAlreadyStored() throws IOException {
+        WriteBehindIngest crashed = start(linkStore, 100, DataSize.ofMegabytes(1));
+        crashed.submit(link(1));
+        crashed.submit(link(2));
+
+        // link 1 made it into the store, but the checkpoint did not
+        LinkStore restartedStore = Mockito.mock(LinkStore.class);
+        Mockito.doThrow(new DuplicateKeyException("1")).when(restartedStore).insertAll(Mockito.anyList());
+        Mockito.doThrow(new DuplicateKeyException("1")).when(restartedStore).insert(Mockito.eq(1L), Mockito.anyString(), Mockito.any());
+        Mockito.when(restartedStore.findById(1)).thenReturn(Optional.of("https://www.example.com/1"));
+        WriteBehindIngest restarted = start(restartedStore, 100, DataSize.ofMegabytes(1));
+
+        Mockito.verify(restartedStore).insert(Mockito.eq(2L), Mockito.eq("https://www.example.com/2"), Mockito.any());
+        Assertions.assertEquals(0, restarted.pendingCount());
+    }
+
+    @Test
+    void testConflictKeepsAcknowledgedId() throws IOException {
+        WriteBehindIngest ingest = start(linkStore, 100, DataSize.ofMegabytes(1));
+        ingest.submit(link(1));
+        ingest.submit(link(2));
+        // the long link of 1 was stored with id 7 by shorten-batch or another node
+        Mockito.doThrow(new DuplicateKeyException("1")).when(linkStore).insertAll(Mockito.anyList());
+        Mockito.doThrow(new DuplicateKeyException("1")).when(linkStore).insert(Mockito.eq(1L), Mockito.anyString(), Mockito.any());
+        Mockito.when(linkStore.findById(1)).thenReturn(Optional.empty());
+
+        Assertions.assertEquals(2, ingest.flush());
+        Assertions.assertEquals(Optional.of("https://www.example.com/1"), ingest.findPending(1));
+        Assertions.assertEquals(Optional.empty(), ingest.findPendingId("https://www.example.com/1"));
+        Assertions.assertEquals(1, ingest.conflictCount());
+        Assertions.assertEquals(0, ingest.pendingCount());
+
+        // the conflict is in the conflict journal, a restart still serves it
+        LinkStore restartedStore = Mockito.mock(LinkStore.class);
+        Mockito.doThrow(new DuplicateKeyException("1")).when(restartedStore).insertAll(Mockito.anyList());
+        Mockito.doThrow(new DuplicateKeyException("1")).when(restartedStore).insert(Mockito.eq(1L), Mockito.anyString(), Mockito.any());
+        Mockito.doThrow(new DuplicateKeyException("2")).when(restartedStore).insert(Mockito.eq(2L), Mockito.anyString(), Mockito.any());
+        Mockito.when(restartedStore.findById(2)).thenReturn(Optional.of("https://www.example.com/2"));
+        WriteBehindIngest restarted = start(restartedStore, 100, DataSize.ofMegabytes(1));
+
+        Assertions.assertEquals(Optional.of("https://www.example.com/1"), restarted.findPending(1));
+        Assertions.assertEquals(1, restarted.conflictCount());
+    }
+
+    @Test
+    void testTornRecordIsDropped() throws IOException {
+        WriteBehindIngest crashed = start(linkStore, 100, DataSize.ofMegabytes(1));
+        crashed.submit(link(1));
+        // half a record appended by a crashed write
+        Files.write(journal(), new byte[]{0, 0, 0, 40, 0, 0, 0, 0, 0, 0, 0, 2}, StandardOpenOption.APPEND);
+
+        LinkStore restartedStore = Mockito.mock(LinkStore.class);
+        WriteBehindIngest restarted = start(restartedStore, 100, DataSize.ofMegabytes(1));
+        restarted.submit(link(3));
+        restarted.flush();
+
+        Assertions.assertEquals(List.of(List.of(1L), List.of(3L)), insertedIds(restartedStore));
+    }
+
+    @Test
+    void testJournalIsTruncatedWhenFlushed() throws IOException {
+        WriteBehindIngest ingest = start(linkStore, 100, DataSize.ofBytes(200));
+        for (long id = 1; id <= 5; id++) {
+            ingest.submit(link(id));
+        }
+        Assertions.assertTrue(Files.size(journal()) > 200);
+
+        ingest.flush();
+
+        Assertions.assertEquals(IngestJournal.HEADER_SIZE, Files.size(journal()));
+        ingest.submit(link(6));
+        LinkStore restartedStore = Mockito.mock(LinkStore.class);
+        start(restartedStore, 100, DataSize.ofMegabytes(1));
+        Assertions.assertEquals(List.of(List.of(6L)), insertedIds(restartedStore));
+    }
+
+    @Test
+    void testJournalIsTruncatedAfterConflict() throws IOException {
+        WriteBehindIngest ingest = start(linkStore, 100, DataSize.ofBytes(200));
+        ingest.submit(link(1));
+        Mockito.doThrow(new DuplicateKeyException("1")).when(linkStore).insertAll(Mockito.anyList());
+        Mockito.doThrow(new DuplicateKeyException("1")).when(linkStore).insert(Mockito.eq(1L), Mockito.anyString(), Mockito.any());
+        Mockito.when(linkStore.findById(1)).thenReturn(Optional.empty());
+        ingest.flush();
+        Mockito.reset(linkStore);
+
+        // more than journal-max-size of links after the conflict
+        for (long id = 2; id <= 6; id++) {
+            ingest.submit(link(id));
+        }
+        Assertions.assertTrue(Files.size(journal()) > 200);
+        ingest.flush();
+
+        Assertions.assertEquals(IngestJournal.HEADER_SIZE, Files.size(journal()));
+        Assertions.assertEquals(1, ingest.conflictCount());
+        LinkStore restartedStore = Mockito.mock(LinkStore.class);
+        WriteBehindIngest restarted = start(restartedStore, 100, DataSize.ofMegabytes(1));
+        Assertions.assertEquals(Optional.of("https://www.example.com/1"), restarted.findPending(1));
+        Assertions.assertEquals(1, restarted.conflictCount());
+        Assertions.assertEquals(0, restarted.pendingCount());
+        Mockito.verifyNoInteractions(restartedStore);
+    }
+
+    private WriteBehindIngest start(LinkStore store, int batchSize, DataSize journalMaxSize) throws IOException {
+        WriteBehindIngest ingest = new WriteBehindIngest(store, true, journal(), batchSize, Duration.ofHours(1), journalMaxSize);
+        ingest.start();
+        ingests.add(ingest);
+        return ingest;
+    }
+
+    private Path journal() {
+        return dir.resolve("ingest.journal");
+    }
+
+    private static LinkRecordDTO link(long id) {
+        String longLink = "https://www.example.com/" + id;
+        return new LinkRecordDTO(id, longLink, LinkDigest.of(longLink));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<List<Long>> insertedIds(LinkStore store) {
+        ArrayList<List<Long>> result = new ArrayList<>();
+        ArgumentCaptor<List<LinkRecordDTO>> captor = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(store, Mockito.atLeast(0)).insertAll(captor.capture());
+        for (List<LinkRecordDTO> batch : captor.getAllValues()) {
+            result.add(batch.stream().map(LinkRecordDTO::getId).toList());
+        }
+        return result;
+    }
+}
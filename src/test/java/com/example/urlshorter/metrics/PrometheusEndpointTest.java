@@ -0,0 +1,48 @@
+package com.example.urlshorter.metrics;
+
+import com.example.urlshorter.dto.InputURLDTO;
+import com.example.urlshorter.service.ShortenerService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:prometheus-test")
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+// a db of its own, with the Hikari pool behind the bulkhead rather than an embedded test db
+class PrometheusEndpointTest {
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ShortenerService shortenerService;
+
+    @Test
+    void testPrometheusEndpoint() throws Exception {
+        InputURLDTO inputURLDTO = new InputURLDTO();
+        inputURLDTO.setLink("https://www.example.com/metrics");
+        inputURLDTO.setLink(shortenerService.shorten(inputURLDTO).getShortLink());
+        shortenerService.getOriginal(inputURLDTO);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("shortener_shorten_seconds_count{application=\"url-shortener\",outcome=\"created\"")))
+                .andExpect(content().string(containsString("shortener_get_original_seconds_bucket{")))
+                .andExpect(content().string(containsString("shortener_resolve_seconds{application=\"url-shortener\",outcome=\"found\",quantile=\"0.99\"")))
+                .andExpect(content().string(containsString("shortener_db_query_seconds_count{application=\"url-shortener\",query=\"insert\"")))
+                .andExpect(content().string(containsString("shortener_db_rows_sum{application=\"url-shortener\",query=\"insert\"")))
+                .andExpect(content().string(not(containsString("shortener_db_rows_bucket{"))))
+                .andExpect(content().string(not(containsString("shortener_db_rows{"))))
+                .andExpect(content().string(containsString("cache_gets_total{application=\"url-shortener\",cache=\"links\"")))
+                .andExpect(content().string(containsString("hikaricp_connections_active{application=\"url-shortener\",pool=\"shortener\"")));
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.urlshorter.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+class ShortenerMetricsTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ShortenerMetrics shortenerMetrics = new ShortenerMetrics(meterRegistry);
+
+    @Test
+    void testShortenedByOutcome() {
+        shortenerMetrics.shortened(true, System.nanoTime());
+        shortenerMetrics.shortened(false, System.nanoTime());
+        shortenerMetrics.shortened(false, System.nanoTime());
+
+        Assertions.assertEquals(1, meterRegistry.get(ShortenerMetrics.SHORTEN).tag("outcome", "dedup").timer().count());
+        Assertions.assertEquals(2, meterRegistry.get(ShortenerMetrics.SHORTEN).tag("outcome", "created").timer().count());
+    }
+
+    @Test
+    void testLookupsByOutcome() {
+        shortenerMetrics.originalLookedUp(false, System.nanoTime());
+        shortenerMetrics.resolved(true, System.nanoTime());
+
+        Assertions.assertEquals(1, meterRegistry.get(ShortenerMetrics.GET_ORIGINAL).tag("outcome", "not-found").timer().count());
+        Assertions.assertEquals(0, meterRegistry.get(ShortenerMetrics.GET_ORIGINAL).tag("outcome", "found").timer().count());
+        Assertions.assertEquals(1, meterRegistry.get(ShortenerMetrics.RESOLVE).tag("outcome", "found").timer().count());
+    }
+
+    @Test
+    void testQueryStatsAreShared() {
+        shortenerMetrics.queryStats("findById").optional(() -> Optional.of("https://www.example.com/"));
+        shortenerMetrics.queryStats("findById").optional(Optional::empty);
+
+        Assertions.assertEquals(2, meterRegistry.get(ShortenerMetrics.DB_QUERY).tag("query", "findById").timer().count());
+        Assertions.assertEquals(1, meterRegistry.get(ShortenerMetrics.DB_ROWS).tag("query", "findById").summary().totalAmount());
+    }
+
+    @Test
+    void testDbLatencyAverage() {
+        DbLatencyMonitor dbLatencyMonitor = shortenerMetrics.dbLatency();
+        long now = System.nanoTime();
+
+        dbLatencyMonitor.record(TimeUnit.MILLISECONDS.toNanos(80), now);
+        Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(10), dbLatencyMonitor.averageNanos());
+        Assertions.assertTrue(dbLatencyMonitor.isAbove(TimeUnit.MILLISECONDS.toNanos(5)));
+        Assertions.assertFalse(dbLatencyMonitor.isAbove(TimeUnit.MILLISECONDS.toNanos(10)));
+
+        // an average without recent queries is stale
+        dbLatencyMonitor.record(TimeUnit.MILLISECONDS.toNanos(80), now - TimeUnit.SECONDS.toNanos(2));
+        Assertions.assertEquals(0, dbLatencyMonitor.averageNanos());
+        Assertions.assertFalse(dbLatencyMonitor.isAbove(TimeUnit.MILLISECONDS.toNanos(5)));
+    }
+
+    @Test
+    void testQueryStatsCountRows() {
+        QueryStats queryStats = shortenerMetrics.queryStats("findPage");
+        queryStats.list(() -> List.of(1, 2, 3));
+        queryStats.count(() -> 5);
+
+        Assertions.assertEquals(2, queryStats.timer().count());
+        Assertions.assertEquals(2, queryStats.rows().count());
+        Assertions.assertEquals(8, queryStats.rows().totalAmount());
+        Assertions.assertEquals(5, queryStats.rows().max());
+    }
+
+    @Test
+    void testFailedQueryIsTimedWithoutRows() {
+        QueryStats queryStats = shortenerMetrics.queryStats("insert");
+
+        Assertions.assertThrows(IllegalStateException.class, () -> queryStats.count(() -> {
+            throw new IllegalStateException();
+        }));
+        Assertions.assertEquals(1, queryStats.timer().count());
+        Assertions.assertEquals(0, queryStats.rows().count());
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.urlshorter.repository;
+
+import com.example.urlshorter.dto.ClickBucketDTO;
+import com.example.urlshorter.dto.ClickCountDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+class ClickStatsRepositoryTest {
+    private static final long ID = 1_000_000_000L;
+
+    @Autowired
+    ClickStatsRepository clickStatsRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    public void cleanUp() {
+        jdbcTemplate.update("delete from link_click_stats where id = ?", ID);
+        jdbcTemplate.update("alter table link_click_stats drop constraint if exists link_click_stats_positive");
+    }
+
+    @Test
+    void testAddClicksAddsToExistingCounters() {
+        clickStatsRepository.addClicks(List.of(new ClickCountDTO(ID, 0L, 2), new ClickCountDTO(ID, 60_000L, 1)));
+        clickStatsRepository.addClicks(List.of(new ClickCountDTO(ID, 60_000L, 5)));
+
+        List<ClickBucketDTO> buckets = clickStatsRepository.findByLinkId(ID);
+        Assertions.assertEquals(2, buckets.size());
+        Assertions.assertEquals(0L, buckets.get(0).getBucketStart());
+        Assertions.assertEquals(2, buckets.get(0).getClicks());
+        Assertions.assertEquals(60_000L, buckets.get(1).getBucketStart());
+        Assertions.assertEquals(6, buckets.get(1).getClicks());
+    }
+
+    @Test
+    void testFailedAddClicksAddsNothing() {
+        jdbcTemplate.update("alter table link_click_stats add constraint link_click_stats_positive check (clicks > 0)");
+        // the first batch of 1000 rows is fine, the second fails
+        List<ClickCountDTO> clickCountDTOs = new ArrayList<>();
+        for (long bucket = 0; bucket < 1000; bucket++) {
+            clickCountDTOs.add(new ClickCountDTO(ID, bucket * 60_000L, 1));
+        }
+        clickCountDTOs.add(new ClickCountDTO(ID, 1000 * 60_000L, -1));
+
+        Assertions.assertThrows(DataIntegrityViolationException.class, () -> clickStatsRepository.addClicks(clickCountDTOs));
+        Assertions.assertTrue(clickStatsRepository.findByLinkId(ID).isEmpty());
+    }
+
+    @Test
+    void testFindByLinkIdEmptyResult() {
+        Assertions.assertTrue(clickStatsRepository.findByLinkId(ID).isEmpty());
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.urlshorter.repository;
+
+import com.example.urlshorter.dto.LinkRecordDTO;
+import com.example.urlshorter.service.LinkDigest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Behaviour every LinkStore engine has to show, run against each engine by a subclass.
+ */
+public abstract class LinkStoreContractTest {
+    private static final String LONG_LINK_GOOGlE = "https://www.google.com/";
+    private static final String LONG_LINK_FB = "https://www.facebook.com/";
+
+    protected LinkStore linkStore;
+
+    /**
+     * Returns an empty store.
+     * @return LinkStore
+     */
+    protected abstract LinkStore createStore() throws Exception;
+
+    @BeforeEach
+    void createLinkStore() throws Exception {
+        linkStore = createStore();
+    }
+
+    @Test
+    void testInsertAndFindById() {
+        linkStore.insert(1, LONG_LINK_GOOGlE, LinkDigest.of(LONG_LINK_GOOGlE));
+
+        Assertions.assertEquals(Optional.of(LONG_LINK_GOOGlE), linkStore.findById(1));
+        Assertions.assertEquals(Optional.empty(), linkStore.findById(2));
+    }
+
+    @Test
+    void testNonAsciiLongLink() {
+        String longLink = "https://例え.jp/パス?q=ü€";
+        linkStore.insert(7, longLink, LinkDigest.of(longLink));
+
+        Assertions.assertEquals(Optional.of(longLink), linkStore.findById(7));
+        Assertions.assertEquals(Optional.of(7L), linkStore.findByLongLink(longLink, LinkDigest.of(longLink)));
+    }
+
+    @Test
+    void testDuplicateId() {
+        linkStore.insert(1, LONG_LINK_GOOGlE, LinkDigest.of(LONG_LINK_GOOGlE));
+
+        Assertions.assertThrows(DuplicateKeyException.class,
+                () -> linkStore.insert(1, LONG_LINK_FB, LinkDigest.of(LONG_LINK_FB)));
+        Assertions.assertEquals(Optional.of(LONG_LINK_GOOGlE), linkStore.findById(1));
+    }
+
+    @Test
+    void testDuplicateLongLinkHash() {
+        linkStore.insert(1, LONG_LINK_GOOGlE, LinkDigest.of(LONG_LINK_GOOGlE));
+
+        Assertions.assertThrows(DuplicateKeyException.class,
+                () -> linkStore.insert(2, LONG_LINK_GOOGlE, LinkDigest.of(LONG_LINK_GOOGlE)));
+        Assertions.assertEquals(Optional.empty(), linkStore.findById(2));
+    }
+
+    @Test
+    void testFindByLongLink() {
+        linkStore.insert(1, LONG_LINK_GOOGlE, LinkDigest.of(LONG_LINK_GOOGlE));
+
+        Assertions.assertEquals(Optional.of(1L), linkStore.findByLongLink(LONG_LINK_GOOGlE, LinkDigest.of(LONG_LINK_GOOGlE)));
+        Assertions.assertEquals(Optional.empty(), linkStore.findByLongLink(LONG_LINK_FB, LinkDigest.of(LONG_LINK_FB)));
+        // a digest match alone is not a match
+        Assertions.assertEquals(Optional.empty(), linkStore.findByLongLink(LONG_LINK_FB, LinkDigest.of(LONG_LINK_GOOGlE)));
+    }
+
+    @Test
+    void testFindByLongLinkHashes() {
+        linkStore.insertAll(List.of(
+                new LinkRecordDTO(1, LONG_LINK_GOOGlE, LinkDigest.of(LONG_LINK_GOOGlE)),
+                new LinkRecordDTO(2, LONG_LINK_FB, LinkDigest.of(LONG_LINK_FB))));
+
+        List<LinkRecordDTO> found = linkStore.findByLongLinkHashes(List.of(LinkDigest.of(LONG_LINK_FB), LinkDigest.of("https://unknown.com/")));
+
+        Assertions.assertEquals(1, found.size());
+        Assertions.assertEquals(2, found.get(0).getId());
+        Assertions.assertEquals(LONG_LINK_FB, found.get(0).getLongLink());
+        Assertions.assertTrue(linkStore.findByLongLinkHashes(List.of()).isEmpty());
+    }
+
+    @Test
+    void testFindByIds() {
+        insertLinks(5, 1, 4, 2, 3, 25);
+
+        List<LinkRecordDTO> found = new ArrayList<>(linkStore.findByIds(List.of(25L, 2L, 7L, 4L)));
+        found.sort((a, b) -> Long.compare(a.getId(), b.getId()));
+
+        Assertions.assertEquals(List.of(2L, 4L, 25L), ids(found));
+        Assertions.assertEquals("https://www.example.com/25", found.get(2).getLongLink());
+        Assertions.assertTrue(linkStore.findByIds(List.of()).isEmpty());
+    }
+
+    @Test
+    void testPagesAreOrderedById() {
+        insertLinks(5, 1, 4, 2, 3);
+
+        Assertions.assertEquals(List.of(1L, 2L), ids(linkStore.findPage(0, 2)));
+        Assertions.assertEquals(List.of(3L, 4L), ids(linkStore.findPage(2, 2)));
+        Assertions.assertEquals(List.of(5L), ids(linkStore.findPage(4, 2)));
+        Assertions.assertEquals(List.of(), ids(linkStore.findPage(5, 2)));
+        Assertions.assertEquals("https://www.example.com/3", linkStore.findPage(2, 1).get(0).getLongLink());
+    }
+
+    @Test
+    void testPagesOfAscendingIds() {
+        insertLinks(1, 2, 3, 4, 5);
+
+        Assertions.assertEquals(List.of(1L, 2L, 3L), ids(linkStore.findPage(0, 3)));
+        Assertions.assertEquals(List.of(4L, 5L), ids(linkStore.findPage(3, 3)));
+        // the cursor of a page need not exist
+        Assertions.assertEquals(List.of(5L), ids(linkStore.findPage(4, 3)));
+    }
+
+    @Test
+    void testForEachLink() {
+        insertLinks(3, 1, 2, 10);
+
+        List<Long> ids = new ArrayList<>();
+        linkStore.forEachLink(1, (id, longLink) -> {
+            Assertions.assertEquals("https://www.example.com/" + id, longLink);
+            ids.add(id);
+        });
+
+        Assertions.assertEquals(List.of(2L, 3L, 10L), ids);
+    }
+
+    @Test
+    void testForEachLongLinkHash() {
+        insertLinks(1, 2, 3);
+
+        Set<ByteBuffer> longLinkHashes = new HashSet<>();
+        linkStore.forEachLongLinkHash(longLinkHash -> longLinkHashes.add(ByteBuffer.wrap(longLinkHash)));
+
+        Assertions.assertEquals(Set.of(
+                ByteBuffer.wrap(LinkDigest.of("https://www.example.com/1")),
+                ByteBuffer.wrap(LinkDigest.of("https://www.example.com/2")),
+                ByteBuffer.wrap(LinkDigest.of("https://www.example.com/3"))), longLinkHashes);
+    }
+
+    protected void insertLinks(long... ids) {
+        List<LinkRecordDTO> linkRecordDTOs = new ArrayList<>();
+        for (long id : ids) {
+            String longLink = "https://www.example.com/" + id;
+            linkRecordDTOs.add(new LinkRecordDTO(id, longLink, LinkDigest.of(longLink)));
+        }
+        linkStore.insertAll(linkRecordDTOs);
+    }
+
+    private static List<Long> ids(List<LinkRecordDTO> linkRecordDTOs) {
+        return linkRecordDTOs.stream().map(LinkRecordDTO::getId).toList();
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.urlshorter.repository;
+
+import com.example.urlshorter.metrics.ShortenerMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+class ShortenerRepositoryContractTest extends LinkStoreContractTest {
+    private EmbeddedDatabase embeddedDatabase;
+
+    @Override
+    protected LinkStore createStore() {
+        embeddedDatabase = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("data.sql")
+                .build();
+        ShortenerRepository shortenerRepository = new ShortenerRepository();
+        shortenerRepository.jdbcTemplate = new JdbcTemplate(embeddedDatabase);
+        shortenerRepository.shortenerMetrics = new ShortenerMetrics(new SimpleMeterRegistry());
+        shortenerRepository.registerQueryStats();
+        return shortenerRepository;
+    }
+
+    @AfterEach
+    void shutdown() {
+        embeddedDatabase.shutdown();
+    }
+}
@@ -1,15 +1,16 @@
 package com.example.urlshorter.repository;
 
-import com.example.urlshorter.dto.OutputDTO;
+import com.example.urlshorter.dto.LinkRecordDTO;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.test.util.ReflectionTestUtils;
 
@@ -22,8 +23,6 @@ import java.util.Optional;
 class ShortenerRepositoryTest {
     private static final String LONG_LINK_GOOGlE = "https://www.google.com/";
     private static final String LONG_LINK_FB = "https://www.facebook.com/";
-    private static final String SHORT_LINK_GOOGLE = "vat.sl/1";
-    private static final String SHORT_LINK_FB = "vat.sl/2";
 
     @Mock
     private JdbcTemplate jdbcTemplate;
@@ -37,60 +36,83 @@ class ShortenerRepositoryTest {
     }
 
     @Test
-    void testGetAllLinks() {
-        List<OutputDTO> outputDTOList = new ArrayList<>();
-        outputDTOList.add(new OutputDTO(LONG_LINK_GOOGlE, SHORT_LINK_GOOGLE));
-        outputDTOList.add(new OutputDTO(LONG_LINK_FB, SHORT_LINK_FB));
-        Mockito.when(jdbcTemplate.query(Mockito.anyString(), (RowMapper<Object>) Mockito.any())).thenReturn(Collections.unmodifiableList(outputDTOList));
-        List<OutputDTO> outputDTOS = shortenerRepository.getAllLinks();
-        Assertions.assertArrayEquals(outputDTOList.toArray(), outputDTOS.toArray());
+    void testFindPage() {
+        List<LinkRecordDTO> linkRecordDTOList = new ArrayList<>();
+        linkRecordDTOList.add(new LinkRecordDTO(1, LONG_LINK_GOOGlE));
+        linkRecordDTOList.add(new LinkRecordDTO(2, LONG_LINK_FB));
+        Mockito.when(jdbcTemplate.query(Mockito.anyString(), (RowMapper<Object>) Mockito.any(), Mockito.eq(0L), Mockito.eq(2))).thenReturn(Collections.unmodifiableList(linkRecordDTOList));
+        List<LinkRecordDTO> linkRecordDTOS = shortenerRepository.findPage(0L, 2);
+        Assertions.assertArrayEquals(linkRecordDTOList.toArray(), linkRecordDTOS.toArray());
     }
 
     @Test
     void testFindByLongLink() {
-        OutputDTO outputDTO = new OutputDTO(LONG_LINK_GOOGlE, SHORT_LINK_GOOGLE);
-        Mockito.when(jdbcTemplate.queryForObject(Mockito.anyString(), (RowMapper<Object>) Mockito.any(), Mockito.any())).thenReturn(outputDTO);
-        Optional<String> resultOptional = shortenerRepository.findByLongLink(LONG_LINK_GOOGlE);
-        Assertions.assertEquals(SHORT_LINK_GOOGLE, resultOptional.get());
+        List<LinkRecordDTO> linkRecordDTOList = List.of(new LinkRecordDTO(1, LONG_LINK_GOOGlE));
+        Mockito.when(jdbcTemplate.query(Mockito.anyString(), (RowMapper<Object>) Mockito.any(), Mockito.any())).thenReturn(Collections.unmodifiableList(linkRecordDTOList));
+        Optional<Long> resultOptional = shortenerRepository.findByLongLink(LONG_LINK_GOOGlE, new byte[16]);
+        Assertions.assertEquals(1L, resultOptional.get());
     }
 
     @Test
-    void testFindByLongLinkEmptyResultDataAccessException() {
-        OutputDTO outputDTO = new OutputDTO(LONG_LINK_GOOGlE, SHORT_LINK_GOOGLE);
-        Mockito.when(jdbcTemplate.queryForObject(Mockito.anyString(), (RowMapper<Object>) Mockito.any(), Mockito.any())).thenReturn(outputDTO);
-        Mockito.when(jdbcTemplate.queryForObject(Mockito.anyString(), (RowMapper<Object>) Mockito.any(), Mockito.any())).thenThrow(new EmptyResultDataAccessException(1));
-        Optional<String> resultOptional = shortenerRepository.findByLongLink(LONG_LINK_GOOGlE);
+    void testFindByLongLinkDigestCollision() {
+        List<LinkRecordDTO> linkRecordDTOList = List.of(new LinkRecordDTO(2, LONG_LINK_FB));
+        Mockito.when(jdbcTemplate.query(Mockito.anyString(), (RowMapper<Object>) Mockito.any(), Mockito.any())).thenReturn(Collections.unmodifiableList(linkRecordDTOList));
+        Optional<Long> resultOptional = shortenerRepository.findByLongLink(LONG_LINK_GOOGlE, new byte[16]);
         Assertions.assertTrue(resultOptional.isEmpty());
     }
 
     @Test
-    void testFindByShortLink() {
-        OutputDTO outputDTO = new OutputDTO(LONG_LINK_GOOGlE, SHORT_LINK_GOOGLE);
-        Mockito.when(jdbcTemplate.queryForObject(Mockito.anyString(), (RowMapper<Object>) Mockito.any(), Mockito.any())).thenReturn(outputDTO);
-        Optional<String> resultOptional = shortenerRepository.findByShortLink(SHORT_LINK_GOOGLE);
+    void testFindByLongLinkEmptyResult() {
+        Mockito.when(jdbcTemplate.query(Mockito.anyString(), (RowMapper<Object>) Mockito.any(), Mockito.any())).thenReturn(Collections.emptyList());
+        Optional<Long> resultOptional = shortenerRepository.findByLongLink(LONG_LINK_GOOGlE, new byte[16]);
+        Assertions.assertTrue(resultOptional.isEmpty());
+    }
+
+    @Test
+    void testFindById() {
+        Mockito.when(jdbcTemplate.query(Mockito.anyString(), (ResultSetExtractor<Object>) Mockito.any(), Mockito.eq(1L))).thenReturn(Optional.of(LONG_LINK_GOOGlE));
+        Optional<String> resultOptional = shortenerRepository.findById(1L);
         Assertions.assertEquals(LONG_LINK_GOOGlE, resultOptional.get());
     }
 
     @Test
-    void testFindByShortLinkEmptyResultDataAccessException() {
-        OutputDTO outputDTO = new OutputDTO(LONG_LINK_GOOGlE, SHORT_LINK_GOOGLE);
-        Mockito.when(jdbcTemplate.queryForObject(Mockito.anyString(), (RowMapper<Object>) Mockito.any(), Mockito.any())).thenReturn(outputDTO);
-        Mockito.when(jdbcTemplate.queryForObject(Mockito.anyString(), (RowMapper<Object>) Mockito.any(), Mockito.any())).thenThrow(new EmptyResultDataAccessException(1));
-        Optional<String> resultOptional = shortenerRepository.findByShortLink(SHORT_LINK_GOOGLE);
+    void testFindByIdEmptyResult() {
+        Mockito.when(jdbcTemplate.query(Mockito.anyString(), (ResultSetExtractor<Object>) Mockito.any(), Mockito.eq(1L))).thenReturn(Optional.empty());
+        Optional<String> resultOptional = shortenerRepository.findById(1L);
         Assertions.assertTrue(resultOptional.isEmpty());
     }
 
     @Test
-    void testGetMaxId() {;
-        Mockito.when(jdbcTemplate.queryForObject(Mockito.anyString(), (Class<Object>) Mockito.any())).thenReturn(1);
-        Integer id = shortenerRepository.getMaxId();
-        Assertions.assertEquals(1, id);
+    void testFindByLongLinkHashesChunked() {
+        Mockito.when(jdbcTemplate.query(Mockito.anyString(), (RowMapper<Object>) Mockito.any(), Mockito.any(Object[].class)))
+                .thenReturn(List.of(new LinkRecordDTO(1, LONG_LINK_GOOGlE)), List.of(), List.of(new LinkRecordDTO(2, LONG_LINK_FB)));
+        List<byte[]> longLinkHashes = Collections.nCopies(2500, new byte[16]);
+
+        List<LinkRecordDTO> result = shortenerRepository.findByLongLinkHashes(longLinkHashes);
+        Assertions.assertEquals(2, result.size());
+        Mockito.verify(jdbcTemplate, Mockito.times(3)).query(Mockito.anyString(), (RowMapper<Object>) Mockito.any(), Mockito.any(Object[].class));
+    }
+
+    @Test
+    void testFindByLongLinkHashesPadded() {
+        Mockito.when(jdbcTemplate.query(Mockito.anyString(), (RowMapper<Object>) Mockito.any(), Mockito.any(Object[].class))).thenReturn(List.of());
+        byte[] first = new byte[16];
+        byte[] last = new byte[16];
+        last[0] = 1;
+
+        shortenerRepository.findByLongLinkHashes(List.of(first, new byte[16], last));
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        Mockito.verify(jdbcTemplate).query(sql.capture(), (RowMapper<Object>) Mockito.any(), args.capture());
+        Assertions.assertTrue(sql.getValue().endsWith("in (?,?,?,?)"));
+        Assertions.assertEquals(4, args.getValue().length);
+        Assertions.assertSame(last, args.getValue()[3]);
     }
 
     @Test
-    void testGetMaxIdNull() {;
-        Mockito.when(jdbcTemplate.queryForObject(Mockito.anyString(), (Class<Object>) Mockito.any())).thenReturn(null);
-        Integer id = shortenerRepository.getMaxId();
-        Assertions.assertNull(id);
+    void testFindByLongLinkHashesEmpty() {
+        Assertions.assertTrue(shortenerRepository.findByLongLinkHashes(List.of()).isEmpty());
+        Mockito.verifyNoInteractions(jdbcTemplate);
     }
 }
@@ -0,0 +1,49 @@
+package com.example.urlshorter.repository.mapped;
+
+import com.example.urlshorter.dto.InputURLDTO;
+import com.example.urlshorter.dto.OutputDTO;
+import com.example.urlshorter.dto.Status;
+import com.example.urlshorter.repository.LinkStore;
+import com.example.urlshorter.service.ShortenerService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Path;
+
+@SpringBootTest(properties = "app.store.engine=mapped")
+@AutoConfigureTestDatabase
+class MappedLinkStoreApplicationTest {
+    @TempDir
+    static Path dir;
+
+    @Autowired
+    LinkStore linkStore;
+
+    @Autowired
+    ShortenerService shortenerService;
+
+    @DynamicPropertySource
+    static void storeDir(DynamicPropertyRegistry registry) {
+        registry.add("app.store.mapped.dir", () -> dir.toString());
+    }
+
+    @Test
+    void testShortenAndResolve() {
+        InputURLDTO inputURLDTO = new InputURLDTO();
+        inputURLDTO.setLink("https://www.example.com/mapped");
+
+        OutputDTO shortened = shortenerService.shorten(inputURLDTO);
+        String shortCode = shortened.getShortLink().substring(shortened.getShortLink().lastIndexOf('/') + 1);
+
+        Assertions.assertInstanceOf(MappedLinkStore.class, linkStore);
+        Assertions.assertEquals(Status.SUCCESS, shortened.getStatus());
+        Assertions.assertEquals(shortened.getShortLink(), shortenerService.shorten(inputURLDTO).getShortLink());
+        Assertions.assertEquals("https://www.example.com/mapped", shortenerService.resolve(shortCode).orElseThrow());
+    }
+}
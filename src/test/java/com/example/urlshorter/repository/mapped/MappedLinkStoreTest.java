@@ -0,0 +1,126 @@
+package com.example.urlshorter.repository.mapped;
+
+import com.example.urlshorter.dto.LinkRecordDTO;
+import com.example.urlshorter.repository.LinkStore;
+import com.example.urlshorter.repository.LinkStoreContractTest;
+import com.example.urlshorter.service.LinkDigest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+class MappedLinkStoreTest extends LinkStoreContractTest {
+    @TempDir
+    Path dir;
+
+    private final List<MappedLinkStore> stores = new ArrayList<>();
+
+    @Override
+    protected LinkStore createStore() throws IOException {
+        return open();
+    }
+
+    @AfterEach
+    void closeStores() throws IOException {
+        for (MappedLinkStore store : stores) {
+            store.close();
+        }
+    }
+
+    @Test
+    void testReopen() throws IOException {
+        insertLinks(1, 2, 3);
+        ((MappedLinkStore) linkStore).close();
+
+        MappedLinkStore reopened = open();
+
+        Assertions.assertEquals(Optional.of("https://www.example.com/2"), reopened.findById(2));
+        Assertions.assertEquals(3, reopened.findPage(0, 10).size());
+        reopened.insert(4, "https://www.example.com/4", LinkDigest.of("https://www.example.com/4"));
+        Assertions.assertEquals(Optional.of(4L), reopened.findByLongLink("https://www.example.com/4", LinkDigest.of("https://www.example.com/4")));
+    }
+
+    @Test
+    void testRebuildIndexAfterCrash() throws IOException {
+        insertLinks(3, 1, 2);
+        // not closed, as if the process was killed: the indexes are not marked clean
+        MappedLinkStore recovered = open();
+
+        Assertions.assertEquals(Optional.of("https://www.example.com/1"), recovered.findById(1));
+        Assertions.assertEquals(Optional.of(3L), recovered.findByLongLink("https://www.example.com/3", LinkDigest.of("https://www.example.com/3")));
+        Assertions.assertEquals(3, recovered.findPage(0, 10).size());
+    }
+
+    @Test
+    void testRebuildIndexWhenIndexFileIsLost() throws IOException {
+        insertLinks(1, 2);
+        ((MappedLinkStore) linkStore).close();
+        Files.delete(dir.resolve(MappedLinkStore.ID_INDEX_FILE));
+
+        MappedLinkStore recovered = open();
+
+        Assertions.assertEquals(Optional.of("https://www.example.com/2"), recovered.findById(2));
+    }
+
+    @Test
+    void testFailedInsertAllLeavesNothingInTheLog() throws IOException {
+        insertLinks(1);
+        long logSize = Files.size(dir.resolve(MappedLinkStore.LOG_FILE));
+        String tooLong = "https://www.example.com/" + "a".repeat(1 << 20);
+        // the second append fails after the first one was written
+        Assertions.assertThrows(IllegalArgumentException.class, () -> linkStore.insertAll(List.of(
+                new LinkRecordDTO(2, "https://www.example.com/2", LinkDigest.of("https://www.example.com/2")),
+                new LinkRecordDTO(3, tooLong, LinkDigest.of(tooLong)))));
+
+        Assertions.assertEquals(logSize, Files.size(dir.resolve(MappedLinkStore.LOG_FILE)));
+        // not closed, as if the process was killed: the rebuilt index does not bring link 2 back
+        MappedLinkStore recovered = open();
+        Assertions.assertEquals(Optional.empty(), recovered.findById(2));
+        Assertions.assertEquals(1, recovered.findPage(0, 10).size());
+        recovered.insert(2, "https://www.example.com/2", LinkDigest.of("https://www.example.com/2"));
+        Assertions.assertEquals(Optional.of("https://www.example.com/2"), recovered.findById(2));
+    }
+
+    @Test
+    void testTornRecordIsDropped() throws IOException {
+        insertLinks(1, 2);
+        // half a record appended by a crashed write
+        Files.write(dir.resolve(MappedLinkStore.LOG_FILE), new byte[]{0, 0, 0, 40, 0, 0, 0, 0, 0, 0, 0, 3}, StandardOpenOption.APPEND);
+
+        MappedLinkStore recovered = open();
+        recovered.insert(3, "https://www.example.com/3", LinkDigest.of("https://www.example.com/3"));
+        recovered.close();
+        MappedLinkStore reopened = open();
+
+        Assertions.assertEquals(Optional.of("https://www.example.com/3"), reopened.findById(3));
+        Assertions.assertEquals(3, reopened.findPage(0, 10).size());
+    }
+
+    @Test
+    void testIndexGrows() {
+        long[] ids = new long[5_000];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = ids.length - i;
+        }
+        insertLinks(ids);
+
+        for (long id = 1; id <= ids.length; id++) {
+            Assertions.assertEquals(Optional.of("https://www.example.com/" + id), linkStore.findById(id));
+        }
+        Assertions.assertEquals(List.of(4_999L, 5_000L), linkStore.findPage(4_998, 10).stream().map(l -> l.getId()).toList());
+    }
+
+    private MappedLinkStore open() throws IOException {
+        MappedLinkStore store = new MappedLinkStore(dir, 16, true);
+        stores.add(store);
+        return store;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.urlshorter.repository.sharded;
+
+import com.example.urlshorter.dto.InputURLDTO;
+import com.example.urlshorter.dto.OutputDTO;
+import com.example.urlshorter.dto.Status;
+import com.example.urlshorter.repository.LinkStore;
+import com.example.urlshorter.service.ShortenerService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(properties = {
+        "app.store.engine=sharded",
+        "app.store.sharded.urls=jdbc:h2:mem:app-shard0;DB_CLOSE_DELAY=-1,jdbc:h2:mem:app-shard1;DB_CLOSE_DELAY=-1"
+})
+@AutoConfigureTestDatabase
+class ShardedLinkStoreApplicationTest {
+    @Autowired
+    LinkStore linkStore;
+
+    @Autowired
+    ShortenerService shortenerService;
+
+    @Test
+    void testShortenAndResolve() {
+        InputURLDTO inputURLDTO = new InputURLDTO();
+        inputURLDTO.setLink("https://www.example.com/sharded");
+
+        OutputDTO shortened = shortenerService.shorten(inputURLDTO);
+        String shortCode = shortened.getShortLink().substring(shortened.getShortLink().lastIndexOf('/') + 1);
+
+        Assertions.assertInstanceOf(ShardedLinkStore.class, linkStore);
+        Assertions.assertEquals(Status.SUCCESS, shortened.getStatus());
+        Assertions.assertEquals(shortened.getShortLink(), shortenerService.shorten(inputURLDTO).getShortLink());
+        Assertions.assertEquals("https://www.example.com/sharded", shortenerService.resolve(shortCode).orElseThrow());
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.urlshorter.repository.sharded;
+
+import com.example.urlshorter.dto.LinkRecordDTO;
+import com.example.urlshorter.metrics.ShortenerMetrics;
+import com.example.urlshorter.repository.LinkStore;
+import com.example.urlshorter.repository.LinkStoreContractTest;
+import com.example.urlshorter.service.LinkDigest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+class ShardedLinkStoreTest extends LinkStoreContractTest {
+    private static final int SHARDS = 3;
+    private static final int ID_RANGE_SIZE = 10;
+
+    private final List<EmbeddedDatabase> databases = new ArrayList<>();
+
+    @Override
+    protected LinkStore createStore() {
+        for (int i = 0; i < SHARDS; i++) {
+            databases.add(new EmbeddedDatabaseBuilder()
+                    .generateUniqueName(true)
+                    .setType(EmbeddedDatabaseType.H2)
+                    .build());
+        }
+        return new ShardedLinkStore(databases, ID_RANGE_SIZE, true, new ShortenerMetrics(new SimpleMeterRegistry()));
+    }
+
+    @AfterEach
+    void shutdown() {
+        for (EmbeddedDatabase database : databases) {
+            database.shutdown();
+        }
+    }
+
+    @Test
+    void testLinksAreStoredInTheShardOfTheirIdRange() {
+        for (long id = 1; id <= 60; id++) {
+            linkStore.insert(id, "https://www.example.com/" + id, LinkDigest.of("https://www.example.com/" + id));
+        }
+
+        for (int shard = 0; shard < SHARDS; shard++) {
+            List<Long> ids = new JdbcTemplate(databases.get(shard)).queryForList("select id from shortener order by id", Long.class);
+            Assertions.assertEquals(20, ids.size());
+            for (long id : ids) {
+                Assertions.assertEquals(shard, (id / ID_RANGE_SIZE) % SHARDS);
+            }
+        }
+        Assertions.assertEquals(Optional.of("https://www.example.com/42"), linkStore.findById(42));
+    }
+
+    @Test
+    void testDuplicateLongLinkInAnotherShard() {
+        String longLink = "https://www.example.com/duplicate";
+        linkStore.insert(1, longLink, LinkDigest.of(longLink));
+        ShardedLinkStore shardedLinkStore = (ShardedLinkStore) linkStore;
+        Assertions.assertNotEquals(shardedLinkStore.shardOfId(1), shardedLinkStore.shardOfId(11));
+
+        Assertions.assertThrows(DuplicateKeyException.class, () -> linkStore.insert(11, longLink, LinkDigest.of(longLink)));
+
+        Assertions.assertTrue(linkStore.findById(11).isEmpty());
+        Assertions.assertEquals(Optional.of(1L), linkStore.findByLongLink(longLink, LinkDigest.of(longLink)));
+    }
+
+    @Test
+    void testDuplicateInBatchKeepsTheOtherLinks() {
+        String longLink = "https://www.example.com/duplicate";
+        linkStore.insert(1, longLink, LinkDigest.of(longLink));
+        List<LinkRecordDTO> batch = new ArrayList<>();
+        for (long id = 2; id <= 40; id++) {
+            String link = id == 25 ? longLink : "https://www.example.com/" + id;
+            batch.add(new LinkRecordDTO(id, link, LinkDigest.of(link)));
+        }
+
+        Assertions.assertThrows(DuplicateKeyException.class, () -> linkStore.insertAll(batch));
+
+        Assertions.assertTrue(linkStore.findById(25).isEmpty());
+        for (long id = 2; id <= 40; id++) {
+            if (id != 25) {
+                String link = "https://www.example.com/" + id;
+                Assertions.assertEquals(Optional.of(link), linkStore.findById(id));
+                Assertions.assertEquals(Optional.of(id), linkStore.findByLongLink(link, LinkDigest.of(link)));
+            }
+        }
+    }
+
+    @Test
+    void testPagesAreMergedAcrossShards() {
+        for (long id = 1; id <= 45; id++) {
+            linkStore.insert(id, "https://www.example.com/" + id, LinkDigest.of("https://www.example.com/" + id));
+        }
+
+        List<LinkRecordDTO> page = linkStore.findPage(5, 20);
+
+        Assertions.assertEquals(20, page.size());
+        for (int i = 0; i < page.size(); i++) {
+            Assertions.assertEquals(6 + i, page.get(i).getId());
+        }
+    }
+}
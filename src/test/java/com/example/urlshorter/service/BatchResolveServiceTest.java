@@ -0,0 +1,152 @@
+package com.example.urlshorter.service;
+
+import com.example.urlshorter.codec.Base62Codec;
+import com.example.urlshorter.codec.LinkBinaryCodec;
+import com.example.urlshorter.dto.LinkRecordDTO;
+import com.example.urlshorter.dto.ResolveFormat;
+import com.example.urlshorter.repository.ShortenerRepository;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+class BatchResolveServiceTest {
+    private static final long FIRST_ID = 2_000_000_000L;
+    private static final int LINKS = 2_500;
+
+    @Autowired
+    BatchResolveService batchResolveService;
+
+    @Autowired
+    ShortenerService shortenerService;
+
+    @Autowired
+    ShortenerRepository shortenerRepository;
+
+    @Autowired
+    Base62Codec base62Codec;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    private String request;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        List<LinkRecordDTO> linkRecordDTOs = new ArrayList<>();
+        List<Object> links = new ArrayList<>();
+        for (int i = 0; i < LINKS; i++) {
+            // every third id is not stored
+            if (i % 3 != 2) {
+                String longLink = longLink(i);
+                linkRecordDTOs.add(new LinkRecordDTO(FIRST_ID + i, longLink, LinkDigest.of(longLink)));
+            }
+            links.add(Map.of("link", shortLink(i)));
+        }
+        shortenerRepository.insertAll(linkRecordDTOs);
+        links.add(Map.of("link", "other.sl/1"));
+        links.add(null);
+        request = objectMapper.writeValueAsString(links);
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        jdbcTemplate.update("delete from shortener where id >= ?", FIRST_ID);
+    }
+
+    @Test
+    void testResolveTextInRequestOrder() throws Exception {
+        double queries = findByIdsQueries();
+
+        String[] lines = resolve(ResolveFormat.TEXT, request).toString(StandardCharsets.UTF_8).split("\n", -1);
+
+        Assertions.assertEquals(LINKS + 3, lines.length);
+        for (int i = 0; i < LINKS; i++) {
+            Assertions.assertEquals(i % 3 != 2 ? longLink(i) : "", lines[i]);
+        }
+        Assertions.assertEquals("", lines[LINKS]);
+        Assertions.assertEquals("", lines[LINKS + 1]);
+        Assertions.assertEquals("", lines[LINKS + 2]);
+        // one in-query per chunk of misses
+        Assertions.assertEquals(3, findByIdsQueries() - queries);
+    }
+
+    @Test
+    void testResolveJson() throws Exception {
+        JsonNode results = objectMapper.readTree(resolve(ResolveFormat.JSON, request).toByteArray());
+
+        Assertions.assertEquals(LINKS + 2, results.size());
+        Assertions.assertEquals("SUCCESS", results.get(0).get("status").asText());
+        Assertions.assertEquals(longLink(0), results.get(0).get("longLink").asText());
+        Assertions.assertEquals(shortLink(0), results.get(0).get("shortLink").asText());
+        Assertions.assertEquals("FAILED", results.get(2).get("status").asText());
+        Assertions.assertNull(results.get(2).get("longLink"));
+        Assertions.assertEquals(shortLink(2), results.get(2).get("shortLink").asText());
+        Assertions.assertNull(results.get(LINKS + 1).get("shortLink"));
+    }
+
+    @Test
+    void testResolveBinaryServesCachedLinks() throws Exception {
+        shortenerService.resolve(shortLink(0).substring("vat.sl/".length()));
+        jdbcTemplate.update("delete from shortener where id = ?", FIRST_ID);
+
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(resolve(ResolveFormat.BINARY, request).toByteArray()));
+
+        Assertions.assertEquals(longLink(0), LinkBinaryCodec.read(input));
+        Assertions.assertEquals(longLink(1), LinkBinaryCodec.read(input));
+        Assertions.assertNull(LinkBinaryCodec.read(input));
+    }
+
+    @Test
+    void testResolveEmptyBatch() throws Exception {
+        Assertions.assertEquals("[]", resolve(ResolveFormat.JSON, "[]").toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testResolveMalformedBatch() {
+        Assertions.assertThrows(JsonParseException.class, () -> resolve(ResolveFormat.TEXT, "{\"link\":\"vat.sl/1\"}"));
+        Assertions.assertThrows(JsonParseException.class, () -> resolve(ResolveFormat.TEXT, "[\"vat.sl/1\"]"));
+    }
+
+    private ByteArrayOutputStream resolve(ResolveFormat format, String body) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        batchResolveService.resolve(format, new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), outputStream);
+        return outputStream;
+    }
+
+    private double findByIdsQueries() {
+        return meterRegistry.get("shortener.db.query").tag("query", "findByIds").timer().count();
+    }
+
+    private String shortLink(int i) {
+        return "vat.sl/" + base62Codec.encode(FIRST_ID + i);
+    }
+
+    private static String longLink(int i) {
+        return "https://www.example.com/batch/" + i;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.urlshorter.service;
+
+import com.example.urlshorter.repository.IdBlockRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+class BlockIdAllocatorTest {
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 2_000;
+
+    @Autowired
+    IdBlockRepository idBlockRepository;
+
+    @Test
+    void testNextIdIsSequentialWithinBlock() {
+        BlockIdAllocator allocator = new BlockIdAllocator(idBlockRepository, 10);
+        long first = allocator.nextId();
+        for (int i = 1; i < 10; i++) {
+            Assertions.assertEquals(first + i, allocator.nextId());
+        }
+    }
+
+    @Test
+    void testNextIdsReservesRange() {
+        BlockIdAllocator allocator = new BlockIdAllocator(idBlockRepository, 10);
+        long first = allocator.nextIds(1000);
+        long next = allocator.nextId();
+        Assertions.assertTrue(next < first || next >= first + 1000);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> allocator.nextIds(0));
+    }
+
+    @Test
+    void testInvalidBlockSize() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new BlockIdAllocator(idBlockRepository, 0));
+    }
+
+    @Test
+    void testNoDuplicatesUnderContention() throws Exception {
+        // two allocators share one db, like two app nodes
+        List<IdAllocator> nodes = List.of(
+                new BlockIdAllocator(idBlockRepository, 7),
+                new BlockIdAllocator(idBlockRepository, 13));
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                IdAllocator node = nodes.get(t % nodes.size());
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < IDS_PER_THREAD; i++) {
+                        Assertions.assertTrue(ids.add(node.nextId()), "duplicate id");
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Assertions.assertEquals(THREADS * IDS_PER_THREAD, ids.size());
+    }
+}
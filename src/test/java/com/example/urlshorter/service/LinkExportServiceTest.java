@@ -0,0 +1,156 @@
+package com.example.urlshorter.service;
+
+import com.example.urlshorter.dto.ExportFormat;
+import com.example.urlshorter.dto.LinkRecordDTO;
+import com.example.urlshorter.repository.LinkRowHandler;
+import com.example.urlshorter.repository.LinkStore;
+import com.example.urlshorter.repository.ShortenerRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+class LinkExportServiceTest {
+    private static final long FIRST_ID = 1_000_000_000L;
+    private static final int ROWS = 50_000;
+    private static final int INSERT_CHUNK = 10_000;
+
+    @Autowired
+    LinkExportService linkExportService;
+
+    @Autowired
+    ShortenerRepository shortenerRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @AfterEach
+    public void cleanUp() {
+        jdbcTemplate.update("delete from shortener where id >= ?", FIRST_ID);
+    }
+
+    @Test
+    void testExportCsvQuotesLongLinks() throws Exception {
+        insert(List.of(
+                record(FIRST_ID, "https://www.google.com/"),
+                record(FIRST_ID + 1, "https://example.com/?q=a,b&t=\"x\"")));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        linkExportService.export(ExportFormat.CSV, FIRST_ID - 1, outputStream);
+
+        Assertions.assertEquals("longLink,shortLink\n" +
+                "https://www.google.com/,vat.sl/15FTGg\n" +
+                "\"https://example.com/?q=a,b&t=\"\"x\"\"\",vat.sl/15FTGh\n", outputStream.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testExportNdjson() throws Exception {
+        insert(List.of(
+                record(FIRST_ID, "https://www.google.com/"),
+                record(FIRST_ID + 1, "https://www.facebook.com/")));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        linkExportService.export(ExportFormat.NDJSON, FIRST_ID, outputStream);
+
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        Assertions.assertEquals(1, lines.length);
+        JsonNode jsonNode = objectMapper.readTree(lines[0]);
+        Assertions.assertEquals("https://www.facebook.com/", jsonNode.get("longLink").asText());
+        Assertions.assertEquals("vat.sl/15FTGh", jsonNode.get("shortLink").asText());
+    }
+
+    @Test
+    void testExportStreamsRowsWhileScanning() throws Exception {
+        String padding = "x".repeat(200);
+        List<LinkRecordDTO> chunk = new ArrayList<>(INSERT_CHUNK);
+        for (int i = 0; i < ROWS; i++) {
+            chunk.add(record(FIRST_ID + i, "https://example.com/" + i + "/" + padding));
+            if (chunk.size() == INSERT_CHUNK) {
+                insert(chunk);
+                chunk.clear();
+            }
+        }
+        insert(chunk);
+
+        // counts the rows the scan handed out, the output must see bytes long before the last one
+        long[] scannedRows = new long[1];
+        LinkStore countingLinkStore = Mockito.mock(LinkStore.class);
+        Mockito.doAnswer(invocation -> {
+            LinkRowHandler handler = invocation.getArgument(1);
+            shortenerRepository.forEachLink(invocation.getArgument(0), (id, longLink) -> {
+                scannedRows[0]++;
+                handler.handle(id, longLink);
+            });
+            return null;
+        }).when(countingLinkStore).forEachLink(Mockito.anyLong(), Mockito.any());
+        Object linkStore = ReflectionTestUtils.getField(linkExportService, "linkStore");
+        ReflectionTestUtils.setField(linkExportService, "linkStore", countingLinkStore);
+        ScanTrackingOutputStream outputStream = new ScanTrackingOutputStream(scannedRows);
+        try {
+            linkExportService.export(ExportFormat.NDJSON, FIRST_ID - 1, outputStream);
+        } finally {
+            ReflectionTestUtils.setField(linkExportService, "linkStore", linkStore);
+        }
+
+        Assertions.assertEquals(ROWS, outputStream.lines);
+        Assertions.assertTrue(outputStream.scannedRowsAtFirstWrite < ROWS / 10,
+                "first write after " + outputStream.scannedRowsAtFirstWrite + " rows");
+    }
+
+    private void insert(List<LinkRecordDTO> linkRecordDTOs) {
+        shortenerRepository.insertAll(linkRecordDTOs);
+    }
+
+    private static LinkRecordDTO record(long id, String longLink) {
+        return new LinkRecordDTO(id, longLink, LinkDigest.of(longLink));
+    }
+
+    /**
+     * Counts lines and remembers how many rows were scanned when the first bytes came in.
+     */
+    private static class ScanTrackingOutputStream extends OutputStream {
+        private final long[] scannedRows;
+
+        long lines;
+        long scannedRowsAtFirstWrite = -1;
+
+        ScanTrackingOutputStream(long[] scannedRows) {
+            this.scannedRows = scannedRows;
+        }
+
+        @Override
+        public void write(int b) {
+            if (scannedRowsAtFirstWrite < 0) {
+                scannedRowsAtFirstWrite = scannedRows[0];
+            }
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                write(b[i]);
+            }
+        }
+    }
+}
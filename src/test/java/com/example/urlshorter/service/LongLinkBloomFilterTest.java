@@ -0,0 +1,40 @@
+package com.example.urlshorter.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class LongLinkBloomFilterTest {
+    private static final int INSERTIONS = 10_000;
+
+    @Test
+    void testNoFalseNegatives() {
+        LongLinkBloomFilter filter = new LongLinkBloomFilter(true, INSERTIONS, 0.01);
+        for (int i = 0; i < INSERTIONS; i++) {
+            filter.put(LinkDigest.of("https://www.google.com/search?q=" + i));
+        }
+        for (int i = 0; i < INSERTIONS; i++) {
+            Assertions.assertTrue(filter.mightContain(LinkDigest.of("https://www.google.com/search?q=" + i)));
+        }
+    }
+
+    @Test
+    void testFalsePositiveRate() {
+        LongLinkBloomFilter filter = new LongLinkBloomFilter(true, INSERTIONS, 0.01);
+        for (int i = 0; i < INSERTIONS; i++) {
+            filter.put(LinkDigest.of("https://www.google.com/search?q=" + i));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < INSERTIONS; i++) {
+            if (filter.mightContain(LinkDigest.of("https://www.facebook.com/search?q=" + i))) {
+                falsePositives++;
+            }
+        }
+        Assertions.assertTrue(falsePositives < INSERTIONS * 0.02, "false positives:" + falsePositives);
+    }
+
+    @Test
+    void testDisabled() {
+        LongLinkBloomFilter filter = new LongLinkBloomFilter(false, INSERTIONS, 0.01);
+        Assertions.assertTrue(filter.mightContain(LinkDigest.of("https://www.google.com/")));
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.urlshorter.service;
+
+import com.example.urlshorter.dto.InputURLDTO;
+import com.example.urlshorter.dto.OriginalOutputDTO;
+import com.example.urlshorter.dto.Status;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+class ReactiveShortenerOperationsTest {
+    private static final String LONG_LINK_GOOGlE = "https://www.google.com/";
+
+    private final ShortenerService shortenerService = Mockito.mock(ShortenerService.class);
+
+    private final ReactiveShortenerOperations reactiveShortenerOperations = new ReactiveShortenerOperations(shortenerService, 2, 100);
+
+    @AfterEach
+    public void shutdown() {
+        reactiveShortenerOperations.shutdown();
+    }
+
+    @Test
+    void testResolveCachedStaysOnCallingThread() {
+        Mockito.when(shortenerService.resolveCached("1")).thenReturn(Optional.of(LONG_LINK_GOOGlE));
+        AtomicReference<String> result = new AtomicReference<>();
+
+        // a cached answer must be available right after subscribing, without a thread hop
+        reactiveShortenerOperations.resolve("1").subscribe(result::set);
+
+        Assertions.assertEquals(LONG_LINK_GOOGlE, result.get());
+        Mockito.verify(shortenerService, Mockito.never()).resolve(Mockito.anyString());
+    }
+
+    @Test
+    void testResolveMissRunsOnJdbcScheduler() {
+        Mockito.when(shortenerService.resolveCached("1")).thenReturn(null);
+        AtomicReference<String> thread = new AtomicReference<>();
+        Mockito.when(shortenerService.resolve("1")).thenAnswer(invocation -> {
+            thread.set(Thread.currentThread().getName());
+            return Optional.of(LONG_LINK_GOOGlE);
+        });
+
+        Assertions.assertEquals(LONG_LINK_GOOGlE, reactiveShortenerOperations.resolve("1").block());
+        Assertions.assertTrue(thread.get().startsWith("reactive-jdbc"), thread.get());
+    }
+
+    @Test
+    void testResolveNotFound() {
+        Mockito.when(shortenerService.resolveCached("1")).thenReturn(Optional.empty());
+
+        Assertions.assertNull(reactiveShortenerOperations.resolve("1").block());
+    }
+
+    @Test
+    void testGetOriginal() {
+        InputURLDTO inputURLDTO = new InputURLDTO();
+        inputURLDTO.setLink("vat.sl/1");
+        OriginalOutputDTO found = new OriginalOutputDTO(Status.SUCCESS, null, LONG_LINK_GOOGlE, "vat.sl/1");
+        OriginalOutputDTO notFound = new OriginalOutputDTO(Status.FAILED, null, null, "vat.sl/1");
+        Mockito.when(shortenerService.toShortCode("vat.sl/1")).thenReturn(Optional.of("1"));
+        Mockito.when(shortenerService.resolveCached("1")).thenReturn(Optional.of(LONG_LINK_GOOGlE));
+        Mockito.when(shortenerService.toOriginalOutput(inputURLDTO, Optional.of(LONG_LINK_GOOGlE))).thenReturn(found);
+        Mockito.when(shortenerService.toOriginalOutput(inputURLDTO, Optional.empty())).thenReturn(notFound);
+
+        Assertions.assertSame(found, reactiveShortenerOperations.getOriginal(inputURLDTO).block());
+    }
+}
@@ -1,52 +1,173 @@
 package com.example.urlshorter.service;
 
+import com.example.urlshorter.analytics.ClickAggregator;
+import com.example.urlshorter.cache.LinkCache;
+import com.example.urlshorter.dto.ClickBucketDTO;
 import com.example.urlshorter.dto.InputURLDTO;
+import com.example.urlshorter.dto.LinkPageDTO;
+import com.example.urlshorter.dto.LinkRecordDTO;
+import com.example.urlshorter.dto.LinkStatsDTO;
 import com.example.urlshorter.dto.OutputDTO;
 import com.example.urlshorter.dto.Status;
+import com.example.urlshorter.repository.ClickStatsRepository;
 import com.example.urlshorter.repository.ShortenerRepository;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.example.urlshorter.constants.Constant.*;
 
-@SpringBootTest
+// thousands of requests waiting for one db query take a while to start on a small machine
+@SpringBootTest(properties = "app.coalescing.timeout=1m")
 @AutoConfigureTestDatabase
 class ShortenerServiceTest {
     private static final String LONG_LINK_GOOGlE = "https://www.google.com/";
     private static final String LONG_LINK_FB = "https://www.facebook.com/";
     private static final String SHORT_LINK_GOOGLE = "vat.sl/1";
     private static final String SHORT_LINK_FB = "vat.sl/2";
+    private static final int CONCURRENT_REQUESTS = 10_000;
 
     @MockBean
     ShortenerRepository shortenerRepository;
 
+    @MockBean
+    IdAllocator idAllocator;
+
+    @MockBean
+    ClickAggregator clickAggregator;
+
+    @MockBean
+    ClickStatsRepository clickStatsRepository;
+
     @Autowired
     ShortenerService shortenerService;
 
+    @Autowired
+    LinkCache linkCache;
+
+    @BeforeEach
+    public void initialise() {
+        linkCache.evictAll();
+    }
+
+    @Test
+    void testGetLinks() {
+        List<LinkRecordDTO> linkRecordDTOList = new ArrayList<>();
+        linkRecordDTOList.add(new LinkRecordDTO(1, LONG_LINK_GOOGlE));
+        linkRecordDTOList.add(new LinkRecordDTO(2, LONG_LINK_FB));
+        Mockito.when(shortenerRepository.findPage(0L, 2)).thenReturn(linkRecordDTOList);
+
+        LinkPageDTO linkPageDTO = shortenerService.getLinks(0L, 2);
+        List<OutputDTO> outputDTOS = linkPageDTO.getLinks();
+        Assertions.assertEquals(2L, linkPageDTO.getNextAfter());
+        Assertions.assertEquals(2, outputDTOS.size());
+        Assertions.assertEquals(LONG_LINK_GOOGlE, outputDTOS.get(0).getLongLink());
+        Assertions.assertEquals(SHORT_LINK_GOOGLE, outputDTOS.get(0).getShortLink());
+        Assertions.assertEquals(LONG_LINK_FB, outputDTOS.get(1).getLongLink());
+        Assertions.assertEquals(SHORT_LINK_FB, outputDTOS.get(1).getShortLink());
+    }
+
+    @Test
+    void testGetLinksLastPage() {
+        List<LinkRecordDTO> linkRecordDTOList = List.of(new LinkRecordDTO(2, LONG_LINK_FB));
+        Mockito.when(shortenerRepository.findPage(1L, 2)).thenReturn(linkRecordDTOList);
+
+        LinkPageDTO linkPageDTO = shortenerService.getLinks(1L, 2);
+        Assertions.assertEquals(1, linkPageDTO.getLinks().size());
+        Assertions.assertNull(linkPageDTO.getNextAfter());
+    }
+
+    @Test
+    void testResolveCountsClick() {
+        Mockito.when(shortenerRepository.findById(2L)).thenReturn(Optional.of(LONG_LINK_FB));
+
+        shortenerService.resolve("2");
+        shortenerService.resolve("2");
+
+        Mockito.verify(clickAggregator, Mockito.times(2)).record(2L);
+    }
+
+    @Test
+    void testResolveNotFoundCountsNoClick() {
+        Mockito.when(shortenerRepository.findById(Mockito.anyLong())).thenReturn(Optional.empty());
+
+        shortenerService.resolve("2");
+
+        Mockito.verifyNoInteractions(clickAggregator);
+    }
+
+    @Test
+    void testResolveAll() {
+        Mockito.when(shortenerRepository.findById(1L)).thenReturn(Optional.of(LONG_LINK_GOOGlE));
+        shortenerService.resolve("1");
+        Mockito.when(shortenerRepository.findByIds(Mockito.anyList())).thenReturn(List.of(new LinkRecordDTO(2, LONG_LINK_FB)));
+
+        String[] longLinks = shortenerService.resolveAll(Arrays.asList(SHORT_LINK_FB, "vat.sl/3", SHORT_LINK_GOOGLE, null, "other.sl/2", "vat.sl/-", SHORT_LINK_FB));
+
+        Assertions.assertArrayEquals(new String[]{LONG_LINK_FB, null, LONG_LINK_GOOGlE, null, null, null, LONG_LINK_FB}, longLinks);
+        // cached links are not fetched, each missing id once
+        ArgumentCaptor<List<Long>> ids = ArgumentCaptor.captor();
+        Mockito.verify(shortenerRepository).findByIds(ids.capture());
+        Assertions.assertEquals(Set.of(2L, 3L), new HashSet<>(ids.getValue()));
+        // fetched links are neither cached nor counted as clicks
+        Assertions.assertNull(linkCache.getIfPresent("2"));
+        Mockito.verify(clickAggregator, Mockito.times(1)).record(Mockito.anyLong());
+    }
+
+    @Test
+    void testResolveCached() {
+        Mockito.when(shortenerRepository.findById(2L)).thenReturn(Optional.of(LONG_LINK_FB));
+
+        Assertions.assertNull(shortenerService.resolveCached("2"));
+        shortenerService.resolve("2");
+        Assertions.assertEquals(LONG_LINK_FB, shortenerService.resolveCached("2").get());
+
+        Mockito.verify(shortenerRepository, Mockito.times(1)).findById(2L);
+        // the cached resolve never waits for the click counters
+        Mockito.verify(clickAggregator, Mockito.times(1)).record(2L);
+        Mockito.verify(clickAggregator, Mockito.times(1)).tryRecord(2L);
+    }
+
+    @Test
+    void testGetStats() {
+        Mockito.when(shortenerRepository.findById(2L)).thenReturn(Optional.of(LONG_LINK_FB));
+        Mockito.when(clickStatsRepository.findByLinkId(2L)).thenReturn(List.of(new ClickBucketDTO(0L, 3), new ClickBucketDTO(3_600_000L, 4)));
+
+        LinkStatsDTO linkStatsDTO = shortenerService.getStats("2").get();
+        Assertions.assertEquals(SHORT_LINK_FB, linkStatsDTO.getShortLink());
+        Assertions.assertEquals(7, linkStatsDTO.getTotalClicks());
+        Assertions.assertEquals(2, linkStatsDTO.getBuckets().size());
+        Mockito.verifyNoInteractions(clickAggregator);
+    }
+
     @Test
-    void testGetAllLinks() {
-        List<OutputDTO> outputDTOList = new ArrayList<>();
-        outputDTOList.add(new OutputDTO(LONG_LINK_GOOGlE, SHORT_LINK_GOOGLE));
-        outputDTOList.add(new OutputDTO(LONG_LINK_FB, SHORT_LINK_FB));
-        Mockito.when(shortenerRepository.getAllLinks()).thenReturn(outputDTOList);
+    void testGetStatsNotFound() {
+        Mockito.when(shortenerRepository.findById(Mockito.anyLong())).thenReturn(Optional.empty());
 
-        List<OutputDTO> outputDTOS = shortenerService.getAllLinks();
-        Assertions.assertArrayEquals(outputDTOList.toArray(), outputDTOS.toArray());
+        Assertions.assertTrue(shortenerService.getStats("2").isEmpty());
+        Mockito.verifyNoInteractions(clickStatsRepository);
     }
 
     @Test
     void testGetOriginalSuccess() {
         Optional<String> stringOptional = Optional.of(LONG_LINK_GOOGlE);
-        Mockito.when(shortenerRepository.findByShortLink(Mockito.any())).thenReturn(stringOptional);
+        Mockito.when(shortenerRepository.findById(Mockito.anyLong())).thenReturn(stringOptional);
 
         InputURLDTO inputURLDTO = new InputURLDTO();
         inputURLDTO.setLink(SHORT_LINK_GOOGLE);
@@ -61,7 +182,7 @@ class ShortenerServiceTest {
     @Test
     void testGetOriginalFailure() {
         Optional<String> stringOptional = Optional.empty();
-        Mockito.when(shortenerRepository.findByShortLink(Mockito.any())).thenReturn(stringOptional);
+        Mockito.when(shortenerRepository.findById(Mockito.anyLong())).thenReturn(stringOptional);
 
         InputURLDTO inputURLDTO = new InputURLDTO();
         inputURLDTO.setLink(SHORT_LINK_GOOGLE);
@@ -75,8 +196,7 @@ class ShortenerServiceTest {
 
     @Test
     void testShortenAlreadyPresent() {
-        Optional<String> stringOptional = Optional.of(SHORT_LINK_GOOGLE);
-        Mockito.when(shortenerRepository.findByLongLink(Mockito.any())).thenReturn(stringOptional);
+        Mockito.when(shortenerRepository.findByLongLink(Mockito.any(), Mockito.any())).thenReturn(Optional.of(1L));
 
         InputURLDTO inputURLDTO = new InputURLDTO();
         inputURLDTO.setLink(LONG_LINK_GOOGlE);
@@ -90,9 +210,8 @@ class ShortenerServiceTest {
 
     @Test
     void testShorten() {
-        Optional<String> stringOptional = Optional.empty();
-        Mockito.when(shortenerRepository.findByLongLink(Mockito.any())).thenReturn(stringOptional);
-        Mockito.when(shortenerRepository.getMaxId()).thenReturn(1);
+        Mockito.when(shortenerRepository.findByLongLink(Mockito.any(), Mockito.any())).thenReturn(Optional.empty());
+        Mockito.when(idAllocator.nextId()).thenReturn(2L);
 
         InputURLDTO inputURLDTO = new InputURLDTO();
         inputURLDTO.setLink(LONG_LINK_GOOGlE);
@@ -105,10 +224,23 @@ class ShortenerServiceTest {
     }
 
     @Test
-    void testShortenIdNull() {
-        Optional<String> stringOptional = Optional.empty();
-        Mockito.when(shortenerRepository.findByLongLink(Mockito.any())).thenReturn(stringOptional);
-        Mockito.when(shortenerRepository.getMaxId()).thenReturn(null);
+    void testShortenEquivalentLink() {
+        Mockito.when(shortenerRepository.findByLongLink(Mockito.eq(LONG_LINK_GOOGlE), Mockito.any())).thenReturn(Optional.of(1L));
+
+        InputURLDTO inputURLDTO = new InputURLDTO();
+        inputURLDTO.setLink("HTTPS://WWW.Google.com:443");
+
+        OutputDTO result = shortenerService.shorten(inputURLDTO);
+        Assertions.assertEquals(Status.SUCCESS, result.getStatus());
+        Assertions.assertEquals(LONG_LINK_GOOGlE, result.getLongLink());
+        Assertions.assertEquals(SHORT_LINK_GOOGLE, result.getShortLink());
+        Mockito.verify(shortenerRepository, Mockito.never()).insert(Mockito.anyLong(), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    void testShortenFirstId() {
+        Mockito.when(shortenerRepository.findByLongLink(Mockito.any(), Mockito.any())).thenReturn(Optional.empty());
+        Mockito.when(idAllocator.nextId()).thenReturn(1L);
 
         InputURLDTO inputURLDTO = new InputURLDTO();
         inputURLDTO.setLink(LONG_LINK_GOOGlE);
@@ -119,4 +251,239 @@ class ShortenerServiceTest {
         Assertions.assertEquals(LONG_LINK_GOOGlE, result.getLongLink());
         Assertions.assertEquals(SHORT_LINK_GOOGLE, result.getShortLink());
     }
+
+    @Test
+    void testGetOriginalCached() {
+        Mockito.when(shortenerRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(LONG_LINK_GOOGlE));
+
+        InputURLDTO inputURLDTO = new InputURLDTO();
+        inputURLDTO.setLink(SHORT_LINK_GOOGLE);
+        // cache stats are not reset between tests
+        long hitCount = shortenerService.getCacheStats().getHitCount();
+
+        shortenerService.getOriginal(inputURLDTO);
+        OutputDTO result = shortenerService.getOriginal(inputURLDTO);
+        Assertions.assertEquals(LONG_LINK_GOOGlE, result.getLongLink());
+        Mockito.verify(shortenerRepository, Mockito.times(1)).findById(1L);
+        Assertions.assertEquals(hitCount + 1, shortenerService.getCacheStats().getHitCount());
+    }
+
+    @Test
+    void testGetOriginalNotFoundCached() {
+        Mockito.when(shortenerRepository.findById(Mockito.anyLong())).thenReturn(Optional.empty());
+
+        InputURLDTO inputURLDTO = new InputURLDTO();
+        inputURLDTO.setLink(SHORT_LINK_GOOGLE);
+
+        shortenerService.getOriginal(inputURLDTO);
+        OutputDTO result = shortenerService.getOriginal(inputURLDTO);
+        Assertions.assertEquals(Status.FAILED, result.getStatus());
+        Mockito.verify(shortenerRepository, Mockito.times(1)).findById(1L);
+    }
+
+    @Test
+    void testShortenReplacesNotFoundEntry() {
+        Mockito.when(shortenerRepository.findById(Mockito.anyLong())).thenReturn(Optional.empty());
+        Mockito.when(shortenerRepository.findByLongLink(Mockito.any(), Mockito.any())).thenReturn(Optional.empty());
+        Mockito.when(idAllocator.nextId()).thenReturn(1L);
+
+        InputURLDTO shortLinkDTO = new InputURLDTO();
+        shortLinkDTO.setLink(SHORT_LINK_GOOGLE);
+        shortenerService.getOriginal(shortLinkDTO);
+
+        InputURLDTO longLinkDTO = new InputURLDTO();
+        longLinkDTO.setLink(LONG_LINK_GOOGlE);
+        shortenerService.shorten(longLinkDTO);
+
+        OutputDTO result = shortenerService.getOriginal(shortLinkDTO);
+        Assertions.assertEquals(Status.SUCCESS, result.getStatus());
+        Assertions.assertEquals(LONG_LINK_GOOGlE, result.getLongLink());
+    }
+
+    @Test
+    void testGetOriginalUnknownBaseUrl() {
+        InputURLDTO inputURLDTO = new InputURLDTO();
+        inputURLDTO.setLink("bit.ly/1");
+
+        OutputDTO result = shortenerService.getOriginal(inputURLDTO);
+        Assertions.assertEquals(Status.FAILED, result.getStatus());
+        Mockito.verifyNoInteractions(shortenerRepository);
+    }
+
+    @Test
+    void testResolveInvalidCode() {
+        Assertions.assertTrue(shortenerService.resolve("a-b").isEmpty());
+        Assertions.assertTrue(shortenerService.resolve("zzzzzzzzzzzz").isEmpty());
+        Mockito.verifyNoInteractions(shortenerRepository);
+    }
+
+    @Test
+    void testShortenStoresDigest() {
+        Mockito.when(shortenerRepository.findByLongLink(Mockito.any(), Mockito.any())).thenReturn(Optional.empty());
+        Mockito.when(idAllocator.nextId()).thenReturn(1L);
+
+        InputURLDTO inputURLDTO = new InputURLDTO();
+        inputURLDTO.setLink(LONG_LINK_GOOGlE);
+
+        shortenerService.shorten(inputURLDTO);
+        Mockito.verify(shortenerRepository).insert(1L, LONG_LINK_GOOGlE, LinkDigest.of(LONG_LINK_GOOGlE));
+    }
+
+    @Test
+    void testShortenInsertedConcurrently() {
+        Mockito.when(shortenerRepository.findByLongLink(Mockito.any(), Mockito.any())).thenReturn(Optional.empty(), Optional.of(1L));
+        Mockito.when(idAllocator.nextId()).thenReturn(2L);
+        Mockito.doThrow(new DuplicateKeyException("long_link_hash")).when(shortenerRepository).insert(Mockito.anyLong(), Mockito.any(), Mockito.any());
+
+        InputURLDTO inputURLDTO = new InputURLDTO();
+        inputURLDTO.setLink(LONG_LINK_GOOGlE);
+
+        OutputDTO result = shortenerService.shorten(inputURLDTO);
+        Assertions.assertEquals(Status.SUCCESS, result.getStatus());
+        Assertions.assertEquals(SHORT_LINK_GOOGLE, result.getShortLink());
+    }
+
+    @Test
+    void testShortenDigestCollision() {
+        Mockito.when(shortenerRepository.findByLongLink(Mockito.any(), Mockito.any())).thenReturn(Optional.empty());
+        Mockito.when(idAllocator.nextId()).thenReturn(2L);
+        Mockito.doThrow(new DuplicateKeyException("long_link_hash")).when(shortenerRepository).insert(Mockito.anyLong(), Mockito.any(), Mockito.any());
+
+        InputURLDTO inputURLDTO = new InputURLDTO();
+        inputURLDTO.setLink(LONG_LINK_GOOGlE);
+
+        Assertions.assertThrows(DuplicateKeyException.class, () -> shortenerService.shorten(inputURLDTO));
+    }
+
+    @Test
+    void testShortenBatch() {
+        Mockito.when(shortenerRepository.findByLongLinkHashes(Mockito.any())).thenReturn(List.of(new LinkRecordDTO(1, LONG_LINK_GOOGlE)));
+        Mockito.when(idAllocator.nextIds(1)).thenReturn(5L);
+
+        List<OutputDTO> results = shortenerService.shortenBatch(List.of(
+                input(LONG_LINK_GOOGlE), input(LONG_LINK_FB), input(LONG_LINK_GOOGlE), input("not a link")));
+
+        Assertions.assertEquals(4, results.size());
+        Assertions.assertEquals(SHORT_LINK_GOOGLE, results.get(0).getShortLink());
+        Assertions.assertEquals("vat.sl/5", results.get(1).getShortLink());
+        Assertions.assertEquals(LONG_LINK_FB, results.get(1).getLongLink());
+        Assertions.assertEquals(SHORT_LINK_GOOGLE, results.get(2).getShortLink());
+        Assertions.assertEquals(Status.FAILED, results.get(3).getStatus());
+        Assertions.assertEquals(INVALID_LINK, results.get(3).getMessage());
+        Assertions.assertNull(results.get(3).getShortLink());
+
+        ArgumentCaptor<List<LinkRecordDTO>> inserted = ArgumentCaptor.captor();
+        Mockito.verify(shortenerRepository).insertAll(inserted.capture());
+        Assertions.assertEquals(1, inserted.getValue().size());
+        Assertions.assertEquals(5, inserted.getValue().get(0).getId());
+        Assertions.assertArrayEquals(LinkDigest.of(LONG_LINK_FB), inserted.getValue().get(0).getLongLinkHash());
+        Mockito.verify(idAllocator, Mockito.never()).nextId();
+    }
+
+    @Test
+    void testShortenBatchAllExisting() {
+        Mockito.when(shortenerRepository.findByLongLinkHashes(Mockito.any())).thenReturn(List.of(new LinkRecordDTO(1, LONG_LINK_GOOGlE)));
+
+        List<OutputDTO> results = shortenerService.shortenBatch(List.of(input(LONG_LINK_GOOGlE)));
+
+        Assertions.assertEquals(SHORT_LINK_GOOGLE, results.get(0).getShortLink());
+        Mockito.verify(shortenerRepository, Mockito.never()).insertAll(Mockito.any());
+        Mockito.verifyNoInteractions(idAllocator);
+    }
+
+    @Test
+    void testShortenBatchInsertedConcurrently() {
+        Mockito.when(shortenerRepository.findByLongLinkHashes(Mockito.any())).thenReturn(List.of());
+        Mockito.when(idAllocator.nextIds(2)).thenReturn(5L);
+        Mockito.doThrow(new DuplicateKeyException("long_link_hash")).when(shortenerRepository).insertAll(Mockito.any());
+        Mockito.doThrow(new DuplicateKeyException("long_link_hash")).when(shortenerRepository).insert(Mockito.eq(5L), Mockito.any(), Mockito.any());
+        Mockito.when(shortenerRepository.findByLongLink(Mockito.eq(LONG_LINK_GOOGlE), Mockito.any())).thenReturn(Optional.of(1L));
+
+        List<OutputDTO> results = shortenerService.shortenBatch(List.of(input(LONG_LINK_GOOGlE), input(LONG_LINK_FB)));
+
+        Assertions.assertEquals(SHORT_LINK_GOOGLE, results.get(0).getShortLink());
+        Assertions.assertEquals("vat.sl/6", results.get(1).getShortLink());
+        // links inserted one by one are cached, also the one found under its concurrent id
+        Assertions.assertEquals(Optional.of(LONG_LINK_GOOGlE), linkCache.getIfPresent("1"));
+        Assertions.assertEquals(Optional.of(LONG_LINK_FB), linkCache.getIfPresent("6"));
+    }
+
+    @Test
+    void testConcurrentMissesQueryOnce() throws InterruptedException {
+        List<Thread> requests = new ArrayList<>();
+        Mockito.when(shortenerRepository.findById(1L)).thenAnswer(invocation -> {
+            awaitOthersWaiting(requests);
+            return Optional.of(LONG_LINK_GOOGlE);
+        });
+        InputURLDTO inputURLDTO = input(SHORT_LINK_GOOGLE);
+        AtomicInteger found = new AtomicInteger();
+
+        runConcurrently(requests, () -> {
+            if (LONG_LINK_GOOGlE.equals(shortenerService.getOriginal(inputURLDTO).getLongLink())) {
+                found.incrementAndGet();
+            }
+        });
+
+        Assertions.assertEquals(CONCURRENT_REQUESTS, found.get());
+        Mockito.verify(shortenerRepository, Mockito.times(1)).findById(Mockito.anyLong());
+    }
+
+    @Test
+    void testConcurrentShortensQueryOnce() throws InterruptedException {
+        List<Thread> requests = new ArrayList<>();
+        Mockito.when(shortenerRepository.findByLongLink(Mockito.any(), Mockito.any())).thenAnswer(invocation -> {
+            awaitOthersWaiting(requests);
+            return Optional.empty();
+        });
+        Mockito.when(idAllocator.nextId()).thenReturn(1L);
+        InputURLDTO inputURLDTO = input(LONG_LINK_GOOGlE);
+        AtomicInteger shortened = new AtomicInteger();
+
+        runConcurrently(requests, () -> {
+            if (SHORT_LINK_GOOGLE.equals(shortenerService.shorten(inputURLDTO).getShortLink())) {
+                shortened.incrementAndGet();
+            }
+        });
+
+        Assertions.assertEquals(CONCURRENT_REQUESTS, shortened.get());
+        Mockito.verify(shortenerRepository, Mockito.times(1)).findByLongLink(Mockito.any(), Mockito.any());
+        Mockito.verify(shortenerRepository, Mockito.times(1)).insert(Mockito.anyLong(), Mockito.any(), Mockito.any());
+        Mockito.verify(idAllocator, Mockito.times(1)).nextId();
+    }
+
+    // starts CONCURRENT_REQUESTS threads running the request at once, added to requests before they start
+    private static void runConcurrently(List<Thread> requests, Runnable request) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                request.run();
+            });
+            thread.start();
+            requests.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : requests) {
+            thread.join();
+        }
+    }
+
+    // holds the db query until all other requests wait for its result
+    private static void awaitOthersWaiting(List<Thread> requests) throws InterruptedException {
+        for (Thread thread : requests) {
+            while (thread != Thread.currentThread() && thread.getState() != Thread.State.TIMED_WAITING) {
+                Thread.sleep(1);
+            }
+        }
+    }
+
+    private static InputURLDTO input(String link) {
+        InputURLDTO inputURLDTO = new InputURLDTO();
+        inputURLDTO.setLink(link);
+        return inputURLDTO;
+    }
 }
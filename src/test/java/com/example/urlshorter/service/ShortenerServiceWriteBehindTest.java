@@ -0,0 +1,72 @@
+package com.example.urlshorter.service;
+
+import com.example.urlshorter.dto.InputURLDTO;
+import com.example.urlshorter.dto.OutputDTO;
+import com.example.urlshorter.ingest.WriteBehindIngest;
+import com.example.urlshorter.repository.LinkStore;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+@SpringBootTest(properties = {
+        "app.ingest.write-behind.enabled=true",
+        "app.ingest.write-behind.flush-interval=1h",
+        "app.cache.max-size=0"
+})
+@AutoConfigureTestDatabase
+class ShortenerServiceWriteBehindTest {
+    private static final String LONG_LINK = "https://www.example.com/write-behind";
+
+    @Autowired
+    ShortenerService shortenerService;
+
+    @Autowired
+    WriteBehindIngest writeBehindIngest;
+
+    @Autowired
+    LinkStore linkStore;
+
+    @DynamicPropertySource
+    static void journal(DynamicPropertyRegistry registry) throws IOException {
+        Path journal = Files.createTempDirectory("write-behind-test").resolve("ingest.journal");
+        registry.add("app.ingest.write-behind.journal", journal::toString);
+    }
+
+    @Test
+    void testShortenedLinkIsServedBeforeItIsStored() {
+        InputURLDTO inputURLDTO = new InputURLDTO();
+        inputURLDTO.setLink(LONG_LINK);
+
+        OutputDTO outputDTO = shortenerService.shorten(inputURLDTO);
+        String shortCode = shortenerService.toShortCode(outputDTO.getShortLink()).orElseThrow();
+
+        Assertions.assertEquals(1, writeBehindIngest.pendingCount());
+        Assertions.assertEquals(Optional.of(LONG_LINK), shortenerService.resolve(shortCode));
+        Assertions.assertEquals(outputDTO.getShortLink(), shortenerService.shorten(inputURLDTO).getShortLink());
+        Assertions.assertEquals(1, writeBehindIngest.pendingCount());
+    }
+
+    @Test
+    void testShortenBatchReusesPendingLink() {
+        String longLink = LONG_LINK + "/batch";
+        InputURLDTO inputURLDTO = new InputURLDTO();
+        inputURLDTO.setLink(longLink);
+
+        OutputDTO outputDTO = shortenerService.shorten(inputURLDTO);
+        List<OutputDTO> batch = shortenerService.shortenBatch(List.of(inputURLDTO));
+
+        Assertions.assertEquals(outputDTO.getShortLink(), batch.get(0).getShortLink());
+        Assertions.assertEquals(Optional.empty(), linkStore.findByLongLink(longLink, LinkDigest.of(longLink)));
+        Assertions.assertTrue(writeBehindIngest.findPendingId(longLink).isPresent());
+    }
+}
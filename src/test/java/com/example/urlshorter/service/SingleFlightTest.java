@@ -0,0 +1,93 @@
+package com.example.urlshorter.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+class SingleFlightTest {
+
+    @Test
+    void testFailureIsThrownToWaitersAndNotKept() throws InterruptedException {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(TimeUnit.SECONDS.toNanos(10));
+        IllegalStateException failure = new IllegalStateException("db down");
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch fail = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        AtomicReference<Throwable> leaderThrown = new AtomicReference<>();
+        AtomicReference<Throwable> waiterThrown = new AtomicReference<>();
+
+        Thread leader = new Thread(() -> {
+            try {
+                singleFlight.execute("w7e", key -> {
+                    loads.incrementAndGet();
+                    loading.countDown();
+                    await(fail);
+                    throw failure;
+                });
+            } catch (RuntimeException e) {
+                leaderThrown.set(e);
+            }
+        });
+        leader.start();
+        loading.await();
+        Thread waiter = new Thread(() -> {
+            try {
+                singleFlight.execute("w7e", key -> {
+                    loads.incrementAndGet();
+                    return "https://www.google.com/";
+                });
+            } catch (RuntimeException e) {
+                waiterThrown.set(e);
+            }
+        });
+        waiter.start();
+        while (waiter.getState() != Thread.State.TIMED_WAITING) {
+            Thread.sleep(1);
+        }
+        fail.countDown();
+        leader.join();
+        waiter.join();
+
+        Assertions.assertSame(failure, leaderThrown.get());
+        Assertions.assertSame(failure, waiterThrown.get());
+        Assertions.assertEquals(1, loads.get());
+        Assertions.assertEquals(0, singleFlight.inFlight());
+        // the next caller loads again
+        Assertions.assertEquals("https://www.google.com/", singleFlight.execute("w7e", key -> "https://www.google.com/"));
+    }
+
+    @Test
+    void testWaiterTimesOut() throws InterruptedException {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(TimeUnit.MILLISECONDS.toNanos(20));
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        Thread leader = new Thread(() -> singleFlight.execute("w7e", key -> {
+            loading.countDown();
+            await(done);
+            return "https://www.google.com/";
+        }));
+        leader.start();
+        loading.await();
+
+        Assertions.assertThrows(QueryTimeoutException.class, () -> singleFlight.execute("w7e", key -> "https://www.facebook.com/"));
+        // other keys are not held up
+        Assertions.assertEquals("https://www.facebook.com/", singleFlight.execute("w7f", key -> "https://www.facebook.com/"));
+
+        done.countDown();
+        leader.join();
+        Assertions.assertEquals(0, singleFlight.inFlight());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}